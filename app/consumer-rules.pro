@@ -0,0 +1,8 @@
+# Rules applied to apps that depend on this library (consumerProguardFiles).
+
+# @Entity generated adapters are loaded by class name.
+-keep class **_JsonAdapter { <init>(); }
+-keep class **_CursorMapper { <init>(); }
+-keep class **_ContentValuesBinder { <init>(); }
+# Adapters are looked up by the entity's class name, keep it unobfuscated.
+-keepnames @com.androidx.annotation.Entity class *
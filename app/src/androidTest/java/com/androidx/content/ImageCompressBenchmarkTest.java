@@ -0,0 +1,208 @@
+package com.androidx.content;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:图片压缩基准，用生成的照片类和图形类图片组成样本，
+ * 对比原来从100每次减10的压缩和二分查找（是否估算起始质量）的编码次数、耗时和最终质量。
+ * Date:2021/7/23 22:10
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImageCompressBenchmarkTest {
+
+    private static final String TAG = ImageCompressBenchmarkTest.class.getSimpleName();
+
+    /**
+     * 样本尺寸
+     */
+    private static final int[][] SIZES = {{1024, 768}, {1920, 1080}, {2560, 1920}};
+    /**
+     * 大小限制，单位KB
+     */
+    private static final int[] LIMITS = {100, 300, 800};
+
+    private List<Bitmap> corpus;
+    private List<String> names;
+
+    @Before
+    public void setUp() {
+        corpus = new ArrayList<>();
+        names = new ArrayList<>();
+        for (int[] size : SIZES) {
+            corpus.add(photo(size[0], size[1]));
+            names.add("photo" + size[0] + "x" + size[1]);
+            corpus.add(graphic(size[0], size[1]));
+            names.add("graphic" + size[0] + "x" + size[1]);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (Bitmap bitmap : corpus) {
+            bitmap.recycle();
+        }
+    }
+
+    @Test
+    public void compareQualitySearch() {
+        for (int i = 0; i < corpus.size(); i++) {
+            Bitmap bitmap = corpus.get(i);
+            for (int max : LIMITS) {
+                Result step = step(bitmap, max);
+                Result binary = binary(bitmap, max, false);
+                Result estimate = binary(bitmap, max, true);
+                Log.i(TAG, names.get(i) + ",max = " + max + "kb"
+                        + "\n  step: " + step
+                        + "\n  binary: " + binary
+                        + "\n  estimate: " + estimate);
+                //二分查找的结果不低于每次减10得到的质量
+                assertTrue(binary.quality >= step.quality);
+                assertEquals(binary.quality, estimate.quality);
+                assertTrue(binary.count <= 7);
+                assertTrue(estimate.count <= 8);
+                if (binary.quality >= 0) {
+                    assertTrue(binary.length / 1024 <= max);
+                }
+            }
+        }
+    }
+
+    /**
+     * 原来的压缩方式，从100开始每次减10直到满足限制
+     *
+     * @param bitmap 位图
+     * @param max    大小限制，单位KB
+     * @return
+     */
+    private Result step(Bitmap bitmap, int max) {
+        Result result = new Result();
+        long start = System.nanoTime();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        int quality = 100;
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, bos);
+        result.count++;
+        while (bos.size() / 1024 > max && quality > 0) {
+            quality -= 10;
+            bos.reset();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, bos);
+            result.count++;
+        }
+        result.quality = bos.size() / 1024 <= max ? quality : -1;
+        result.length = bos.size();
+        result.micros = (System.nanoTime() - start) / 1000;
+        return result;
+    }
+
+    /**
+     * 二分查找压缩，与ImageProvider.compress相同的查找过程，另外统计编码次数
+     *
+     * @param bitmap   位图
+     * @param max      大小限制，单位KB
+     * @param estimate 是否估算起始质量
+     * @return
+     */
+    private Result binary(Bitmap bitmap, int max, boolean estimate) {
+        Result result = new Result();
+        long start = System.nanoTime();
+        ByteArrayOutputStream bos = ImageProvider.compress(bitmap, Bitmap.CompressFormat.JPEG, max, estimate);
+        result.micros = (System.nanoTime() - start) / 1000;
+        result.length = bos.size();
+        QualitySearch search = new QualitySearch(estimate ? ImageProvider.estimateQuality(bitmap, max) : QualitySearch.MIDDLE_QUALITY);
+        ByteArrayOutputStream probe = new ByteArrayOutputStream();
+        while (search.hasNext()) {
+            probe.reset();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, search.quality(), probe);
+            search.result(probe.size() / 1024 <= max);
+        }
+        result.quality = search.best();
+        result.count = search.count();
+        return result;
+    }
+
+    /**
+     * 照片类样本：渐变加噪声
+     *
+     * @param width  宽
+     * @param height 高
+     * @return
+     */
+    private Bitmap photo(int width, int height) {
+        Random random = new Random(width * 31 + height);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(48) - 24;
+                int r = clamp(x * 255 / width + noise);
+                int g = clamp(y * 255 / height + noise);
+                int b = clamp((x + y) * 127 / (width + height) + 64 + noise);
+                pixels[y * width + x] = Color.rgb(r, g, b);
+            }
+        }
+        return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * 图形类样本：纯色背景上的色块和文字
+     *
+     * @param width  宽
+     * @param height 高
+     * @return
+     */
+    private Bitmap graphic(int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.WHITE);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        Random random = new Random(width + height);
+        for (int i = 0; i < 40; i++) {
+            paint.setColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            int left = random.nextInt(width);
+            int top = random.nextInt(height);
+            canvas.drawRect(left, top, left + width / 8, top + height / 8, paint);
+        }
+        paint.setColor(Color.BLACK);
+        paint.setTextSize(height / 20f);
+        for (int i = 0; i < 10; i++) {
+            canvas.drawText("ImageProvider.compress " + i, width / 20f, height / 10f * (i + 1), paint);
+        }
+        return bitmap;
+    }
+
+    private int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static class Result {
+
+        int quality;
+        int count;
+        long length;
+        long micros;
+
+        @Override
+        public String toString() {
+            return "quality=" + quality + ", count=" + count + ", length=" + (length / 1024) + "kb, time=" + (micros / 1000) + "ms";
+        }
+    }
+
+}
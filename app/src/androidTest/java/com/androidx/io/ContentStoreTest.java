@@ -0,0 +1,177 @@
+package com.androidx.io;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.androidx.content.IOProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Author: Relin
+ * Describe:内容存储的链接、恢复、损坏和清理测试，需要支持硬链接的存储
+ * Date:2021/7/23 9:20
+ */
+@RunWith(AndroidJUnit4.class)
+public class ContentStoreTest {
+
+    private ContentStore store;
+    private File folder;
+    private byte[] content;
+    private String hex;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        store = new ContentStore(context);
+        folder = new File(IOProvider.makeDirs(context, Downloader.DICTIONARY + File.separator + "ContentStoreTest"));
+        content = new byte[256 * 1024];
+        new Random(7).nextBytes(content);
+        MessageDigest digest = ContentStore.digest(ContentStore.SHA256);
+        digest.update(content);
+        hex = ContentStore.hex(digest);
+        delete(store.blob(ContentStore.SHA256, hex));
+        //外部存储的部分文件系统不支持硬链接
+        File probe = write("probe", content);
+        File probeLink = new File(folder, "probe.link");
+        probeLink.delete();
+        assumeTrue(ContentStore.link(probe, probeLink));
+        probe.delete();
+        probeLink.delete();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = folder.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            delete(files[i]);
+        }
+        delete(store.blob(ContentStore.SHA256, hex));
+    }
+
+    @Test
+    public void storeLinksFileAndMakesItReadOnly() throws Exception {
+        File file = write("a.bin", content);
+        store.store(ContentStore.SHA256, hex, file);
+        File blob = store.blob(ContentStore.SHA256, hex);
+        assertTrue(blob.exists());
+        assertEquals(2, ContentStore.links(blob));
+        assertFalse(blob.canWrite());
+        assertFalse(file.canWrite());
+        try {
+            new FileOutputStream(file, true).close();
+            throw new AssertionError("linked target must not be writable");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void storeSameContentLinksToExistingBlob() throws Exception {
+        File first = write("a.bin", content);
+        store.store(ContentStore.SHA256, hex, first);
+        File second = write("b.bin", content);
+        store.store(ContentStore.SHA256, hex, second);
+        assertEquals(3, ContentStore.links(store.blob(ContentStore.SHA256, hex)));
+        assertArrayEquals(content, read(second));
+    }
+
+    @Test
+    public void restoreCreatesTargetFromBlob() throws Exception {
+        File file = write("a.bin", content);
+        store.store(ContentStore.SHA256, hex, file);
+        File target = new File(folder, "restored.bin");
+        assertTrue(store.restore(ContentStore.SHA256, hex, target));
+        assertArrayEquals(content, read(target));
+        assertEquals(3, ContentStore.links(target));
+    }
+
+    @Test
+    public void restoreRejectsCorruptedBlob() throws Exception {
+        File file = write("a.bin", content);
+        store.store(ContentStore.SHA256, hex, file);
+        File blob = store.blob(ContentStore.SHA256, hex);
+        corrupt(blob);
+        File target = new File(folder, "restored.bin");
+        assertFalse(store.restore(ContentStore.SHA256, hex, target));
+        assertFalse(blob.exists());
+        assertFalse(target.exists());
+    }
+
+    @Test
+    public void storeReplacesCorruptedBlob() throws Exception {
+        File first = write("a.bin", content);
+        store.store(ContentStore.SHA256, hex, first);
+        File blob = store.blob(ContentStore.SHA256, hex);
+        //先断开第一个文件的链接，再损坏内容
+        first.delete();
+        corrupt(blob);
+        File second = write("b.bin", content);
+        store.store(ContentStore.SHA256, hex, second);
+        assertTrue(ContentStore.verify(ContentStore.SHA256, hex, blob, content.length));
+        assertArrayEquals(content, read(second));
+        assertEquals(2, ContentStore.links(blob));
+    }
+
+    @Test
+    public void sweepRemovesOnlyUnreferencedBlobs() throws Exception {
+        File file = write("a.bin", content);
+        store.store(ContentStore.SHA256, hex, file);
+        File blob = store.blob(ContentStore.SHA256, hex);
+        store.sweep();
+        assertTrue(blob.exists());
+        file.delete();
+        assertTrue(store.sweep() >= 1);
+        assertFalse(blob.exists());
+    }
+
+    private File write(String name, byte[] bytes) throws IOException {
+        File file = new File(folder, name);
+        delete(file);
+        FileOutputStream os = new FileOutputStream(file);
+        os.write(bytes);
+        os.close();
+        return file;
+    }
+
+    private byte[] read(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        randomAccessFile.readFully(bytes);
+        randomAccessFile.close();
+        return bytes;
+    }
+
+    private void corrupt(File file) throws IOException {
+        file.setWritable(true);
+        byte[] bytes = Arrays.copyOf(content, content.length);
+        bytes[0] ^= 0xff;
+        FileOutputStream os = new FileOutputStream(file);
+        os.write(bytes);
+        os.close();
+    }
+
+    private void delete(File file) {
+        file.setWritable(true);
+        file.delete();
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.androidx.json;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Author: Relin
+ * Describe:流式解析{@link JsonDecoder}的绑定测试：嵌套列表、未知字段和类型不匹配，
+ * 结果需要和JSONObject树解析一致，android.util.JsonReader在JVM单元测试中不可用。
+ * Date:2021/7/24 14:40
+ */
+@RunWith(AndroidJUnit4.class)
+public class JsonDecoderTest {
+
+    public static class Line {
+
+        private String sku;
+        private int quantity;
+        private List<String> tags;
+    }
+
+    public static class Order {
+
+        private String id;
+        private List<Line> lines;
+        private LinkedList<String> notes;
+        private List<List<String>> matrix;
+        private Line first;
+        private int count;
+        private long time;
+        private double total;
+    }
+
+    public static class Profile {
+
+        private String name;
+        private Map<String, String> extras;
+        private Set<String> labels;
+        private List<Line> lines;
+    }
+
+    @Test
+    public void nestedLists() throws Exception {
+        String json = "{\"id\":\"o1\",\"lines\":[{\"sku\":\"a\",\"quantity\":2,\"tags\":[\"x\",\"y\"]},"
+                + "{\"sku\":\"b\",\"quantity\":\"3\",\"tags\":[]}],\"notes\":[\"n1\",null,\"\",\"n2\"],"
+                + "\"matrix\":[[\"1\",\"2\"],[]]}";
+        Order order = Json.parseJSONObject(Order.class, json);
+        assertEquals("o1", order.id);
+        assertEquals(2, order.lines.size());
+        assertEquals("a", order.lines.get(0).sku);
+        assertEquals(2, order.lines.get(0).quantity);
+        assertEquals("[x, y]", order.lines.get(0).tags.toString());
+        assertEquals(3, order.lines.get(1).quantity);
+        assertEquals(0, order.lines.get(1).tags.size());
+        assertTrue(order.notes instanceof LinkedList);
+        assertEquals("[n1, n2]", order.notes.toString());
+        assertEquals("[\"1\",\"2\"]", String.valueOf(order.matrix.get(0)));
+        assertEquals("[]", String.valueOf(order.matrix.get(1)));
+        assertSameAsTree(json, order);
+    }
+
+    @Test
+    public void nestedListOfObjects() throws Exception {
+        List<Order> orders = Json.parseJSONArray(Order.class, "[{\"id\":\"a\",\"lines\":[{\"sku\":\"s\",\"tags\":[\"t\"]}]},null,{\"id\":\"b\"}]");
+        assertEquals(2, orders.size());
+        assertEquals("t", orders.get(0).lines.get(0).tags.get(0));
+        assertEquals("b", orders.get(1).id);
+    }
+
+    @Test
+    public void unknownKeysAreSkipped() throws Exception {
+        String json = "{\"unknown\":{\"lines\":[1,{\"a\":[]}]},\"id\":\"o2\",\"extra\":[{\"id\":\"x\"}],\"flag\":true,\"count\":1}";
+        Order order = Json.parseJSONObject(Order.class, json);
+        assertEquals("o2", order.id);
+        assertEquals(1, order.count);
+        assertNull(order.lines);
+        assertSameAsTree(json, order);
+    }
+
+    @Test
+    public void scalarAsObjectOrListIsEmpty() throws Exception {
+        Order order = Json.parseJSONObject(Order.class, "{\"first\":\"text\",\"lines\":\"text\"}");
+        assertNull(order.first);
+        assertEquals(0, order.lines.size());
+    }
+
+    @Test
+    public void objectAsStringField() throws Exception {
+        Order order = Json.parseJSONObject(Order.class, "{\"id\":{\"a\":1}}");
+        assertEquals("{\"a\":1}", order.id);
+    }
+
+    @Test
+    public void numbersFromStringsAndNull() throws Exception {
+        Order order = Json.parseJSONObject(Order.class, "{\"count\":\"7\",\"time\":\"123\",\"total\":\"1.5\"}");
+        assertEquals(7, order.count);
+        assertEquals(123, order.time);
+        assertEquals(1.5, order.total, 0);
+        order = Json.parseJSONObject(Order.class, "{\"count\":null,\"total\":null}");
+        assertEquals(0, order.count);
+        assertEquals(0, order.total, 0);
+    }
+
+    @Test
+    public void decimalForIntegerFieldThrows() throws Exception {
+        try {
+            Json.parseJSONObject(Order.class, "{\"count\":1.5}");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("count"));
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void textForNumberFieldThrows() throws Exception {
+        Json.parseJSONObject(Order.class, "{\"time\":\"abc\"}");
+    }
+
+    @Test
+    public void mapAndSetFieldsAreSkipped() throws Exception {
+        Profile profile = Json.parseJSONObject(Profile.class, "{\"name\":\"x\",\"extras\":{\"k\":\"v\"},\"labels\":[\"a\"]}");
+        assertNotNull(profile);
+        assertEquals("x", profile.name);
+        assertNull(profile.extras);
+        assertNull(profile.labels);
+    }
+
+    @Test
+    public void mismatchedListElementsAreSkipped() throws Exception {
+        Profile profile = Json.parseJSONObject(Profile.class, "{\"lines\":[\"a\",1,true,[1],{\"sku\":\"b\"}]}");
+        assertEquals(1, profile.lines.size());
+        assertEquals("b", profile.lines.get(0).sku);
+    }
+
+    @Test
+    public void parseJSONArrayKeepsElementType() throws Exception {
+        List<Line> lines = Json.parseJSONArray(Line.class, "[\"a\",1,null,[1],{\"sku\":\"b\"}]");
+        assertEquals(1, lines.size());
+        assertEquals("b", lines.get(0).sku);
+        assertEquals("[a, 1]", Json.parseJSONArray(String.class, "[\"a\",1,null]").toString());
+    }
+
+    @Test
+    public void malformedJsonReturnsNull() throws Exception {
+        assertNull(Json.parseJSONObject(Order.class, "{\"id\":"));
+        assertNull(Json.parseJSONObject(Order.class, "[1,2]"));
+    }
+
+    /**
+     * 和JSONObject树解析的结果一致
+     *
+     * @param json  Json字符串
+     * @param order 流式解析结果
+     * @throws Exception
+     */
+    private void assertSameAsTree(String json, Order order) throws Exception {
+        Order tree = Json.parseJSONObject(Order.class, new JSONObject(json));
+        assertEquals(Json.parseObject(tree), Json.parseObject(order));
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.androidx.sqlite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Author: Relin
+ * Describe:批量测试的订单，items字段中的数据插入到InvoiceItem表
+ * Date:2021/7/24 10:20
+ */
+public class Invoice {
+
+    private String invoice_id;
+    private String title;
+    private int amount;
+    private List<InvoiceItem> items = new ArrayList<>();
+
+    public Invoice() {
+
+    }
+
+    public Invoice(String invoice_id, String title, int amount) {
+        this.invoice_id = invoice_id;
+        this.title = title;
+        this.amount = amount;
+    }
+
+    public String getInvoice_id() {
+        return invoice_id;
+    }
+
+    public void setInvoice_id(String invoice_id) {
+        this.invoice_id = invoice_id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public void setAmount(int amount) {
+        this.amount = amount;
+    }
+
+    public List<InvoiceItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<InvoiceItem> items) {
+        this.items = items;
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.androidx.sqlite;
+
+/**
+ * Author: Relin
+ * Describe:批量测试的订单明细
+ * Date:2021/7/24 10:20
+ */
+public class InvoiceItem {
+
+    private String item_id;
+    private String invoice_id;
+    private String name;
+
+    public InvoiceItem() {
+
+    }
+
+    public InvoiceItem(String item_id, String invoice_id, String name) {
+        this.item_id = item_id;
+        this.invoice_id = invoice_id;
+        this.name = name;
+    }
+
+    public String getItem_id() {
+        return item_id;
+    }
+
+    public String getInvoice_id() {
+        return invoice_id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
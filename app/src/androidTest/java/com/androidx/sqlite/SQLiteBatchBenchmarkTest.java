@@ -0,0 +1,144 @@
+package com.androidx.sqlite;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Author: Relin
+ * Describe:批量写入基准，对比逐条insert、update（每条一个事务）和insertAll、updateAll（一个事务、复用编译好的语句）的耗时。
+ * Date:2021/7/24 11:00
+ */
+@RunWith(AndroidJUnit4.class)
+public class SQLiteBatchBenchmarkTest {
+
+    private static final String TAG = SQLiteBatchBenchmarkTest.class.getSimpleName();
+    private static final String DATABASE_NAME = "SQLiteBatchBenchmarkTest.db";
+    /**
+     * 每轮的数据条数
+     */
+    private static final int ROWS = 1000;
+    /**
+     * 轮数，取最小耗时
+     */
+    private static final int ROUNDS = 3;
+
+    private SQLite sqLite;
+    private List<Invoice> invoices;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        sqLite = new SQLite(context, DATABASE_NAME, 1);
+        sqLite.createTable(Invoice.class);
+        invoices = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            invoices.add(new Invoice(String.valueOf(i), "invoice" + i, i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        sqLite.dropDatabase();
+    }
+
+    @Test
+    public void compareInsert() {
+        //预热
+        insertPerRow();
+        insertBatch();
+        Result perRow = new Result();
+        Result batch = new Result();
+        for (int i = 0; i < ROUNDS; i++) {
+            perRow.add(insertPerRow());
+            batch.add(insertBatch());
+        }
+        Log.i(TAG, "insert rows = " + ROWS + "\n  perRow: " + perRow + "\n  batch: " + batch);
+    }
+
+    @Test
+    public void compareUpdate() {
+        sqLite.insertAll(invoices);
+        //预热
+        updatePerRow();
+        updateBatch();
+        Result perRow = new Result();
+        Result batch = new Result();
+        for (int i = 0; i < ROUNDS; i++) {
+            perRow.add(updatePerRow());
+            batch.add(updateBatch());
+        }
+        Log.i(TAG, "update rows = " + ROWS + "\n  perRow: " + perRow + "\n  batch: " + batch);
+    }
+
+    private long insertPerRow() {
+        sqLite.execSQL("DELETE FROM Invoice");
+        long start = System.nanoTime();
+        for (Invoice invoice : invoices) {
+            sqLite.insert(invoice);
+        }
+        long time = System.nanoTime() - start;
+        assertEquals(ROWS, count());
+        return time;
+    }
+
+    private long insertBatch() {
+        sqLite.execSQL("DELETE FROM Invoice");
+        long start = System.nanoTime();
+        assertEquals(ROWS, sqLite.insertAll(invoices));
+        long time = System.nanoTime() - start;
+        assertEquals(ROWS, count());
+        return time;
+    }
+
+    private long updatePerRow() {
+        long start = System.nanoTime();
+        for (Invoice invoice : invoices) {
+            invoice.setAmount(invoice.getAmount() + 1);
+            sqLite.update(invoice, "invoice_id = ?", new String[]{invoice.getInvoice_id()});
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long updateBatch() {
+        long start = System.nanoTime();
+        for (Invoice invoice : invoices) {
+            invoice.setAmount(invoice.getAmount() + 1);
+        }
+        assertEquals(ROWS, sqLite.updateAll(invoices, "invoice_id"));
+        return System.nanoTime() - start;
+    }
+
+    private int count() {
+        return Integer.parseInt(sqLite.query("SELECT COUNT(*) AS count FROM Invoice").get(0).get("count"));
+    }
+
+    private static class Result {
+
+        long minNanos = Long.MAX_VALUE;
+
+        void add(long nanos) {
+            minNanos = Math.min(minNanos, nanos);
+        }
+
+        @Override
+        public String toString() {
+            long millis = minNanos / 1000000;
+            return "time=" + millis + "ms, rows/s=" + (ROWS * 1000L / Math.max(1, millis));
+        }
+    }
+
+}
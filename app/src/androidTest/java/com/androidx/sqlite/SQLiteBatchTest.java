@@ -0,0 +1,200 @@
+package com.androidx.sqlite;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:批量插入、更新、更新或插入的测试，包括List字段中的数据和失败回滚
+ * Date:2021/7/24 10:30
+ */
+@RunWith(AndroidJUnit4.class)
+public class SQLiteBatchTest {
+
+    private static final String DATABASE_NAME = "SQLiteBatchTest.db";
+
+    private SQLite sqLite;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        sqLite = new SQLite(context, DATABASE_NAME, 1);
+        sqLite.createTable(Invoice.class);
+        sqLite.createTable(InvoiceItem.class);
+    }
+
+    @After
+    public void tearDown() {
+        sqLite.dropDatabase();
+    }
+
+    @Test
+    public void insertAllInsertsRowsAndChildren() {
+        List<Invoice> invoices = invoices(2, 2);
+        assertEquals(6, sqLite.insertAll(invoices));
+        assertEquals(2, count("Invoice"));
+        assertEquals(4, count("InvoiceItem"));
+        assertEquals("invoice1", sqLite.query("SELECT title FROM Invoice WHERE invoice_id = ?", new String[]{"1"}).get(0).get("title"));
+    }
+
+    @Test
+    public void insertInsertsEveryChild() {
+        //子数据比字段多，按字段下标取子数据时会越界
+        Invoice invoice = invoices(1, 6).get(0);
+        sqLite.insert(invoice);
+        assertEquals(1, count("Invoice"));
+        assertEquals(6, count("InvoiceItem"));
+    }
+
+    @Test
+    public void insertAllMatchesInsert() {
+        sqLite.insert(invoices(1, 3).get(0));
+        assertEquals(4, sqLite.insertAll(invoices(1, 3)));
+        assertEquals(2, count("Invoice"));
+        assertEquals(6, count("InvoiceItem"));
+    }
+
+    @Test
+    public void updateAllDoesNotInsertChildren() {
+        List<Invoice> invoices = invoices(3, 2);
+        sqLite.insertAll(invoices);
+        for (Invoice invoice : invoices) {
+            invoice.setTitle("updated" + invoice.getInvoice_id());
+            invoice.getItems().add(new InvoiceItem("extra", invoice.getInvoice_id(), "extra"));
+        }
+        assertEquals(3, sqLite.updateAll(invoices, "invoice_id"));
+        assertEquals(3, count("Invoice"));
+        assertEquals(6, count("InvoiceItem"));
+        assertEquals("updated2", sqLite.query("SELECT title FROM Invoice WHERE invoice_id = ?", new String[]{"2"}).get(0).get("title"));
+    }
+
+    @Test
+    public void updateAllSkipsNullKey() {
+        sqLite.insertAll(invoices(2, 0));
+        Invoice invoice = new Invoice(null, "nobody", 0);
+        assertEquals(0, sqLite.updateAll(Arrays.asList(invoice), "invoice_id"));
+        assertEquals(0, count("Invoice WHERE title = 'nobody'"));
+    }
+
+    @Test
+    public void upsertAllUpdatesExistingAndInsertsMissing() {
+        sqLite.insertAll(invoices(2, 1));
+        List<Invoice> invoices = new ArrayList<>();
+        Invoice existing = new Invoice("1", "changed", 10);
+        existing.getItems().add(new InvoiceItem("x", "1", "x"));
+        invoices.add(existing);
+        invoices.add(new Invoice("9", "new", 90));
+        assertEquals(2, sqLite.upsertAll(invoices, "invoice_id"));
+        assertEquals(3, count("Invoice"));
+        assertEquals(2, count("InvoiceItem"));
+        assertEquals("changed", sqLite.query("SELECT title FROM Invoice WHERE invoice_id = ?", new String[]{"1"}).get(0).get("title"));
+    }
+
+    @Test
+    public void insertAllRollsBackOnFailure() {
+        List<Object> list = new ArrayList<Object>(invoices(2, 2));
+        //没有建表的数据插入失败，整个事务回滚
+        list.add(new Missing());
+        assertEquals(-1, sqLite.insertAll(list));
+        assertEquals(0, count("Invoice"));
+        assertEquals(0, count("InvoiceItem"));
+    }
+
+    @Test
+    public void listenerReceivesRowsAndTime() {
+        BatchResult insert = new BatchResult();
+        assertEquals(6, sqLite.insertAll(invoices(2, 2), insert));
+        assertEquals(6, insert.rows);
+        assertEquals(1, insert.count);
+        assertTrue(insert.useTime >= 0);
+        BatchResult upsert = new BatchResult();
+        assertEquals(3, sqLite.upsertAll(invoices(3, 0), "invoice_id", upsert));
+        assertEquals(3, upsert.rows);
+        BatchResult empty = new BatchResult();
+        assertEquals(0, sqLite.updateAll(new ArrayList<Invoice>(), "invoice_id", empty));
+        assertEquals(0, empty.rows);
+        assertEquals(1, empty.count);
+    }
+
+    @Test
+    public void listenerReceivesFailure() {
+        List<Object> list = new ArrayList<Object>(invoices(1, 0));
+        list.add(new Missing());
+        BatchResult result = new BatchResult();
+        assertEquals(-1, sqLite.insertAll(list, result));
+        assertEquals(-1, result.rows);
+    }
+
+    /**
+     * 批量写入结果
+     */
+    private static class BatchResult implements OnBatchListener {
+
+        int rows;
+        long useTime;
+        int count;
+
+        @Override
+        public void onBatch(int rows, long useTime) {
+            this.rows = rows;
+            this.useTime = useTime;
+            count++;
+        }
+    }
+
+    /**
+     * 生成订单
+     *
+     * @param size  订单数量
+     * @param items 每个订单的明细数量
+     * @return
+     */
+    private List<Invoice> invoices(int size, int items) {
+        List<Invoice> invoices = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            Invoice invoice = new Invoice(String.valueOf(i), "invoice" + i, i * 100);
+            for (int j = 1; j <= items; j++) {
+                invoice.getItems().add(new InvoiceItem(i + "-" + j, String.valueOf(i), "item" + j));
+            }
+            invoices.add(invoice);
+        }
+        return invoices;
+    }
+
+    /**
+     * 查询数量
+     *
+     * @param from 表名和条件
+     * @return
+     */
+    private int count(String from) {
+        List<Map<String, String>> rows = sqLite.query("SELECT COUNT(*) AS count FROM " + from);
+        return Integer.parseInt(rows.get(0).get("count"));
+    }
+
+    /**
+     * 没有建表的数据
+     */
+    private static class Missing {
+
+        private String name = "missing";
+
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.androidx.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Author: Relin
+ * Describe:实体类注解，配置processor模块后编译时生成
+ * 类名_JsonAdapter、类名_CursorMapper、类名_ContentValuesBinder，
+ * Json和SQLite直接读写字段不再反射，没有生成的类时使用反射。
+ * 字段不能是private，或者提供get/set方法；static、transient字段不处理。
+ * Date:2021/7/21 20:12
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.CLASS)
+public @interface Entity {
+
+    /**
+     * 是否生成Json适配器
+     *
+     * @return
+     */
+    boolean json() default true;
+
+    /**
+     * 是否生成数据库适配器
+     *
+     * @return
+     */
+    boolean sqlite() default true;
+
+}
@@ -0,0 +1,77 @@
+package com.androidx.annotation;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Author: Relin
+ * Describe:实体适配器查找，按"类名+后缀"加载{@link Entity}生成的类，
+ * 每个类只查找一次，找不到的也会缓存，之后直接使用反射。
+ * Date:2021/7/21 20:25
+ */
+public class EntityAdapters {
+
+    /**
+     * 没有适配器
+     */
+    private static final Object NONE = new Object();
+    /**
+     * 类名+后缀对应的适配器
+     */
+    private static final ConcurrentHashMap<String, Object> ADAPTERS = new ConcurrentHashMap<>();
+
+    /**
+     * 注册适配器，代替生成的类
+     *
+     * @param cls     实体类
+     * @param suffix  后缀
+     * @param adapter 适配器，为null时该类强制使用反射
+     */
+    public static void register(Class<?> cls, String suffix, Object adapter) {
+        ADAPTERS.put(cls.getName() + suffix, adapter == null ? NONE : adapter);
+    }
+
+    /**
+     * 查找适配器
+     *
+     * @param cls    实体类
+     * @param suffix 后缀
+     * @return 没有返回null
+     */
+    public static Object find(Class<?> cls, String suffix) {
+        String name = cls.getName() + suffix;
+        Object adapter = ADAPTERS.get(name);
+        if (adapter == null) {
+            adapter = create(cls, name);
+            Object previous = ADAPTERS.putIfAbsent(name, adapter);
+            if (previous != null) {
+                adapter = previous;
+            }
+        }
+        return adapter == NONE ? null : adapter;
+    }
+
+    /**
+     * 创建生成的适配器
+     *
+     * @param cls  实体类
+     * @param name 适配器类名
+     * @return 没有返回{@link #NONE}
+     */
+    private static Object create(Class<?> cls, String name) {
+        ClassLoader loader = cls.getClassLoader();
+        if (loader == null || cls.isPrimitive() || cls.isArray()) {
+            return NONE;
+        }
+        try {
+            return Class.forName(name, true, loader).newInstance();
+        } catch (ClassNotFoundException e) {
+            return NONE;
+        } catch (InstantiationException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
+        return NONE;
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.androidx.content;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Author: Relin
+ * Describe:可复用的Bitmap池，按占用内存分组，
+ * 解码时通过{@link android.graphics.BitmapFactory.Options#inBitmap}复用已有的内存，
+ * 超过最大容量时回收最早放入的Bitmap。
+ * Date:2021/7/15 21:30
+ */
+public class BitmapPool {
+
+    public final static String TAG = BitmapPool.class.getSimpleName();
+    /**
+     * 可复用的Bitmap最多是需要大小的几倍，避免小图占用大图内存
+     */
+    public static final int MAX_SIZE_MULTIPLE = 4;
+    /**
+     * 共享的Bitmap池
+     */
+    private static BitmapPool shared;
+    /**
+     * 按占用内存分组的Bitmap
+     */
+    private final TreeMap<Integer, LinkedList<Bitmap>> buckets = new TreeMap<>();
+    /**
+     * 放入顺序，用于回收
+     */
+    private final LinkedList<Bitmap> order = new LinkedList<>();
+    /**
+     * 最大容量，单位字节
+     */
+    private final long maxSize;
+    /**
+     * 当前大小，单位字节
+     */
+    private long size;
+
+    /**
+     * 构造函数
+     *
+     * @param maxSize 最大容量，单位字节
+     */
+    public BitmapPool(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 共享的Bitmap池，容量为最大内存的1/8
+     *
+     * @return
+     */
+    public static synchronized BitmapPool shared() {
+        if (shared == null) {
+            shared = new BitmapPool(Runtime.getRuntime().maxMemory() / 8);
+        }
+        return shared;
+    }
+
+    /**
+     * 每个像素占用的字节数
+     *
+     * @param config 配置
+     * @return
+     */
+    public static int bytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        }
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        }
+        return 4;
+    }
+
+    /**
+     * 获取可以用来解码width x height图片的Bitmap
+     *
+     * @param width  宽度
+     * @param height 高度
+     * @param config 配置
+     * @return 没有合适的返回null
+     */
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        long required = (long) width * height * bytesPerPixel(config);
+        if (required > Integer.MAX_VALUE) {
+            return null;
+        }
+        Integer key = buckets.ceilingKey((int) required);
+        if (key == null || key > required * MAX_SIZE_MULTIPLE) {
+            return null;
+        }
+        LinkedList<Bitmap> bucket = buckets.get(key);
+        Bitmap bitmap = bucket.removeLast();
+        if (bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+        order.remove(bitmap);
+        size -= key;
+        return bitmap;
+    }
+
+    /**
+     * 放入不再使用的Bitmap，放入后调用者不能再使用
+     *
+     * @param bitmap 位图，不可变或者超过容量时直接回收
+     */
+    public synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || order.contains(bitmap)) {
+            return;
+        }
+        int bytes = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || bytes > maxSize) {
+            bitmap.recycle();
+            return;
+        }
+        LinkedList<Bitmap> bucket = buckets.get(bytes);
+        if (bucket == null) {
+            bucket = new LinkedList<>();
+            buckets.put(bytes, bucket);
+        }
+        bucket.add(bitmap);
+        order.add(bitmap);
+        size += bytes;
+        trim(maxSize);
+    }
+
+    /**
+     * 回收最早放入的Bitmap直到不超过指定大小
+     *
+     * @param targetSize 目标大小，单位字节
+     */
+    public synchronized void trim(long targetSize) {
+        while (size > targetSize && !order.isEmpty()) {
+            Bitmap bitmap = order.removeFirst();
+            int bytes = bitmap.getAllocationByteCount();
+            LinkedList<Bitmap> bucket = buckets.get(bytes);
+            if (bucket != null) {
+                bucket.remove(bitmap);
+                if (bucket.isEmpty()) {
+                    buckets.remove(bytes);
+                }
+            }
+            size -= bytes;
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * 回收所有Bitmap
+     */
+    public synchronized void clear() {
+        Log.i(TAG, "->clear size = " + size);
+        trim(0);
+    }
+
+    /**
+     * 当前大小
+     *
+     * @return 单位字节
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * 最大容量
+     *
+     * @return 单位字节
+     */
+    public long maxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("BitmapPool{size=").append(size).append(", maxSize=").append(maxSize);
+        for (Map.Entry<Integer, LinkedList<Bitmap>> entry : buckets.entrySet()) {
+            builder.append(", ").append(entry.getKey()).append('x').append(entry.getValue().size());
+        }
+        return builder.append('}').toString();
+    }
+
+}
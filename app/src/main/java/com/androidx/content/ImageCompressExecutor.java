@@ -0,0 +1,268 @@
+package com.androidx.content;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Author: Relin
+ * Describe:图片压缩线程池，线程数按CPU核数限制，同时按预估解码内存限制同时压缩的图片，
+ * 超过内存预算的任务排队等待，至少保证一个任务在执行；
+ * 所有回调通过同一个主线程Handler分发，取消的任务不再回调。
+ * Date:2021/7/16 20:42
+ */
+public class ImageCompressExecutor {
+
+    public final static String TAG = ImageCompressExecutor.class.getSimpleName();
+    /**
+     * 消息 - 开始压缩
+     */
+    public static final int WHAT_START = 1;
+    /**
+     * 消息 - 压缩完成
+     */
+    public static final int WHAT_SUCCEED = 2;
+    /**
+     * 预估内存 - 正在预估
+     */
+    private static final long ESTIMATING = -1;
+    /**
+     * 共享的线程池
+     */
+    private static ImageCompressExecutor shared;
+    /**
+     * 线程池
+     */
+    private final ThreadPoolExecutor executor;
+    /**
+     * 线程数
+     */
+    private final int threads;
+    /**
+     * 内存预算，单位字节
+     */
+    private final long budget;
+    /**
+     * 等待的任务
+     */
+    private final LinkedList<ImageCompressor> pending = new LinkedList<>();
+    /**
+     * 执行中的任务
+     */
+    private final Set<ImageCompressor> running = new HashSet<>();
+    /**
+     * 执行中的任务预估内存，单位字节
+     */
+    private long inFlight;
+    /**
+     * 主线程分发
+     */
+    private final DispatchHandler handler = new DispatchHandler(Looper.getMainLooper());
+
+    /**
+     * 构造函数
+     *
+     * @param threads 线程数
+     * @param budget  内存预算，单位字节
+     */
+    public ImageCompressExecutor(int threads, long budget) {
+        this.threads = Math.max(1, threads);
+        this.budget = budget;
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 共享的线程池，线程数为CPU核数且不超过4，内存预算为最大内存的1/4
+     *
+     * @return
+     */
+    public static synchronized ImageCompressExecutor shared() {
+        if (shared == null) {
+            int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+            shared = new ImageCompressExecutor(threads, Runtime.getRuntime().maxMemory() / 4);
+        }
+        return shared;
+    }
+
+    /**
+     * 提交压缩任务，先排队，预估解码内存在线程池中读取图片文件头完成后才参与调度
+     *
+     * @param compressor 压缩器
+     */
+    public void submit(final ImageCompressor compressor) {
+        synchronized (this) {
+            if (pending.contains(compressor) || running.contains(compressor)) {
+                return;
+            }
+            compressor.estimate = ESTIMATING;
+            pending.add(compressor);
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long estimate = compressor.estimateBytes();
+                synchronized (ImageCompressExecutor.this) {
+                    compressor.estimate = estimate;
+                    schedule();
+                }
+                Log.i(TAG, "->submit estimate = " + (estimate / 1024) + "kb");
+            }
+        });
+    }
+
+    /**
+     * 提交压缩任务并等待完成，不能在主线程和压缩线程中调用
+     *
+     * @param compressor 压缩器
+     * @throws InterruptedException 等待时被中断
+     */
+    public void execute(ImageCompressor compressor) throws InterruptedException {
+        submit(compressor);
+        synchronized (this) {
+            while (pending.contains(compressor) || running.contains(compressor)) {
+                wait();
+            }
+        }
+    }
+
+    /**
+     * 取消压缩任务，执行中的任务在下一个阶段结束，不再回调
+     *
+     * @param compressor 压缩器
+     * @return 是否在执行前取消
+     */
+    public boolean cancel(ImageCompressor compressor) {
+        compressor.cancelled = true;
+        synchronized (this) {
+            boolean removed = pending.remove(compressor);
+            notifyAll();
+            return removed;
+        }
+    }
+
+    /**
+     * 取消所有压缩任务
+     */
+    public void cancelAll() {
+        List<ImageCompressor> compressors;
+        synchronized (this) {
+            compressors = new ArrayList<>(pending);
+            compressors.addAll(running);
+            pending.clear();
+            notifyAll();
+        }
+        for (ImageCompressor compressor : compressors) {
+            compressor.cancelled = true;
+        }
+    }
+
+    /**
+     * 在线程数和内存预算内按顺序开始等待的任务，还在预估内存的任务会阻塞后面的任务，需要持有锁
+     */
+    private void schedule() {
+        while (running.size() < threads && !pending.isEmpty()) {
+            ImageCompressor compressor = pending.getFirst();
+            if (compressor.estimate == ESTIMATING) {
+                break;
+            }
+            if (!running.isEmpty() && inFlight + compressor.estimate > budget) {
+                break;
+            }
+            pending.removeFirst();
+            running.add(compressor);
+            inFlight += compressor.estimate;
+            executor.execute(new Task(compressor));
+        }
+    }
+
+    /**
+     * 任务结束
+     *
+     * @param compressor 压缩器
+     */
+    private synchronized void finish(ImageCompressor compressor) {
+        if (running.remove(compressor)) {
+            inFlight -= compressor.estimate;
+        }
+        schedule();
+        notifyAll();
+    }
+
+    /**
+     * 在主线程分发回调
+     *
+     * @param what       消息{@link #WHAT_START}、{@link #WHAT_SUCCEED}
+     * @param compressor 压缩器
+     */
+    public void dispatch(int what, ImageCompressor compressor) {
+        handler.obtainMessage(what, compressor).sendToTarget();
+    }
+
+    /**
+     * 等待的任务数量
+     *
+     * @return
+     */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 执行中的任务数量
+     *
+     * @return
+     */
+    public synchronized int runningCount() {
+        return running.size();
+    }
+
+    private class Task implements Runnable {
+
+        private final ImageCompressor compressor;
+
+        Task(ImageCompressor compressor) {
+            this.compressor = compressor;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!compressor.isCancelled()) {
+                    compressor.run();
+                }
+            } finally {
+                finish(compressor);
+            }
+        }
+    }
+
+    private static class DispatchHandler extends Handler {
+
+        DispatchHandler(@NonNull Looper looper) {
+            super(looper);
+        }
+
+        @Override
+        public void handleMessage(@NonNull Message msg) {
+            super.handleMessage(msg);
+            ImageCompressor compressor = (ImageCompressor) msg.obj;
+            if (!compressor.isCancelled()) {
+                compressor.deliver(msg.what);
+            }
+        }
+    }
+
+}
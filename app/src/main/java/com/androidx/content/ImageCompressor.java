@@ -3,21 +3,16 @@ package com.androidx.content;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.os.Handler;
-import android.os.Looper;
-import android.os.Message;
 import android.util.Log;
 
-import androidx.annotation.NonNull;
-
 import java.io.File;
 
 /**
  * Author: Relin
- * Describe:Bitmap压缩器
+ * Describe:Bitmap压缩器，{@link #start()}提交到{@link ImageCompressExecutor}执行
  * Date:2020/11/21 21:06
  */
-public class ImageCompressor extends Thread {
+public class ImageCompressor implements Runnable {
 
     public final static String TAG = ImageCompressor.class.getSimpleName();
     /**
@@ -61,9 +56,17 @@ public class ImageCompressor extends Thread {
      */
     private Bitmap.CompressFormat format;
     /**
-     * 压缩Handler
+     * 压缩后是否删除源文件
+     */
+    private boolean deleteSource = true;
+    /**
+     * 是否已取消
+     */
+    volatile boolean cancelled;
+    /**
+     * 预估解码内存，单位字节
      */
-    private CompressorHandler compressorHandler;
+    long estimate;
     /**
      * 压缩监听
      */
@@ -91,7 +94,6 @@ public class ImageCompressor extends Thread {
         this.srcFile = srcFile;
         this.outPutPath = outPutPath;
         this.onImageCompressListener = onImageCompressListener;
-        compressorHandler = new CompressorHandler(Looper.getMainLooper());
     }
 
     /**
@@ -106,38 +108,114 @@ public class ImageCompressor extends Thread {
         this.bitmap = bitmap;
         this.outPutPath = outPutPath;
         this.onImageCompressListener = onImageCompressListener;
-        compressorHandler = new CompressorHandler(Looper.getMainLooper());
     }
 
+    /**
+     * 提交到共享的压缩线程池
+     */
+    public void start() {
+        cancelled = false;
+        ImageCompressExecutor.shared().submit(this);
+    }
+
+    /**
+     * 取消压缩，取消后不再回调
+     *
+     * @return 是否在执行前取消
+     */
+    public boolean cancel() {
+        return ImageCompressExecutor.shared().cancel(this);
+    }
+
+    /**
+     * 是否已取消
+     *
+     * @return
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 同步压缩，在当前线程执行
+     */
     @Override
     public void run() {
-        super.run();
         long useTime = System.currentTimeMillis();
-        if (onImageCompressListener != null) {
-            onImageCompressListener.onImageCompressStart(this);
-        }
-        File source = null;
+        dispatch(ImageCompressExecutor.WHAT_START);
+        Bitmap target = null;
         if (bitmap != null) {
-            source = ImageProvider.decodeBitmap(context, bitmap);
-        }
-        if (srcFile != null) {
-            bitmap = BitmapFactory.decodeFile(srcFile.getAbsolutePath());
-            source = srcFile;
+            target = ImageProvider.scale(bitmap, width, height);
         }
-        if (bitmap != null && width == -1 && height == -1) {
-            width = bitmap.getWidth();
-            height = bitmap.getHeight();
+        if (srcFile != null && !cancelled) {
+            target = ImageProvider.decodeSampled(srcFile.getAbsolutePath(), width, height, BitmapPool.shared());
         }
-        if (source != null) {
-            Bitmap bitmap = ImageProvider.decodeBounds(source.getAbsolutePath(), width, height);
-            file = ImageProvider.compress(bitmap, Bitmap.CompressFormat.JPEG, max, outPutPath);
-            compressorHandler.sendEmptyMessage(0);
-            if (source.exists()) {
-                source.delete();
+        if (target != null && !cancelled) {
+            file = ImageProvider.compress(target, Bitmap.CompressFormat.JPEG, max, outPutPath);
+            width = target.getWidth();
+            height = target.getHeight();
+            dispatch(ImageCompressExecutor.WHAT_SUCCEED);
+            if (srcFile != null && deleteSource && srcFile.exists()) {
+                srcFile.delete();
             }
         }
+        if (target != null && target != bitmap) {
+            BitmapPool.shared().put(target);
+        }
         useTime = System.currentTimeMillis() - useTime;
-        Log.i(TAG, "->width = " + width + ",height = " + height + ",outPutPath = " + outPutPath + ",useTime = " + useTime + "ms");
+        Log.i(TAG, "->width = " + width + ",height = " + height + ",outPutPath = " + outPutPath + ",cancelled = " + cancelled + ",useTime = " + useTime + "ms");
+    }
+
+    /**
+     * 预估解码需要的内存，只读取图片文件头
+     *
+     * @return 单位字节
+     */
+    long estimateBytes() {
+        if (bitmap != null) {
+            return bitmap.getByteCount();
+        }
+        if (srcFile == null) {
+            return 0;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(srcFile.getAbsolutePath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return 0;
+        }
+        int inSampleSize = ImageProvider.calculateInSampleSize(options.outWidth, options.outHeight, width, height);
+        long outWidth = (options.outWidth + inSampleSize - 1) / inSampleSize;
+        long outHeight = (options.outHeight + inSampleSize - 1) / inSampleSize;
+        return outWidth * outHeight * BitmapPool.bytesPerPixel(Bitmap.Config.RGB_565);
+    }
+
+    /**
+     * 通过主线程分发回调
+     *
+     * @param what 消息
+     */
+    private void dispatch(int what) {
+        if (onImageCompressListener != null && !cancelled) {
+            ImageCompressExecutor.shared().dispatch(what, this);
+        }
+    }
+
+    /**
+     * 主线程回调
+     *
+     * @param what 消息
+     */
+    void deliver(int what) {
+        if (onImageCompressListener == null) {
+            return;
+        }
+        if (what == ImageCompressExecutor.WHAT_START) {
+            onImageCompressListener.onImageCompressStart(this);
+        }
+        if (what == ImageCompressExecutor.WHAT_SUCCEED) {
+            onImageCompressListener.onImageCompressSucceed(this, file);
+        }
     }
 
 
@@ -233,27 +311,29 @@ public class ImageCompressor extends Thread {
     }
 
     /**
-     * 输出文件路径
+     * 压缩后是否删除源文件，默认删除
+     * @param deleteSource
      * @return
      */
-    public String outPutPath() {
-        return outPutPath;
+    public ImageCompressor deleteSource(boolean deleteSource) {
+        this.deleteSource = deleteSource;
+        return this;
     }
 
+    /**
+     * 压缩后是否删除源文件
+     * @return
+     */
+    public boolean deleteSource() {
+        return deleteSource;
+    }
 
-    private class CompressorHandler extends Handler {
-
-        public CompressorHandler(@NonNull Looper looper) {
-            super(looper);
-        }
-
-        @Override
-        public void handleMessage(@NonNull Message msg) {
-            super.handleMessage(msg);
-            if (onImageCompressListener != null) {
-                onImageCompressListener.onImageCompressSucceed(ImageCompressor.this, file);
-            }
-        }
+    /**
+     * 输出文件路径
+     * @return
+     */
+    public String outPutPath() {
+        return outPutPath;
     }
 
 }
@@ -207,7 +207,7 @@ public class ImageProvider {
 
 
     /**
-     * Bitmap压缩为ByteArrayOutputStream
+     * Bitmap压缩为ByteArrayOutputStream，根据像素数量估算起始质量
      *
      * @param bitmap 位图
      * @param format 格式
@@ -215,22 +215,77 @@ public class ImageProvider {
      * @return
      */
     public static ByteArrayOutputStream compress(Bitmap bitmap, Bitmap.CompressFormat format, int max) {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        bitmap.compress(format, 100, bos);
-        int options = 100;
-        long length = bos.toByteArray().length;
+        return compress(bitmap, format, max, true);
+    }
+
+    /**
+     * Bitmap压缩为ByteArrayOutputStream，二分查找满足大小限制的最高质量，
+     * 从中间质量开始最多编码7次，从估算质量开始最多8次，PNG是无损格式，质量无效，只编码一次
+     *
+     * @param bitmap   位图
+     * @param format   格式
+     * @param max      限制大小,压缩到<=max,单位KB
+     * @param estimate 是否根据像素数量估算起始质量，减少编码次数
+     * @return
+     */
+    public static ByteArrayOutputStream compress(Bitmap bitmap, Bitmap.CompressFormat format, int max, boolean estimate) {
         long useTime = System.currentTimeMillis();
         Log.i(TAG, "->compress format = " + format + ",max = " + max + "kb");
-        Log.i(TAG, "->compress before length = " + (length / 1024) + "kb");
-        while (max > 0 && bos.toByteArray().length / 1024 > max) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        if (max <= 0 || format == Bitmap.CompressFormat.PNG) {
+            bitmap.compress(format, 100, bos);
+            Log.i(TAG, "->compress after length = " + (bos.size() / 1024) + "kb" + ",useTime = " + (System.currentTimeMillis() - useTime) + "ms");
+            return bos;
+        }
+        ByteArrayOutputStream best = null;
+        QualitySearch search = new QualitySearch(estimate ? estimateQuality(bitmap, max) : QualitySearch.MIDDLE_QUALITY);
+        while (search.hasNext()) {
             bos.reset();
-            options -= 10;
-            bitmap.compress(format, options, bos);
+            bitmap.compress(format, search.quality(), bos);
+            boolean fits = bos.size() / 1024 <= max;
+            if (fits) {
+                ByteArrayOutputStream temp = best;
+                best = bos;
+                bos = temp == null ? new ByteArrayOutputStream(best.size()) : temp;
+            }
+            search.result(fits);
+        }
+        //都超过限制时，最后一次编码的是质量0
+        if (best == null) {
+            best = bos;
         }
-        length = bos.toByteArray().length;
         useTime = System.currentTimeMillis() - useTime;
-        Log.i(TAG, "->compress after length = " + (length / 1024) + "kb" + ",useTime = " + useTime + "ms");
-        return bos;
+        Log.i(TAG, "->compress after length = " + (best.size() / 1024) + "kb" + ",quality = " + Math.max(0, search.best()) + ",count = " + search.count() + ",useTime = " + useTime + "ms");
+        return best;
+    }
+
+    /**
+     * 根据像素数量估算满足大小限制的JPEG质量，作为二分查找的起点
+     *
+     * @param bitmap 位图
+     * @param max    限制大小,单位KB
+     * @return
+     */
+    public static int estimateQuality(Bitmap bitmap, int max) {
+        long pixels = (long) bitmap.getWidth() * bitmap.getHeight();
+        if (pixels <= 0) {
+            return 100;
+        }
+        //每个像素可用的比特数，经验值：质量95约4bpp，85约2bpp，70约1bpp，50约0.5bpp
+        float bpp = max * 1024f * 8 / pixels;
+        if (bpp >= 4) {
+            return 95;
+        }
+        if (bpp >= 2) {
+            return 85;
+        }
+        if (bpp >= 1) {
+            return 70;
+        }
+        if (bpp >= 0.5f) {
+            return 50;
+        }
+        return 30;
     }
 
     /**
@@ -265,7 +320,7 @@ public class ImageProvider {
         }
         try {
             out = new BufferedOutputStream(new FileOutputStream(file));
-            out.write(bos.toByteArray());
+            bos.writeTo(out);
             out.flush();
         } catch (FileNotFoundException e) {
             e.printStackTrace();
@@ -410,6 +465,90 @@ public class ImageProvider {
         return BitmapFactory.decodeByteArray(data, offset, length, options);
     }
 
+    /**
+     * 计算2的幂次采样率，采样后的宽高不小于目标宽高
+     *
+     * @param width     原始宽度
+     * @param height    原始高度
+     * @param outWidth  目标宽度，小于等于0不限制
+     * @param outHeight 目标高度，小于等于0不限制
+     * @return
+     */
+    public static int calculateInSampleSize(int width, int height, int outWidth, int outHeight) {
+        int inSampleSize = 1;
+        if (outWidth <= 0 && outHeight <= 0) {
+            return inSampleSize;
+        }
+        while ((outWidth <= 0 || width / (inSampleSize * 2) >= outWidth)
+                && (outHeight <= 0 || height / (inSampleSize * 2) >= outHeight)) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * 按大小采样解析图片，先读取宽高计算采样率，再解码一次，
+     * 解码的内存优先从Bitmap池中复用
+     *
+     * @param pathName  图片路径
+     * @param outWidth  目标宽度，小于等于0不限制
+     * @param outHeight 目标高度，小于等于0不限制
+     * @param pool      Bitmap池，为null不复用
+     * @return 可变的Bitmap，使用完成后可以放回Bitmap池
+     */
+    public static Bitmap decodeSampled(String pathName, int outWidth, int outHeight, BitmapPool pool) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(pathName, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        int inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, outWidth, outHeight);
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = inSampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        options.inMutable = true;
+        if (pool != null) {
+            int width = (options.outWidth + inSampleSize - 1) / inSampleSize;
+            int height = (options.outHeight + inSampleSize - 1) / inSampleSize;
+            options.inBitmap = pool.get(width, height, options.inPreferredConfig);
+        }
+        Bitmap bitmap = BitmapFactory.decodeFile(pathName, options);
+        if (bitmap == null && options.inBitmap != null) {
+            //复用的Bitmap不满足解码要求，decodeFile内部捕获异常后返回null，
+            //该Bitmap可能已经被写入部分数据，不再放回池中，不复用重新解码
+            options.inBitmap.recycle();
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeFile(pathName, options);
+        }
+        Log.i(TAG, "->decodeSampled outWidth = " + outWidth + ",outHeight = " + outHeight + ",inSampleSize = " + inSampleSize + ",reuse = " + (options.inBitmap != null) + ",pathName = " + pathName);
+        return bitmap;
+    }
+
+    /**
+     * 缩放到不超过目标宽高，保持宽高比
+     *
+     * @param bitmap    位图
+     * @param outWidth  目标宽度，小于等于0不限制
+     * @param outHeight 目标高度，小于等于0不限制
+     * @return 不需要缩放时返回原位图
+     */
+    public static Bitmap scale(Bitmap bitmap, int outWidth, int outHeight) {
+        float scale = 1;
+        if (outWidth > 0 && bitmap.getWidth() > outWidth) {
+            scale = Math.min(scale, outWidth * 1f / bitmap.getWidth());
+        }
+        if (outHeight > 0 && bitmap.getHeight() > outHeight) {
+            scale = Math.min(scale, outHeight * 1f / bitmap.getHeight());
+        }
+        if (scale >= 1) {
+            return bitmap;
+        }
+        int width = Math.max(1, Math.round(bitmap.getWidth() * scale));
+        int height = Math.max(1, Math.round(bitmap.getHeight() * scale));
+        return Bitmap.createScaledBitmap(bitmap, width, height, true);
+    }
+
     /**
      * 解析为最大值为max的Bitmap,单位kb
      *
@@ -0,0 +1,106 @@
+package com.androidx.content;
+
+/**
+ * Author: Relin
+ * Describe:压缩质量的二分查找，在[0,100]中查找满足大小限制的最高质量，
+ * 只负责选择下一次尝试的质量，编码由调用方完成。
+ * Date:2021/7/23 21:40
+ */
+public class QualitySearch {
+
+    /**
+     * 最低质量
+     */
+    public static final int MIN_QUALITY = 0;
+    /**
+     * 最高质量
+     */
+    public static final int MAX_QUALITY = 100;
+    /**
+     * 中间质量，从这里开始最多尝试7次
+     */
+    public static final int MIDDLE_QUALITY = (MIN_QUALITY + MAX_QUALITY) >>> 1;
+
+    /**
+     * 查找下限
+     */
+    private int low = MIN_QUALITY;
+    /**
+     * 查找上限
+     */
+    private int high = MAX_QUALITY;
+    /**
+     * 下一次尝试的质量
+     */
+    private int quality;
+    /**
+     * 满足限制的最高质量，没有时为-1
+     */
+    private int best = -1;
+    /**
+     * 尝试次数
+     */
+    private int count;
+
+    /**
+     * 构造函数
+     *
+     * @param start 第一次尝试的质量，超出范围时取边界
+     */
+    public QualitySearch(int start) {
+        this.quality = Math.max(MIN_QUALITY, Math.min(start, MAX_QUALITY));
+    }
+
+    /**
+     * 是否还需要尝试
+     *
+     * @return
+     */
+    public boolean hasNext() {
+        return low <= high;
+    }
+
+    /**
+     * 下一次尝试的质量
+     *
+     * @return
+     */
+    public int quality() {
+        return quality;
+    }
+
+    /**
+     * 记录本次尝试的结果
+     *
+     * @param fits 本次质量编码后是否满足大小限制
+     */
+    public void result(boolean fits) {
+        count++;
+        if (fits) {
+            best = quality;
+            low = quality + 1;
+        } else {
+            high = quality - 1;
+        }
+        quality = (low + high) >>> 1;
+    }
+
+    /**
+     * 满足限制的最高质量
+     *
+     * @return 都不满足时为-1
+     */
+    public int best() {
+        return best;
+    }
+
+    /**
+     * 尝试次数
+     *
+     * @return
+     */
+    public int count() {
+        return count;
+    }
+
+}
@@ -0,0 +1,490 @@
+package com.androidx.content;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.MediaMetadataRetriever;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.androidx.R;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import okio.ByteString;
+
+/**
+ * Author: Relin
+ * Describe:图片、视频缩略图缓存，内存按Bitmap占用字节LRU缓存，
+ * 磁盘保存缩小后的JPEG/WebP文件，key由媒体id和修改时间组成，
+ * 媒体文件没有修改时重新扫描不会再解码；磁盘缓存超过大小限制时按文件修改时间删除最久没有使用的缩略图，
+ * 读取命中时更新文件修改时间。
+ * Date:2021/7/17 20:16
+ */
+public class ThumbnailCache {
+
+    public final static String TAG = ThumbnailCache.class.getSimpleName();
+    /**
+     * 缓存文件夹名
+     */
+    public static final String DIR = "Thumbnail";
+    /**
+     * 缩略图最大边长
+     */
+    public static final int SIZE = 320;
+    /**
+     * 缩略图质量
+     */
+    public static final int QUALITY = 80;
+    /**
+     * 默认磁盘缓存大小限制，单位字节
+     */
+    public static final long MAX_DISK_SIZE = 50 * 1024 * 1024;
+    /**
+     * 单例
+     */
+    private static ThumbnailCache cache;
+    /**
+     * 磁盘缓存目录
+     */
+    private final File folder;
+    /**
+     * 内存缓存
+     */
+    private final LruCache<String, Bitmap> memory;
+    /**
+     * 加载线程池
+     */
+    private final ThreadPoolExecutor executor;
+    /**
+     * 主线程
+     */
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    /**
+     * 正在加载的key和等待显示的控件
+     */
+    private final Map<String, List<WeakReference<ImageView>>> loading = new HashMap<>();
+    /**
+     * 磁盘缓存格式
+     */
+    private volatile Bitmap.CompressFormat format = Bitmap.CompressFormat.JPEG;
+    /**
+     * 磁盘缓存大小限制，单位字节
+     */
+    private volatile long maxDiskSize = MAX_DISK_SIZE;
+    /**
+     * 磁盘缓存当前大小，小于0时还没有统计
+     */
+    private long diskSize = -1;
+
+    private ThumbnailCache(Context context) {
+        folder = new File(IOProvider.makeDirs(context.getApplicationContext(), DIR));
+        int maxSize = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+        memory = new LruCache<String, Bitmap>(maxSize) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+        executor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 缩略图缓存
+     *
+     * @param context 上下文
+     * @return
+     */
+    public static synchronized ThumbnailCache with(Context context) {
+        if (cache == null) {
+            cache = new ThumbnailCache(context);
+        }
+        return cache;
+    }
+
+    /**
+     * 缓存key
+     *
+     * @param id       媒体id，没有id时使用路径
+     * @param modified 修改时间
+     * @return
+     */
+    public static String key(Object id, Object modified) {
+        return ByteString.encodeUtf8(id + "_" + modified).md5().hex();
+    }
+
+    /**
+     * 设置磁盘缓存格式，默认JPEG
+     *
+     * @param format {@link Bitmap.CompressFormat#JPEG}、{@link Bitmap.CompressFormat#WEBP}
+     * @return
+     */
+    public ThumbnailCache format(Bitmap.CompressFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * 设置磁盘缓存大小限制
+     *
+     * @param maxDiskSize 单位字节
+     * @return
+     */
+    public ThumbnailCache maxDiskSize(long maxDiskSize) {
+        this.maxDiskSize = maxDiskSize;
+        return this;
+    }
+
+    /**
+     * 磁盘缓存文件
+     *
+     * @param key 缓存key
+     * @return
+     */
+    public File cacheFile(String key) {
+        return new File(folder, key);
+    }
+
+    /**
+     * 内存缓存
+     *
+     * @param key 缓存key
+     * @return 没有返回null
+     */
+    public Bitmap get(String key) {
+        return memory.get(key);
+    }
+
+    /**
+     * 获取已经生成的缩略图文件，磁盘没有时不生成
+     *
+     * @param key 缓存key
+     * @return 没有返回null
+     */
+    public File cached(String key) {
+        File file = cacheFile(key);
+        if (file.exists() && file.length() > 0) {
+            touch(file);
+            return file;
+        }
+        return null;
+    }
+
+    /**
+     * 获取缩略图文件，磁盘没有时生成，需要在子线程调用
+     *
+     * @param key  缓存key
+     * @param path 图片或者视频路径
+     * @return 生成失败返回null
+     */
+    public File file(String key, String path) {
+        File file = cached(key);
+        if (file != null) {
+            return file;
+        }
+        file = cacheFile(key);
+        Bitmap bitmap = generate(path);
+        if (bitmap == null) {
+            return null;
+        }
+        memory.put(key, bitmap);
+        return write(bitmap, file) ? file : null;
+    }
+
+    /**
+     * 获取缩略图，依次从内存、磁盘中读取，都没有时生成，需要在子线程调用
+     *
+     * @param key  缓存key
+     * @param path 图片或者视频路径
+     * @return 生成失败返回null
+     */
+    public Bitmap load(String key, String path) {
+        Bitmap bitmap = memory.get(key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+        File file = cacheFile(key);
+        if (file.exists() && file.length() > 0) {
+            bitmap = BitmapFactory.decodeFile(file.getAbsolutePath());
+            if (bitmap != null) {
+                touch(file);
+            }
+        }
+        if (bitmap == null) {
+            bitmap = generate(path);
+            if (bitmap != null) {
+                write(bitmap, file);
+            }
+        }
+        if (bitmap != null) {
+            memory.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 异步加载缩略图并显示，控件复用时只显示最后一次请求的缩略图，
+     * 请求的key记录在控件的{@link R.id#thumbnail_key}标签上，不占用控件的默认标签
+     *
+     * @param key    缓存key
+     * @param path   图片或者视频路径
+     * @param target 显示控件
+     */
+    public void display(final String key, final String path, ImageView target) {
+        target.setTag(R.id.thumbnail_key, key);
+        Bitmap bitmap = memory.get(key);
+        if (bitmap != null) {
+            target.setImageBitmap(bitmap);
+            return;
+        }
+        target.setImageDrawable(null);
+        synchronized (loading) {
+            List<WeakReference<ImageView>> targets = loading.get(key);
+            if (targets != null) {
+                targets.add(new WeakReference<>(target));
+                return;
+            }
+            targets = new ArrayList<>();
+            targets.add(new WeakReference<>(target));
+            loading.put(key, targets);
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = load(key, path);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        List<WeakReference<ImageView>> targets;
+                        synchronized (loading) {
+                            targets = loading.remove(key);
+                        }
+                        if (bitmap == null || targets == null) {
+                            return;
+                        }
+                        for (WeakReference<ImageView> reference : targets) {
+                            ImageView view = reference.get();
+                            if (view != null && key.equals(view.getTag(R.id.thumbnail_key))) {
+                                view.setImageBitmap(bitmap);
+                            }
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 生成缩略图，图片按采样率解码，视频取帧后缩小
+     *
+     * @param path 图片或者视频路径
+     * @return
+     */
+    private Bitmap generate(String path) {
+        if (path == null || !new File(path).exists()) {
+            return null;
+        }
+        long useTime = System.currentTimeMillis();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, options);
+        Bitmap bitmap;
+        if (options.outWidth > 0 && options.outHeight > 0) {
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = ImageProvider.calculateInSampleSize(options.outWidth, options.outHeight, SIZE, SIZE);
+            bitmap = BitmapFactory.decodeFile(path, options);
+        } else {
+            bitmap = frame(path);
+        }
+        if (bitmap == null) {
+            return null;
+        }
+        float scale = Math.min(1f, SIZE * 1f / Math.max(bitmap.getWidth(), bitmap.getHeight()));
+        Bitmap thumbnail = ImageProvider.scale(bitmap, Math.round(bitmap.getWidth() * scale), Math.round(bitmap.getHeight() * scale));
+        if (thumbnail != bitmap) {
+            bitmap.recycle();
+        }
+        Log.i(TAG, "->generate path = " + path + ",useTime = " + (System.currentTimeMillis() - useTime) + "ms");
+        return thumbnail;
+    }
+
+    /**
+     * 视频取帧
+     *
+     * @param path 视频路径
+     * @return
+     */
+    private Bitmap frame(String path) {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(path);
+            return retriever.getFrameAtTime();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            try {
+                retriever.release();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 写入磁盘缓存，先写临时文件再重命名，避免读到不完整的文件
+     *
+     * @param bitmap 缩略图
+     * @param file   缓存文件
+     * @return 是否成功
+     */
+    private boolean write(Bitmap bitmap, File file) {
+        File temp = new File(file.getAbsolutePath() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(temp));
+            bitmap.compress(format, QUALITY, out);
+            out.close();
+            out = null;
+            long length = file.length();
+            if (!temp.renameTo(file)) {
+                return false;
+            }
+            trim(file.length() - length);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            temp.delete();
+        }
+    }
+
+    /**
+     * 更新访问时间，磁盘缓存按文件修改时间淘汰
+     *
+     * @param file 缓存文件
+     */
+    private void touch(File file) {
+        file.setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * 记录磁盘缓存大小的变化，超过限制时删除最久没有使用的文件
+     *
+     * @param delta 大小变化，单位字节
+     */
+    private synchronized void trim(long delta) {
+        if (diskSize < 0) {
+            //第一次统计时已经包含本次写入的文件
+            diskSize = 0;
+            File[] files = folder.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    diskSize += file.length();
+                }
+            }
+        } else {
+            diskSize += delta;
+        }
+        if (diskSize <= maxDiskSize) {
+            return;
+        }
+        long useTime = System.currentTimeMillis();
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> evicts = evict(files, maxDiskSize);
+        diskSize = 0;
+        for (File file : files) {
+            diskSize += file.length();
+        }
+        for (File file : evicts) {
+            long length = file.length();
+            if (file.delete()) {
+                diskSize -= length;
+            }
+        }
+        Log.i(TAG, "->trim evict = " + evicts.size() + ",diskSize = " + (diskSize / 1024) + "kb" + ",useTime = " + (System.currentTimeMillis() - useTime) + "ms");
+    }
+
+    /**
+     * 按修改时间从旧到新选出需要删除的文件，直到剩余大小不超过限制
+     *
+     * @param files       缓存文件
+     * @param maxDiskSize 大小限制，单位字节
+     * @return 需要删除的文件
+     */
+    static List<File> evict(File[] files, long maxDiskSize) {
+        final long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        long total = 0;
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+            total += files[i].length();
+        }
+        //修改时间在排序前读取一次，排序过程中文件被访问也不会影响比较结果
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Long.compare(modified[o1], modified[o2]);
+            }
+        });
+        List<File> evicts = new ArrayList<>();
+        for (int i = 0; i < order.length && total > maxDiskSize; i++) {
+            File file = files[order[i]];
+            total -= file.length();
+            evicts.add(file);
+        }
+        return evicts;
+    }
+
+    /**
+     * 清除内存缓存
+     */
+    public void evictMemory() {
+        memory.evictAll();
+    }
+
+    /**
+     * 清除所有缓存
+     */
+    public synchronized void clear() {
+        memory.evictAll();
+        diskSize = 0;
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,342 @@
+package com.androidx.io;
+
+import android.content.Context;
+import android.os.Build;
+import android.system.ErrnoException;
+import android.system.Os;
+
+import com.androidx.content.IOProvider;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Author: Relin
+ * Describe:按内容哈希保存下载文件，目录为{@link Downloader#DICTIONARY}/cas/算法/哈希，
+ * 相同内容只保存一份，目标文件和内容文件是同一个文件的硬链接，内容文件设为只读，
+ * 链接的目标文件也是只读的，需要修改时先删除再重新写入，不能原地写入。
+ * 内容文件的链接数为1时说明没有目标文件引用，由{@link #sweep()}删除。
+ * Android 5.0以下不支持硬链接，不保存内容。
+ * Date:2021/7/13 21:18
+ */
+public class ContentStore {
+
+    /**
+     * 算法 - MD5
+     */
+    public static final String MD5 = "MD5";
+    /**
+     * 算法 - SHA-256
+     */
+    public static final String SHA256 = "SHA-256";
+    /**
+     * 存储文件夹
+     */
+    public static final String FOLDER = "cas";
+    /**
+     * 读取缓冲大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 链接、恢复和清理互斥，避免清理掉正在链接的内容
+     */
+    private static final Object LOCK = new Object();
+    /**
+     * 计算哈希和复制文件的线程
+     */
+    private static ThreadPoolExecutor executor;
+
+    /**
+     * 存储根目录
+     */
+    private final File root;
+
+    public ContentStore(Context context) {
+        this.root = new File(new IOProvider().makeDirs(context, Downloader.DICTIONARY + File.separator + FOLDER));
+    }
+
+    /**
+     * 计算哈希和复制文件的线程，不在调用线程中读写文件
+     *
+     * @return
+     */
+    public static synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /**
+     * 创建摘要
+     *
+     * @param algorithm 算法{@link #MD5}、{@link #SHA256}
+     * @return
+     * @throws IOException 不支持的算法
+     */
+    public static MessageDigest digest(String algorithm) throws IOException {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Unsupported checksum algorithm:" + algorithm, e);
+        }
+    }
+
+    /**
+     * 摘要的16进制小写字符串
+     *
+     * @param digest 摘要
+     * @return
+     */
+    public static String hex(MessageDigest digest) {
+        return ByteString.of(digest.digest()).hex();
+    }
+
+    /**
+     * 读取文件前length个字节更新摘要，用于断点续传时已经存在的部分
+     *
+     * @param digest 摘要
+     * @param file   文件
+     * @param length 长度，小于0时读取整个文件
+     * @throws IOException
+     */
+    public static void update(MessageDigest digest, File file, long length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        byte[] buf = new byte[BUFFER_SIZE];
+        InputStream is = new FileInputStream(file);
+        try {
+            long remaining = length < 0 ? Long.MAX_VALUE : length;
+            int len;
+            while (remaining > 0 && (len = is.read(buf, 0, (int) Math.min(buf.length, remaining))) != -1) {
+                digest.update(buf, 0, len);
+                remaining -= len;
+            }
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * 校验值是否一致
+     *
+     * @param expected 期望值
+     * @param actual   实际值
+     * @return
+     */
+    public static boolean matches(String expected, String actual) {
+        return expected != null && actual != null && expected.trim().equalsIgnoreCase(actual);
+    }
+
+    /**
+     * 内容文件
+     *
+     * @param algorithm 算法
+     * @param hex       哈希
+     * @return
+     */
+    public File blob(String algorithm, String hex) {
+        File folder = new File(root, algorithm.replace("-", "").toLowerCase(Locale.US));
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        return new File(folder, hex.toLowerCase(Locale.US));
+    }
+
+    /**
+     * 是否已经保存了该内容
+     *
+     * @param algorithm 算法
+     * @param hex       哈希
+     * @return
+     */
+    public boolean contains(String algorithm, String hex) {
+        return hex != null && blob(algorithm, hex).exists();
+    }
+
+    /**
+     * 文件是否和哈希一致
+     *
+     * @param algorithm 算法
+     * @param hex       哈希
+     * @param file      文件
+     * @param length    期望的长度，小于0时不检查
+     * @return
+     */
+    public static boolean verify(String algorithm, String hex, File file, long length) {
+        if (!file.exists() || (length >= 0 && file.length() != length)) {
+            return false;
+        }
+        try {
+            MessageDigest digest = digest(algorithm);
+            update(digest, file, -1);
+            return matches(hex, hex(digest));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 使用已经保存的内容生成目标文件，不需要重新下载，
+     * 内容损坏时删除内容并返回false。读取整个文件，需要在{@link #executor()}中调用
+     *
+     * @param algorithm 算法
+     * @param hex       哈希
+     * @param target    目标文件，硬链接时为只读
+     * @return 是否成功
+     */
+    public boolean restore(String algorithm, String hex, File target) {
+        synchronized (LOCK) {
+            if (!contains(algorithm, hex)) {
+                return false;
+            }
+            File blob = blob(algorithm, hex);
+            if (!verify(algorithm, hex, blob, -1)) {
+                blob.delete();
+                return false;
+            }
+            target.delete();
+            return link(blob, target) || copy(blob, target);
+        }
+    }
+
+    /**
+     * 保存下载完成的文件，内容已存在并且校验通过时目标文件改为指向已有内容，
+     * 否则下载完成的文件成为新的内容，保存后文件为只读
+     *
+     * @param algorithm 算法
+     * @param hex       哈希
+     * @param file      下载完成的文件
+     */
+    public void store(String algorithm, String hex, File file) {
+        synchronized (LOCK) {
+            File blob = blob(algorithm, hex);
+            if (verify(algorithm, hex, blob, file.length())) {
+                File temp = new File(file.getAbsolutePath() + ".cas");
+                temp.delete();
+                if (link(blob, temp)) {
+                    if (!temp.renameTo(file)) {
+                        temp.delete();
+                    }
+                }
+                blob.setReadOnly();
+                return;
+            }
+            blob.delete();
+            if (link(file, blob)) {
+                //硬链接共享文件权限，目标文件同时变为只读
+                blob.setReadOnly();
+            }
+        }
+    }
+
+    /**
+     * 删除没有目标文件引用的内容，链接数为1时只剩内容文件本身
+     *
+     * @return 删除的数量
+     */
+    public int sweep() {
+        int count = 0;
+        synchronized (LOCK) {
+            File[] folders = root.listFiles();
+            for (int i = 0; folders != null && i < folders.length; i++) {
+                File[] blobs = folders[i].listFiles();
+                for (int j = 0; blobs != null && j < blobs.length; j++) {
+                    if (links(blobs[j]) == 1 && blobs[j].delete()) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 文件的硬链接数
+     *
+     * @param file 文件
+     * @return 不支持或者失败时为-1
+     */
+    public static long links(File file) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return -1;
+        }
+        try {
+            return Os.stat(file.getAbsolutePath()).st_nlink;
+        } catch (ErrnoException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 创建硬链接
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     * @return 是否成功，Android 5.0以下返回false
+     */
+    public static boolean link(File source, File target) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return false;
+        }
+        try {
+            Os.link(source.getAbsolutePath(), target.getAbsolutePath());
+            return true;
+        } catch (ErrnoException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 复制文件
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     * @return 是否成功
+     */
+    public static boolean copy(File source, File target) {
+        Source in = null;
+        BufferedSink sink = null;
+        try {
+            in = Okio.source(source);
+            sink = Okio.buffer(Okio.sink(target));
+            sink.writeAll(in);
+            sink.close();
+            sink = null;
+            return true;
+        } catch (IOException e) {
+            target.delete();
+            return false;
+        } finally {
+            try {
+                if (in != null) {
+                    in.close();
+                }
+                if (sink != null) {
+                    sink.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+}
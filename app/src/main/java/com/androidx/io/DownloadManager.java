@@ -0,0 +1,645 @@
+package com.androidx.io;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.androidx.sqlite.SQLite;
+import com.androidx.util.Size;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.HttpUrl;
+import okio.ByteString;
+
+/**
+ * Author: Relin
+ * Describe:下载管理，限制同时下载的任务数量和同一主机的任务数量，
+ * 按优先级依次开始，任务保存在SQLite中，进程重启后调用with(context)会继续未完成的任务。
+ * 需要在主线程中调用。
+ * Date:2021/7/11 15:20
+ */
+public class DownloadManager {
+
+    /**
+     * 任务表名
+     */
+    public static final String TABLE = DownloadTask.class.getSimpleName();
+    /**
+     * 状态 - 等待
+     */
+    public static final int STATE_WAITING = 0;
+    /**
+     * 状态 - 下载中
+     */
+    public static final int STATE_RUNNING = 1;
+    /**
+     * 状态 - 暂停
+     */
+    public static final int STATE_PAUSED = 2;
+    /**
+     * 状态 - 完成
+     */
+    public static final int STATE_COMPLETED = 3;
+    /**
+     * 状态 - 失败
+     */
+    public static final int STATE_FAILED = 4;
+    /**
+     * 优先级 - 低
+     */
+    public static final int PRIORITY_LOW = 0;
+    /**
+     * 优先级 - 普通
+     */
+    public static final int PRIORITY_NORMAL = 1;
+    /**
+     * 优先级 - 高
+     */
+    public static final int PRIORITY_HIGH = 2;
+    /**
+     * 进度保存间隔，单位毫秒
+     */
+    private static final long SAVE_INTERVAL = 1000;
+    /**
+     * 任务表字段
+     */
+    private static final String[] COLUMNS = new String[]{"taskId", "url", "name", "dictionary", "file", "downloaded", "total", "etag", "state", "priority", "createTime"};
+    /**
+     * 任务表字段类型
+     */
+    private static final String[] TYPES = new String[]{SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_INTEGER, SQLite.TYPE_INTEGER, SQLite.TYPE_TEXT, SQLite.TYPE_INTEGER, SQLite.TYPE_INTEGER, SQLite.TYPE_INTEGER};
+
+    private static DownloadManager instance;
+    /**
+     * 上下文
+     */
+    private final Context context;
+    /**
+     * 数据库写入线程
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /**
+     * 所有任务
+     */
+    private final Map<String, DownloadTask> tasks = new LinkedHashMap<>();
+    /**
+     * 下载中的任务
+     */
+    private final Map<String, Downloader> running = new HashMap<>();
+    /**
+     * 已暂停或者删除但下载线程还没有退出的任务，退出之前不能重新开始，避免两个下载同时写入一个文件
+     */
+    private final Map<String, Downloader> stopping = new HashMap<>();
+    /**
+     * 主线程，下载线程退出后在主线程中重新安排任务
+     */
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    /**
+     * 任务监听
+     */
+    private final Map<String, OnDownloadListener> listeners = new HashMap<>();
+    /**
+     * 同时下载的最大任务数
+     */
+    private int maxTasks = 3;
+    /**
+     * 同一主机同时下载的最大任务数
+     */
+    private int maxTasksPerHost = 2;
+    /**
+     * 每个任务的分段数量
+     */
+    private int segments = 1;
+
+    private DownloadManager(Context context) {
+        this.context = context;
+        //建表和查询在数据库线程中执行，之后的保存在同一个线程中排队，不会早于建表
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                createTable();
+                final List<DownloadTask> list = SQLite.with(DownloadManager.this.context).query(DownloadTask.class, "select * from " + TABLE + " order by createTime asc", null);
+                //新的下载需要在主线程中创建
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        restore(list);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 下载管理，第一次调用时在数据库线程中读取未完成的任务，读取后在主线程中继续下载
+     *
+     * @param context 上下文
+     * @return
+     */
+    public static synchronized DownloadManager with(Context context) {
+        if (instance == null) {
+            instance = new DownloadManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * 同时下载的最大任务数
+     *
+     * @param maxTasks 任务数
+     * @return
+     */
+    public DownloadManager maxTasks(int maxTasks) {
+        this.maxTasks = maxTasks;
+        schedule();
+        return this;
+    }
+
+    public int maxTasks() {
+        return maxTasks;
+    }
+
+    /**
+     * 同一主机同时下载的最大任务数
+     *
+     * @param maxTasksPerHost 任务数
+     * @return
+     */
+    public DownloadManager maxTasksPerHost(int maxTasksPerHost) {
+        this.maxTasksPerHost = maxTasksPerHost;
+        schedule();
+        return this;
+    }
+
+    public int maxTasksPerHost() {
+        return maxTasksPerHost;
+    }
+
+    /**
+     * 每个任务的分段数量，参考{@link Downloader.Builder#segments(int)}
+     *
+     * @param segments 分段数量
+     * @return
+     */
+    public DownloadManager segments(int segments) {
+        this.segments = segments;
+        return this;
+    }
+
+    public int segments() {
+        return segments;
+    }
+
+    /**
+     * 添加下载任务
+     *
+     * @param url      资源地址
+     * @param listener 下载监听
+     * @return 任务标识
+     */
+    public String add(String url, OnDownloadListener listener) {
+        return add(url, null, null, PRIORITY_NORMAL, listener);
+    }
+
+    /**
+     * 添加下载任务，相同的任务已存在时只更新监听和优先级
+     *
+     * @param url        资源地址
+     * @param name       文件名称，为null时使用地址中的文件名
+     * @param dictionary 缓存文件夹，为null时使用{@link Downloader#DICTIONARY}
+     * @param priority   优先级{@link #PRIORITY_LOW}、{@link #PRIORITY_NORMAL}、{@link #PRIORITY_HIGH}
+     * @param listener   下载监听
+     * @return 任务标识
+     */
+    public synchronized String add(String url, String name, String dictionary, int priority, OnDownloadListener listener) {
+        String taskId = ByteString.encodeUtf8(url + " " + dictionary + " " + name).md5().hex();
+        if (listener != null) {
+            listeners.put(taskId, listener);
+        }
+        DownloadTask task = tasks.get(taskId);
+        if (task == null) {
+            task = new DownloadTask();
+            task.setTaskId(taskId);
+            task.setUrl(url);
+            task.setName(name);
+            task.setDictionary(dictionary);
+            task.setCreateTime(System.currentTimeMillis());
+            tasks.put(taskId, task);
+        }
+        task.setPriority(priority);
+        if (task.getState() == STATE_COMPLETED && task.getFile() != null && new File(task.getFile()).exists()) {
+            if (listener != null) {
+                listener.onDownloadCompleted(new File(task.getFile()));
+            }
+            return taskId;
+        }
+        if (task.getState() != STATE_RUNNING) {
+            task.setState(STATE_WAITING);
+        }
+        save(task);
+        schedule();
+        return taskId;
+    }
+
+    /**
+     * 暂停任务
+     *
+     * @param taskId 任务标识
+     */
+    public synchronized void pause(String taskId) {
+        DownloadTask task = tasks.get(taskId);
+        if (task == null || task.getState() == STATE_COMPLETED) {
+            return;
+        }
+        Downloader downloader = running.remove(taskId);
+        if (downloader != null) {
+            stop(taskId, downloader);
+            downloader.pause();
+        }
+        task.setState(STATE_PAUSED);
+        save(task);
+        schedule();
+    }
+
+    /**
+     * 继续暂停或者失败的任务
+     *
+     * @param taskId 任务标识
+     */
+    public synchronized void resume(String taskId) {
+        DownloadTask task = tasks.get(taskId);
+        if (task == null || task.getState() == STATE_RUNNING || task.getState() == STATE_COMPLETED) {
+            return;
+        }
+        task.setState(STATE_WAITING);
+        save(task);
+        schedule();
+    }
+
+    /**
+     * 删除任务
+     *
+     * @param taskId     任务标识
+     * @param deleteFile 是否删除已下载的文件
+     */
+    public synchronized void remove(String taskId, boolean deleteFile) {
+        DownloadTask task = tasks.remove(taskId);
+        listeners.remove(taskId);
+        Downloader downloader = running.remove(taskId);
+        if (downloader != null) {
+            stop(taskId, downloader);
+            downloader.destroy();
+        }
+        if (task == null) {
+            return;
+        }
+        if (deleteFile && task.getFile() != null) {
+            File file = new File(task.getFile());
+            file.delete();
+            new File(file.getAbsolutePath() + Downloader.SEGMENT_SUFFIX).delete();
+        }
+        final String id = taskId;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                SQLite.with(context).delete(TABLE, "taskId = ?", new String[]{id});
+            }
+        });
+        if (deleteFile) {
+            //删除文件后内容存储中可能只剩没有引用的内容
+            ContentStore.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    new ContentStore(context).sweep();
+                }
+            });
+        }
+        schedule();
+    }
+
+    /**
+     * 设置任务监听
+     *
+     * @param taskId   任务标识
+     * @param listener 下载监听
+     */
+    public synchronized void setListener(String taskId, OnDownloadListener listener) {
+        if (listener == null) {
+            listeners.remove(taskId);
+        } else {
+            listeners.put(taskId, listener);
+        }
+    }
+
+    /**
+     * 获取任务
+     *
+     * @param taskId 任务标识
+     * @return
+     */
+    public synchronized DownloadTask task(String taskId) {
+        return tasks.get(taskId);
+    }
+
+    /**
+     * 所有任务
+     *
+     * @return
+     */
+    public synchronized List<DownloadTask> tasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    /**
+     * 按优先级开始等待中的任务，直到达到并发上限
+     */
+    private synchronized void schedule() {
+        List<DownloadTask> waiting = new ArrayList<>();
+        for (DownloadTask task : tasks.values()) {
+            if (task.getState() == STATE_WAITING) {
+                waiting.add(task);
+            }
+        }
+        Collections.sort(waiting, new Comparator<DownloadTask>() {
+            @Override
+            public int compare(DownloadTask o1, DownloadTask o2) {
+                if (o1.getPriority() != o2.getPriority()) {
+                    return o2.getPriority() - o1.getPriority();
+                }
+                return Long.compare(o1.getCreateTime(), o2.getCreateTime());
+            }
+        });
+        for (DownloadTask task : waiting) {
+            if (running.size() >= maxTasks) {
+                return;
+            }
+            //上一次的下载线程还在写入文件，退出后再开始
+            if (stopping.containsKey(task.getTaskId())) {
+                continue;
+            }
+            if (hostCount(task.getUrl()) >= maxTasksPerHost) {
+                continue;
+            }
+            start(task);
+        }
+    }
+
+    /**
+     * 记录正在停止的下载，下载线程已经退出时不需要记录
+     *
+     * @param taskId     任务标识
+     * @param downloader 下载
+     */
+    private void stop(String taskId, Downloader downloader) {
+        if (downloader.isDownloading()) {
+            stopping.put(taskId, downloader);
+        }
+    }
+
+    /**
+     * 下载线程退出，移除正在停止的下载并重新安排任务
+     *
+     * @param taskId     任务标识
+     * @param downloader 下载
+     */
+    private synchronized void onExit(String taskId, Downloader downloader) {
+        if (stopping.get(taskId) != downloader) {
+            return;
+        }
+        stopping.remove(taskId);
+        //新的下载需要在主线程中创建
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                schedule();
+            }
+        });
+    }
+
+    /**
+     * 主机正在下载的任务数量
+     *
+     * @param url 资源地址
+     * @return
+     */
+    private int hostCount(String url) {
+        String host = host(url);
+        int count = 0;
+        for (String taskId : running.keySet()) {
+            DownloadTask task = tasks.get(taskId);
+            if (task != null && host.equals(host(task.getUrl()))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 主机
+     *
+     * @param url 资源地址
+     * @return
+     */
+    private String host(String url) {
+        HttpUrl httpUrl = url == null ? null : HttpUrl.parse(url);
+        return httpUrl == null ? "" : httpUrl.host();
+    }
+
+    /**
+     * 开始任务
+     *
+     * @param task 任务
+     */
+    private void start(DownloadTask task) {
+        final String taskId = task.getTaskId();
+        TaskListener listener = new TaskListener(taskId);
+        final Downloader downloader = new Downloader.Builder(context)
+                .url(task.getUrl())
+                .name(task.getName())
+                .dictionary(task.getDictionary())
+                .isBreakpoint(true)
+                .segments(segments)
+                .etag(task.getEtag())
+                .autoStart(false)
+                .listener(listener)
+                .build();
+        listener.downloader = downloader;
+        downloader.setOnExitListener(new Runnable() {
+            @Override
+            public void run() {
+                onExit(taskId, downloader);
+            }
+        });
+        if (task.getUrl() != null) {
+            task.setFile(downloader.createFile(task.getUrl()).getAbsolutePath());
+        }
+        task.setState(STATE_RUNNING);
+        running.put(task.getTaskId(), downloader);
+        save(task);
+        downloader.start();
+    }
+
+    /**
+     * 任务结束
+     *
+     * @param taskId     任务标识
+     * @param downloader 结束的下载
+     * @param state      结束状态
+     * @return 任务不在下载中或者已经由新的下载接替时为null
+     */
+    private synchronized DownloadTask finish(String taskId, Downloader downloader, int state) {
+        DownloadTask task = tasks.get(taskId);
+        if (downloader == null || running.get(taskId) != downloader || task == null) {
+            return null;
+        }
+        running.remove(taskId);
+        String etag = downloader.etag();
+        if (etag != null) {
+            task.setEtag(etag);
+        }
+        task.setState(state);
+        save(task);
+        schedule();
+        return task;
+    }
+
+    /**
+     * 创建任务表
+     */
+    private void createTable() {
+        SQLite sqLite = SQLite.with(context);
+        sqLite.createTable(TABLE, COLUMNS, TYPES);
+        sqLite.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + TABLE + "_taskId ON " + TABLE + " (taskId)");
+    }
+
+    /**
+     * 恢复任务，进程结束前下载中的任务重新等待，恢复之前已经添加的任务不覆盖
+     *
+     * @param list 保存的任务
+     */
+    private synchronized void restore(List<DownloadTask> list) {
+        for (int i = 0; i < Size.of(list); i++) {
+            DownloadTask task = list.get(i);
+            if (tasks.containsKey(task.getTaskId())) {
+                continue;
+            }
+            if (task.getState() == STATE_RUNNING) {
+                task.setState(STATE_WAITING);
+            }
+            tasks.put(task.getTaskId(), task);
+        }
+        schedule();
+    }
+
+    /**
+     * 在数据库线程中保存任务
+     *
+     * @param task 任务
+     */
+    private void save(DownloadTask task) {
+        final ContentValues values = new ContentValues();
+        values.put("taskId", task.getTaskId());
+        values.put("url", task.getUrl());
+        values.put("name", task.getName());
+        values.put("dictionary", task.getDictionary());
+        values.put("file", task.getFile());
+        values.put("downloaded", task.getDownloaded());
+        values.put("total", task.getTotal());
+        values.put("etag", task.getEtag());
+        values.put("state", task.getState());
+        values.put("priority", task.getPriority());
+        values.put("createTime", task.getCreateTime());
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                SQLite.with(context).replace(TABLE, values);
+            }
+        });
+    }
+
+    /**
+     * 任务下载监听，更新任务状态后转发给调用者的监听
+     */
+    private class TaskListener implements OnDownloadListener {
+
+        private final String taskId;
+        private long saveTime;
+        /**
+         * 该监听对应的下载，旧的下载延迟到达的消息不影响新的下载
+         */
+        private Downloader downloader;
+
+        TaskListener(String taskId) {
+            this.taskId = taskId;
+        }
+
+        @Override
+        public void onDownloading(long total, long progress, int percent) {
+            OnDownloadListener listener;
+            synchronized (DownloadManager.this) {
+                DownloadTask task = tasks.get(taskId);
+                if (task == null || running.get(taskId) != downloader) {
+                    return;
+                }
+                task.setTotal(total);
+                task.setDownloaded(progress);
+                long now = System.currentTimeMillis();
+                if (now - saveTime > SAVE_INTERVAL) {
+                    saveTime = now;
+                    save(task);
+                }
+                listener = listeners.get(taskId);
+            }
+            if (listener != null) {
+                listener.onDownloading(total, progress, percent);
+            }
+        }
+
+        @Override
+        public void onDownloadCompleted(File file) {
+            OnDownloadListener listener;
+            synchronized (DownloadManager.this) {
+                DownloadTask task = tasks.get(taskId);
+                if (task != null && running.get(taskId) == downloader) {
+                    task.setFile(file.getAbsolutePath());
+                    task.setTotal(file.length());
+                    task.setDownloaded(file.length());
+                }
+                if (finish(taskId, downloader, STATE_COMPLETED) == null) {
+                    return;
+                }
+                listener = listeners.get(taskId);
+            }
+            if (listener != null) {
+                listener.onDownloadCompleted(file);
+            }
+        }
+
+        @Override
+        public void onDownloadFailed(Exception e) {
+            OnDownloadListener listener;
+            synchronized (DownloadManager.this) {
+                if (finish(taskId, downloader, STATE_FAILED) == null) {
+                    return;
+                }
+                listener = listeners.get(taskId);
+            }
+            if (listener != null) {
+                listener.onDownloadFailed(e);
+            }
+        }
+
+    }
+
+}
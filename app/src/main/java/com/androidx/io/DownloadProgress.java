@@ -0,0 +1,81 @@
+package com.androidx.io;
+
+/**
+ * Author: Relin
+ * Describe:下载进度，每个下载器复用同一个对象，
+ * 下载线程更新数值，只有间隔达到{@link #INTERVAL}或者下载完成时才通知主线程。
+ * Date:2021/7/12 20:05
+ */
+public class DownloadProgress {
+
+    /**
+     * 通知间隔，单位毫秒
+     */
+    public static final long INTERVAL = 200;
+    /**
+     * 文件总大小
+     */
+    private volatile long total;
+    /**
+     * 已下载大小
+     */
+    private volatile long progress;
+    /**
+     * 百分比
+     */
+    private volatile int percent;
+    /**
+     * 上次通知时间
+     */
+    private long notifyTime;
+    /**
+     * 上次通知的已下载大小
+     */
+    private long notifyProgress = -1;
+
+    /**
+     * 更新进度
+     *
+     * @param total    文件总大小
+     * @param progress 已下载大小
+     * @param percent  百分比
+     * @return 是否需要通知主线程
+     */
+    public synchronized boolean update(long total, long progress, int percent) {
+        this.total = total;
+        this.progress = progress;
+        this.percent = percent;
+        long now = System.currentTimeMillis();
+        boolean completed = total > 0 && progress >= total;
+        if (progress == notifyProgress || (!completed && now - notifyTime < INTERVAL)) {
+            return false;
+        }
+        notifyTime = now;
+        notifyProgress = progress;
+        return true;
+    }
+
+    /**
+     * 重置，重新开始下载时调用
+     */
+    public synchronized void reset() {
+        total = 0;
+        progress = 0;
+        percent = 0;
+        notifyTime = 0;
+        notifyProgress = -1;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public long progress() {
+        return progress;
+    }
+
+    public int percent() {
+        return percent;
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.androidx.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Author: Relin
+ * Describe:分段下载的分段，[start, end]为闭区间，
+ * 分段状态以"start,end,downloaded"每行一段保存在文件中，用于暂停后继续下载。
+ * Date:2021/7/10 9:36
+ */
+public class DownloadSegment {
+
+    /**
+     * 开始位置
+     */
+    public final long start;
+    /**
+     * 结束位置(包含)
+     */
+    public final long end;
+    /**
+     * 已下载大小，只由下载该分段的线程修改
+     */
+    private volatile long downloaded;
+
+    public DownloadSegment(long start, long end, long downloaded) {
+        this.start = start;
+        this.end = end;
+        this.downloaded = downloaded;
+    }
+
+    /**
+     * 已下载大小
+     *
+     * @return
+     */
+    public long downloaded() {
+        return downloaded;
+    }
+
+    /**
+     * 增加已下载大小
+     *
+     * @param length 长度
+     */
+    public void add(long length) {
+        downloaded += length;
+    }
+
+    /**
+     * 当前写入位置
+     *
+     * @return
+     */
+    public long position() {
+        return start + downloaded;
+    }
+
+    /**
+     * 剩余大小
+     *
+     * @return
+     */
+    public long remaining() {
+        return end - start + 1 - downloaded;
+    }
+
+    /**
+     * 是否下载完成
+     *
+     * @return
+     */
+    public boolean isCompleted() {
+        return remaining() <= 0;
+    }
+
+    /**
+     * 请求范围
+     *
+     * @return Range头部的值
+     */
+    public String range() {
+        return "bytes=" + position() + "-" + end;
+    }
+
+    /**
+     * 按数量平均分段
+     *
+     * @param total 文件总大小
+     * @param count 分段数量
+     * @return
+     */
+    public static List<DownloadSegment> split(long total, int count) {
+        List<DownloadSegment> segments = new ArrayList<>();
+        count = (int) Math.max(1, Math.min(count, total));
+        long size = total / count;
+        for (int i = 0; i < count; i++) {
+            long start = i * size;
+            long end = i == count - 1 ? total - 1 : start + size - 1;
+            segments.add(new DownloadSegment(start, end, 0));
+        }
+        return segments;
+    }
+
+    /**
+     * 分段的文件总大小
+     *
+     * @param segments 分段
+     * @return
+     */
+    public static long total(List<DownloadSegment> segments) {
+        return segments.get(segments.size() - 1).end + 1;
+    }
+
+    /**
+     * 读取分段状态
+     *
+     * @param file 状态文件
+     * @return 文件不存在或者内容错误时为null
+     */
+    public static List<DownloadSegment> read(File file) {
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        List<DownloadSegment> segments = new ArrayList<>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(file));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                if (values.length != 3) {
+                    return null;
+                }
+                segments.add(new DownloadSegment(Long.parseLong(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return segments.size() == 0 ? null : segments;
+    }
+
+    /**
+     * 保存分段状态
+     *
+     * @param file     状态文件
+     * @param segments 分段
+     */
+    public static synchronized void write(File file, List<DownloadSegment> segments) {
+        StringBuilder builder = new StringBuilder();
+        for (DownloadSegment segment : segments) {
+            builder.append(segment.start).append(',').append(segment.end).append(',').append(segment.downloaded()).append('\n');
+        }
+        File temp = new File(file.getAbsolutePath() + ".tmp");
+        FileWriter writer = null;
+        try {
+            writer = new FileWriter(temp);
+            writer.write(builder.toString());
+            writer.close();
+            writer = null;
+            if (!temp.renameTo(file)) {
+                file.delete();
+                temp.renameTo(file);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.androidx.io;
+
+/**
+ * Author: Relin
+ * Describe:下载任务表，由DownloadManager保存，进程重启后继续下载
+ * Date:2021/7/11 15:20
+ */
+public class DownloadTask {
+
+    /**
+     * 任务标识，(url, 文件夹, 文件名)的哈希
+     */
+    private String taskId;
+    /**
+     * 资源地址
+     */
+    private String url;
+    /**
+     * 文件名称
+     */
+    private String name;
+    /**
+     * 缓存文件夹
+     */
+    private String dictionary;
+    /**
+     * 文件路径
+     */
+    private String file;
+    /**
+     * 已下载大小
+     */
+    private long downloaded;
+    /**
+     * 文件总大小
+     */
+    private long total;
+    /**
+     * 服务器返回的ETag
+     */
+    private String etag;
+    /**
+     * 状态
+     */
+    private int state;
+    /**
+     * 优先级
+     */
+    private int priority;
+    /**
+     * 创建时间
+     */
+    private long createTime;
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDictionary() {
+        return dictionary;
+    }
+
+    public void setDictionary(String dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public long getDownloaded() {
+        return downloaded;
+    }
+
+    public void setDownloaded(long downloaded) {
+        this.downloaded = downloaded;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public void setState(int state) {
+        this.state = state;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(long createTime) {
+        this.createTime = createTime;
+    }
+
+}
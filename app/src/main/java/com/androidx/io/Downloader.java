@@ -1,26 +1,36 @@
 package com.androidx.io;
 
 import android.content.Context;
-import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
 import android.text.TextUtils;
 
 import com.androidx.content.IOProvider;
-import com.androidx.net.Http;
-import com.androidx.net.HttpsHostnameVerifier;
+import com.androidx.net.OkClient;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import okhttp3.Call;
 import okhttp3.Callback;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
 
 /**
  * Created by Relin
@@ -47,6 +57,18 @@ public class Downloader {
      * 下载失败
      */
     public static final int WHAT_DOWNLOAD_FAILED = 0x003;
+    /**
+     * 分段状态文件后缀
+     */
+    public static final String SEGMENT_SUFFIX = ".segments";
+    /**
+     * 分段状态保存间隔，单位毫秒
+     */
+    private static final long SEGMENT_SAVE_INTERVAL = 1000;
+    /**
+     * 读写缓冲大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     /**
      * 上下文
@@ -60,17 +82,22 @@ public class Downloader {
     /**
      * 是否取消
      */
-    private boolean isCancel;
+    private volatile boolean isCancel;
 
     /**
      * 是否暂停
      */
-    private boolean isPause;
+    private volatile boolean isPause;
 
     /**
      * 是否在下载中
      */
-    private boolean isDownloading;
+    private volatile boolean isDownloading;
+
+    /**
+     * 下载线程退出监听
+     */
+    private volatile Runnable onExitListener;
 
     /**
      * 资源地址
@@ -88,10 +115,62 @@ public class Downloader {
      * 实发支持断点下载
      */
     public final boolean isBreakpoint;
+    /**
+     * 分段数量，大于1时使用多个连接分段下载
+     */
+    public final int segments;
     /**
      * 下载监听
      */
     public OnDownloadListener onDownloadListener;
+    /**
+     * 服务器返回的ETag
+     */
+    private volatile String etag;
+    /**
+     * 校验算法
+     */
+    private final String checksumAlgorithm;
+    /**
+     * 期望的校验值
+     */
+    private final String checksum;
+    /**
+     * 是否按内容去重
+     */
+    private final boolean dedup;
+    /**
+     * 下载进度
+     */
+    private final DownloadProgress downloadProgress = new DownloadProgress();
+    /**
+     * 分段
+     */
+    private List<DownloadSegment> segmentList;
+    /**
+     * 分段写入的文件通道
+     */
+    private FileChannel channel;
+    /**
+     * 正在下载的分段数量
+     */
+    private final AtomicInteger activeSegments = new AtomicInteger();
+    /**
+     * 所有分段已下载的大小
+     */
+    private final AtomicLong segmentProgress = new AtomicLong();
+    /**
+     * 分段下载是否失败
+     */
+    private final AtomicBoolean segmentFailed = new AtomicBoolean();
+    /**
+     * 分段状态是否失效，失效时删除已下载的数据
+     */
+    private volatile boolean segmentReset;
+    /**
+     * 上次保存分段状态的时间
+     */
+    private volatile long segmentSaveTime;
 
 
     public Downloader(Builder builder) {
@@ -100,8 +179,15 @@ public class Downloader {
         this.name = builder.name;
         this.dictionary = builder.dictionary;
         this.isBreakpoint = builder.isBreakpoint;
+        this.segments = builder.segments;
+        this.etag = builder.etag;
+        this.checksumAlgorithm = builder.checksumAlgorithm;
+        this.checksum = builder.checksum;
+        this.dedup = builder.dedup;
         this.onDownloadListener = builder.onDownloadListener;
-        start();
+        if (builder.autoStart) {
+            start();
+        }
     }
 
     public static class Builder {
@@ -110,6 +196,12 @@ public class Downloader {
         private String name;
         private String dictionary;
         private boolean isBreakpoint;
+        private int segments = 1;
+        private String etag;
+        private String checksumAlgorithm;
+        private String checksum;
+        private boolean dedup;
+        private boolean autoStart = true;
         private OnDownloadListener onDownloadListener;
 
         public Builder(Context context){
@@ -136,6 +228,65 @@ public class Downloader {
             return this;
         }
 
+        /**
+         * 分段数量，大于1时先用HEAD获取文件大小，再用多个连接同时下载各个分段，
+         * 服务器不支持Range时自动使用单个连接下载。
+         *
+         * @param segments 分段数量
+         * @return
+         */
+        public Builder segments(int segments) {
+            this.segments = segments;
+            return this;
+        }
+
+        /**
+         * 上次下载时服务器返回的ETag，断点下载时作为If-Range发送，文件已修改时重新下载
+         *
+         * @param etag ETag
+         * @return
+         */
+        public Builder etag(String etag) {
+            this.etag = etag;
+            return this;
+        }
+
+        /**
+         * 校验文件，下载时边写入边计算，校验失败时删除文件并回调失败
+         *
+         * @param algorithm 算法{@link ContentStore#MD5}、{@link ContentStore#SHA256}
+         * @param checksum  期望的16进制校验值
+         * @return
+         */
+        public Builder checksum(String algorithm, String checksum) {
+            this.checksumAlgorithm = algorithm;
+            this.checksum = checksum;
+            return this;
+        }
+
+        /**
+         * 是否按内容去重，相同内容的文件只保存一份，
+         * 设置了校验值并且内容已存在时不再下载。去重保存的文件是只读的硬链接，需要修改时先删除再写入
+         *
+         * @param dedup 是否去重
+         * @return
+         */
+        public Builder dedup(boolean dedup) {
+            this.dedup = dedup;
+            return this;
+        }
+
+        /**
+         * 创建后是否立即开始下载，默认true，为false时需要调用start()
+         *
+         * @param autoStart 是否立即开始
+         * @return
+         */
+        public Builder autoStart(boolean autoStart) {
+            this.autoStart = autoStart;
+            return this;
+        }
+
         public Builder listener(OnDownloadListener onDownloadListener) {
             this.onDownloadListener = onDownloadListener;
             return this;
@@ -146,6 +297,15 @@ public class Downloader {
         }
     }
 
+    /**
+     * 服务器返回的ETag
+     *
+     * @return
+     */
+    public String etag() {
+        return etag;
+    }
+
     protected boolean isBreakpoint() {
         return isBreakpoint;
     }
@@ -164,6 +324,19 @@ public class Downloader {
 
     public void setDownloading(boolean downloading) {
         this.isDownloading = downloading;
+        Runnable listener = onExitListener;
+        if (!downloading && listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 设置下载线程退出监听，下载结束、暂停或者取消后不再写入文件时在下载线程中调用，可能调用多次
+     *
+     * @param listener 监听
+     */
+    public void setOnExitListener(Runnable listener) {
+        this.onExitListener = listener;
     }
 
     /**
@@ -173,6 +346,7 @@ public class Downloader {
         isPause = false;
         isCancel = false;
         if (!isDownloading) {
+            downloadProgress.reset();
             download();
         }
     }
@@ -254,35 +428,350 @@ public class Downloader {
             return;
         }
         setDownloading(true);
+        if (dedup && checksum != null) {
+            //校验和复制内容需要读写整个文件，不在调用线程中执行
+            ContentStore.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    restoreOrDownload();
+                }
+            });
+            return;
+        }
+        download(url);
+    }
+
+    /**
+     * 相同内容已经下载过时使用保存的内容，不需要再下载，否则开始下载
+     */
+    private void restoreOrDownload() {
+        File file = createFile(url);
+        if (new ContentStore(context).restore(algorithm(), checksum, file)) {
+            segmentFile(file).delete();
+            setDownloading(false);
+            sendCompletedMsg(file);
+            return;
+        }
+        if (isPause() || isCancel()) {
+            setDownloading(false);
+            return;
+        }
         download(url);
     }
 
     protected void download(final String url) {
+        if (segments > 1) {
+            downloadSegments(url);
+            return;
+        }
+        downloadRange(url);
+    }
+
+    /**
+     * 单个连接下载，从已下载的位置继续
+     *
+     * @param url 资源地址
+     */
+    private void downloadRange(final String url) {
         final long downloadedLength = calculateDownloadedLength(url);
-        Request request = new Request.Builder()
+        Request.Builder builder = new Request.Builder()
                 .addHeader("User-Agent", "Android")
                 .header("Content-Type", "text/html; charset=utf-8;")
                 .addHeader("RANGE", "bytes=" + downloadedLength + "-")
+                .url(url);
+        if (downloadedLength > 0 && !TextUtils.isEmpty(etag)) {
+            builder.header("If-Range", etag);
+        }
+        Call call = OkClient.client().newCall(builder.build());
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                setDownloading(false);
+                sendFailedMsg(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                File file = createFile(url);
+                if (response.code() == 416) {
+                    response.close();
+                    onRangeNotSatisfiable(file, downloadedLength, response.header("Content-Range"));
+                    return;
+                }
+                if (!response.isSuccessful()) {
+                    //错误页面不写入文件，保留已下载的数据
+                    response.close();
+                    setDownloading(false);
+                    sendFailedMsg(new IOException("File download failed, code:" + response.code()));
+                    return;
+                }
+                etag = response.header("ETag");
+                long length = downloadedLength;
+                //服务器返回完整文件(不支持Range或者文件已修改)，从头开始写入
+                if (length > 0 && response.code() == 200) {
+                    file.delete();
+                    length = 0;
+                }
+                doHttpResponse(response.body().source(), response.body().contentLength(), length, file);
+            }
+        });
+    }
+
+    /**
+     * 请求的位置超出文件大小(416)，本地文件大小和服务器返回的文件大小一致时已经下载完成，
+     * 本地文件比服务器的文件大时删除，下次重新下载
+     *
+     * @param file             下载文件
+     * @param downloadedLength 已下载的大小
+     * @param contentRange     服务器返回的Content-Range，斜杠后是文件总大小
+     */
+    private void onRangeNotSatisfiable(File file, long downloadedLength, String contentRange) {
+        long total = -1;
+        if (contentRange != null && contentRange.contains("/")) {
+            try {
+                total = Long.parseLong(contentRange.substring(contentRange.lastIndexOf("/") + 1).trim());
+            } catch (NumberFormatException e) {
+                e.printStackTrace();
+            }
+        }
+        setDownloading(false);
+        if (downloadedLength > 0 && total == downloadedLength && file.length() == total) {
+            totalSize = total;
+            onCompleted(file, null);
+            return;
+        }
+        if (total >= 0 && file.length() > total) {
+            file.delete();
+        }
+        sendFailedMsg(new IOException("File download failed, code:416, downloaded:" + downloadedLength + ", total:" + total));
+    }
+
+    /**
+     * 分段下载，有分段状态时继续下载未完成的分段，否则先获取文件大小再分段
+     *
+     * @param url 资源地址
+     */
+    private void downloadSegments(final String url) {
+        final File file = createFile(url);
+        final File segmentFile = segmentFile(file);
+        List<DownloadSegment> saved = isBreakpoint() ? DownloadSegment.read(segmentFile) : null;
+        if (saved != null && file.exists()) {
+            startSegments(url, file, saved);
+            return;
+        }
+        if (file.exists() && isBreakpoint()) {
+            //没有分段状态的文件是单个连接下载或者已经完成的文件
+            downloadRange(url);
+            return;
+        }
+        file.delete();
+        segmentFile.delete();
+        Request request = new Request.Builder()
+                .addHeader("User-Agent", "Android")
+                .header("Accept-Encoding", "identity")
                 .url(url)
+                .head()
                 .build();
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
-        builder.sslSocketFactory(Http.options().cert().getSSLSocketFactory());
-        builder.hostnameVerifier(new HttpsHostnameVerifier());
-        OkHttpClient okHttpClient = builder.build();
-        Call call = okHttpClient.newCall(request);
-        call.enqueue(new Callback() {
+        OkClient.client().newCall(request).enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
+                setDownloading(false);
                 sendFailedMsg(e);
             }
 
             @Override
             public void onResponse(Call call, Response response) {
-                doHttpResponse(response.body().byteStream(), response.body().contentLength(), downloadedLength, createFile(url));
+                long length = -1;
+                String contentLength = response.header("Content-Length");
+                try {
+                    length = contentLength == null ? -1 : Long.parseLong(contentLength);
+                } catch (NumberFormatException e) {
+                    e.printStackTrace();
+                }
+                boolean acceptRanges = "bytes".equalsIgnoreCase(response.header("Accept-Ranges"));
+                etag = response.header("ETag");
+                response.close();
+                if (!response.isSuccessful() || length <= 0 || !acceptRanges) {
+                    downloadRange(url);
+                    return;
+                }
+                startSegments(url, file, DownloadSegment.split(length, segments));
             }
         });
     }
 
+    /**
+     * 分段状态文件
+     *
+     * @param file 下载文件
+     * @return
+     */
+    protected File segmentFile(File file) {
+        return new File(file.getAbsolutePath() + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 开始下载未完成的分段
+     *
+     * @param url      资源地址
+     * @param file     下载文件
+     * @param segments 分段
+     */
+    private void startSegments(String url, final File file, final List<DownloadSegment> segments) {
+        long total = DownloadSegment.total(segments);
+        long downloaded = 0;
+        int active = 0;
+        for (DownloadSegment segment : segments) {
+            downloaded += segment.downloaded();
+            active += segment.isCompleted() ? 0 : 1;
+        }
+        totalSize = total;
+        segmentList = segments;
+        segmentProgress.set(downloaded);
+        segmentFailed.set(false);
+        segmentReset = false;
+        if (active == 0) {
+            segmentFile(file).delete();
+            setDownloading(false);
+            //校验需要读取整个文件，不在调用线程中执行
+            ContentStore.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    onCompleted(file, null);
+                }
+            });
+            return;
+        }
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            if (randomAccessFile.length() < total) {
+                randomAccessFile.setLength(total);
+            }
+            channel = randomAccessFile.getChannel();
+        } catch (IOException e) {
+            setDownloading(false);
+            sendFailedMsg(e);
+            return;
+        }
+        DownloadSegment.write(segmentFile(file), segments);
+        activeSegments.set(active);
+        for (final DownloadSegment segment : segments) {
+            if (segment.isCompleted()) {
+                continue;
+            }
+            Request.Builder builder = new Request.Builder()
+                    .addHeader("User-Agent", "Android")
+                    .header("Accept-Encoding", "identity")
+                    .header("Range", segment.range())
+                    .url(url);
+            if (!TextUtils.isEmpty(etag)) {
+                builder.header("If-Range", etag);
+            }
+            OkClient.client().newCall(builder.build()).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    onSegmentFailed(e);
+                    onSegmentFinished(file);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try {
+                        doSegmentResponse(segment, response, file);
+                    } catch (IOException e) {
+                        onSegmentFailed(e);
+                    } finally {
+                        response.close();
+                        onSegmentFinished(file);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 处理分段数据，按分段位置写入文件
+     *
+     * @param segment  分段
+     * @param response 服务器返回
+     * @param file     下载文件
+     * @throws IOException
+     */
+    private void doSegmentResponse(DownloadSegment segment, Response response, File file) throws IOException {
+        if (response.code() != 206) {
+            //文件已修改或者服务器不再支持Range，下次重新分段下载
+            segmentReset = true;
+            throw new IOException("The server does not support range requests or the file has changed, code:" + response.code());
+        }
+        InputStream is = response.body().byteStream();
+        //按位置写入需要ByteBuffer，每个分段复用一个大缓冲区
+        byte[] buf = new byte[BUFFER_SIZE];
+        int len;
+        while (!isPause() && !isCancel() && !segmentFailed.get() && !segment.isCompleted()
+                && (len = is.read(buf, 0, (int) Math.min(buf.length, segment.remaining()))) != -1) {
+            ByteBuffer buffer = ByteBuffer.wrap(buf, 0, len);
+            long position = segment.position();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            segment.add(len);
+            long progress = segmentProgress.addAndGet(len);
+            sendDownloadingMsg(totalSize, progress, (int) (progress * 100 / totalSize));
+            long now = System.currentTimeMillis();
+            if (now - segmentSaveTime > SEGMENT_SAVE_INTERVAL) {
+                segmentSaveTime = now;
+                DownloadSegment.write(segmentFile(file), segmentList);
+            }
+        }
+    }
+
+    /**
+     * 分段下载失败，停止其他分段
+     *
+     * @param e 异常
+     */
+    private void onSegmentFailed(IOException e) {
+        if (segmentFailed.compareAndSet(false, true)) {
+            sendFailedMsg(e);
+        }
+    }
+
+    /**
+     * 分段结束，所有分段结束后保存状态或者完成下载
+     *
+     * @param file 下载文件
+     */
+    private void onSegmentFinished(File file) {
+        if (activeSegments.decrementAndGet() != 0) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        boolean completed = true;
+        for (DownloadSegment segment : segmentList) {
+            completed &= segment.isCompleted();
+        }
+        setDownloading(false);
+        if (completed) {
+            segmentFile(file).delete();
+            //分段乱序写入，完成后再计算校验值
+            onCompleted(file, null);
+            return;
+        }
+        if (segmentReset) {
+            segmentFile(file).delete();
+            file.delete();
+            return;
+        }
+        DownloadSegment.write(segmentFile(file), segmentList);
+        if (!isPause() && !isCancel() && !segmentFailed.get()) {
+            sendFailedMsg(new IOException("The connection was closed before the segment was completed."));
+        }
+    }
+
     /**
      * 计算已经下载过的文件大小
      *
@@ -292,7 +781,8 @@ public class Downloader {
     private long calculateDownloadedLength(String url) {
         File file = createFile(url);
         if (file.exists()) {
-            if (isBreakpoint()) {
+            //只读的文件是内容存储的硬链接，不能继续写入，删除后重新下载
+            if (isBreakpoint() && file.canWrite()) {
                 return file.length();
             } else {
                 file.delete();
@@ -305,9 +795,15 @@ public class Downloader {
      * 处理服务器返回数据
      */
     protected void doHttpResponse(InputStream is, long contentLength, long downloadedLength, File file) {
+        doHttpResponse(Okio.buffer(Okio.source(is)), contentLength, downloadedLength, file);
+    }
+
+    /**
+     * 处理服务器返回数据，数据段直接从source移动到文件sink，不经过中间数组
+     */
+    protected void doHttpResponse(BufferedSource source, long contentLength, long downloadedLength, File file) {
         long downloading = 0;
-        byte[] buf = new byte[2048];
-        int len;
+        long len;
         RandomAccessFile randomAccessFile = null;
         try {
             if (downloadedLength == 0) {
@@ -316,8 +812,8 @@ public class Downloader {
                 totalSize = downloadedLength + contentLength;
             }
             if (totalSize == downloadedLength) {
-                //已下载字节和文件总字节相等，说明下载已经完成了
-                sendCompletedMsg(file);
+                //已下载字节和文件总字节相等，说明下载已经完成了，有校验值时校验文件
+                onCompleted(file, null);
                 return;
             }
             if (totalSize == 0) {
@@ -325,7 +821,7 @@ public class Downloader {
                     sendFailedMsg(new IOException("The file length value is 0 and cannot be downloaded properly"));
                 } else {
                     if (isBreakpoint()) {
-                        sendCompletedMsg(file);
+                        onCompleted(file, null);
                     } else {
                         file.delete();
                     }
@@ -333,27 +829,38 @@ public class Downloader {
                 return;
             }
             randomAccessFile = new RandomAccessFile(file, "rw");
-            randomAccessFile.seek(downloadedLength);
-            while ((len = is.read(buf)) != -1) {
-                if (isPause() || isCancel()) {
-                    break;
-                }
-                randomAccessFile.write(buf, 0, len);
+            FileChannel fileChannel = randomAccessFile.getChannel();
+            fileChannel.position(downloadedLength);
+            OutputStream os = Channels.newOutputStream(fileChannel);
+            //写入时计算校验值，断点续传时先计算已经下载的部分
+            MessageDigest digest = null;
+            if (algorithm() != null) {
+                digest = ContentStore.digest(algorithm());
+                ContentStore.update(digest, file, downloadedLength);
+                os = new DigestOutputStream(os, digest);
+            }
+            BufferedSink sink = Okio.buffer(Okio.sink(os));
+            while (!isPause() && !isCancel() && (len = source.read(sink.buffer(), BUFFER_SIZE)) != -1) {
+                sink.emitCompleteSegments();
                 downloading += len;
                 long downSum = downloading + downloadedLength;
                 //传递更新信息
-                int percentage = (int) ((downloadedLength + downloading) * 100 / totalSize);
+                int percentage = (int) (downSum * 100 / totalSize);
                 sendDownloadingMsg(totalSize, downSum, percentage);
             }
+            sink.flush();
             randomAccessFile.close();
-            sendCompletedMsg(file);
+            //暂停或者取消时不是完成状态，保留已下载的数据
+            if (isPause() || isCancel()) {
+                return;
+            }
+            onCompleted(file, digest);
         } catch (Exception e) {
             sendFailedMsg(e);
         } finally {
             setDownloading(false);
             try {
-                if (is != null)
-                    is.close();
+                source.close();
             } catch (IOException e) {
                 sendFailedMsg(e);
             }
@@ -366,6 +873,50 @@ public class Downloader {
         }
     }
 
+    /**
+     * 校验算法，只去重没有设置算法时使用SHA-256
+     *
+     * @return 不需要校验时为null
+     */
+    protected String algorithm() {
+        if (checksumAlgorithm != null) {
+            return checksumAlgorithm;
+        }
+        return dedup ? ContentStore.SHA256 : null;
+    }
+
+    /**
+     * 下载完成，校验文件并保存到内容存储
+     *
+     * @param file   文件
+     * @param digest 写入时计算的摘要，为null时读取文件计算
+     */
+    private void onCompleted(File file, MessageDigest digest) {
+        if (algorithm() == null) {
+            sendCompletedMsg(file);
+            return;
+        }
+        try {
+            if (digest == null) {
+                digest = ContentStore.digest(algorithm());
+                ContentStore.update(digest, file, -1);
+            }
+            String hex = ContentStore.hex(digest);
+            if (checksum != null && !ContentStore.matches(checksum, hex)) {
+                file.delete();
+                segmentFile(file).delete();
+                sendFailedMsg(new IOException("Checksum mismatch, expected:" + checksum + ", actual:" + hex));
+                return;
+            }
+            if (dedup) {
+                new ContentStore(context).store(algorithm(), hex, file);
+            }
+            sendCompletedMsg(file);
+        } catch (IOException e) {
+            sendFailedMsg(e);
+        }
+    }
+
     /**
      * 发送成功的信息
      *
@@ -392,21 +943,27 @@ public class Downloader {
     }
 
     /**
-     * 发送下载信息
+     * 发送下载信息，进度写入复用的DownloadProgress，
+     * 间隔达到DownloadProgress.INTERVAL并且主线程已经处理了上一条消息时才发送
      *
      * @param total    文件总大小
      * @param progress 文件进度
      * @param percent  百分比
      */
     protected void sendDownloadingMsg(long total, long progress, int percent) {
-        Message message = handler.obtainMessage();
-        message.what = WHAT_DOWNLOADING;
-        Bundle bundle = new Bundle();
-        bundle.putLong("total", total);
-        bundle.putLong("progress", progress);
-        bundle.putInt("percent", percent);
-        message.setData(bundle);
-        handler.sendMessage(message);
+        if (!downloadProgress.update(total, progress, percent) || handler.hasMessages(WHAT_DOWNLOADING)) {
+            return;
+        }
+        handler.sendMessage(handler.obtainMessage(WHAT_DOWNLOADING, downloadProgress));
+    }
+
+    /**
+     * 下载进度
+     *
+     * @return
+     */
+    public DownloadProgress progress() {
+        return downloadProgress;
     }
 
     /**
@@ -420,11 +977,11 @@ public class Downloader {
             if (onDownloadListener == null) {
                 return;
             }
-            Bundle data = msg.getData();
             Object obj = msg.obj;
             switch (msg.what) {
                 case WHAT_DOWNLOADING:
-                    onDownloadListener.onDownloading(data.getLong("total"), data.getLong("progress"), data.getInt("percent"));
+                    DownloadProgress progress = (DownloadProgress) obj;
+                    onDownloadListener.onDownloading(progress.total(), progress.progress(), progress.percent());
                     break;
                 case WHAT_DOWNLOAD_COMPLETED:
                     onDownloadListener.onDownloadCompleted((File) obj);
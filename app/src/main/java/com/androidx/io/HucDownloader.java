@@ -1,7 +1,6 @@
 package com.androidx.io;
 
 import android.content.Context;
-import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
 import android.text.TextUtils;
@@ -46,6 +45,10 @@ public class HucDownloader {
      * 下载失败
      */
     public static final int WHAT_DOWNLOAD_FAILED = 0x003;
+    /**
+     * 读写缓冲大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
     /**
      * 上下文
      */
@@ -54,6 +57,10 @@ public class HucDownloader {
      * 总的大小
      */
     private long totalSize = 0;
+    /**
+     * 下载进度
+     */
+    private final DownloadProgress downloadProgress = new DownloadProgress();
 
     /**
      * 是否取消
@@ -166,6 +173,7 @@ public class HucDownloader {
         isPause = false;
         isCancel = false;
         if (!isDownloading) {
+            downloadProgress.reset();
             download();
         }
     }
@@ -311,7 +319,7 @@ public class HucDownloader {
      */
     protected void doHttpResponse(InputStream is, long contentLength, long downloadedLength, File file) {
         long downloading = 0;
-        byte[] buf = new byte[2048];
+        byte[] buf = new byte[BUFFER_SIZE];
         int len;
         RandomAccessFile randomAccessFile = null;
         try {
@@ -351,6 +359,10 @@ public class HucDownloader {
                 sendDownloadingMsg(totalSize, downSum, percentage);
             }
             randomAccessFile.close();
+            //暂停或者取消时不是完成状态，保留已下载的数据
+            if (isPause() || isCancel()) {
+                return;
+            }
             sendCompletedMsg(file);
         } catch (Exception e) {
             sendFailedMsg(e);
@@ -397,21 +409,27 @@ public class HucDownloader {
     }
 
     /**
-     * 发送下载信息
+     * 发送下载信息，进度写入复用的DownloadProgress，
+     * 间隔达到DownloadProgress.INTERVAL并且主线程已经处理了上一条消息时才发送
      *
      * @param total    文件总大小
      * @param progress 文件进度
      * @param percent  百分比
      */
     protected void sendDownloadingMsg(long total, long progress, int percent) {
-        Message message = handler.obtainMessage();
-        message.what = WHAT_DOWNLOADING;
-        Bundle bundle = new Bundle();
-        bundle.putLong("total", total);
-        bundle.putLong("progress", progress);
-        bundle.putInt("percent", percent);
-        message.setData(bundle);
-        handler.sendMessage(message);
+        if (!downloadProgress.update(total, progress, percent) || handler.hasMessages(WHAT_DOWNLOADING)) {
+            return;
+        }
+        handler.sendMessage(handler.obtainMessage(WHAT_DOWNLOADING, downloadProgress));
+    }
+
+    /**
+     * 下载进度
+     *
+     * @return
+     */
+    public DownloadProgress progress() {
+        return downloadProgress;
     }
 
     /**
@@ -425,11 +443,11 @@ public class HucDownloader {
             if (onDownloadListener == null) {
                 return;
             }
-            Bundle data = msg.getData();
             Object obj = msg.obj;
             switch (msg.what) {
                 case WHAT_DOWNLOADING:
-                    onDownloadListener.onDownloading(data.getLong("total"), data.getLong("progress"), data.getInt("percent"));
+                    DownloadProgress progress = (DownloadProgress) obj;
+                    onDownloadListener.onDownloading(progress.total(), progress.progress(), progress.percent());
                     break;
                 case WHAT_DOWNLOAD_COMPLETED:
                     onDownloadListener.onDownloadCompleted((File) obj);
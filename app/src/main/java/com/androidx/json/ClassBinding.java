@@ -0,0 +1,271 @@
+package com.androidx.json;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Author: Relin
+ * Describe:类的字段绑定信息，每个类只反射一次，
+ * 缓存构造函数、字段、字段的转换类型和内部对象的get方法，
+ * {@link Json}解析和生成字符串时使用。
+ * Date:2021/7/18 20:36
+ */
+public class ClassBinding {
+
+    /**
+     * 转换类型 - String
+     */
+    public static final int KIND_STRING = 1;
+    /**
+     * 转换类型 - Character
+     */
+    public static final int KIND_CHARACTER = 2;
+    /**
+     * 转换类型 - int
+     */
+    public static final int KIND_INT = 3;
+    /**
+     * 转换类型 - long
+     */
+    public static final int KIND_LONG = 4;
+    /**
+     * 转换类型 - double
+     */
+    public static final int KIND_DOUBLE = 5;
+    /**
+     * 转换类型 - float
+     */
+    public static final int KIND_FLOAT = 6;
+    /**
+     * 转换类型 - 泛型列表
+     */
+    public static final int KIND_LIST = 7;
+    /**
+     * 转换类型 - 自定义对象
+     */
+    public static final int KIND_OBJECT = 8;
+    /**
+     * 转换类型 - 其他基本类型，只在生成字符串时使用
+     */
+    public static final int KIND_PRIMITIVE = 9;
+    /**
+     * 转换类型 - 其他泛型类型，例如Map、Set，解析时跳过，生成字符串时Map写为对象，集合写为数组
+     */
+    public static final int KIND_GENERIC = 10;
+
+    /**
+     * 已经创建的绑定信息
+     */
+    private static final ConcurrentHashMap<Class<?>, ClassBinding> BINDINGS = new ConcurrentHashMap<>();
+
+    /**
+     * 类
+     */
+    public final Class<?> type;
+    /**
+     * 构造函数，为null时使用{@link Class#newInstance()}
+     */
+    private final Constructor<?> constructor;
+    /**
+     * 字段名对应的字段，按声明顺序
+     */
+    private final Map<String, FieldBinding> fields;
+    /**
+     * 所有字段，按声明顺序
+     */
+    private final List<FieldBinding> fieldList;
+
+    private ClassBinding(Class<?> type) {
+        this.type = type;
+        Constructor<?>[] constructors = type.getDeclaredConstructors();
+        if (constructors.length == 0) {
+            constructor = null;
+        } else {
+            //解析内部类实例
+            constructor = constructors[0];
+            constructor.setAccessible(true);
+        }
+        Map<String, FieldBinding> map = new LinkedHashMap<>();
+        for (Field field : type.getDeclaredFields()) {
+            String name = field.getName();
+            if (field.isSynthetic() || name.equals("$change") || name.equals("serialVersionUID")) {
+                continue;
+            }
+            map.put(name, new FieldBinding(type, field));
+        }
+        fields = Collections.unmodifiableMap(map);
+        fieldList = Collections.unmodifiableList(new ArrayList<>(map.values()));
+    }
+
+    /**
+     * 获取类的绑定信息，第一次使用时创建
+     *
+     * @param type 类
+     * @return
+     */
+    public static ClassBinding of(Class<?> type) {
+        ClassBinding binding = BINDINGS.get(type);
+        if (binding == null) {
+            binding = new ClassBinding(type);
+            ClassBinding previous = BINDINGS.putIfAbsent(type, binding);
+            if (previous != null) {
+                binding = previous;
+            }
+        }
+        return binding;
+    }
+
+    /**
+     * 创建实例
+     *
+     * @return
+     * @throws InstantiationException
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     */
+    public Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        if (constructor == null) {
+            return type.newInstance();
+        }
+        return constructor.newInstance();
+    }
+
+    /**
+     * 字段
+     *
+     * @param name 字段名
+     * @return 没有声明该字段返回null
+     */
+    public FieldBinding field(String name) {
+        return name == null ? null : fields.get(name);
+    }
+
+    /**
+     * 所有字段，按声明顺序
+     *
+     * @return
+     */
+    public List<FieldBinding> fields() {
+        return fieldList;
+    }
+
+    /**
+     * 字段绑定信息
+     */
+    public static class FieldBinding {
+
+        /**
+         * 字段
+         */
+        public final Field field;
+        /**
+         * 字段名
+         */
+        public final String name;
+        /**
+         * 字段类型
+         */
+        public final Class<?> type;
+        /**
+         * 转换类型
+         */
+        public final int kind;
+        /**
+         * 泛型列表的元素类型
+         */
+        public final Class<?> elementType;
+        /**
+         * 自定义对象的get方法，没有时直接读取字段
+         */
+        private final Method getter;
+
+        FieldBinding(Class<?> owner, Field field) {
+            field.setAccessible(true);
+            this.field = field;
+            this.name = field.getName();
+            this.type = field.getType();
+            Class<?> elementType = null;
+            Type genericType = field.getGenericType();
+            if (type == String.class) {
+                kind = KIND_STRING;
+            } else if (type == Character.class) {
+                kind = KIND_CHARACTER;
+            } else if (type == int.class) {
+                kind = KIND_INT;
+            } else if (type == long.class) {
+                kind = KIND_LONG;
+            } else if (type == double.class) {
+                kind = KIND_DOUBLE;
+            } else if (type == float.class) {
+                kind = KIND_FLOAT;
+            } else if (type.isPrimitive()) {
+                kind = KIND_PRIMITIVE;
+            } else if (genericType instanceof ParameterizedType && List.class.isAssignableFrom(type)) {
+                //泛型转化为真实类型
+                Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                elementType = argument instanceof Class ? (Class<?>) argument : Object.class;
+                kind = KIND_LIST;
+            } else if (genericType instanceof ParameterizedType) {
+                kind = KIND_GENERIC;
+            } else {
+                kind = KIND_OBJECT;
+            }
+            this.elementType = elementType;
+            this.getter = kind == KIND_OBJECT ? getter(owner, name) : null;
+        }
+
+        /**
+         * 查找内部对象的get方法，方法名为get+首字母大写+其余小写
+         *
+         * @param owner 所在类
+         * @param name  字段名
+         * @return 没有返回null
+         */
+        private static Method getter(Class<?> owner, String name) {
+            String methodName = "get" + (name.length() > 0 ? name.substring(0, 1).toUpperCase() : "") + (name.length() > 1 ? name.substring(1).toLowerCase() : "");
+            try {
+                return owner.getMethod(methodName);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 读取字段值，自定义对象优先使用get方法
+         *
+         * @param target 对象
+         * @return
+         * @throws IllegalAccessException
+         * @throws InvocationTargetException
+         */
+        public Object get(Object target) throws IllegalAccessException, InvocationTargetException {
+            if (getter != null) {
+                return getter.invoke(target);
+            }
+            return field.get(target);
+        }
+
+        /**
+         * 设置字段值
+         *
+         * @param target 对象
+         * @param value  值
+         * @throws IllegalAccessException
+         */
+        public void set(Object target, Object value) throws IllegalAccessException {
+            field.set(target, value);
+        }
+
+    }
+
+}
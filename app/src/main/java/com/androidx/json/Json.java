@@ -1,20 +1,31 @@
 package com.androidx.json;
 
+import android.util.JsonReader;
+
+import com.androidx.annotation.EntityAdapters;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.lang.reflect.Constructor;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import okio.BufferedSink;
+import okio.BufferedSource;
+
 /**
  * Created by Relin
  * on 2018-07-10.
@@ -103,92 +114,30 @@ public class Json {
         if (cls == null || jsonObject == null) {
             return bean;
         }
+        ClassBinding binding = ClassBinding.of(cls);
         try {
-            Constructor<?>[] constructors = cls.getDeclaredConstructors();
-            if (constructors.length == 0) {
-                bean = cls.newInstance();
-            } else {//解析内部类实例
-                Constructor constructor = constructors[0];
-                constructor.setAccessible(true);
-                bean = (T) constructor.newInstance();
-            }
+            bean = (T) binding.newInstance();
             Iterator<String> iterator = jsonObject.keys();
             while (iterator.hasNext()) {
                 //获取Json字段的值
                 String key = iterator.next();
-                if (isDeclaredField(cls, key)) {
-                    Field field = null;
-                    try {
-                        field = cls.getDeclaredField(key);
-                    } catch (NoSuchFieldException e) {
-                        e.printStackTrace();
+                ClassBinding.FieldBinding field = binding.field(key);
+                if (field != null) {
+                    Object value = jsonObject.get(key);
+                    //嵌套的对象和列表直接解析，不转字符串
+                    if (field.kind == ClassBinding.KIND_OBJECT && value instanceof JSONObject) {
+                        field.set(bean, parseJSONObject(field.type, (JSONObject) value));
+                        continue;
+                    }
+                    if (field.kind == ClassBinding.KIND_LIST && value instanceof JSONArray) {
+                        field.set(bean, parseJSONArray(field.type, field.elementType, (JSONArray) value));
+                        continue;
                     }
-                    if (field != null) {
-                        field.setAccessible(true);
-                        Object value = jsonObject.get(key);
-                        String valueStr = String.valueOf(value);
-                        if (valueStr.equals("null")) {
-                            valueStr = "";
-                        }
-                        //设置字段的值
-                        Class<?> fieldType = field.getType();
-                        if (fieldType == String.class) {
-                            field.set(bean, valueStr);
-                        }
-                        //字符类型
-                        if (fieldType == Character.class) {
-                            field.set(bean, valueStr);
-                        }
-                        //Int类型
-                        if (fieldType == int.class) {
-                            if (valueStr.contains(".")) {
-                                throw new IllegalArgumentException("field " + key + " is Integer by Integer.parseInt() error,field " + key + " get value is double value.");
-                            } else {
-                                valueStr = valueStr.length() == 0 ? "0" : valueStr;
-                                field.set(bean, Integer.parseInt(valueStr));
-                            }
-                        }
-                        //Long类型
-                        if (fieldType == long.class) {
-                            if (valueStr.contains(".")) {
-                                throw new IllegalArgumentException("field " + key + " is Integer by Long.parseLong error,field " + key + " get value is double value.");
-                            } else {
-                                valueStr = valueStr.length() == 0 ? "0" : valueStr;
-                                field.set(bean, Long.parseLong(valueStr));
-                            }
-                        }
-                        //Double类型
-                        if (field.getType() == double.class) {
-                            valueStr = valueStr.length() == 0 ? "0.00" : valueStr;
-                            if (!valueStr.contains(".")) {
-                                valueStr += ".00";
-                            }
-                            field.set(bean, Double.parseDouble(valueStr));
-                        }
-                        //Float类型
-                        if (fieldType == float.class) {
-                            valueStr = valueStr.length() == 0 ? "0.00" : valueStr;
-                            if (!valueStr.contains(".")) {
-                                valueStr += ".00";
-                            }
-                            field.set(bean, Float.parseFloat(valueStr));
-                        }
-                        //如果不是一般数据类型
-                        if (!fieldType.isPrimitive()) {
-                            Type type = field.getGenericType();
-                            if (type instanceof ParameterizedType) {
-                                //泛型转化为真实类型
-                                ParameterizedType parameterizedType = (ParameterizedType) type;
-                                Class genericClazz = (Class) parameterizedType.getActualTypeArguments()[0];
-                                field.set(bean, parseJSONArray(field, genericClazz, valueStr));
-                            } else {
-                                //自定义的类
-                                if (fieldType instanceof Class && fieldType != String.class && fieldType != Character.class) {
-                                    field.set(bean, parseJSONObject(fieldType, parseJSONObjectString(valueStr)));
-                                }
-                            }
-                        }
+                    String valueStr = String.valueOf(value);
+                    if (valueStr.equals("null")) {
+                        valueStr = "";
                     }
+                    setFieldValue(bean, field, valueStr);
                 }
             }
         } catch (InstantiationException e) {
@@ -203,6 +152,76 @@ public class Json {
         return bean;
     }
 
+    /**
+     * 按字段的转换类型设置字段的值
+     *
+     * @param bean     数据对象
+     * @param field    字段
+     * @param valueStr 字段值
+     * @throws IllegalAccessException
+     */
+    static void setFieldValue(Object bean, ClassBinding.FieldBinding field, String valueStr) throws IllegalAccessException {
+        String key = field.name;
+        switch (field.kind) {
+            //字符串类型
+            case ClassBinding.KIND_STRING:
+                field.set(bean, valueStr);
+                break;
+            //字符类型
+            case ClassBinding.KIND_CHARACTER:
+                field.set(bean, JsonDecoder.toCharacter(valueStr));
+                break;
+            //Int类型
+            case ClassBinding.KIND_INT:
+                field.set(bean, JsonDecoder.toInt(key, valueStr));
+                break;
+            //Long类型
+            case ClassBinding.KIND_LONG:
+                field.set(bean, JsonDecoder.toLong(key, valueStr));
+                break;
+            //Double类型
+            case ClassBinding.KIND_DOUBLE:
+                field.set(bean, JsonDecoder.toDouble(valueStr));
+                break;
+            //Float类型
+            case ClassBinding.KIND_FLOAT:
+                field.set(bean, JsonDecoder.toFloat(valueStr));
+                break;
+            //泛型列表
+            case ClassBinding.KIND_LIST:
+                field.set(bean, parseJSONArray(field.field, field.elementType, valueStr));
+                break;
+            //自定义的类
+            case ClassBinding.KIND_OBJECT:
+                field.set(bean, parseJSONObject(field.type, parseJSONObjectString(valueStr)));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 注册实体类的Json适配器，代替{@link com.androidx.annotation.Entity}生成的类
+     *
+     * @param cls     实体类
+     * @param adapter 适配器，为null时该类强制使用反射
+     * @param <T>     实体类泛型
+     */
+    public static <T> void registerAdapter(Class<T> cls, JsonAdapter<T> adapter) {
+        EntityAdapters.register(cls, JsonAdapter.SUFFIX, adapter);
+    }
+
+    /**
+     * 实体类的Json适配器
+     *
+     * @param cls 实体类
+     * @param <T> 实体类泛型
+     * @return 没有生成或者注册时返回null
+     */
+    static <T> JsonAdapter<T> adapter(Class<T> cls) {
+        return (JsonAdapter<T>) EntityAdapters.find(cls, JsonAdapter.SUFFIX);
+    }
+
     /**
      * 是否是声明的字段
      *
@@ -217,17 +236,7 @@ public class Json {
         if (fieldName == null || fieldName.length() == 0) {
             return false;
         }
-        Field[] fields = cls.getDeclaredFields();
-        for (int i = 0; i < fields.length; i++) {
-            String name = fields[i].getName();
-            if (name == null) {
-                return false;
-            }
-            if (fieldName.equals(name)) {
-                return true;
-            }
-        }
-        return false;
+        return ClassBinding.of(cls).field(fieldName) != null;
     }
 
 
@@ -243,7 +252,47 @@ public class Json {
         if (jsonStr == null || jsonStr.length() == 0 || jsonStr.equals("null")) {
             return null;
         }
-        return parseJSONObject(cls, parseJSONObjectString(jsonStr));
+        return parseJSONObject(cls, new StringReader(jsonStr));
+    }
+
+    /**
+     * 流式解析Json对象，读取一次直接设置到对象字段，不创建JSONObject
+     *
+     * @param cls    类
+     * @param reader Json字符流，解析后关闭
+     * @param <T>    转换目标对象
+     * @return 数据对象，格式错误时返回null
+     */
+    public static <T> T parseJSONObject(Class<T> cls, Reader reader) {
+        if (cls == null || reader == null) {
+            return null;
+        }
+        JsonReader jsonReader = new JsonReader(reader);
+        try {
+            return JsonDecoder.readObject(jsonReader, cls);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (IllegalStateException e) {
+            e.printStackTrace();
+        } finally {
+            close(jsonReader);
+        }
+        return null;
+    }
+
+    /**
+     * 流式解析Json对象
+     *
+     * @param cls    类
+     * @param source UTF-8编码的Json数据，例如ResponseBody.source()，解析后关闭
+     * @param <T>    转换目标对象
+     * @return 数据对象，格式错误时返回null
+     */
+    public static <T> T parseJSONObject(Class<T> cls, BufferedSource source) {
+        if (source == null) {
+            return null;
+        }
+        return parseJSONObject(cls, new InputStreamReader(source.inputStream(), Charset.forName("UTF-8")));
     }
 
     /**
@@ -400,11 +449,96 @@ public class Json {
         if (!jsonStr.startsWith("[") && !jsonStr.endsWith("]")) {
             return new ArrayList<>();
         }
-        JSONArray array = parseJSONArrayString(jsonStr);
-        if (array == null) {
+        return parseJSONArray(cls, new StringReader(jsonStr));
+    }
+
+    /**
+     * 流式解析Json数组，读取一次直接设置到对象字段，不创建JSONArray
+     *
+     * @param cls    列表中数据对象类
+     * @param reader Json字符流，解析后关闭
+     * @param <T>    列表中数据对象
+     * @return 列表数据，格式错误时返回空列表
+     */
+    public static <T> List<T> parseJSONArray(Class<T> cls, Reader reader) {
+        if (cls == null || reader == null) {
             return new ArrayList<>();
         }
-        return parseJSONArray(cls, array);
+        JsonReader jsonReader = new JsonReader(reader);
+        try {
+            return JsonDecoder.readList(jsonReader, List.class, cls);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (IllegalStateException e) {
+            e.printStackTrace();
+        } finally {
+            close(jsonReader);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * 流式解析Json数组
+     *
+     * @param cls    列表中数据对象类
+     * @param source UTF-8编码的Json数据，例如ResponseBody.source()，解析后关闭
+     * @param <T>    列表中数据对象
+     * @return 列表数据，格式错误时返回空列表
+     */
+    public static <T> List<T> parseJSONArray(Class<T> cls, BufferedSource source) {
+        if (source == null) {
+            return new ArrayList<>();
+        }
+        return parseJSONArray(cls, new InputStreamReader(source.inputStream(), Charset.forName("UTF-8")));
+    }
+
+    /**
+     * JSONArray转换为列表，元素是对象时解析为elementType，elementType可以是字符串时其他值转为字符串，
+     * 和elementType不匹配的元素跳过
+     *
+     * @param listType    列表类型，List时使用ArrayList
+     * @param elementType 元素类型
+     * @param jsonArray   Json数组
+     * @param <T>         元素泛型
+     * @return 列表类型不能实例化时返回null
+     */
+    private static <T> List<T> parseJSONArray(Class<?> listType, Class<T> elementType, JSONArray jsonArray) {
+        List list;
+        try {
+            list = listType == List.class || !List.class.isAssignableFrom(listType) ? new ArrayList() : (List) listType.newInstance();
+        } catch (InstantiationException e) {
+            e.printStackTrace();
+            return null;
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+            return null;
+        }
+        boolean string = elementType.isAssignableFrom(String.class);
+        for (int i = 0; i < jsonArray.length(); i++) {
+            Object value = jsonArray.opt(i);
+            if (value instanceof JSONObject && !string) {
+                list.add(parseJSONObject(elementType, (JSONObject) value));
+            } else if (string && value != null && value != JSONObject.NULL) {
+                String valueStr = String.valueOf(value);
+                if (valueStr.length() != 0) {
+                    list.add(valueStr);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 关闭读取器
+     *
+     * @param reader 读取器
+     */
+    private static void close(JsonReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     /**
@@ -417,24 +551,12 @@ public class Json {
         if (map == null) {
             return "{}";
         }
-        StringBuffer sb = new StringBuffer("{");
-        for (String key : map.keySet()) {
-            String value = map.get(key);
-            value = value == null ? "" : value;
-            sb.append("\"" + key + "\":");
-            if (value.startsWith("[") && value.endsWith("]")) {
-                sb.append(value);
-            } else if (value.startsWith("{") && value.endsWith("}")) {
-                sb.append(value);
-            } else {
-                sb.append("\"" + value + "\"");
-            }
-            sb.append(",");
-        }
-        if (sb.toString().contains(",")) {
-            sb.deleteCharAt(sb.lastIndexOf(","));
+        StringBuilder sb = new StringBuilder();
+        try {
+            new JsonEncoder(sb).map(map);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        sb.append("}");
         return sb.toString();
     }
 
@@ -448,18 +570,12 @@ public class Json {
         if (mapList == null) {
             return "[]";
         }
-        if (mapList.size() == 0) {
-            return "[]";
-        }
-        StringBuffer sb = new StringBuffer("[");
-        for (Map<String, String> map : mapList) {
-            sb.append(parseMap(map));
-            sb.append(",");
-        }
-        if (sb.toString().contains(",")) {
-            sb.deleteCharAt(sb.lastIndexOf(","));
+        StringBuilder sb = new StringBuilder();
+        try {
+            new JsonEncoder(sb).mapList(mapList);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        sb.append("]");
         return sb.toString();
     }
 
@@ -473,80 +589,38 @@ public class Json {
         if (obj == null) {
             return "{}";
         }
-        Field[] fields = obj.getClass().getDeclaredFields();
-        if (fields.length == 0) {
-            return "{}";
-        }
-        StringBuffer sb = new StringBuffer("{");
-        for (Field field : fields) {
-            field.setAccessible(true);
-            String name = field.getName();
-            if (name.equals("$change") || name.equals("serialVersionUID")) {
-                continue;
-            }
-            Class<?> fieldType = field.getType();
-            String value;
-            //一般数据类型、字符类型
-            if (fieldType.isPrimitive() || fieldType == String.class) {
-                try {
-                    sb.append("\"" + name + "\":");
-                    value = String.valueOf(field.get(obj));
-                    sb.append("\"" + value + "\"");
-                    sb.append(",");
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-            } else {//内部列表数据
-                Type type = field.getGenericType();
-                if (type instanceof ParameterizedType && fieldType == List.class) {
-                    sb.append("\"" + name + "\":");
-                    List<?> list = null;
-                    try {
-                        list = (List<?>) field.get(obj);
-                    } catch (IllegalAccessException e) {
-                        e.printStackTrace();
-                    }
-                    sb.append("[");
-                    int size = list == null ? 0 : list.size();
-                    for (int i = 0; i < size; i++) {
-                        if (list.get(i).getClass() == String.class) {
-                            value = "\"" + list.get(i) + "\"";
-                        } else {
-                            value = parseObject(list.get(i));
-                        }
-                        sb.append(value);
-                        if (i != size - 1) {
-                            sb.append(",");
-                        }
-                    }
-                    sb.append("]");
-                    sb.append(",");
-                }
-            }
-            //内部类
-            if (fieldType instanceof Class && !fieldType.isPrimitive() && fieldType != String.class && fieldType != Character.class && fieldType != List.class) {
-                try {
-                    sb.append("\"" + name + "\":");
-                    String methodName = "get" + (name.length() > 0 ? name.substring(0, 1).toUpperCase() : "") + (name.length() > 1 ? name.substring(1).toLowerCase() : "");
-                    Object innerObj = obj.getClass().getMethod(methodName).invoke(obj);
-                    sb.append(parseObject(innerObj));
-                    sb.append(",");
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                } catch (InvocationTargetException e) {
-                    e.printStackTrace();
-                } catch (NoSuchMethodException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-        sb.append("}");
-        if (sb.length() > 1 && sb.charAt(sb.length() - 2) == ',' && sb.charAt(sb.length() - 1) == '}') {
-            sb.deleteCharAt(sb.length() - 2);
+        StringBuilder sb = new StringBuilder();
+        try {
+            new JsonEncoder(sb).object(obj);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
         return sb.toString();
     }
 
+    /**
+     * Object对象写入Json字符流，不生成中间字符串
+     *
+     * @param obj    数据对象
+     * @param writer 字符流，写入后不关闭
+     * @throws IOException
+     */
+    public static void parseObject(Object obj, Writer writer) throws IOException {
+        new JsonEncoder(writer).object(obj);
+        writer.flush();
+    }
+
+    /**
+     * Object对象以UTF-8写入，例如RequestBody.writeTo(BufferedSink)
+     *
+     * @param obj  数据对象
+     * @param sink 输出，写入后不关闭
+     * @throws IOException
+     */
+    public static void parseObject(Object obj, BufferedSink sink) throws IOException {
+        parseObject(obj, new OutputStreamWriter(sink.outputStream(), Charset.forName("UTF-8")));
+    }
+
     /**
      * 转化List为Json
      *
@@ -554,19 +628,27 @@ public class Json {
      * @return
      */
     public static String parseObject(List<?> list) {
-        StringBuffer sb = new StringBuffer("");
-        sb.append("[");
-        for (int i = 0; i < list.size(); i++) {
-            String value = parseObject(list.get(i));
-            sb.append(value);
-            if (i != (list.size() - 1) && list.size() != 1) {
-                sb.append(",");
-            }
+        StringBuilder sb = new StringBuilder();
+        try {
+            new JsonEncoder(sb).list(list);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        sb.append("]");
         return sb.toString();
     }
 
+    /**
+     * List写入Json字符流
+     *
+     * @param list   列表数据
+     * @param writer 字符流，写入后不关闭
+     * @throws IOException
+     */
+    public static void parseObject(List<?> list, Writer writer) throws IOException {
+        new JsonEncoder(writer).list(list);
+        writer.flush();
+    }
+
     /**
      * List类型JSON转化
      *
@@ -0,0 +1,38 @@
+package com.androidx.json;
+
+import android.util.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Author: Relin
+ * Describe:实体类的Json适配器，由{@link com.androidx.annotation.Entity}生成，
+ * 也可以通过{@link Json#registerAdapter(Class, JsonAdapter)}注册。
+ * Date:2021/7/21 20:31
+ */
+public interface JsonAdapter<T> {
+
+    /**
+     * 生成的类名后缀
+     */
+    String SUFFIX = "_JsonAdapter";
+
+    /**
+     * 读取对象
+     *
+     * @param reader 读取器，下一个Token是{@link android.util.JsonToken#BEGIN_OBJECT}
+     * @return
+     * @throws IOException
+     */
+    T read(JsonReader reader) throws IOException;
+
+    /**
+     * 写入对象
+     *
+     * @param encoder 写入器
+     * @param value   对象，不为null
+     * @throws IOException
+     */
+    void write(JsonEncoder encoder, T value) throws IOException;
+
+}
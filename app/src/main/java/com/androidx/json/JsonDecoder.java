@@ -0,0 +1,318 @@
+package com.androidx.json;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Author: Relin
+ * Describe:流式Json解析，使用{@link JsonReader}逐个读取Token直接设置到对象字段，
+ * 不创建JSONObject/JSONArray，嵌套的对象和列表也不需要转成字符串再解析，
+ * 字段的转换规则和{@link Json#parseJSONObject(Class, org.json.JSONObject)}一致，
+ * 有{@link JsonAdapter}的类直接使用适配器读取。
+ * Date:2021/7/19 21:05
+ */
+public class JsonDecoder {
+
+    /**
+     * 读取对象
+     *
+     * @param reader 读取器
+     * @param cls    对象类
+     * @param <T>    对象泛型
+     * @return 值为null或者不是对象时返回null
+     * @throws IOException
+     */
+    public static <T> T readObject(JsonReader reader, Class<T> cls) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        JsonAdapter<T> adapter = Json.adapter(cls);
+        if (adapter != null) {
+            return adapter.read(reader);
+        }
+        ClassBinding binding = ClassBinding.of(cls);
+        T bean;
+        try {
+            bean = (T) binding.newInstance();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                ClassBinding.FieldBinding field = binding.field(reader.nextName());
+                if (field == null) {
+                    reader.skipValue();
+                } else {
+                    readField(reader, bean, field);
+                }
+            }
+            reader.endObject();
+        } catch (InstantiationException e) {
+            throw new IOException("Can not instantiate " + cls, e);
+        } catch (IllegalAccessException e) {
+            throw new IOException("Can not access " + cls, e);
+        } catch (InvocationTargetException e) {
+            throw new IOException("Can not instantiate " + cls, e);
+        }
+        return bean;
+    }
+
+    /**
+     * 读取字段值
+     *
+     * @param reader 读取器
+     * @param bean   对象
+     * @param field  字段
+     * @throws IOException
+     * @throws IllegalAccessException
+     */
+    private static void readField(JsonReader reader, Object bean, ClassBinding.FieldBinding field) throws IOException, IllegalAccessException {
+        switch (field.kind) {
+            case ClassBinding.KIND_LIST:
+                field.set(bean, readList(reader, field.type, field.elementType));
+                break;
+            case ClassBinding.KIND_OBJECT:
+                field.set(bean, readObject(reader, field.type));
+                break;
+            //Map、Set等不解析，值为null
+            case ClassBinding.KIND_GENERIC:
+                reader.skipValue();
+                break;
+            default:
+                Json.setFieldValue(bean, field, readString(reader));
+                break;
+        }
+    }
+
+    /**
+     * 读取列表，元素是对象时解析为elementType，elementType可以是字符串时其他值转为字符串，
+     * 和elementType不匹配的元素跳过
+     *
+     * @param reader      读取器
+     * @param listType    列表类型，List时使用ArrayList
+     * @param elementType 元素类型
+     * @param <T>         元素泛型
+     * @return 列表类型不能实例化时返回null
+     * @throws IOException
+     */
+    public static <T> List<T> readList(JsonReader reader, Class<?> listType, Class<T> elementType) throws IOException {
+        List list = newList(listType);
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return list;
+        }
+        boolean string = elementType.isAssignableFrom(String.class);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            JsonToken token = reader.peek();
+            if (list == null) {
+                reader.skipValue();
+            } else if (token == JsonToken.BEGIN_OBJECT && !string) {
+                list.add(readObject(reader, elementType));
+            } else if (token == JsonToken.NULL) {
+                reader.nextNull();
+            } else if (string) {
+                String value = readString(reader);
+                if (value.length() != 0) {
+                    list.add(value);
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endArray();
+        return list;
+    }
+
+    /**
+     * 创建列表
+     *
+     * @param listType 列表类型
+     * @return 不能实例化时返回null
+     */
+    private static List newList(Class<?> listType) {
+        if (listType == null || listType == List.class || !List.class.isAssignableFrom(listType)) {
+            return new ArrayList();
+        }
+        try {
+            return (List) listType.newInstance();
+        } catch (InstantiationException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * 读取值为字符串，null为""，对象和列表为Json字符串
+     *
+     * @param reader 读取器
+     * @return
+     * @throws IOException
+     */
+    public static String readString(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return "";
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                StringWriter out = new StringWriter();
+                JsonWriter writer = new JsonWriter(out);
+                copy(reader, writer);
+                writer.flush();
+                return out.toString();
+            default:
+                return reader.nextString();
+        }
+    }
+
+    /**
+     * 转换为字符，""为null
+     *
+     * @param value 值
+     * @return
+     */
+    public static Character toCharacter(String value) {
+        return value.length() == 0 ? null : value.charAt(0);
+    }
+
+    /**
+     * 转换为int，""为0
+     *
+     * @param name  字段名
+     * @param value 值
+     * @return
+     */
+    public static int toInt(String name, String value) {
+        if (value.contains(".")) {
+            throw new IllegalArgumentException("field " + name + " is Integer by Integer.parseInt() error,field " + name + " get value is double value.");
+        }
+        return Integer.parseInt(value.length() == 0 ? "0" : value);
+    }
+
+    /**
+     * 转换为long，""为0
+     *
+     * @param name  字段名
+     * @param value 值
+     * @return
+     */
+    public static long toLong(String name, String value) {
+        if (value.contains(".")) {
+            throw new IllegalArgumentException("field " + name + " is Integer by Long.parseLong error,field " + name + " get value is double value.");
+        }
+        return Long.parseLong(value.length() == 0 ? "0" : value);
+    }
+
+    /**
+     * 转换为double，""为0
+     *
+     * @param value 值
+     * @return
+     */
+    public static double toDouble(String value) {
+        return Double.parseDouble(value.length() == 0 ? "0" : value);
+    }
+
+    /**
+     * 转换为float，""为0
+     *
+     * @param value 值
+     * @return
+     */
+    public static float toFloat(String value) {
+        return Float.parseFloat(value.length() == 0 ? "0" : value);
+    }
+
+    /**
+     * 复制一个值
+     *
+     * @param reader 读取器
+     * @param writer 写入器
+     * @throws IOException
+     */
+    private static void copy(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copy(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copy(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NUMBER:
+                writer.value(new JsonNumber(reader.nextString()));
+                break;
+            default:
+                writer.value(reader.nextString());
+                break;
+        }
+    }
+
+    /**
+     * 原样输出的数字
+     */
+    private static class JsonNumber extends Number {
+
+        private final String value;
+
+        JsonNumber(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int intValue() {
+            return (int) doubleValue();
+        }
+
+        @Override
+        public long longValue() {
+            return (long) doubleValue();
+        }
+
+        @Override
+        public float floatValue() {
+            return (float) doubleValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return Double.parseDouble(value);
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+}
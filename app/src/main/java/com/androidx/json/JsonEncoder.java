@@ -0,0 +1,367 @@
+package com.androidx.json;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Author: Relin
+ * Describe:Json写入器，直接写入{@link Appendable}（Writer、StringBuilder），
+ * 字符串按Json规范转义引号、反斜杠和控制字符，对象字段通过{@link ClassBinding}读取，
+ * 生成规则和{@link Json#parseObject(Object)}、{@link Json#parseMap(Map)}一致，
+ * 有{@link JsonAdapter}的类直接使用适配器写入。
+ * Date:2021/7/20 20:48
+ */
+public class JsonEncoder {
+
+    /**
+     * 控制字符的转义
+     */
+    private static final String[] REPLACEMENT_CHARS = new String[128];
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            REPLACEMENT_CHARS[i] = String.format("\\u%04x", i);
+        }
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+    }
+
+    /**
+     * 输出
+     */
+    private final Appendable out;
+    /**
+     * 每一层是否还没有写入元素
+     */
+    private boolean[] empty = new boolean[16];
+    /**
+     * 当前层级
+     */
+    private int depth;
+    /**
+     * 是否刚写入字段名
+     */
+    private boolean afterName;
+
+    /**
+     * 构造函数
+     *
+     * @param out 输出，例如Writer、StringBuilder
+     */
+    public JsonEncoder(Appendable out) {
+        this.out = out;
+    }
+
+    public JsonEncoder beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonEncoder endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonEncoder beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonEncoder endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * 写入字段名
+     *
+     * @param name 字段名
+     * @return
+     * @throws IOException
+     */
+    public JsonEncoder name(String name) throws IOException {
+        beforeValue();
+        string(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * 写入字符串值
+     *
+     * @param value 值，为null时写入null
+     * @return
+     * @throws IOException
+     */
+    public JsonEncoder value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    /**
+     * 写入null
+     *
+     * @return
+     * @throws IOException
+     */
+    public JsonEncoder nullValue() throws IOException {
+        beforeValue();
+        out.append("null");
+        return this;
+    }
+
+    /**
+     * 原样写入已经是Json的值
+     *
+     * @param json Json字符串
+     * @return
+     * @throws IOException
+     */
+    public JsonEncoder rawValue(String json) throws IOException {
+        beforeValue();
+        out.append(json);
+        return this;
+    }
+
+    /**
+     * 写入对象，基本类型和字符串字段写为字符串，列表写为数组，其他类型写为对象，null写为{}，
+     * 有{@link JsonAdapter}时使用适配器
+     *
+     * @param obj 对象
+     * @return
+     * @throws IOException
+     */
+    public JsonEncoder object(Object obj) throws IOException {
+        if (obj != null) {
+            JsonAdapter adapter = Json.adapter(obj.getClass());
+            if (adapter != null) {
+                adapter.write(this, obj);
+                return this;
+            }
+        }
+        beginObject();
+        if (obj == null) {
+            return endObject();
+        }
+        for (ClassBinding.FieldBinding field : ClassBinding.of(obj.getClass()).fields()) {
+            try {
+                switch (field.kind) {
+                    //一般数据类型、字符类型
+                    case ClassBinding.KIND_STRING:
+                    case ClassBinding.KIND_CHARACTER:
+                    case ClassBinding.KIND_INT:
+                    case ClassBinding.KIND_LONG:
+                    case ClassBinding.KIND_DOUBLE:
+                    case ClassBinding.KIND_FLOAT:
+                    case ClassBinding.KIND_PRIMITIVE:
+                        String text = String.valueOf(field.get(obj));
+                        name(field.name).value(text);
+                        break;
+                    //内部列表数据
+                    case ClassBinding.KIND_LIST:
+                        if (List.class.isAssignableFrom(field.type)) {
+                            List<?> list = (List<?>) field.get(obj);
+                            name(field.name).list(list);
+                        }
+                        break;
+                    //Map、Set等其他泛型类型
+                    case ClassBinding.KIND_GENERIC:
+                        name(field.name).generic(field.get(obj));
+                        break;
+                    //内部类
+                    case ClassBinding.KIND_OBJECT:
+                        Object value = field.get(obj);
+                        name(field.name).object(value);
+                        break;
+                    default:
+                        break;
+                }
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            } catch (InvocationTargetException e) {
+                e.printStackTrace();
+            }
+        }
+        return endObject();
+    }
+
+    /**
+     * 写入列表，字符串、数字、布尔值写为字符串，其他写为对象
+     *
+     * @param list 列表，为null时写入[]
+     * @return
+     * @throws IOException
+     */
+    public JsonEncoder list(List<?> list) throws IOException {
+        beginArray();
+        int size = list == null ? 0 : list.size();
+        for (int i = 0; i < size; i++) {
+            Object item = list.get(i);
+            if (item == null) {
+                nullValue();
+            } else if (item instanceof CharSequence || item instanceof Number || item instanceof Boolean || item instanceof Character) {
+                value(item.toString());
+            } else {
+                object(item);
+            }
+        }
+        return endArray();
+    }
+
+    /**
+     * 写入Map、Set等其他泛型类型的值，Map写为对象，键转为字符串，集合写为数组，
+     * 元素和值的规则和{@link #list(List)}一致
+     *
+     * @param value 值，为null时写入null
+     * @return
+     * @throws IOException
+     */
+    public JsonEncoder generic(Object value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Collection) {
+            return list(new ArrayList<Object>((Collection<?>) value));
+        }
+        if (!(value instanceof Map)) {
+            return object(value);
+        }
+        beginObject();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            name(String.valueOf(entry.getKey()));
+            Object item = entry.getValue();
+            if (item == null) {
+                nullValue();
+            } else if (item instanceof CharSequence || item instanceof Number || item instanceof Boolean || item instanceof Character) {
+                value(item.toString());
+            } else {
+                generic(item);
+            }
+        }
+        return endObject();
+    }
+
+    /**
+     * 写入Map，值是Json对象或者数组时原样写入，其他写为字符串，null写为""
+     *
+     * @param map 数据
+     * @return
+     * @throws IOException
+     */
+    public JsonEncoder map(Map<String, String> map) throws IOException {
+        beginObject();
+        if (map != null) {
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                name(entry.getKey());
+                String value = entry.getValue() == null ? "" : entry.getValue();
+                if ((value.startsWith("[") && value.endsWith("]")) || (value.startsWith("{") && value.endsWith("}"))) {
+                    rawValue(value);
+                } else {
+                    value(value);
+                }
+            }
+        }
+        return endObject();
+    }
+
+    /**
+     * 写入Map列表
+     *
+     * @param mapList 数据，为null时写入[]
+     * @return
+     * @throws IOException
+     */
+    public JsonEncoder mapList(List<Map<String, String>> mapList) throws IOException {
+        beginArray();
+        if (mapList != null) {
+            for (Map<String, String> map : mapList) {
+                map(map);
+            }
+        }
+        return endArray();
+    }
+
+    private JsonEncoder open(char c) throws IOException {
+        beforeValue();
+        out.append(c);
+        depth++;
+        if (depth == empty.length) {
+            empty = Arrays.copyOf(empty, depth * 2);
+        }
+        empty[depth] = true;
+        return this;
+    }
+
+    private JsonEncoder close(char c) throws IOException {
+        depth--;
+        out.append(c);
+        return this;
+    }
+
+    /**
+     * 写入值之前添加逗号
+     *
+     * @throws IOException
+     */
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (!empty[depth]) {
+                out.append(',');
+            }
+            empty[depth] = false;
+        }
+    }
+
+    /**
+     * 写入转义后的字符串
+     *
+     * @param value 字符串
+     * @throws IOException
+     */
+    private void string(String value) throws IOException {
+        out.append('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENT_CHARS[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (last < i) {
+                out.append(value, last, i);
+            }
+            out.append(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            out.append(value, last, length);
+        }
+        out.append('"');
+    }
+
+}
@@ -1,7 +1,10 @@
 package com.androidx.net;
 
+import java.util.Map;
 import java.util.TreeMap;
 
+import okhttp3.Headers;
+
 /**
  * Author: Relin
  * Describe:Http头部
@@ -21,6 +24,22 @@ public class Header extends TreeMap<String, String> {
      * 连接
      */
     public static final String CONNECTION = "Connection";
+    /**
+     * Header - ETag
+     */
+    public static final String ETAG = "ETag";
+    /**
+     * Header - Last-Modified
+     */
+    public static final String LAST_MODIFIED = "Last-Modified";
+    /**
+     * Header - If-None-Match
+     */
+    public static final String IF_NONE_MATCH = "If-None-Match";
+    /**
+     * Header - If-Modified-Since
+     */
+    public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
     /**
      * Header[自定义] - Cookie-Expires
      */
@@ -50,6 +69,10 @@ public class Header extends TreeMap<String, String> {
      */
     public static final String CONTENT_STRING = "STRING";
 
+    /**
+     * 冻结的头部，修改后重新生成
+     */
+    private Headers headers;
 
     public Header(){
         add(USER_AGENT,"Android");
@@ -66,4 +89,50 @@ public class Header extends TreeMap<String, String> {
         put(key, value);
     }
 
+    @Override
+    public synchronized String put(String key, String value) {
+        headers = null;
+        return super.put(key, value);
+    }
+
+    @Override
+    public synchronized void putAll(Map<? extends String, ? extends String> map) {
+        headers = null;
+        super.putAll(map);
+    }
+
+    @Override
+    public synchronized String remove(Object key) {
+        headers = null;
+        return super.remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        headers = null;
+        super.clear();
+    }
+
+    /**
+     * 冻结的头部，不可修改，可以在多个线程中共享
+     *
+     * @return
+     */
+    public synchronized Headers headers() {
+        if (headers == null) {
+            Headers.Builder builder = new Headers.Builder();
+            for (String key : keySet()) {
+                String value = get(key);
+                if (value != null) {
+                    builder.add(key, value);
+                }
+            }
+            if (builder.get(USER_AGENT) == null) {
+                builder.add(USER_AGENT, "Android");
+            }
+            headers = builder.build();
+        }
+        return headers;
+    }
+
 }
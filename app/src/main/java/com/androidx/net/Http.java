@@ -1,7 +1,6 @@
 package com.androidx.net;
 
 import com.androidx.os.Build;
-import com.androidx.sqlite.SQLite;
 import com.androidx.util.Log;
 
 /**
@@ -45,8 +44,11 @@ public  class Http {
      */
     public static void init(RequestOptions options) {
         config = options;
+        OkClient.init(options);
         request = new OkHttp();
-        SQLite.with(config.context()).createTable(ResponseTable.class);
+        if (options.context() != null) {
+            ResponseCache.createTable(options.context());
+        }
     }
 
     /**
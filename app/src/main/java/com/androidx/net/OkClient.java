@@ -0,0 +1,341 @@
+package com.androidx.net;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Author: Relin
+ * Describe:共享客户端，OkHttp、Downloader、Uploader都通过newBuilder()派生，
+ * 共用连接池、调度器和Https证书配置。
+ * Date:2021/7/3 10:12
+ */
+public class OkClient {
+
+    /**
+     * 共享客户端
+     */
+    private static OkHttpClient client;
+    /**
+     * 连接池
+     */
+    private static ConnectionPool connectionPool;
+    /**
+     * 调度器
+     */
+    private static Dispatcher dispatcher;
+    /**
+     * 预加载调度器
+     */
+    private static Dispatcher prefetchDispatcher;
+    /**
+     * 请求次数
+     */
+    private static final AtomicLong requestCount = new AtomicLong();
+    /**
+     * 复用连接的请求次数
+     */
+    private static final AtomicLong reuseCount = new AtomicLong();
+    /**
+     * 使用过的连接
+     */
+    private static final Set<Connection> connections = Collections.newSetFromMap(new WeakHashMap<Connection, Boolean>());
+    /**
+     * 合并的请求次数
+     */
+    private static final AtomicLong coalescedCount = new AtomicLong();
+    /**
+     * 请求加入调度的时间
+     */
+    private static final Map<Request, Long> enqueueTimes = new WeakHashMap<>();
+    /**
+     * 已调度的请求次数
+     */
+    private static final AtomicLong dispatchCount = new AtomicLong();
+    /**
+     * 总的等待时间，单位纳秒
+     */
+    private static final AtomicLong waitTime = new AtomicLong();
+    /**
+     * 最大等待时间，单位纳秒
+     */
+    private static final AtomicLong maxWaitTime = new AtomicLong();
+
+    /**
+     * 初始化，由Http.init(options)调用
+     *
+     * @param options 配置参数
+     */
+    public static synchronized void init(RequestOptions options) {
+        if (connectionPool != null) {
+            connectionPool.evictAll();
+        }
+        connectionPool = new ConnectionPool(options.maxIdleConnections(), options.keepAliveDuration(), TimeUnit.SECONDS);
+        dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(options.maxRequests());
+        dispatcher.setMaxRequestsPerHost(options.maxRequestsPerHost());
+        prefetchDispatcher = new Dispatcher();
+        prefetchDispatcher.setMaxRequests(options.prefetchMaxRequests());
+        prefetchDispatcher.setMaxRequestsPerHost(options.prefetchMaxRequests());
+        OkHttpClient.Builder okBuilder = new OkHttpClient.Builder();
+        okBuilder.connectTimeout(options.connectTimeOut(), TimeUnit.SECONDS);
+        okBuilder.readTimeout(options.readTimeOut(), TimeUnit.SECONDS);
+        okBuilder.writeTimeout(options.writeTimeOut(), TimeUnit.SECONDS);
+        okBuilder.connectionPool(connectionPool);
+        okBuilder.dispatcher(dispatcher);
+        okBuilder.addInterceptor(new WaitInterceptor());
+        okBuilder.addNetworkInterceptor(new ReuseInterceptor());
+        //Https证书配置
+        okBuilder.sslSocketFactory(options.cert().getSSLSocketFactory(), new HttpsX509TrustManager());
+        okBuilder.hostnameVerifier(new HttpsHostnameVerifier());
+        client = okBuilder.build();
+    }
+
+    /**
+     * 共享客户端
+     *
+     * @return OkHttpClient
+     */
+    public static synchronized OkHttpClient client() {
+        if (client == null) {
+            init(Http.isInit() ? Http.options() : new RequestOptions(null));
+        }
+        return client;
+    }
+
+    /**
+     * 派生客户端，修改超时、拦截器等配置不影响共享的连接池和调度器
+     *
+     * @return OkHttpClient.Builder
+     */
+    public static OkHttpClient.Builder newBuilder() {
+        return client().newBuilder();
+    }
+
+    /**
+     * 连接池
+     *
+     * @return
+     */
+    public static ConnectionPool connectionPool() {
+        client();
+        return connectionPool;
+    }
+
+    /**
+     * 调度器
+     *
+     * @return
+     */
+    public static Dispatcher dispatcher() {
+        client();
+        return dispatcher;
+    }
+
+    /**
+     * 预加载调度器，与前台请求共用连接池，但并发数单独限制，不会占满前台请求通道
+     *
+     * @return
+     */
+    public static Dispatcher prefetchDispatcher() {
+        client();
+        return prefetchDispatcher;
+    }
+
+    /**
+     * 请求加入调度，记录加入时间用于统计等待时间
+     *
+     * @param client   客户端
+     * @param request  请求
+     * @param callback 回调
+     * @return
+     */
+    public static Call enqueue(OkHttpClient client, Request request, Callback callback) {
+        synchronized (enqueueTimes) {
+            enqueueTimes.put(request, System.nanoTime());
+        }
+        Call call = client.newCall(request);
+        call.enqueue(callback);
+        return call;
+    }
+
+    /**
+     * 排队中的请求数
+     *
+     * @return
+     */
+    public static int queuedCallsCount() {
+        return dispatcher().queuedCallsCount() + prefetchDispatcher().queuedCallsCount();
+    }
+
+    /**
+     * 执行中的请求数
+     *
+     * @return
+     */
+    public static int runningCallsCount() {
+        return dispatcher().runningCallsCount() + prefetchDispatcher().runningCallsCount();
+    }
+
+    /**
+     * 平均等待时间，单位毫秒
+     *
+     * @return
+     */
+    public static long averageWaitTime() {
+        long count = dispatchCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitTime.get() / count);
+    }
+
+    /**
+     * 最大等待时间，单位毫秒
+     *
+     * @return
+     */
+    public static long maxWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get());
+    }
+
+    /**
+     * 连接总数
+     *
+     * @return
+     */
+    public static int connectionCount() {
+        return connectionPool().connectionCount();
+    }
+
+    /**
+     * 空闲连接数
+     *
+     * @return
+     */
+    public static int idleConnectionCount() {
+        return connectionPool().idleConnectionCount();
+    }
+
+    /**
+     * 请求次数
+     *
+     * @return
+     */
+    public static long requestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * 复用连接的请求次数
+     *
+     * @return
+     */
+    public static long reuseCount() {
+        return reuseCount.get();
+    }
+
+    /**
+     * 记录一次合并的请求
+     */
+    static void coalesced() {
+        coalescedCount.incrementAndGet();
+    }
+
+    /**
+     * 合并到正在执行的请求中的次数
+     *
+     * @return
+     */
+    public static long coalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * 连接复用率[0,1]
+     *
+     * @return
+     */
+    public static float reuseRate() {
+        long count = requestCount.get();
+        return count == 0 ? 0 : (float) reuseCount.get() / count;
+    }
+
+    /**
+     * 连接池统计信息
+     *
+     * @return
+     */
+    public static String stats() {
+        return "OkClient{" +
+                "connectionCount=" + connectionCount() +
+                ", idleConnectionCount=" + idleConnectionCount() +
+                ", runningCalls=" + runningCallsCount() +
+                ", queuedCalls=" + queuedCallsCount() +
+                ", averageWaitTime=" + averageWaitTime() +
+                ", maxWaitTime=" + maxWaitTime() +
+                ", requestCount=" + requestCount() +
+                ", reuseCount=" + reuseCount() +
+                ", reuseRate=" + reuseRate() +
+                ", coalescedCount=" + coalescedCount() +
+                '}';
+    }
+
+    /**
+     * 调度等待时间统计拦截器
+     */
+    private static class WaitInterceptor implements Interceptor {
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Long enqueueTime;
+            synchronized (enqueueTimes) {
+                enqueueTime = enqueueTimes.remove(chain.request());
+            }
+            if (enqueueTime != null) {
+                long wait = System.nanoTime() - enqueueTime;
+                dispatchCount.incrementAndGet();
+                waitTime.addAndGet(wait);
+                long max = maxWaitTime.get();
+                while (wait > max && !maxWaitTime.compareAndSet(max, wait)) {
+                    max = maxWaitTime.get();
+                }
+            }
+            return chain.proceed(chain.request());
+        }
+
+    }
+
+    /**
+     * 连接复用统计拦截器
+     */
+    private static class ReuseInterceptor implements Interceptor {
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Connection connection = chain.connection();
+            if (connection != null) {
+                requestCount.incrementAndGet();
+                synchronized (connections) {
+                    if (!connections.add(connection)) {
+                        reuseCount.incrementAndGet();
+                    }
+                }
+            }
+            return chain.proceed(chain.request());
+        }
+
+    }
+
+}
@@ -3,13 +3,21 @@ package com.androidx.net;
 import com.androidx.app.CoreApplication;
 import com.androidx.content.DataStorage;
 import com.androidx.json.Json;
+import com.androidx.text.Number;
 import com.androidx.util.Size;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import okhttp3.Cookie;
 import okhttp3.CookieJar;
@@ -18,11 +26,40 @@ import okhttp3.HttpUrl;
 /**
  * Created by Relin
  * on 2018-09-25.
+ * Cookie保存在内存中，按host分组，同一host内以(name, domain, path)为键，
+ * 新的Cookie替换旧的Cookie，过期的Cookie在读写时清除；
+ * 修改过的host延时批量写入DataStorage。
  */
 public class OkCookieJar implements Serializable, CookieJar {
 
-
-    private List<Map<String, String>> cookieList = new ArrayList<>();
+    /**
+     * 存储键前缀
+     */
+    private static final String PREFIX = "OK_";
+    /**
+     * 延时写入时间，单位毫秒
+     */
+    private static final long PERSIST_DELAY = 1000;
+    /**
+     * 内存中的Cookie，host -> (name;domain;path -> Cookie)
+     */
+    private static final Map<String, Map<String, Cookie>> hosts = new HashMap<>();
+    /**
+     * 等待写入的host
+     */
+    private static final Set<String> dirtyHosts = new LinkedHashSet<>();
+    /**
+     * 写入线程
+     */
+    private static ScheduledExecutorService executor;
+    /**
+     * 是否已经安排写入
+     */
+    private static boolean scheduled;
+    /**
+     * 写入锁，写入和删除不会交叉执行，删除之后不会被旧的快照覆盖
+     */
+    private static final Object WRITE_LOCK = new Object();
 
     @Override
     public void saveFromResponse(HttpUrl httpUrl, List<Cookie> list) {
@@ -35,72 +72,212 @@ public class OkCookieJar implements Serializable, CookieJar {
     }
 
     /**
-     * 加载Cookie
+     * 保存Cookie
      *
      * @param httpUrl http请求数据
      * @param list    cookie数据
      */
     private void save(HttpUrl httpUrl, List<Cookie> list) {
-        int size = list == null ? 0 : list.size();
-        for (int i = 0; i < size; i++) {
-            Cookie cookie = list.get(i);
-            Map<String, String> cookieMap = new HashMap<>();
-            cookieMap.put("host", httpUrl.host());
-            cookieMap.put("name", cookie.name());
-            cookieMap.put("value", cookie.value());
-            cookieMap.put("expiresAt", String.valueOf(cookie.expiresAt()));
-            cookieMap.put("domain", cookie.domain());
-            cookieMap.put("path", cookie.path());
-            cookieMap.put("secure", cookie.secure() ? "1" : "0");
-            cookieMap.put("httpOnly", cookie.httpOnly() ? "1" : "0");
-            cookieMap.put("hostOnly", cookie.hostOnly() ? "1" : "0");
-            cookieMap.put("persistent", cookie.persistent() ? "1" : "0");
-            cookieList.add(cookieMap);
-        }
-        String cookieJson = Json.parseMapList(cookieList);
-        DataStorage.with(CoreApplication.app).put("OK_" + httpUrl.host(), cookieJson);
+        if (Size.of(list) == 0) {
+            return;
+        }
+        String host = httpUrl.host();
+        synchronized (hosts) {
+            Map<String, Cookie> cookies = cookies(host);
+            for (Cookie cookie : list) {
+                cookies.put(key(cookie), cookie);
+            }
+            prune(cookies);
+            dirtyHosts.add(host);
+        }
+        schedule();
     }
 
     /**
-     * 保存Cookie
+     * 加载Cookie
      *
      * @param httpUrl http请求数据
      * @return 缓存的Cookie数据
      */
     private List<Cookie> load(HttpUrl httpUrl) {
-        String requestHost = httpUrl.host();
-        String cache = DataStorage.with(CoreApplication.app).getString("OK_" + requestHost, "[]");
-        List<Map<String, String>> list = Json.parseJSONArray(cache);
         List<Cookie> cookieList = new ArrayList<>();
-        for (int i = 0; i < Size.of(list); i++) {
-            Map<String, String> cookieMap = list.get(i);
-            String host = cookieMap.get("host");
-            String name = cookieMap.get("name");
-            String value = cookieMap.get("value");
-            String domain = cookieMap.get("domain");
-            String path = cookieMap.get("path");
-            if (cookieMap.get("expiresAt") != null) {
-                long expiresAt = Long.parseLong(cookieMap.get("expiresAt"));
-                if (expiresAt > System.currentTimeMillis() && requestHost.equals(host)) {
-                    Cookie cookie = new Cookie.Builder()
-                            .name(name)
-                            .value(value)
-                            .expiresAt(expiresAt)
-                            .domain(domain)
-                            .path(path)
-                            .secure()
-                            .httpOnly()
-                            .build();
+        long now = System.currentTimeMillis();
+        boolean pruned = false;
+        synchronized (hosts) {
+            Map<String, Cookie> cookies = cookies(httpUrl.host());
+            Iterator<Cookie> iterator = cookies.values().iterator();
+            while (iterator.hasNext()) {
+                Cookie cookie = iterator.next();
+                if (cookie.expiresAt() <= now) {
+                    iterator.remove();
+                    dirtyHosts.add(httpUrl.host());
+                    pruned = true;
+                } else if (cookie.matches(httpUrl)) {
                     cookieList.add(cookie);
                 }
             }
         }
-        if (Size.of(cookieList) == 0) {
-            save(httpUrl, cookieList);
+        if (pruned) {
+            schedule();
         }
         return cookieList;
     }
 
+    /**
+     * 获取host的Cookie，第一次访问时从DataStorage读取
+     *
+     * @param host 主机
+     * @return
+     */
+    private static Map<String, Cookie> cookies(String host) {
+        Map<String, Cookie> cookies = hosts.get(host);
+        if (cookies == null) {
+            cookies = new LinkedHashMap<>();
+            String cache = DataStorage.with(CoreApplication.app).getString(PREFIX + host, "[]");
+            List<Map<String, String>> list = Json.parseJSONArray(cache);
+            for (int i = 0; i < Size.of(list); i++) {
+                Cookie cookie = parse(list.get(i));
+                if (cookie != null) {
+                    cookies.put(key(cookie), cookie);
+                }
+            }
+            prune(cookies);
+            hosts.put(host, cookies);
+        }
+        return cookies;
+    }
+
+    /**
+     * Cookie的唯一键
+     *
+     * @param cookie
+     * @return
+     */
+    private static String key(Cookie cookie) {
+        return cookie.name() + ";" + cookie.domain() + ";" + cookie.path();
+    }
+
+    /**
+     * 清除过期的Cookie
+     *
+     * @param cookies
+     */
+    private static void prune(Map<String, Cookie> cookies) {
+        long now = System.currentTimeMillis();
+        Iterator<Cookie> iterator = cookies.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt() <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 安排延时写入
+     */
+    private static synchronized void schedule() {
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor();
+        }
+        executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                persist();
+            }
+        }, PERSIST_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 写入修改过的host，快照和写入都在写入锁内完成
+     */
+    private static void persist() {
+        synchronized (OkCookieJar.class) {
+            scheduled = false;
+        }
+        synchronized (WRITE_LOCK) {
+            Map<String, String> values = new LinkedHashMap<>();
+            synchronized (hosts) {
+                for (String host : dirtyHosts) {
+                    Map<String, Cookie> cookies = hosts.get(host);
+                    List<Map<String, String>> list = new ArrayList<>();
+                    if (cookies != null) {
+                        prune(cookies);
+                        for (Cookie cookie : cookies.values()) {
+                            list.add(toMap(host, cookie));
+                        }
+                    }
+                    values.put(host, Json.parseMapList(list));
+                }
+                dirtyHosts.clear();
+            }
+            for (String host : values.keySet()) {
+                DataStorage.with(CoreApplication.app).put(PREFIX + host, values.get(host));
+            }
+        }
+    }
+
+    /**
+     * Cookie转存储数据
+     *
+     * @param host   主机
+     * @param cookie
+     * @return
+     */
+    private static Map<String, String> toMap(String host, Cookie cookie) {
+        Map<String, String> cookieMap = new HashMap<>();
+        cookieMap.put("host", host);
+        cookieMap.put("name", cookie.name());
+        cookieMap.put("value", cookie.value());
+        cookieMap.put("expiresAt", String.valueOf(cookie.expiresAt()));
+        cookieMap.put("domain", cookie.domain());
+        cookieMap.put("path", cookie.path());
+        cookieMap.put("secure", cookie.secure() ? "1" : "0");
+        cookieMap.put("httpOnly", cookie.httpOnly() ? "1" : "0");
+        cookieMap.put("hostOnly", cookie.hostOnly() ? "1" : "0");
+        cookieMap.put("persistent", cookie.persistent() ? "1" : "0");
+        return cookieMap;
+    }
+
+    /**
+     * 存储数据转Cookie
+     *
+     * @param cookieMap 存储数据
+     * @return 数据不完整时为null
+     */
+    private static Cookie parse(Map<String, String> cookieMap) {
+        String name = cookieMap.get("name");
+        String value = cookieMap.get("value");
+        String domain = cookieMap.get("domain");
+        String path = cookieMap.get("path");
+        String expiresAt = cookieMap.get("expiresAt");
+        if (name == null || value == null || domain == null || expiresAt == null) {
+            return null;
+        }
+        Cookie.Builder builder = new Cookie.Builder().name(name).value(value).expiresAt(Number.parseLong(expiresAt));
+        if ("1".equals(cookieMap.get("hostOnly"))) {
+            builder.hostOnlyDomain(domain);
+        } else {
+            builder.domain(domain);
+        }
+        builder.path(path == null ? "/" : path);
+        //旧版本没有保存secure和httpOnly，保持原来的设置
+        if (!"0".equals(cookieMap.get("secure"))) {
+            builder.secure();
+        }
+        if (!"0".equals(cookieMap.get("httpOnly"))) {
+            builder.httpOnly();
+        }
+        try {
+            return builder.build();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * 获取Cookie数据
      *
@@ -108,40 +285,27 @@ public class OkCookieJar implements Serializable, CookieJar {
      * @return
      */
     public static List<Cookie> getCookies(String hostKey) {
-        String cache = DataStorage.with(CoreApplication.app).getString("OK_" + hostKey, "[]");
-        List<Map<String, String>> list = Json.parseJSONArray(cache);
-        List<Cookie> cookieList = new ArrayList<>();
-        for (int i = 0; i < Size.of(list); i++) {
-            Map<String, String> cookieMap = list.get(i);
-            String host = cookieMap.get("host");
-            String name = cookieMap.get("name");
-            String value = cookieMap.get("value");
-            long expiresAt = Long.parseLong(cookieMap.get("expiresAt"));
-            String domain = cookieMap.get("domain");
-            String path = cookieMap.get("path");
-            if (expiresAt > System.currentTimeMillis()) {
-                Cookie cookie = new Cookie.Builder()
-                        .name(name)
-                        .value(value)
-                        .expiresAt(expiresAt)
-                        .domain(domain)
-                        .path(path)
-                        .secure()
-                        .httpOnly()
-                        .build();
-                cookieList.add(cookie);
-            }
+        synchronized (hosts) {
+            Map<String, Cookie> cookies = cookies(hostKey);
+            prune(cookies);
+            return new ArrayList<>(cookies.values());
         }
-        return cookieList;
     }
 
     /**
-     * 删除Cookie缓存
+     * 删除Cookie缓存，和延时写入使用同一个写入锁，
+     * 正在写入的旧快照不会覆盖删除结果
      *
      * @param host
      */
     public static void removeCookie(String host) {
-        DataStorage.with(CoreApplication.app).put("OK_" + host, "[]");
+        synchronized (WRITE_LOCK) {
+            synchronized (hosts) {
+                hosts.put(host, new LinkedHashMap<String, Cookie>());
+                dirtyHosts.remove(host);
+            }
+            DataStorage.with(CoreApplication.app).put(PREFIX + host, "[]");
+        }
     }
 
 }
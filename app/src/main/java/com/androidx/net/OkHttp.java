@@ -9,20 +9,22 @@ import com.androidx.text.Null;
 import com.androidx.util.Log;
 
 import java.io.File;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.TreeMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import okhttp3.CacheControl;
 import okhttp3.Call;
-import okhttp3.ConnectionPool;
-import okhttp3.Dispatcher;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
-import okhttp3.Protocol;
 import okhttp3.RequestBody;
 
 /**
@@ -55,27 +57,63 @@ public class OkHttp implements Request {
      * 客户端
      */
     private OkHttpClient okHttpClient;
+    /**
+     * 预加载客户端
+     */
+    private OkHttpClient prefetchClient;
+    /**
+     * 正在执行的GET请求
+     */
+    private final Map<String, OnCoalescedListener> inFlightCalls = new HashMap<>();
 
 
     public OkHttp() {
         options = Http.options();
         if (options != null) {
             handler = options.handler();
-            threadPool = options.threadPool();
         }
         okHttpClient = buildOkHttpClient(options);
+        prefetchClient = okHttpClient.newBuilder().dispatcher(OkClient.prefetchDispatcher()).build();
     }
 
     @Override
     public void cancel(Class tag) {
+        String prefix = tag.getSimpleName();
+        //合并的请求只移除匹配的回调，共享的网络请求由合并回调决定是否取消
+        List<OnCoalescedListener> coalesced;
+        synchronized (inFlightCalls) {
+            coalesced = new ArrayList<>(inFlightCalls.values());
+        }
+        Set<Call> shared = new HashSet<>();
+        for (OnCoalescedListener listener : coalesced) {
+            Call call = listener.call();
+            if (call != null) {
+                shared.add(call);
+            }
+            listener.cancel(prefix);
+        }
         if (okHttpClient != null) {
-            List<Call> calls = okHttpClient.dispatcher().runningCalls();
-            for (Call call : calls) {
-                String prefix = tag.getSimpleName();
-                String requestTag = (String) call.request().tag();
-                if (requestTag.startsWith(prefix)) {
-                    call.cancel();
-                }
+            cancel(okHttpClient.dispatcher().queuedCalls(), prefix, shared);
+            cancel(okHttpClient.dispatcher().runningCalls(), prefix, shared);
+        }
+        if (prefetchClient != null) {
+            cancel(prefetchClient.dispatcher().queuedCalls(), prefix, shared);
+            cancel(prefetchClient.dispatcher().runningCalls(), prefix, shared);
+        }
+    }
+
+    /**
+     * 取消请求
+     *
+     * @param calls  请求
+     * @param prefix 标识前缀
+     * @param shared 合并的请求，不按标识取消
+     */
+    private void cancel(List<Call> calls, String prefix, Set<Call> shared) {
+        for (Call call : calls) {
+            String requestTag = (String) call.request().tag();
+            if (!shared.contains(call) && requestTag.startsWith(prefix)) {
+                call.cancel();
             }
         }
     }
@@ -88,56 +126,68 @@ public class OkHttp implements Request {
      */
     @Override
     public void get(final String url, final RequestParams params, final OnHttpListener listener) {
-        if (!ResponseHelper.isPassNetworkAndCacheCheck(handler, options, url, params, listener)) {
-            return;
-        }
-        threadPool.execute(new Runnable() {
+        //缓存查询会读数据库，和构建请求一起调度，不在调用线程执行
+        dispatch(new Runnable() {
             @Override
             public void run() {
-                String getUrl = url;
-                StringBuffer requestUrl = new StringBuffer();
-                requestUrl.append(url);
-                if (params != null && params.params() != null) {
-                    requestUrl.append("?");
-                    TreeMap<String, String> stringParams = params.params();
-                    for (String key : stringParams.keySet()) {
-                        String value = stringParams.get(key);
-                        requestUrl.append(key);
-                        requestUrl.append("=");
-                        requestUrl.append(value);
-                        requestUrl.append("&");
-                    }
-                    getUrl = requestUrl.toString().substring(0, requestUrl.lastIndexOf("&"));
+                if (!ResponseHelper.isPassNetworkAndCacheCheck(handler, options, "GET", url, params, listener)) {
+                    return;
                 }
-                //创建一个请求
-                okhttp3.Request.Builder requestBuilder = new okhttp3.Request.Builder();
-                requestBuilder.addHeader("Connection", "close");
-                //添加头文件
-                if (params != null && params.header() != null) {
-                    String agent = params.header().get(Header.USER_AGENT);
-                    requestBuilder.addHeader(Header.USER_AGENT, agent);
-                    TreeMap<String, String> headerParams = params.header();
-                    for (String key : headerParams.keySet()) {
-                        String value = headerParams.get(key);
-                        requestBuilder.addHeader(key, value);
-                    }
+                ResponseTable cacheBody = ResponseHelper.selectCacheTable(options, "GET", url, params);
+                if (ResponseHelper.isUseFreshCache(handler, options, cacheBody, url, params, listener)) {
+                    return;
                 }
-                requestBuilder.url(getUrl);
-                //如果没有网络就使用缓存
-                if (!Network.isAvailable(CoreApplication.app)) {
-                    requestBuilder.cacheControl(CacheControl.FORCE_CACHE);
-                } else {
-                    requestBuilder.cacheControl(CacheControl.FORCE_NETWORK);
+                OnOkHttpListener callback = new OnOkHttpListener(handler, params, url, listener);
+                callback.cache(cacheBody, cacheBody != null && options.cachePolicy() == RequestOptions.CACHE_STALE_WHILE_REVALIDATE);
+                //相同的请求正在执行时直接加入，不再发起网络请求
+                Callback coalescedCallback = coalesce(url, params, callback);
+                if (coalescedCallback == null) {
+                    return;
                 }
-                String tag = params == null ? url + "" : params.tag();
-                okhttp3.Request request = requestBuilder.tag(TextUtils.isEmpty(tag) ? url : tag).build();
                 //请求加入调度
-                Call call = okHttpClient.newCall(request);
-                call.enqueue(new OnOkHttpListener(handler, params, url, listener));
+                Call call = enqueue(getRequest(url, params, cacheBody), params, coalescedCallback);
+                if (coalescedCallback instanceof OnCoalescedListener) {
+                    ((OnCoalescedListener) coalescedCallback).call(call);
+                }
             }
         });
     }
 
+    /**
+     * 创建GET请求，地址和头部使用参数中预先生成的快照
+     *
+     * @param url       地址
+     * @param params    参数
+     * @param cacheBody 用于验证的缓存，可为null
+     * @return
+     */
+    private okhttp3.Request getRequest(String url, RequestParams params, ResponseTable cacheBody) {
+        okhttp3.Request.Builder requestBuilder = new okhttp3.Request.Builder();
+        requestBuilder.headers(headers(params));
+        addConnectionHeader(options, requestBuilder);
+        HttpUrl httpUrl = params == null ? null : params.httpUrl(url);
+        if (httpUrl != null) {
+            requestBuilder.url(httpUrl);
+        } else {
+            requestBuilder.url(url);
+        }
+        //条件请求，缓存未修改时服务器返回304
+        if (cacheBody != null && !TextUtils.isEmpty(cacheBody.getEtag())) {
+            requestBuilder.header(Header.IF_NONE_MATCH, cacheBody.getEtag());
+        }
+        if (cacheBody != null && !TextUtils.isEmpty(cacheBody.getLastModified())) {
+            requestBuilder.header(Header.IF_MODIFIED_SINCE, cacheBody.getLastModified());
+        }
+        //如果没有网络就使用缓存
+        if (!Network.isAvailable(CoreApplication.app)) {
+            requestBuilder.cacheControl(CacheControl.FORCE_CACHE);
+        } else {
+            requestBuilder.cacheControl(CacheControl.FORCE_NETWORK);
+        }
+        String tag = params == null ? url + "" : params.tag();
+        return requestBuilder.tag(TextUtils.isEmpty(tag) ? url : tag).build();
+    }
+
     /**
      * Post请求方式
      *
@@ -182,14 +232,14 @@ public class OkHttp implements Request {
      * @param listener 回调
      */
     public void request(final int method, final String url, final RequestParams params, final OnHttpListener listener) {
-        if (!ResponseHelper.isPassNetworkAndCacheCheck(handler, options, url, params, listener)) {
-            return;
-        }
-        threadPool.execute(new Runnable() {
+        dispatch(new Runnable() {
             @Override
             public void run() {
-                String contentType = params.header().get(Header.CONTENT_TYPE);
-                if (contentType.equals(Header.CONTENT_JSON) || contentType.equals(Header.CONTENT_STRING)) {
+                if (!ResponseHelper.isPassNetworkAndCacheCheck(handler, options, methodName(method), url, params, listener)) {
+                    return;
+                }
+                String contentType = headers(params).get(Header.CONTENT_TYPE);
+                if (Header.CONTENT_JSON.equals(contentType) || Header.CONTENT_STRING.equals(contentType)) {
                     jsonRequest(method, url, params, listener);
                 } else {
                     MultipartBody.Builder multipartBodyBuilder = new MultipartBody.Builder();
@@ -197,7 +247,7 @@ public class OkHttp implements Request {
                     multipartBodyBuilder.addFormDataPart("", "");
                     //一般参数
                     if (params != null && params.params() != null) {
-                        TreeMap<String, String> stringParams = params.params();
+                        Map<String, String> stringParams = params.params();
                         for (String key : stringParams.keySet()) {
                             String value = stringParams.get(key);
                             multipartBodyBuilder.addFormDataPart(key, value);
@@ -205,7 +255,7 @@ public class OkHttp implements Request {
                     }
                     //文件参数
                     if (params != null && params.files() != null) {
-                        TreeMap<String, File> fileParams = params.files();
+                        Map<String, File> fileParams = params.files();
                         //设置文件处理类型
                         for (String key : fileParams.keySet()) {
                             File file = fileParams.get(key);
@@ -219,22 +269,14 @@ public class OkHttp implements Request {
                     RequestBody requestBody = multipartBodyBuilder.build();
                     okhttp3.Request.Builder requestBuilder = new okhttp3.Request.Builder();
                     //添加Header
-                    requestBuilder.addHeader("Connection", "close");
-                    if (params != null && params.header() != null) {
-                        String agent = params.header().get(Header.USER_AGENT);
-                        requestBuilder.addHeader(Header.USER_AGENT, TextUtils.isEmpty(agent) ? "Android" : agent);
-                        TreeMap<String, String> headerParams = params.header();
-                        for (String key : headerParams.keySet()) {
-                            requestBuilder.addHeader(key, headerParams.get(key));
-                        }
-                    }
+                    requestBuilder.headers(headers(params));
+                    addConnectionHeader(options, requestBuilder);
                     requestBuilder.url(url);
                     requestBuilder.cacheControl(CacheControl.FORCE_NETWORK);
                     requestBuilder.post(requestBody);//传参数、文件或者混合
                     String tag = params == null ? url + "" : params.tag();
                     okhttp3.Request request = requestBuilder.tag(TextUtils.isEmpty(tag) ? url : tag).build();
-                    Call call = okHttpClient.newCall(request);
-                    call.enqueue(new OnOkHttpListener(handler, params, url, listener));
+                    enqueue(request, params, url, listener);
                 }
             }
         });
@@ -249,12 +291,13 @@ public class OkHttp implements Request {
      * @param listener
      */
     private void jsonRequest(int method, String url, RequestParams params, OnHttpListener listener) {
-        String contentType = params.header().get(Header.CONTENT_TYPE);
+        Headers headers = headers(params);
+        String contentType = headers.get(Header.CONTENT_TYPE);
         MediaType mediaType = MediaType.parse(Header.MEDIA_JSON);
-        if (contentType.equals(Header.CONTENT_JSON)) {
+        if (Header.CONTENT_JSON.equals(contentType)) {
             mediaType = MediaType.parse(Header.MEDIA_JSON);
         }
-        if (contentType.equals(Header.CONTENT_STRING)) {
+        if (Header.CONTENT_STRING.equals(contentType)) {
             mediaType = MediaType.parse(Header.MEDIA_STREAM);
         }
         String stringParams;
@@ -268,14 +311,7 @@ public class OkHttp implements Request {
         RequestBody body = RequestBody.create(mediaType, stringParams);
         okhttp3.Request.Builder requestBuilder = new okhttp3.Request.Builder();
         //添加Header
-        if (params != null && params.header() != null) {
-            String agent = params.header().get(Header.USER_AGENT);
-            requestBuilder.addHeader(Header.USER_AGENT, TextUtils.isEmpty(agent) ? "Android" : agent);
-            TreeMap<String, String> headerParams = params.header();
-            for (String key : headerParams.keySet()) {
-                requestBuilder.addHeader(key, headerParams.get(key));
-            }
-        }
+        requestBuilder.headers(headers);
         String tag = params.tag();
         okhttp3.Request request = requestBuilder.url(url).post(body).tag(TextUtils.isEmpty(tag) ? url : tag).build();
         if (method == POST) {
@@ -287,8 +323,115 @@ public class OkHttp implements Request {
         if (method == DELETE) {
             request = requestBuilder.url(url).delete(body).tag(TextUtils.isEmpty(tag) ? url : tag).build();
         }
-        Call call = okHttpClient.newCall(request);
-        call.enqueue(new OnOkHttpListener(handler, params, url, listener));
+        enqueue(request, params, url, listener);
+    }
+
+    /**
+     * 请求方式名称
+     *
+     * @param method 请求方式
+     * @return
+     */
+    private String methodName(int method) {
+        switch (method) {
+            case PUT:
+                return "PUT";
+            case DELETE:
+                return "DELETE";
+            case POST:
+                return "POST";
+            default:
+                return "GET";
+        }
+    }
+
+    /**
+     * 请求头部，全局头部和请求头部合并后的快照
+     *
+     * @param params 参数
+     * @return
+     */
+    private Headers headers(RequestParams params) {
+        Headers global = options.header().headers();
+        return params == null ? global : params.headers(global);
+    }
+
+    /**
+     * 调度构建请求的任务，开启缓存时任务中会查询数据库，始终在线程池中执行
+     *
+     * @param runnable 构建请求
+     */
+    private void dispatch(Runnable runnable) {
+        if (options.dispatch() == RequestOptions.DISPATCH_DIRECT && !options.isCache()) {
+            runnable.run();
+            return;
+        }
+        if (threadPool == null) {
+            threadPool = options.threadPool();
+        }
+        threadPool.execute(runnable);
+    }
+
+    /**
+     * 请求加入调度，预加载请求进入单独限制并发的通道
+     *
+     * @param request  请求
+     * @param params   参数
+     * @param url      地址
+     * @param listener 回调
+     */
+    private void enqueue(okhttp3.Request request, RequestParams params, String url, OnHttpListener listener) {
+        enqueue(request, params, new OnOkHttpListener(handler, params, url, listener));
+    }
+
+    /**
+     * 请求加入调度，预加载请求进入单独限制并发的通道
+     *
+     * @param request  请求
+     * @param params   参数
+     * @param callback 回调
+     * @return 网络请求
+     */
+    private Call enqueue(okhttp3.Request request, RequestParams params, Callback callback) {
+        boolean prefetch = params != null && params.priority() == RequestParams.PRIORITY_PREFETCH;
+        return OkClient.enqueue(prefetch ? prefetchClient : okHttpClient, request, callback);
+    }
+
+    /**
+     * 合并相同url、参数和头部的GET请求
+     *
+     * @param url      地址
+     * @param params   参数
+     * @param callback 回调
+     * @return 需要发起网络请求时返回回调，已加入正在执行的请求时返回null
+     */
+    private Callback coalesce(String url, RequestParams params, OnOkHttpListener callback) {
+        if (!options.isCoalesce() || callback.listener() instanceof OnHttpStreamListener) {
+            return callback;
+        }
+        String key = ResponseCache.key("GET", url, params);
+        synchronized (inFlightCalls) {
+            OnCoalescedListener inFlight = inFlightCalls.get(key);
+            if (inFlight != null && inFlight.attach(callback)) {
+                OkClient.coalesced();
+                return null;
+            }
+            inFlight = new OnCoalescedListener(key, inFlightCalls, callback);
+            inFlightCalls.put(key, inFlight);
+            return inFlight;
+        }
+    }
+
+    /**
+     * 添加连接Header，没有开启连接复用时强制关闭连接
+     *
+     * @param options        配置参数
+     * @param requestBuilder 请求构建
+     */
+    static void addConnectionHeader(RequestOptions options, okhttp3.Request.Builder requestBuilder) {
+        if (!options.isKeepAlive()) {
+            requestBuilder.addHeader(Header.CONNECTION, "close");
+        }
     }
 
     /**
@@ -297,21 +440,14 @@ public class OkHttp implements Request {
      * @return OkHttpClient
      */
     private OkHttpClient buildOkHttpClient(RequestOptions options) {
-        OkHttpClient.Builder okBuilder = new OkHttpClient.Builder();
-        okBuilder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
-        okBuilder.connectTimeout(options.connectTimeOut(), TimeUnit.SECONDS);
-        okBuilder.readTimeout(options.readTimeOut(), TimeUnit.SECONDS);
-        okBuilder.writeTimeout(options.writeTimeOut(), TimeUnit.SECONDS);
-        okBuilder.connectionPool(new ConnectionPool(options.maxIdleConnections(), options.keepAliveDuration(), TimeUnit.SECONDS));
+        //共享连接池、调度器和Https证书配置
+        OkHttpClient.Builder okBuilder = OkClient.newBuilder();
+        okBuilder.protocols(options.protocols());
         okBuilder.cookieJar(new OkCookieJar());
-        okBuilder.dispatcher(new Dispatcher());
         if (options.interceptor() != null) {
             okBuilder.addInterceptor(options.interceptor());
         }
         okBuilder.retryOnConnectionFailure(false);
-        //Https证书配置
-        okBuilder.sslSocketFactory(options.cert().getSSLSocketFactory(), new HttpsX509TrustManager());
-        okBuilder.hostnameVerifier(new HttpsHostnameVerifier());
         return okBuilder.build();
     }
 
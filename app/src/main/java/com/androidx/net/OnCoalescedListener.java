@@ -0,0 +1,184 @@
+package com.androidx.net;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+
+/**
+ * Author: Relin
+ * Describe:合并请求回调，相同url和参数的GET请求在返回之前只发起一次网络请求，
+ * 后续的请求加入到正在执行的请求中，返回数据只读取一次并回调给所有监听。
+ * Date:2021/7/6 21:15
+ */
+public class OnCoalescedListener implements Callback {
+
+    /**
+     * 请求键
+     */
+    private final String key;
+    /**
+     * 正在执行的请求
+     */
+    private final Map<String, OnCoalescedListener> inFlightCalls;
+    /**
+     * 回调
+     */
+    private final List<OnOkHttpListener> listeners = new ArrayList<>();
+    /**
+     * 是否已经返回
+     */
+    private boolean completed;
+    /**
+     * 共享的网络请求，加入调度之前为null
+     */
+    private Call call;
+    /**
+     * 所有回调都已取消
+     */
+    private boolean cancelled;
+
+    public OnCoalescedListener(String key, Map<String, OnCoalescedListener> inFlightCalls, OnOkHttpListener listener) {
+        this.key = key;
+        this.inFlightCalls = inFlightCalls;
+        this.listeners.add(listener);
+    }
+
+    /**
+     * 设置共享的网络请求，加入调度之前所有回调都已取消时直接取消
+     *
+     * @param call 网络请求
+     */
+    public void call(Call call) {
+        boolean cancel;
+        synchronized (this) {
+            this.call = call;
+            cancel = cancelled;
+        }
+        if (cancel) {
+            call.cancel();
+        }
+    }
+
+    /**
+     * 共享的网络请求
+     *
+     * @return 加入调度之前为null
+     */
+    public synchronized Call call() {
+        return call;
+    }
+
+    /**
+     * 加入正在执行的请求
+     *
+     * @param listener 回调
+     * @return false:请求已经返回或者已经取消，不能加入
+     */
+    public synchronized boolean attach(OnOkHttpListener listener) {
+        if (completed || cancelled) {
+            return false;
+        }
+        listeners.add(listener);
+        return true;
+    }
+
+    /**
+     * 取消标识前缀匹配的回调，只移除这些回调，其余回调继续等待共享的网络请求，
+     * 第一个回调被取消时由后面的回调接替；没有剩余回调时才取消网络请求
+     *
+     * @param prefix 标识前缀
+     */
+    public void cancel(String prefix) {
+        List<OnOkHttpListener> detached = new ArrayList<>();
+        Call cancelCall;
+        boolean empty;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            Iterator<OnOkHttpListener> iterator = listeners.iterator();
+            while (iterator.hasNext()) {
+                OnOkHttpListener listener = iterator.next();
+                if (listener.tag().startsWith(prefix)) {
+                    iterator.remove();
+                    detached.add(listener);
+                }
+            }
+            empty = listeners.isEmpty();
+            cancelled = empty;
+            cancelCall = call;
+        }
+        if (empty) {
+            synchronized (inFlightCalls) {
+                if (inFlightCalls.get(key) == this) {
+                    inFlightCalls.remove(key);
+                }
+            }
+        }
+        //和OkHttp取消请求一致，被取消的回调收到失败
+        for (OnOkHttpListener listener : detached) {
+            listener.onFailure(cancelCall, new IOException("Canceled"));
+        }
+        if (empty && cancelCall != null) {
+            cancelCall.cancel();
+        }
+    }
+
+    /**
+     * 请求返回，移除正在执行的请求
+     *
+     * @return 所有回调
+     */
+    private List<OnOkHttpListener> complete() {
+        synchronized (inFlightCalls) {
+            if (inFlightCalls.get(key) == this) {
+                inFlightCalls.remove(key);
+            }
+        }
+        synchronized (this) {
+            completed = true;
+            return new ArrayList<>(listeners);
+        }
+    }
+
+    @Override
+    public void onFailure(Call call, IOException e) {
+        for (OnOkHttpListener listener : complete()) {
+            listener.onFailure(call, e);
+        }
+    }
+
+    @Override
+    public void onResponse(Call call, okhttp3.Response response) throws IOException {
+        List<OnOkHttpListener> listeners = complete();
+        if (listeners.size() == 1) {
+            listeners.get(0).onResponse(call, response);
+            return;
+        }
+        if (response.code() == ResponseCode.NOT_MODIFIED) {
+            response.close();
+            for (OnOkHttpListener listener : listeners) {
+                if (!listener.onNotModified(call)) {
+                    listener.onResponse(call, response, null);
+                }
+            }
+            return;
+        }
+        String responseBody;
+        try {
+            responseBody = response.body().string();
+        } catch (IOException e) {
+            onFailure(call, e);
+            return;
+        }
+        for (OnOkHttpListener listener : listeners) {
+            listener.onResponse(call, response, responseBody);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.androidx.net;
+
+import com.androidx.json.Json;
+
+import java.io.IOException;
+import java.util.List;
+
+import okio.BufferedSource;
+
+/**
+ * Author: Relin
+ * Describe:实体类列表返回数据回调，返回数据是Json数组时使用，
+ * 在子线程中把返回数据流解码为实体列表，主线程只接收解码后的列表。
+ * Date:2021/7/4 9:52
+ */
+public abstract class OnHttpEntityListListener<T> implements OnHttpStreamListener {
+
+    /**
+     * 列表中实体类
+     */
+    private final Class<T> cls;
+
+    public OnHttpEntityListListener(Class<T> cls) {
+        this.cls = cls;
+    }
+
+    @Override
+    public Object onHttpStream(ResponseBody responseBody, BufferedSource source) throws IOException {
+        return Json.parseJSONArray(cls, source);
+    }
+
+    @Override
+    public void onHttpSucceed(ResponseBody responseBody) {
+        //缓存数据在投递前已经在子线程中解码，见ResponseHelper.sendMessage
+        onHttpEntity(responseBody, (List<T>) responseBody.entity());
+    }
+
+    /**
+     * 请求成功，主线程调用
+     *
+     * @param responseBody 返回数据
+     * @param entities     实体列表
+     */
+    public abstract void onHttpEntity(ResponseBody responseBody, List<T> entities);
+
+}
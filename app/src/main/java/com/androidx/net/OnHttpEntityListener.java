@@ -0,0 +1,45 @@
+package com.androidx.net;
+
+import com.androidx.json.Json;
+
+import java.io.IOException;
+
+import okio.BufferedSource;
+
+/**
+ * Author: Relin
+ * Describe:实体类返回数据回调，在子线程中把返回数据流解码为实体对象，
+ * 主线程只接收解码后的实体。
+ * Date:2021/7/4 9:48
+ */
+public abstract class OnHttpEntityListener<T> implements OnHttpStreamListener {
+
+    /**
+     * 实体类
+     */
+    private final Class<T> cls;
+
+    public OnHttpEntityListener(Class<T> cls) {
+        this.cls = cls;
+    }
+
+    @Override
+    public Object onHttpStream(ResponseBody responseBody, BufferedSource source) throws IOException {
+        return Json.parseJSONObject(cls, source);
+    }
+
+    @Override
+    public void onHttpSucceed(ResponseBody responseBody) {
+        //缓存数据在投递前已经在子线程中解码，见ResponseHelper.sendMessage
+        onHttpEntity(responseBody, (T) responseBody.entity());
+    }
+
+    /**
+     * 请求成功，主线程调用
+     *
+     * @param responseBody 返回数据
+     * @param entity       实体对象
+     */
+    public abstract void onHttpEntity(ResponseBody responseBody, T entity);
+
+}
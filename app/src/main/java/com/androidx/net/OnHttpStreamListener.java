@@ -0,0 +1,26 @@
+package com.androidx.net;
+
+import java.io.IOException;
+
+import okio.BufferedSource;
+
+/**
+ * Author: Relin
+ * Describe:流式返回数据回调，请求成功时不再把数据读成字符串，
+ * 而是在子线程中直接读取数据流，只把解码结果投递到主线程。
+ * Date:2021/7/4 9:26
+ */
+public interface OnHttpStreamListener extends OnHttpListener {
+
+    /**
+     * 读取返回数据流，在子线程中调用，
+     * 返回值可在主线程onHttpSucceed中通过responseBody.entity()获取
+     *
+     * @param responseBody 返回数据，body()为空
+     * @param source       返回数据流，方法返回后自动关闭
+     * @return 解码后的对象
+     * @throws IOException 读取异常，会回调onHttpFailure
+     */
+    Object onHttpStream(ResponseBody responseBody, BufferedSource source) throws IOException;
+
+}
@@ -1,7 +1,10 @@
 package com.androidx.net;
 
 
+import android.text.TextUtils;
+
 import com.androidx.json.Json;
+import com.androidx.util.Encoder;
 import com.androidx.net.Body;
 import com.androidx.net.OnHttpListener;
 import com.androidx.net.RequestParams;
@@ -26,6 +29,14 @@ public class OnOkHttpListener implements Callback {
     private RequestParams params;
     private ResponseHandler handler;
     private OnHttpListener listener;
+    /**
+     * 用于验证的缓存
+     */
+    private ResponseTable cacheBody;
+    /**
+     * 缓存是否已经返回
+     */
+    private boolean cacheDelivered;
 
     public OnOkHttpListener(ResponseHandler handler, RequestParams params, String url, OnHttpListener listener) {
         this.params = params;
@@ -34,6 +45,45 @@ public class OnOkHttpListener implements Callback {
         this.handler = handler;
     }
 
+    /**
+     * 请求参数
+     *
+     * @return
+     */
+    public RequestParams params() {
+        return params;
+    }
+
+    /**
+     * 请求标识，和请求的tag一致
+     *
+     * @return
+     */
+    public String tag() {
+        String tag = params == null ? url : params.tag();
+        return TextUtils.isEmpty(tag) ? url + "" : tag;
+    }
+
+    /**
+     * 网络监听
+     *
+     * @return
+     */
+    public OnHttpListener listener() {
+        return listener;
+    }
+
+    /**
+     * 设置用于验证的缓存
+     *
+     * @param cacheBody      缓存
+     * @param cacheDelivered 缓存是否已经返回
+     */
+    public void cache(ResponseTable cacheBody, boolean cacheDelivered) {
+        this.cacheBody = cacheBody;
+        this.cacheDelivered = cacheDelivered;
+    }
+
     @Override
     public void onFailure(Call call, IOException e) {
         e.printStackTrace();
@@ -42,23 +92,92 @@ public class OnOkHttpListener implements Callback {
 
     @Override
     public void onResponse(Call call, okhttp3.Response response) {
+        //服务器验证缓存未修改，不重新传输数据
+        if (response.code() == ResponseCode.NOT_MODIFIED && cacheBody != null) {
+            response.close();
+            onNotModified(call);
+            return;
+        }
+        if (listener instanceof OnHttpStreamListener && response.code() == ResponseCode.OK) {
+            onStreamResponse(response);
+            return;
+        }
         try {
-            String responseBody = response.body().string();
-            if (responseBody == null || responseBody.length() == 0) {
-                responseBody = createBody(response.code());
-            }
-            if (response.code() != ResponseCode.OK) {
-                Body body = new Body();
-                body.setCode(ResponseCode.parse(response.code()));
-                ResponseHelper.sendMessage(handler, ResponseHandler.WHAT_FAILURE, url, params, response.code(), new ResponseException(ResponseException.NOT_OK), responseBody, listener);
-                return;
-            }
-            ResponseHelper.sendMessage(handler, ResponseHandler.WHAT_SUCCEED, url, params, response.code(), new ResponseException(ResponseException.NO_EXP), responseBody, listener);
+            onResponse(call, response, response.body().string());
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * 服务器验证缓存未修改
+     *
+     * @param call 请求
+     * @return 是否有用于验证的缓存
+     */
+    public boolean onNotModified(Call call) {
+        if (cacheBody == null) {
+            return false;
+        }
+        ResponseCache.touch(cacheBody.getCacheKey());
+        if (!cacheDelivered) {
+            ResponseHelper.sendMessage(handler, ResponseHelper.createCacheBody(call.request().method(), url, params, cacheBody, listener));
+        }
+        return true;
+    }
+
+    /**
+     * 处理已经读取的返回数据
+     *
+     * @param call         请求
+     * @param response     返回
+     * @param responseBody 返回数据
+     */
+    public void onResponse(Call call, okhttp3.Response response, String responseBody) {
+        if (responseBody == null || responseBody.length() == 0) {
+            responseBody = createBody(response.code());
+        }
+        if (response.code() != ResponseCode.OK) {
+            Body body = new Body();
+            body.setCode(ResponseCode.parse(response.code()));
+            ResponseHelper.sendMessage(handler, ResponseHandler.WHAT_FAILURE, url, params, response.code(), new ResponseException(ResponseException.NOT_OK), responseBody, listener);
+            return;
+        }
+        //已经返回的缓存和服务器数据一致，不重复回调
+        if (cacheDelivered && Encoder.encode(responseBody).equals(cacheBody.getBody())) {
+            ResponseCache.touch(cacheBody.getCacheKey());
+            return;
+        }
+        ResponseBody body = ResponseHelper.createResponseBody(url, params, response.code(), ResponseException.NO_EXP, responseBody, listener);
+        body.method(call.request().method());
+        body.etag(response.header(Header.ETAG));
+        body.lastModified(response.header(Header.LAST_MODIFIED));
+        ResponseHelper.sendMessage(handler, body);
+    }
+
+    /**
+     * 流式读取返回数据，只把解码结果投递到主线程
+     *
+     * @param response 返回数据
+     */
+    private void onStreamResponse(okhttp3.Response response) {
+        okhttp3.ResponseBody body = response.body();
+        try {
+            ResponseBody responseBody = ResponseHelper.createResponseBody(url, params, response.code(), ResponseException.NO_EXP, null, listener);
+            responseBody.entity(((OnHttpStreamListener) listener).onHttpStream(responseBody, body.source()));
+            ResponseHelper.sendMessage(handler, responseBody);
+        } catch (IOException e) {
+            e.printStackTrace();
+            ResponseHelper.sendMessage(handler, ResponseHandler.WHAT_FAILURE, url, params, ResponseCode.SERVER_EXCEPTION, new ResponseException(ResponseException.NOT_OK), ResponseHelper.createBody(ResponseCode.SERVER_EXCEPTION), listener);
+        } catch (RuntimeException e) {
+            //解码异常不能抛给OkHttp，否则回调没有任何结果
+            e.printStackTrace();
+            ResponseHelper.sendMessage(handler, ResponseHandler.WHAT_FAILURE, url, params, ResponseCode.SERVER_EXCEPTION, new ResponseException(ResponseException.NOT_OK), ResponseHelper.createBody(ResponseCode.SERVER_EXCEPTION), listener);
+        } finally {
+            body.close();
+        }
+    }
+
     /**
      * 构建请求数据
      *
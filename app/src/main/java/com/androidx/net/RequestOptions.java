@@ -2,10 +2,14 @@ package com.androidx.net;
 
 import android.content.Context;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import okhttp3.Interceptor;
+import okhttp3.Protocol;
 
 /**
  * Author: Relin
@@ -14,6 +18,27 @@ import okhttp3.Interceptor;
  */
 public class RequestOptions {
 
+    /**
+     * 调度方式 - 线程池构建请求后再加入OkHttp调度
+     */
+    public static final int DISPATCH_POOL = 0;
+    /**
+     * 调度方式 - 当前线程构建请求后直接加入OkHttp调度，开启缓存时仍使用线程池，避免在当前线程查询缓存
+     */
+    public static final int DISPATCH_DIRECT = 1;
+    /**
+     * 缓存策略 - 网络优先，无网络时使用缓存
+     */
+    public static final int CACHE_NETWORK_FIRST = 0;
+    /**
+     * 缓存策略 - 缓存优先，缓存未过期时不请求网络
+     */
+    public static final int CACHE_FIRST = 1;
+    /**
+     * 缓存策略 - 先返回缓存，缓存过期时再请求网络更新
+     */
+    public static final int CACHE_STALE_WHILE_REVALIDATE = 2;
+
     /**
      * 上下文对象
      */
@@ -25,7 +50,27 @@ public class RequestOptions {
     /**
      * 连接池
      */
-    private ExecutorService threadPool = Executors.newFixedThreadPool(10);
+    private ExecutorService threadPool;
+    /**
+     * 连接池是否由{@link #threadPool()}创建，只有自己创建的连接池在修改线程数量时关闭
+     */
+    private boolean createdPool;
+    /**
+     * 调度方式
+     */
+    private int dispatch = DISPATCH_POOL;
+    /**
+     * 最大并发请求数
+     */
+    private int maxRequests = 64;
+    /**
+     * 单个主机最大并发请求数
+     */
+    private int maxRequestsPerHost = 5;
+    /**
+     * 预加载最大并发请求数
+     */
+    private int prefetchMaxRequests = 2;
     /**
      * 网络Handler
      */
@@ -54,6 +99,26 @@ public class RequestOptions {
      * 缓存
      */
     private boolean cache;
+    /**
+     * 缓存最大值，单位字节
+     */
+    private long cacheMaxSize = 20 * 1024 * 1024;
+    /**
+     * 缓存策略
+     */
+    private int cachePolicy = CACHE_NETWORK_FIRST;
+    /**
+     * 缓存有效时长，单位秒
+     */
+    private long cacheMaxAge = 60;
+    /**
+     * 缓存批量写入间隔，单位毫秒
+     */
+    private long cacheWriteDelay = 500;
+    /**
+     * 缓存批量写入数量
+     */
+    private int cacheWriteBatch = 20;
     /**
      * 链接超时
      */
@@ -94,6 +159,14 @@ public class RequestOptions {
      * 失败是否尝试重连
      */
     private boolean retryOnConnectionFailure = true;
+    /**
+     * 连接复用，true:不强制"Connection: close"，服务器支持时使用HTTP/2多路复用
+     */
+    private boolean keepAlive;
+    /**
+     * 合并相同url和参数正在执行的GET请求
+     */
+    private boolean coalesce = true;
 
     public RequestOptions(Context context) {
         this.context = context;
@@ -107,18 +180,36 @@ public class RequestOptions {
         return threadNum;
     }
 
-    public RequestOptions threadNum(int threadNum) {
+    /**
+     * 设置线程数量，之前创建的连接池执行完已经提交的请求后关闭，下次使用时按新的数量创建
+     *
+     * @param threadNum 线程数量
+     * @return
+     */
+    public synchronized RequestOptions threadNum(int threadNum) {
         this.threadNum = threadNum;
-        threadPool = Executors.newFixedThreadPool(threadNum);
+        if (threadPool != null && createdPool) {
+            threadPool.shutdown();
+        }
+        threadPool = null;
+        createdPool = false;
         return this;
     }
 
-    public ExecutorService threadPool() {
+    public synchronized ExecutorService threadPool() {
+        if (threadPool == null) {
+            threadPool = Executors.newFixedThreadPool(threadNum);
+            createdPool = true;
+        }
         return threadPool;
     }
 
-    public RequestOptions threadPool(ExecutorService threadPool) {
+    public synchronized RequestOptions threadPool(ExecutorService threadPool) {
+        if (this.threadPool != null && this.threadPool != threadPool && createdPool) {
+            this.threadPool.shutdown();
+        }
         this.threadPool = threadPool;
+        createdPool = false;
         return this;
     }
 
@@ -185,6 +276,57 @@ public class RequestOptions {
         return this;
     }
 
+    public long cacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public RequestOptions cacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+        return this;
+    }
+
+    public int cachePolicy() {
+        return cachePolicy;
+    }
+
+    /**
+     * 缓存策略
+     *
+     * @param cachePolicy {@link #CACHE_NETWORK_FIRST}、{@link #CACHE_FIRST}、{@link #CACHE_STALE_WHILE_REVALIDATE}
+     * @return
+     */
+    public RequestOptions cachePolicy(int cachePolicy) {
+        this.cachePolicy = cachePolicy;
+        return this;
+    }
+
+    public long cacheMaxAge() {
+        return cacheMaxAge;
+    }
+
+    public RequestOptions cacheMaxAge(long cacheMaxAge) {
+        this.cacheMaxAge = cacheMaxAge;
+        return this;
+    }
+
+    public long cacheWriteDelay() {
+        return cacheWriteDelay;
+    }
+
+    public RequestOptions cacheWriteDelay(long cacheWriteDelay) {
+        this.cacheWriteDelay = cacheWriteDelay;
+        return this;
+    }
+
+    public int cacheWriteBatch() {
+        return cacheWriteBatch;
+    }
+
+    public RequestOptions cacheWriteBatch(int cacheWriteBatch) {
+        this.cacheWriteBatch = cacheWriteBatch;
+        return this;
+    }
+
     public long connectTimeOut() {
         return connectTimeOut;
     }
@@ -277,12 +419,133 @@ public class RequestOptions {
         return this;
     }
 
+    public int dispatch() {
+        return dispatch;
+    }
+
+    /**
+     * 调度方式
+     *
+     * @param dispatch {@link #DISPATCH_POOL}、{@link #DISPATCH_DIRECT}
+     * @return
+     */
+    public RequestOptions dispatch(int dispatch) {
+        this.dispatch = dispatch;
+        return this;
+    }
+
+    public int maxRequests() {
+        return maxRequests;
+    }
+
+    public RequestOptions maxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+        return this;
+    }
+
+    public int maxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public RequestOptions maxRequestsPerHost(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        return this;
+    }
+
+    public int prefetchMaxRequests() {
+        return prefetchMaxRequests;
+    }
+
+    public RequestOptions prefetchMaxRequests(int prefetchMaxRequests) {
+        this.prefetchMaxRequests = prefetchMaxRequests;
+        return this;
+    }
+
+    /**
+     * 排队中的请求数
+     *
+     * @return
+     */
+    public int queuedCallsCount() {
+        return OkClient.queuedCallsCount();
+    }
+
+    /**
+     * 执行中的请求数
+     *
+     * @return
+     */
+    public int runningCallsCount() {
+        return OkClient.runningCallsCount();
+    }
+
+    /**
+     * 请求平均等待调度时间，单位毫秒
+     *
+     * @return
+     */
+    public long averageWaitTime() {
+        return OkClient.averageWaitTime();
+    }
+
+    /**
+     * 请求最大等待调度时间，单位毫秒
+     *
+     * @return
+     */
+    public long maxWaitTime() {
+        return OkClient.maxWaitTime();
+    }
+
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    public RequestOptions coalesce(boolean coalesce) {
+        this.coalesce = coalesce;
+        return this;
+    }
+
+    /**
+     * 合并到正在执行的请求中的次数
+     *
+     * @return
+     */
+    public long coalescedCount() {
+        return OkClient.coalescedCount();
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public RequestOptions keepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * 客户端协议
+     *
+     * @return 连接复用时支持HTTP/2，否则只使用HTTP/1.1
+     */
+    public List<Protocol> protocols() {
+        if (keepAlive) {
+            return Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1);
+        }
+        return Collections.singletonList(Protocol.HTTP_1_1);
+    }
+
     @Override
     public String toString() {
         return "RequestOptions{" +
                 "context=" + context +
                 ", threadNum=" + threadNum +
                 ", threadPool=" + threadPool +
+                ", dispatch=" + dispatch +
+                ", maxRequests=" + maxRequests +
+                ", maxRequestsPerHost=" + maxRequestsPerHost +
+                ", prefetchMaxRequests=" + prefetchMaxRequests +
                 ", handler=" + handler +
                 ", header=" + header +
                 ", escapeJar=" + escapeJar +
@@ -290,6 +553,11 @@ public class RequestOptions {
                 ", cert=" + cert +
                 ", debug=" + debug +
                 ", cache=" + cache +
+                ", cacheMaxSize=" + cacheMaxSize +
+                ", cachePolicy=" + cachePolicy +
+                ", cacheMaxAge=" + cacheMaxAge +
+                ", cacheWriteDelay=" + cacheWriteDelay +
+                ", cacheWriteBatch=" + cacheWriteBatch +
                 ", connectTimeOut=" + connectTimeOut +
                 ", readTimeOut=" + readTimeOut +
                 ", writeTimeOut=" + writeTimeOut +
@@ -300,6 +568,8 @@ public class RequestOptions {
                 ", keepAliveDuration=" + keepAliveDuration +
                 ", interceptor=" + interceptor +
                 ", retryOnConnectionFailure=" + retryOnConnectionFailure +
+                ", keepAlive=" + keepAlive +
+                ", coalesce=" + coalesce +
                 '}';
     }
 }
@@ -10,8 +10,13 @@ import com.androidx.content.ImageProvider;
 import com.androidx.text.Time;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Map;
 import java.util.TreeMap;
 
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+
 /**
  * Created by Relin
  * on 2017/3/13.
@@ -19,6 +24,15 @@ import java.util.TreeMap;
 
 public class RequestParams {
 
+    /**
+     * 优先级 - 前台请求
+     */
+    public static final int PRIORITY_FOREGROUND = 0;
+    /**
+     * 优先级 - 预加载请求
+     */
+    public static final int PRIORITY_PREFETCH = 1;
+
     /**
      * 文件参数
      */
@@ -39,6 +53,30 @@ public class RequestParams {
      * 页面
      */
     private String tag = "";
+    /**
+     * 优先级
+     */
+    private int priority = PRIORITY_FOREGROUND;
+    /**
+     * 已编码的查询参数
+     */
+    private String query;
+    /**
+     * 请求地址
+     */
+    private HttpUrl httpUrl;
+    /**
+     * 生成请求地址时使用的地址
+     */
+    private String baseUrl;
+    /**
+     * 合并后的头部
+     */
+    private Headers headers;
+    /**
+     * 合并时使用的全局头部
+     */
+    private Headers globalHeaders;
 
 
     public RequestParams() {
@@ -67,6 +105,24 @@ public class RequestParams {
         return tag.split(":")[0];
     }
 
+    /**
+     * 设置优先级
+     *
+     * @param priority {@link #PRIORITY_FOREGROUND}、{@link #PRIORITY_PREFETCH}
+     */
+    public void priority(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * 获取优先级
+     *
+     * @return
+     */
+    public int priority() {
+        return priority;
+    }
+
     /**
      * 添加文字参数
      * Add String Params
@@ -79,6 +135,9 @@ public class RequestParams {
             params = new TreeMap<>();
         }
         params.put(key, value == null ? "" : value);
+        query = null;
+        httpUrl = null;
+        baseUrl = null;
     }
 
     /**
@@ -148,38 +207,149 @@ public class RequestParams {
             return;
         }
         header.put(key, value);
+        headers = null;
+    }
+
+    /**
+     * 删除文字参数和文件参数
+     * Remove Params
+     *
+     * @param key
+     */
+    public void remove(String key) {
+        if (params != null && params.remove(key) != null) {
+            query = null;
+            httpUrl = null;
+            baseUrl = null;
+        }
+        if (files != null) {
+            files.remove(key);
+        }
     }
 
     /**
-     * 获取文字参数
+     * 删除头文件参数
+     * Remove Header Params
+     *
+     * @param key
+     */
+    public void removeHeader(String key) {
+        if (header != null && header.remove(key) != null) {
+            headers = null;
+        }
+    }
+
+    /**
+     * 获取文字参数，只读，修改使用{@link #add(String, String)}、{@link #remove(String)}，
+     * 否则缓存的查询参数和请求地址不会更新
      *
      * @return
      */
-    public TreeMap<String, String> params() {
-        return params;
+    public Map<String, String> params() {
+        return params == null ? null : Collections.unmodifiableMap(params);
     }
 
     /**
-     * 获取文件参数
+     * 获取文件参数，只读，修改使用{@link #add(String, File)}、{@link #remove(String)}
      *
      * @return
      */
-    public TreeMap<String, File> files() {
-        return files;
+    public Map<String, File> files() {
+        return files == null ? null : Collections.unmodifiableMap(files);
     }
 
     /**
-     * 获取头文件参数
+     * 获取头文件参数，只读，修改使用{@link #addHeader(String, String)}、{@link #removeHeader(String)}，
+     * 否则缓存的合并头部不会更新
      *
      * @return
      */
-    public TreeMap<String, String> header() {
+    public Map<String, String> header() {
         if (header == null) {
             header = new TreeMap<>();
             header.put(Header.USER_AGENT, "Android");
             header.put(Header.CONTENT_TYPE, Header.CONTENT_JSON);
+            headers = null;
         }
-        return header;
+        return Collections.unmodifiableMap(header);
+    }
+
+    /**
+     * 已编码的查询参数，参数不变时重复使用
+     *
+     * @return 没有参数时为""
+     */
+    public synchronized String query() {
+        if (query == null) {
+            if (params == null || params.size() == 0) {
+                query = "";
+            } else {
+                HttpUrl.Builder builder = new HttpUrl.Builder().scheme("http").host("localhost");
+                for (String key : params.keySet()) {
+                    builder.addQueryParameter(key, params.get(key));
+                }
+                query = builder.build().encodedQuery();
+            }
+        }
+        return query;
+    }
+
+    /**
+     * 带查询参数的请求地址，地址和参数不变时重复使用
+     *
+     * @param url 地址
+     * @return 地址无法解析时为null
+     */
+    public synchronized HttpUrl httpUrl(String url) {
+        if (httpUrl != null && url.equals(baseUrl)) {
+            return httpUrl;
+        }
+        HttpUrl parse = HttpUrl.parse(url);
+        if (parse == null) {
+            return null;
+        }
+        if (query().length() != 0) {
+            HttpUrl.Builder builder = parse.newBuilder();
+            for (String key : params.keySet()) {
+                builder.addQueryParameter(key, params.get(key));
+            }
+            parse = builder.build();
+        }
+        httpUrl = parse;
+        baseUrl = url;
+        return httpUrl;
+    }
+
+    /**
+     * 合并全局头部和请求头部，请求头部优先，全局头部和请求头部不变时重复使用
+     *
+     * @param global 全局头部
+     * @return
+     */
+    public synchronized Headers headers(Headers global) {
+        if (headers != null && globalHeaders == global) {
+            return headers;
+        }
+        if (header == null || header.size() == 0) {
+            headers = global;
+        } else {
+            Headers.Builder builder = global.newBuilder();
+            for (String key : header.keySet()) {
+                builder.set(key, header.get(key));
+            }
+            headers = builder.build();
+        }
+        globalHeaders = global;
+        return headers;
+    }
+
+    /**
+     * 合并后的头部
+     *
+     * @return 请求之前为null
+     */
+    public synchronized Headers headers() {
+        return headers;
     }
 
     /**
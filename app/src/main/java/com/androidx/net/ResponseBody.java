@@ -27,6 +27,18 @@ public class ResponseBody implements Serializable {
      * 返回的数据
      */
     private String body;
+    /**
+     * 请求方式
+     */
+    private String method;
+    /**
+     * 服务器返回的ETag
+     */
+    private String etag;
+    /**
+     * 服务器返回的Last-Modified
+     */
+    private String lastModified;
     /**
      * 请求地址
      */
@@ -47,6 +59,10 @@ public class ResponseBody implements Serializable {
      * 回调接口
      */
     private OnHttpListener httpListener;
+    /**
+     * 流式解码后的对象
+     */
+    private Object entity;
 
     public String time() {
         if (Null.isNull(time)){
@@ -83,6 +99,30 @@ public class ResponseBody implements Serializable {
         this.body = body;
     }
 
+    public String method() {
+        return method;
+    }
+
+    public void method(String method) {
+        this.method = method;
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    public void etag(String etag) {
+        this.etag = etag;
+    }
+
+    public String lastModified() {
+        return lastModified;
+    }
+
+    public void lastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
     public String url() {
         return url;
     }
@@ -107,6 +147,14 @@ public class ResponseBody implements Serializable {
         this.httpListener = httpListener;
     }
 
+    public <T> T entity() {
+        return (T) entity;
+    }
+
+    public void entity(Object entity) {
+        this.entity = entity;
+    }
+
     public RequestParams requestParams() {
         return requestParams;
     }
@@ -131,11 +179,15 @@ public class ResponseBody implements Serializable {
                 ", time='" + time + '\'' +
                 ", isCache=" + isCache +
                 ", body='" + body + '\'' +
+                ", method='" + method + '\'' +
+                ", etag='" + etag + '\'' +
+                ", lastModified='" + lastModified + '\'' +
                 ", url='" + url + '\'' +
                 ", code=" + code +
                 ", requestParams=" + requestParams +
                 ", exception=" + exception +
                 ", httpListener=" + httpListener +
+                ", entity=" + entity +
                 '}';
     }
 }
@@ -1,15 +1,30 @@
 package com.androidx.net;
 
-import com.androidx.app.CoreApplication;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.androidx.sqlite.OnTransactionListener;
 import com.androidx.sqlite.SQLite;
+import com.androidx.text.Number;
+import com.androidx.util.Encoder;
 import com.androidx.util.Log;
 import com.androidx.util.Size;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import okhttp3.Headers;
+import okio.ByteString;
 
 /**
  * Author: Relin
- * Describe:缓存工具
+ * Describe:缓存工具，以(method, url, params, headers)的哈希为唯一键，
+ * 按最后访问时间淘汰数据，保证缓存总大小不超过RequestOptions.cacheMaxSize()。
  * Date:2020/11/29 13:47
  */
 public class ResponseCache {
@@ -18,24 +33,220 @@ public class ResponseCache {
      * 日志标识
      */
     public static String TAG = ResponseCache.class.getSimpleName();
+    /**
+     * 缓存表名
+     */
+    public static final String TABLE = ResponseTable.class.getSimpleName();
+    /**
+     * 缓存表字段
+     */
+    private static final String[] COLUMNS = new String[]{"cacheKey", "method", "url", "params", "code", "body", "exception", "size", "accessTime", "storeTime", "etag", "lastModified"};
+    /**
+     * 缓存表字段类型
+     */
+    private static final String[] TYPES = new String[]{SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_TEXT, SQLite.TYPE_INTEGER, SQLite.TYPE_INTEGER, SQLite.TYPE_INTEGER, SQLite.TYPE_TEXT, SQLite.TYPE_TEXT};
+    /**
+     * 估算的缓存总大小，超出上限时再精确统计
+     */
+    private static long estimateSize = -1;
+    /**
+     * 缓存写入器
+     */
+    private static final ResponseCacheWriter writer = new ResponseCacheWriter();
+
+    /**
+     * 创建缓存表和索引，旧版本字段不全的表直接重建
+     *
+     * @param context 上下文，使用RequestOptions的上下文
+     */
+    public static void createTable(Context context) {
+        SQLite sqLite = SQLite.with(context.getApplicationContext());
+        List<Map<String, String>> columns = sqLite.query("PRAGMA table_info(" + TABLE + ")");
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < Size.of(columns); i++) {
+            names.add(columns.get(i).get("name"));
+        }
+        if (names.size() != 0 && !names.containsAll(Arrays.asList(COLUMNS))) {
+            sqLite.dropTable(TABLE);
+        }
+        sqLite.createTable(TABLE, COLUMNS, TYPES);
+        sqLite.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + TABLE + "_cacheKey ON " + TABLE + " (cacheKey)");
+        sqLite.execSQL("CREATE INDEX IF NOT EXISTS " + TABLE + "_accessTime ON " + TABLE + " (accessTime)");
+    }
+
+    /**
+     * 缓存数据库，使用初始化时RequestOptions的上下文
+     *
+     * @return
+     */
+    private static SQLite sqLite() {
+        return SQLite.with(Http.options().context().getApplicationContext());
+    }
+
+    /**
+     * 缓存键，头部使用全局头部和请求头部合并后的快照
+     *
+     * @param method 请求方式
+     * @param url    地址
+     * @param params 参数
+     * @return (method, url, 已编码的查询参数, 头部)的MD5
+     */
+    public static String key(String method, String url, RequestParams params) {
+        return key(method, url, params, headers(params));
+    }
+
+    /**
+     * 缓存键，头部参与计算，不同认证头部(Authorization、token等)的数据不会互相命中
+     *
+     * @param method  请求方式
+     * @param url     地址
+     * @param params  参数
+     * @param headers 请求头部，可为null
+     * @return (method, url, 已编码的查询参数, 按名称排序的头部)的MD5
+     */
+    public static String key(String method, String url, RequestParams params, Headers headers) {
+        String query = params == null ? "" : params.query();
+        StringBuilder builder = new StringBuilder(method + " " + url + " " + query);
+        if (headers != null) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < headers.size(); i++) {
+                lines.add(headers.name(i).toLowerCase(Locale.US) + ":" + headers.value(i));
+            }
+            Collections.sort(lines);
+            for (String line : lines) {
+                builder.append("\n").append(line);
+            }
+        }
+        return ByteString.encodeUtf8(builder.toString()).md5().hex();
+    }
+
+    /**
+     * 全局头部和请求头部合并后的快照
+     *
+     * @param params 参数
+     * @return 没有初始化时只有请求头部
+     */
+    private static Headers headers(RequestParams params) {
+        RequestOptions options = Http.options();
+        Headers global = options == null ? Headers.of() : options.header().headers();
+        return params == null ? global : params.headers(global);
+    }
+
+    /**
+     * 异步写入缓存，由ResponseCacheWriter批量提交
+     *
+     * @param responseBody 请求结果
+     */
+    public static void write(ResponseBody responseBody) {
+        writer.write(key(responseBody.method(), responseBody.url(), responseBody.requestParams()), responseBody);
+    }
 
     /**
-     * 插入缓存
+     * 请求结果转缓存数据
+     *
+     * @param key          请求时计算的缓存键，写入时全局头部可能已经改变，不能重新计算
+     * @param responseBody 请求结果
+     * @return
+     */
+    public static ResponseTable toTable(String key, ResponseBody responseBody) {
+        String exception = responseBody.code() != ResponseCode.OK ? ResponseException.NOT_OK : "";
+        RequestParams params = responseBody.requestParams();
+        ResponseTable cacheBody = new ResponseTable();
+        cacheBody.setCacheKey(key);
+        cacheBody.setMethod(responseBody.method());
+        cacheBody.setEtag(responseBody.etag());
+        cacheBody.setLastModified(responseBody.lastModified());
+        cacheBody.setUrl(responseBody.url());
+        cacheBody.setCode(String.valueOf(responseBody.code()));
+        cacheBody.setBody(Encoder.encode(responseBody.body()));
+        cacheBody.setException(exception);
+        cacheBody.setParams(params == null || params.params() == null ? "" : Encoder.encode(params.params().toString()));
+        long now = System.currentTimeMillis();
+        cacheBody.setSize(length(cacheBody.getUrl()) + length(cacheBody.getParams()) + length(cacheBody.getBody()) + length(cacheBody.getException()));
+        cacheBody.setAccessTime(now);
+        cacheBody.setStoreTime(now);
+        return cacheBody;
+    }
+
+    /**
+     * 插入缓存，键已存在时替换
      *
      * @param body
      */
     public static void insert(ResponseTable body) {
         if (!Http.isInit()) {
-            Log.e(TAG, Http. NOT_INIT, Http.MSG_NOT_INIT);
+            Log.e(TAG, Http.NOT_INIT, Http.MSG_NOT_INIT);
             return;
         }
-        List<ResponseTable> bodies = query(body.getUrl(), body.getParams());
-        int size = Size.of(bodies);
-        if (size == 0) {
-            SQLite.with(CoreApplication.app).insert(body);
-        } else {
-            update(body);
+        long size = length(body.getUrl()) + length(body.getParams()) + length(body.getBody()) + length(body.getException());
+        body.setSize(size);
+        body.setAccessTime(System.currentTimeMillis());
+        body.setStoreTime(body.getAccessTime());
+        sqLite().replace(TABLE, toContentValues(body));
+        trim(size);
+    }
+
+    /**
+     * 在一个事务中插入缓存和更新访问时间，任何语句失败时整个事务回滚
+     *
+     * @param bodies      缓存
+     * @param touches     需要更新访问时间的缓存键
+     * @param revalidates 服务器验证未修改的缓存键和验证时间，同时更新访问时间和存储时间
+     * @return 是否提交成功，失败时由调用方重新写入
+     */
+    public static boolean insert(final List<ResponseTable> bodies, final List<String> touches, final Map<String, Long> revalidates) {
+        if (!Http.isInit()) {
+            Log.e(TAG, Http.NOT_INIT, Http.MSG_NOT_INIT);
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        //不能使用SQLite.replace和execSQL，它们在嵌套事务中吞掉异常，外层事务回滚后无法得知
+        boolean successful = sqLite().transaction(new OnTransactionListener() {
+            @Override
+            public void onTransaction(SQLiteDatabase db) {
+                for (ResponseTable body : bodies) {
+                    db.replaceOrThrow(TABLE, null, toContentValues(body));
+                }
+                for (String key : touches) {
+                    db.execSQL("update " + TABLE + " set accessTime = ? where cacheKey = ?", new Object[]{now, key});
+                }
+                for (Map.Entry<String, Long> entry : revalidates.entrySet()) {
+                    db.execSQL("update " + TABLE + " set accessTime = ?, storeTime = ? where cacheKey = ?", new Object[]{entry.getValue(), entry.getValue(), entry.getKey()});
+                }
+            }
+        });
+        if (!successful) {
+            return false;
+        }
+        long size = 0;
+        for (ResponseTable body : bodies) {
+            size += body.getSize();
         }
+        trim(size);
+        return true;
+    }
+
+    /**
+     * 缓存数据转数据库字段
+     *
+     * @param body 缓存
+     * @return
+     */
+    private static ContentValues toContentValues(ResponseTable body) {
+        ContentValues values = new ContentValues();
+        values.put("cacheKey", body.getCacheKey());
+        values.put("method", body.getMethod());
+        values.put("url", body.getUrl());
+        values.put("params", body.getParams());
+        values.put("code", body.getCode());
+        values.put("body", body.getBody());
+        values.put("exception", body.getException());
+        values.put("size", body.getSize());
+        values.put("accessTime", body.getAccessTime());
+        values.put("storeTime", body.getStoreTime());
+        values.put("etag", body.getEtag());
+        values.put("lastModified", body.getLastModified());
+        return values;
     }
 
     /**
@@ -44,11 +255,60 @@ public class ResponseCache {
      * @param body
      */
     public static void update(ResponseTable body) {
+        insert(body);
+    }
+
+    /**
+     * 获取缓存，同时更新最后访问时间
+     *
+     * @param key 缓存键
+     * @return
+     */
+    public static ResponseTable query(String key) {
+        if (!Http.isInit()) {
+            Log.e(TAG, Http.NOT_INIT, Http.MSG_NOT_INIT);
+            return null;
+        }
+        ResponseBody pending = writer.pending(key);
+        if (pending != null) {
+            return toTable(key, pending);
+        }
+        List<ResponseTable> items = sqLite().query(ResponseTable.class, "select * from " + TABLE + " where cacheKey = ?", new String[]{key});
+        if (Size.of(items) == 0) {
+            return null;
+        }
+        ResponseTable body = items.get(0);
+        //已经验证但还没有写入的缓存使用验证时间计算有效期
+        long revalidated = writer.revalidated(key);
+        if (revalidated > body.getStoreTime()) {
+            body.setStoreTime(revalidated);
+        }
+        writer.touch(key);
+        return body;
+    }
+
+    /**
+     * 服务器验证缓存未修改(304)，重新计算有效期，由ResponseCacheWriter批量提交
+     *
+     * @param key 缓存键
+     */
+    public static void touch(String key) {
         if (!Http.isInit()) {
-            Log.e(TAG, Http. NOT_INIT, Http.MSG_NOT_INIT);
+            Log.e(TAG, Http.NOT_INIT, Http.MSG_NOT_INIT);
             return;
         }
-        SQLite.with(CoreApplication.app).update(body, " url=? and params=? ", new String[]{body.getUrl(), body.getParams()});
+        writer.revalidate(key);
+    }
+
+    /**
+     * 缓存是否在有效期内
+     *
+     * @param body   缓存
+     * @param maxAge 有效时长，单位秒
+     * @return
+     */
+    public static boolean isFresh(ResponseTable body, long maxAge) {
+        return body != null && System.currentTimeMillis() - body.getStoreTime() < maxAge * 1000;
     }
 
     /**
@@ -60,11 +320,74 @@ public class ResponseCache {
      */
     public static List<ResponseTable> query(String url, String params) {
         if (!Http.isInit()) {
-            Log.e(TAG, Http. NOT_INIT, Http.MSG_NOT_INIT);
+            Log.e(TAG, Http.NOT_INIT, Http.MSG_NOT_INIT);
             return null;
         }
-        List<ResponseTable> items = SQLite.with(CoreApplication.app).query(ResponseTable.class, "select * from " + ResponseTable.class.getSimpleName() + " where params = \'" + params + "\' and url = \'" + url + "\'");
-        return items;
+        return sqLite().query(ResponseTable.class, "select * from " + TABLE + " where params = ? and url = ?", new String[]{params, url});
+    }
+
+    /**
+     * 缓存总大小
+     *
+     * @return 单位字节
+     */
+    public static long size() {
+        List<Map<String, String>> result = sqLite().query("select sum(size) as total from " + TABLE);
+        if (Size.of(result) == 0 || result.get(0).get("total") == null) {
+            return 0;
+        }
+        return Number.parseLong(result.get(0).get("total"));
+    }
+
+    /**
+     * 淘汰最久未访问的缓存，直到总大小不超过上限
+     *
+     * @param size 新写入的大小
+     */
+    private static synchronized void trim(long size) {
+        long maxSize = Http.options().cacheMaxSize();
+        estimateSize = estimateSize < 0 ? size() : estimateSize + size;
+        if (estimateSize <= maxSize) {
+            return;
+        }
+        estimateSize = size();
+        if (estimateSize <= maxSize) {
+            return;
+        }
+        SQLite sqLite = sqLite();
+        List<Map<String, String>> rows = sqLite.query("select size, accessTime from " + TABLE + " order by accessTime asc");
+        String accessTime = evictAccessTime(rows, estimateSize - maxSize);
+        if (accessTime != null) {
+            sqLite.execSQL("delete from " + TABLE + " where accessTime <= ?", new Object[]{accessTime});
+        }
+        estimateSize = size();
+    }
+
+    /**
+     * 计算淘汰的访问时间上限，从最久未访问的缓存开始累加，直到释放的大小不小于需要淘汰的大小
+     *
+     * @param rows      按访问时间升序的缓存，包含size和accessTime
+     * @param evictSize 需要淘汰的大小
+     * @return 访问时间不大于该值的缓存需要删除，不需要淘汰时为null
+     */
+    static String evictAccessTime(List<Map<String, String>> rows, long evictSize) {
+        long freed = 0;
+        String accessTime = null;
+        for (int i = 0; i < Size.of(rows) && freed < evictSize; i++) {
+            freed += Number.parseLong(rows.get(i).get("size"));
+            accessTime = rows.get(i).get("accessTime");
+        }
+        return accessTime;
+    }
+
+    /**
+     * 字符长度
+     *
+     * @param value
+     * @return
+     */
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
     }
 
     /**
@@ -72,10 +395,12 @@ public class ResponseCache {
      */
     public static void delete() {
         if (!Http.isInit()) {
-            Log.e(TAG, Http. NOT_INIT, Http.MSG_NOT_INIT);
+            Log.e(TAG, Http.NOT_INIT, Http.MSG_NOT_INIT);
             return;
         }
-        SQLite.with(CoreApplication.app).deleteTable(ResponseTable.class.getSimpleName());
+        writer.clear();
+        sqLite().deleteTable(TABLE);
+        estimateSize = 0;
     }
 
 }
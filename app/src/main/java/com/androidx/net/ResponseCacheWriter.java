@@ -0,0 +1,189 @@
+package com.androidx.net;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Author: Relin
+ * Describe:缓存写入器，在单独的线程中批量写入缓存，
+ * 每隔一段时间或者积累一定数量后在一个事务中提交，相同缓存键只写入最后一次。
+ * Date:2021/7/8 22:40
+ */
+public class ResponseCacheWriter {
+
+    /**
+     * 写入线程
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * 等待写入的缓存
+     */
+    private final Map<String, ResponseBody> pending = new LinkedHashMap<>();
+    /**
+     * 等待更新访问时间的缓存键
+     */
+    private final Set<String> touches = new LinkedHashSet<>();
+    /**
+     * 等待更新有效期的缓存键和服务器验证时间
+     */
+    private final Map<String, Long> revalidates = new LinkedHashMap<>();
+    /**
+     * 是否已经安排写入
+     */
+    private boolean scheduled;
+
+    /**
+     * 写入缓存
+     *
+     * @param key          缓存键
+     * @param responseBody 请求结果
+     */
+    public void write(String key, ResponseBody responseBody) {
+        synchronized (this) {
+            pending.put(key, responseBody);
+        }
+        schedule();
+    }
+
+    /**
+     * 更新访问时间
+     *
+     * @param key 缓存键
+     */
+    public void touch(String key) {
+        synchronized (this) {
+            touches.add(key);
+        }
+        schedule();
+    }
+
+    /**
+     * 服务器验证缓存未修改，更新访问时间和有效期
+     *
+     * @param key 缓存键
+     */
+    public void revalidate(String key) {
+        synchronized (this) {
+            revalidates.put(key, System.currentTimeMillis());
+        }
+        schedule();
+    }
+
+    /**
+     * 等待写入的验证时间
+     *
+     * @param key 缓存键
+     * @return 没有时为0
+     */
+    public synchronized long revalidated(String key) {
+        Long time = revalidates.get(key);
+        return time == null ? 0 : time;
+    }
+
+    /**
+     * 等待写入的缓存
+     *
+     * @param key 缓存键
+     * @return 没有时为null
+     */
+    public synchronized ResponseBody pending(String key) {
+        return pending.get(key);
+    }
+
+    /**
+     * 安排写入，达到批量数量时立即写入，否则延时写入
+     */
+    private void schedule() {
+        RequestOptions options = Http.options();
+        synchronized (this) {
+            if (pending.size() + touches.size() + revalidates.size() >= options.cacheWriteBatch()) {
+                executor.execute(flushTask);
+                return;
+            }
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        executor.schedule(flushTask, options.cacheWriteDelay(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 立即写入所有等待的缓存，提交成功后才移除，失败时保留并延时重试
+     */
+    public void flush() {
+        Map<String, ResponseBody> bodies;
+        List<String> keys;
+        Map<String, Long> times;
+        synchronized (this) {
+            scheduled = false;
+            if (pending.isEmpty() && touches.isEmpty() && revalidates.isEmpty()) {
+                return;
+            }
+            bodies = new LinkedHashMap<>(pending);
+            keys = new ArrayList<>(touches);
+            keys.removeAll(pending.keySet());
+            times = new LinkedHashMap<>(revalidates);
+            times.keySet().removeAll(pending.keySet());
+        }
+        List<ResponseTable> tables = new ArrayList<>();
+        for (Map.Entry<String, ResponseBody> entry : bodies.entrySet()) {
+            tables.add(ResponseCache.toTable(entry.getKey(), entry.getValue()));
+        }
+        if (!ResponseCache.insert(tables, keys, times)) {
+            //写入失败，数据仍在等待队列中，查询依然可以命中
+            synchronized (this) {
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            executor.schedule(flushTask, Http.options().cacheWriteDelay(), TimeUnit.MILLISECONDS);
+            return;
+        }
+        //写入之后再移除，写入过程中查询仍然可以命中；期间被替换的缓存和重新验证的时间留到下次写入
+        synchronized (this) {
+            for (Map.Entry<String, ResponseBody> entry : bodies.entrySet()) {
+                if (pending.get(entry.getKey()) == entry.getValue()) {
+                    pending.remove(entry.getKey());
+                }
+            }
+            touches.removeAll(keys);
+            touches.removeAll(bodies.keySet());
+            //新写入的缓存已经包含最新的存储时间
+            revalidates.keySet().removeAll(bodies.keySet());
+            for (Map.Entry<String, Long> entry : times.entrySet()) {
+                if (entry.getValue().equals(revalidates.get(entry.getKey()))) {
+                    revalidates.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * 丢弃所有等待写入的缓存
+     */
+    public synchronized void clear() {
+        pending.clear();
+        touches.clear();
+        revalidates.clear();
+    }
+
+    /**
+     * 写入任务
+     */
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+}
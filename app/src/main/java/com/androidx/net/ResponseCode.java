@@ -44,6 +44,10 @@ public class ResponseCode {
      * 重置内容
      */
     public static final int PROCESS_PART_GET_REQUEST = 206;
+    /**
+     * 资源未修改
+     */
+    public static final int NOT_MODIFIED = 304;
 
     /**
      * 错误请求
@@ -149,6 +153,8 @@ public class ResponseCode {
             RESET_CONTENT,
             PROCESS_PART_GET_REQUEST,
 
+            NOT_MODIFIED,
+
             BAD_REQUEST,
             REQUEST_UNAUTHORIZED,
             REQUEST_DENIED,
@@ -186,6 +192,8 @@ public class ResponseCode {
             "重置内容",//205
             "处理部分GET请求",//206
 
+            "资源未修改",//304
+
             "错误请求",//400
             "请求未授权",//401
             "请求被拒绝",//403
@@ -5,7 +5,6 @@ import android.os.Message;
 
 import com.androidx.json.Json;
 import com.androidx.text.Time;
-import com.androidx.util.Encoder;
 import com.androidx.util.Log;
 
 
@@ -41,7 +40,7 @@ public class ResponseHandler extends Handler {
                 }
                 break;
             case WHAT_SUCCEED:
-                if (listener != null && responseBody != null && responseBody.body() != null) {
+                if (listener != null && responseBody != null && (responseBody.body() != null || listener instanceof OnHttpStreamListener)) {
                     listener.onHttpSucceed(responseBody);
                 }
                 break;
@@ -54,16 +53,8 @@ public class ResponseHandler extends Handler {
      * @param responseBody 请求结果
      */
     private void insertCache(ResponseBody responseBody) {
-        if (Http.options().isCache()) {
-            String exception = responseBody.code() != ResponseCode.OK ? ResponseException.NOT_OK : "";
-            ResponseTable cacheBody = new ResponseTable();
-            cacheBody.setUrl(responseBody.url());
-            cacheBody.setCode(String.valueOf(responseBody.code()));
-            String encodeBody = Encoder.encode(responseBody.body());
-            cacheBody.setBody(encodeBody);
-            cacheBody.setException(exception);
-            cacheBody.setParams(responseBody.requestParams() == null || responseBody.requestParams().params() == null ? "" : Encoder.encode(responseBody.requestParams().params().toString()));
-            ResponseCache.insert(cacheBody);
+        if (Http.options().isCache() && !responseBody.isCache() && responseBody.method() != null && responseBody.body() != null) {
+            ResponseCache.write(responseBody);
         }
     }
 
@@ -1,15 +1,16 @@
 package com.androidx.net;
 
+import android.os.Looper;
 import android.os.Message;
 
 import com.androidx.json.Json;
 import com.androidx.text.Number;
 import com.androidx.util.Decoder;
-import com.androidx.util.Encoder;
 import com.androidx.util.Log;
-import com.androidx.util.Size;
 
-import java.util.List;
+import java.io.IOException;
+
+import okio.Buffer;
 
 /**
  * Author: Relin
@@ -19,17 +20,14 @@ import java.util.List;
 public class ResponseHelper {
 
     /**
-     * 互换头部参数
+     * 合并头部参数，全局头部冻结后与请求头部拼接，不修改全局配置
      *
      * @param options 配置参数
      * @param params  请求参数
      */
     public static void swapHeader(RequestOptions options, RequestParams params) {
-        for (String key : params.header().keySet()) {
-            options.header().add(key, params.header().get(key));
-        }
-        for (String key : options.header().keySet()) {
-            params.addHeader(key, options.header().get(key));
+        if (params != null) {
+            params.headers(options.header().headers());
         }
     }
 
@@ -62,8 +60,23 @@ public class ResponseHelper {
      * @return
      */
     public static boolean isUseCache(ResponseHandler handler, RequestOptions options, String url, RequestParams params, OnHttpListener listener) {
+        return isUseCache(handler, options, "GET", url, params, listener);
+    }
+
+    /**
+     * 是否使用缓存
+     *
+     * @param handler  处理
+     * @param options  配置
+     * @param method   请求方式
+     * @param url      地址
+     * @param params   参数
+     * @param listener 网络监听
+     * @return
+     */
+    public static boolean isUseCache(ResponseHandler handler, RequestOptions options, String method, String url, RequestParams params, OnHttpListener listener) {
         if (options.isCache() && !Network.isAvailable(options.context())) {
-            ResponseBody responseBody = selectCache(url, params, listener);
+            ResponseBody responseBody = selectCache(method, url, params, listener);
             sendMessage(handler, responseBody);
             return true;
         }
@@ -81,6 +94,21 @@ public class ResponseHelper {
      * @return
      */
     public static boolean isPassNetworkAndCacheCheck(ResponseHandler handler, RequestOptions options, String url, RequestParams params, OnHttpListener listener) {
+        return isPassNetworkAndCacheCheck(handler, options, "GET", url, params, listener);
+    }
+
+    /**
+     * 是否通过网络和缓存的检查
+     *
+     * @param handler  处理
+     * @param options  配置
+     * @param method   请求方式
+     * @param url      地址
+     * @param params   参数
+     * @param listener 网络监听
+     * @return
+     */
+    public static boolean isPassNetworkAndCacheCheck(ResponseHandler handler, RequestOptions options, String method, String url, RequestParams params, OnHttpListener listener) {
         if (!Http.isInit()) {
             Log.e(Http.TAG, Http.NOT_INIT, Http.MSG_NOT_INIT);
             return false;
@@ -89,7 +117,7 @@ public class ResponseHelper {
         if (isNoNetwork(handler, options, url, params, listener)) {
             return false;
         }
-        if (isUseCache(handler, options, url, params, listener)) {
+        if (isUseCache(handler, options, method, url, params, listener)) {
             return false;
         }
         return true;
@@ -144,7 +172,24 @@ public class ResponseHelper {
      * @param listener 网络监听
      */
     public static void sendMessage(ResponseHandler handler, int what, String url, RequestParams params, int code, Exception e, String body, OnHttpListener listener) {
+        sendMessage(handler, what, null, url, params, code, e, body, listener);
+    }
+
+    /**
+     * 发送消息
+     *
+     * @param what     标识
+     * @param method   请求方式，为空时不写入缓存
+     * @param params   请求参数
+     * @param url      请求地址
+     * @param code     请求结果代码
+     * @param e        异常
+     * @param body     内容
+     * @param listener 网络监听
+     */
+    public static void sendMessage(ResponseHandler handler, int what, String method, String url, RequestParams params, int code, Exception e, String body, OnHttpListener listener) {
         ResponseBody response = createResponseBody(url, params, code, e.getMessage(), body, listener);
+        response.method(method);
         Message msg = handler.obtainMessage();
         msg.what = what;
         msg.obj = response;
@@ -157,13 +202,67 @@ public class ResponseHelper {
      * @param handler  处理
      * @param response 返回数据
      */
-    public static void sendMessage(ResponseHandler handler, ResponseBody response) {
+    public static void sendMessage(final ResponseHandler handler, final ResponseBody response) {
+        if (isStreamDecodable(response)) {
+            //缓存数据没有经过数据流解码，主线程调用时转到子线程解码后再投递
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                Http.options().threadPool().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        decodeStream(response);
+                        deliver(handler, response);
+                    }
+                });
+                return;
+            }
+            decodeStream(response);
+        }
+        deliver(handler, response);
+    }
+
+    /**
+     * 投递返回数据到主线程
+     *
+     * @param handler  处理
+     * @param response 返回数据
+     */
+    private static void deliver(ResponseHandler handler, ResponseBody response) {
         Message message = handler.obtainMessage();
         message.what = response.code() == ResponseCode.OK ? ResponseHandler.WHAT_SUCCEED : ResponseHandler.WHAT_FAILURE;
         message.obj = response;
         handler.sendMessage(message);
     }
 
+    /**
+     * 是否需要数据流解码，流式监听的成功数据还没有解码时需要
+     *
+     * @param response 返回数据
+     * @return
+     */
+    private static boolean isStreamDecodable(ResponseBody response) {
+        return response.listener() instanceof OnHttpStreamListener && response.code() == ResponseCode.OK && response.entity() == null && response.body() != null;
+    }
+
+    /**
+     * 用流式监听解码字符串数据，解码失败时转为失败数据
+     *
+     * @param response 返回数据
+     */
+    private static void decodeStream(ResponseBody response) {
+        OnHttpStreamListener listener = (OnHttpStreamListener) response.listener();
+        try {
+            response.entity(listener.onHttpStream(response, new Buffer().writeUtf8(response.body())));
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        response.code(ResponseCode.SERVER_EXCEPTION);
+        response.exception(new ResponseException(ResponseException.NOT_OK));
+        response.body(createBody(ResponseCode.SERVER_EXCEPTION));
+    }
+
     /**
      * 选择缓存
      *
@@ -173,23 +272,27 @@ public class ResponseHelper {
      * @return
      */
     public static ResponseBody selectCache(String url, RequestParams params, OnHttpListener listener) {
-        String paramsEncode = Encoder.encode(params.params().toString());
-        List<ResponseTable> cacheBodies = ResponseCache.query(url, params.params() == null ? "" :paramsEncode);
+        return selectCache("GET", url, params, listener);
+    }
+
+    /**
+     * 选择缓存
+     *
+     * @param method   请求方式
+     * @param url      地址
+     * @param params   参数
+     * @param listener 网络监听
+     * @return
+     */
+    public static ResponseBody selectCache(String method, String url, RequestParams params, OnHttpListener listener) {
+        ResponseTable cacheBody = ResponseCache.query(ResponseCache.key(method, url, params));
         ResponseBody response;
-        if (Size.of(cacheBodies) != 0) {
-            ResponseTable cacheBody = cacheBodies.get(0);
-            response = new ResponseBody();
-            response.setCache(true);
-            response.url(url);
-            String decode = Decoder.decode(cacheBody.getBody());
-            response.body(decode);
-            response.code(Number.parseInt(cacheBody.getCode()));
-            response.requestParams(params);
-            response.listener(listener);
-            response.exception(new Exception(cacheBody.getException()));
+        if (cacheBody != null) {
+            response = createCacheBody(method, url, params, cacheBody, listener);
         } else {
             response = new ResponseBody();
             response.setCache(true);
+            response.method(method);
             response.url(url);
             response.body(createBody(ResponseCode.NO_NET));
             response.code(ResponseCode.NO_NET);
@@ -200,5 +303,68 @@ public class ResponseHelper {
         return response;
     }
 
+    /**
+     * 创建缓存返回内容
+     *
+     * @param method    请求方式
+     * @param url       地址
+     * @param params    参数
+     * @param cacheBody 缓存
+     * @param listener  网络监听
+     * @return
+     */
+    public static ResponseBody createCacheBody(String method, String url, RequestParams params, ResponseTable cacheBody, OnHttpListener listener) {
+        ResponseBody response = new ResponseBody();
+        response.setCache(true);
+        response.method(method);
+        response.url(url);
+        String decode = Decoder.decode(cacheBody.getBody());
+        response.body(decode);
+        response.code(Number.parseInt(cacheBody.getCode()));
+        response.requestParams(params);
+        response.listener(listener);
+        response.exception(new Exception(cacheBody.getException()));
+        response.etag(cacheBody.getEtag());
+        response.lastModified(cacheBody.getLastModified());
+        return response;
+    }
+
+    /**
+     * 选择可验证的缓存，开启缓存的GET请求才会使用
+     *
+     * @param options 配置
+     * @param method  请求方式
+     * @param url     地址
+     * @param params  参数
+     * @return 缓存，没有时为null
+     */
+    public static ResponseTable selectCacheTable(RequestOptions options, String method, String url, RequestParams params) {
+        if (!options.isCache() || !"GET".equals(method)) {
+            return null;
+        }
+        return ResponseCache.query(ResponseCache.key(method, url, params));
+    }
+
+    /**
+     * 按缓存策略返回缓存
+     *
+     * @param handler   处理
+     * @param options   配置
+     * @param cacheBody 缓存
+     * @param url       地址
+     * @param params    参数
+     * @param listener  网络监听
+     * @return true:缓存在有效期内，不需要请求网络
+     */
+    public static boolean isUseFreshCache(ResponseHandler handler, RequestOptions options, ResponseTable cacheBody, String url, RequestParams params, OnHttpListener listener) {
+        if (cacheBody == null || options.cachePolicy() == RequestOptions.CACHE_NETWORK_FIRST) {
+            return false;
+        }
+        boolean fresh = ResponseCache.isFresh(cacheBody, options.cacheMaxAge());
+        if (fresh || options.cachePolicy() == RequestOptions.CACHE_STALE_WHILE_REVALIDATE) {
+            sendMessage(handler, createCacheBody("GET", url, params, cacheBody, listener));
+        }
+        return fresh;
+    }
 
 }
@@ -2,6 +2,34 @@ package com.androidx.net;
 
 public class ResponseTable {
 
+    /**
+     * 缓存键，(method, url, params)的哈希
+     */
+    private String cacheKey;
+    /**
+     * 请求方式
+     */
+    private String method;
+    /**
+     * 缓存大小，单位字节
+     */
+    private long size;
+    /**
+     * 最后访问时间
+     */
+    private long accessTime;
+    /**
+     * 写入或验证时间
+     */
+    private long storeTime;
+    /**
+     * 服务器返回的ETag
+     */
+    private String etag;
+    /**
+     * 服务器返回的Last-Modified
+     */
+    private String lastModified;
     /**
      * 请求码
      */
@@ -62,4 +90,60 @@ public class ResponseTable {
     public void setException(String exception) {
         this.exception = exception;
     }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getAccessTime() {
+        return accessTime;
+    }
+
+    public void setAccessTime(long accessTime) {
+        this.accessTime = accessTime;
+    }
+
+    public long getStoreTime() {
+        return storeTime;
+    }
+
+    public void setStoreTime(long storeTime) {
+        this.storeTime = storeTime;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
 }
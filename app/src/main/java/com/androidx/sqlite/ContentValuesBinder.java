@@ -0,0 +1,26 @@
+package com.androidx.sqlite;
+
+import android.content.ContentValues;
+
+/**
+ * Author: Relin
+ * Describe:实体类转插入数据，由{@link com.androidx.annotation.Entity}生成，
+ * 也可以通过{@link SQLite#registerContentValuesBinder(Class, ContentValuesBinder)}注册。
+ * Date:2021/7/21 20:38
+ */
+public interface ContentValuesBinder<T> {
+
+    /**
+     * 生成的类名后缀
+     */
+    String SUFFIX = "_ContentValuesBinder";
+
+    /**
+     * 设置对象字段到插入数据
+     *
+     * @param obj    对象
+     * @param values 插入数据
+     */
+    void bind(T obj, ContentValues values);
+
+}
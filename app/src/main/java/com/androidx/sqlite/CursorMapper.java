@@ -0,0 +1,26 @@
+package com.androidx.sqlite;
+
+import android.database.Cursor;
+
+/**
+ * Author: Relin
+ * Describe:查询结果转实体类，由{@link com.androidx.annotation.Entity}生成，
+ * 也可以通过{@link SQLite#registerCursorMapper(Class, CursorMapper)}注册。
+ * Date:2021/7/21 20:36
+ */
+public interface CursorMapper<T> {
+
+    /**
+     * 生成的类名后缀
+     */
+    String SUFFIX = "_CursorMapper";
+
+    /**
+     * 转换当前行
+     *
+     * @param cursor 游标
+     * @return
+     */
+    T map(Cursor cursor);
+
+}
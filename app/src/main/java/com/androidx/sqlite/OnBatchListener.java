@@ -0,0 +1,19 @@
+package com.androidx.sqlite;
+
+/**
+ * Author: Relin
+ * Describe:批量写入结果回调，{@link SQLite#insertAll(java.util.Collection, OnBatchListener)}等方法
+ * 在事务结束后调用，和日志中的rows/s使用同样的条数和耗时。
+ * Date:2021/7/25 10:20
+ */
+public interface OnBatchListener {
+
+    /**
+     * 批量写入结束
+     *
+     * @param rows    影响的条数，失败回滚时为-1
+     * @param useTime 耗时，单位毫秒，每秒条数为rows * 1000 / useTime
+     */
+    void onBatch(int rows, long useTime);
+
+}
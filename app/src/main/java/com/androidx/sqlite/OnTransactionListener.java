@@ -0,0 +1,21 @@
+package com.androidx.sqlite;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Author: Relin
+ * Describe:事务回调，在{@link SQLite#transaction(OnTransactionListener)}的事务中执行，
+ * 抛出异常时整个事务回滚。
+ * Date:2021/7/22 22:10
+ */
+public interface OnTransactionListener {
+
+    /**
+     * 执行事务中的语句，使用会抛出异常的方法，例如replaceOrThrow、execSQL
+     *
+     * @param db 数据库操作对象
+     * @throws Exception 任何语句失败
+     */
+    void onTransaction(SQLiteDatabase db) throws Exception;
+
+}
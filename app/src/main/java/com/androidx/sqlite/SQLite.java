@@ -3,15 +3,20 @@ package com.androidx.sqlite;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.text.TextUtils;
 import android.util.Log;
 
+import com.androidx.annotation.EntityAdapters;
+
 import java.io.File;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -213,6 +218,33 @@ public class SQLite implements OnSQLiteOpenListener {
         }
     }
 
+    /**
+     * 在一个事务中执行，和insert、replace、execSQL不同，语句失败时不吞掉异常，而是回滚整个事务
+     *
+     * @param listener 事务回调
+     * @return 是否提交成功
+     */
+    public boolean transaction(OnTransactionListener listener) {
+        boolean successful = false;
+        db.beginTransaction();
+        try {
+            listener.onTransaction(db);
+            db.setTransactionSuccessful();
+            successful = true;
+        } catch (Exception e) {
+            Log.e(TAG, "->transaction exception = " + e.toString());
+        } finally {
+            try {
+                db.endTransaction();
+            } catch (Exception e) {
+                //提交失败，例如磁盘已满
+                Log.e(TAG, "->transaction commit exception = " + e.toString());
+                successful = false;
+            }
+        }
+        return successful;
+    }
+
     /**
      * 建表
      *
@@ -322,13 +354,88 @@ public class SQLite implements OnSQLiteOpenListener {
     }
 
     /**
-     * 插入对象数据
+     * 插入或替换数据，唯一约束冲突时替换旧数据
+     *
+     * @param table
+     * @param contentValues
+     * @return
+     */
+    public long replace(String table, ContentValues contentValues) {
+        long result = -1;
+        db.beginTransaction();
+        try {
+            result = db.replace(table, null, contentValues);
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "->replace exception = " + e.toString());
+        }
+        db.endTransaction();
+        return result;
+    }
+
+    /**
+     * 插入对象数据，有{@link ContentValuesBinder}时不使用反射，
+     * List字段中的数据先插入到各自的表中
      *
      * @param obj
      * @return 插入数据
      */
     public long insert(Object obj) {
+        for (Object child : children(obj)) {
+            insert(child);
+        }
+        return insert(obj.getClass().getSimpleName(), contentValues(obj));
+    }
+
+    /**
+     * List字段中的数据，有{@link ContentValuesBinder}的类没有List字段
+     *
+     * @param obj 对象
+     * @return 不为null的元素
+     */
+    private List<Object> children(Object obj) {
+        List<Object> children = new ArrayList<>();
         Class<?> cls = obj.getClass();
+        if (binder(cls) != null) {
+            return children;
+        }
+        for (Field field : cls.getDeclaredFields()) {
+            if (field.getType() != List.class || !(field.getGenericType() instanceof ParameterizedType)) {
+                continue;
+            }
+            field.setAccessible(true);
+            try {
+                List<?> list = (List<?>) field.get(obj);
+                if (list == null) {
+                    continue;
+                }
+                for (Object item : list) {
+                    if (item != null) {
+                        children.add(item);
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            }
+        }
+        return children;
+    }
+
+    /**
+     * 对象转插入数据，有{@link ContentValuesBinder}时不使用反射，
+     * 只转换当前对象的字段，List字段中的数据由{@link #insert(Object)}和{@link #insertAll(Collection)}插入
+     *
+     * @param obj 对象
+     * @return
+     */
+    protected ContentValues contentValues(Object obj) {
+        Class<?> cls = obj.getClass();
+        ContentValuesBinder binder = binder(cls);
+        if (binder != null) {
+            ContentValues values = new ContentValues();
+            binder.bind(obj, values);
+            return values;
+        }
         Field[] fields = cls.getDeclaredFields();
         ContentValues contentValues = new ContentValues();
         for (int i = 0; i < fields.length; i++) {
@@ -340,7 +447,8 @@ public class SQLite implements OnSQLiteOpenListener {
                 Class<?> fieldType = field.getType();
                 if (!key.equals("$change") && !key.equals("serialVersionUID")) {
                     if (fieldType == String.class || fieldType == Character.class) {
-                        contentValues.put(key, (String) field.get(obj));
+                        Object text = field.get(obj);
+                        contentValues.put(key, text == null ? null : text.toString());
                     }
                     if (fieldType == int.class) {
                         contentValues.put(key, (int) field.get(obj));
@@ -360,20 +468,12 @@ public class SQLite implements OnSQLiteOpenListener {
                     if (fieldType == short.class) {
                         contentValues.put(key, (short) field.get(obj));
                     }
-                    //如果不是一般数据类型
-                    if (!fieldType.isPrimitive() && fieldType == List.class) {
-                        Type genericType = field.getGenericType();
-                        if (genericType instanceof ParameterizedType) {
-                            List<?> list = (List<?>) field.get(obj);
-                            insert(list.get(i));
-                        }
-                    }
                 }
             } catch (IllegalAccessException e) {
                 e.printStackTrace();
             }
         }
-        return insert(cls.getSimpleName(), contentValues);
+        return contentValues;
     }
 
     /**
@@ -386,6 +486,255 @@ public class SQLite implements OnSQLiteOpenListener {
         execSQL(sql);
     }
 
+    /**
+     * 批量插入对象数据，所有数据在一个事务中，相同表和列的数据使用同一个编译好的语句，
+     * 和{@link #insert(Object)}一样先插入List字段中的数据
+     *
+     * @param list 对象列表，可以是不同的类，表名为类名
+     * @return 插入的条数，包括List字段中的数据，失败时回滚并返回-1
+     */
+    public int insertAll(Collection<?> list) {
+        return insertAll(list, null);
+    }
+
+    /**
+     * 批量插入对象数据，结束后回调条数和耗时
+     *
+     * @param list     对象列表，可以是不同的类，表名为类名
+     * @param listener 结果回调，可以为null
+     * @return 插入的条数，包括List字段中的数据，失败时回滚并返回-1
+     */
+    public int insertAll(Collection<?> list, OnBatchListener listener) {
+        return executeAll("insertAll", list, null, false, true, listener);
+    }
+
+    /**
+     * 批量更新对象数据，按主键列更新，所有数据在一个事务中
+     *
+     * @param list      对象列表，可以是不同的类，表名为类名
+     * @param keyColumn 主键列，例如 "user_id"，值为null的对象不更新
+     * @return 更新的条数，不处理List字段中的数据，失败时回滚并返回-1
+     */
+    public int updateAll(Collection<?> list, String keyColumn) {
+        return updateAll(list, keyColumn, null);
+    }
+
+    /**
+     * 批量更新对象数据，结束后回调条数和耗时
+     *
+     * @param list      对象列表，可以是不同的类，表名为类名
+     * @param keyColumn 主键列，例如 "user_id"，值为null的对象不更新
+     * @param listener  结果回调，可以为null
+     * @return 更新的条数，不处理List字段中的数据，失败时回滚并返回-1
+     */
+    public int updateAll(Collection<?> list, String keyColumn, OnBatchListener listener) {
+        return executeAll("updateAll", list, keyColumn, true, false, listener);
+    }
+
+    /**
+     * 批量更新或插入对象数据，按主键列更新，没有更新到数据时插入，所有数据在一个事务中
+     *
+     * @param list      对象列表，可以是不同的类，表名为类名
+     * @param keyColumn 主键列，例如 "user_id"
+     * @return 更新和插入的条数，不处理List字段中的数据，失败时回滚并返回-1
+     */
+    public int upsertAll(Collection<?> list, String keyColumn) {
+        return upsertAll(list, keyColumn, null);
+    }
+
+    /**
+     * 批量更新或插入对象数据，结束后回调条数和耗时
+     *
+     * @param list      对象列表，可以是不同的类，表名为类名
+     * @param keyColumn 主键列，例如 "user_id"
+     * @param listener  结果回调，可以为null
+     * @return 更新和插入的条数，不处理List字段中的数据，失败时回滚并返回-1
+     */
+    public int upsertAll(Collection<?> list, String keyColumn, OnBatchListener listener) {
+        return executeAll("upsertAll", list, keyColumn, true, true, listener);
+    }
+
+    /**
+     * 批量执行，不更新时插入对象和List字段中的数据，更新时先更新再插入没有更新到的对象
+     *
+     * @param name      方法名，用于日志
+     * @param list      对象列表
+     * @param keyColumn 主键列
+     * @param update    是否更新
+     * @param insert    是否插入，更新时只插入没有更新到的数据
+     * @param listener  结果回调
+     * @return 影响的条数，失败时返回-1
+     */
+    private int executeAll(String name, Collection<?> list, String keyColumn, boolean update, boolean insert, OnBatchListener listener) {
+        if (list == null || list.isEmpty()) {
+            if (listener != null) {
+                listener.onBatch(0, 0);
+            }
+            return 0;
+        }
+        long useTime = System.currentTimeMillis();
+        Map<String, SQLiteStatement> statements = new HashMap<>();
+        int rows = 0;
+        db.beginTransaction();
+        try {
+            for (Object obj : list) {
+                if (obj == null) {
+                    continue;
+                }
+                if (!update) {
+                    rows += insertTree(statements, obj);
+                    continue;
+                }
+                String table = obj.getClass().getSimpleName();
+                ContentValues values = contentValues(obj);
+                String[] columns = columns(values);
+                Object key = values.get(keyColumn);
+                if (key == null) {
+                    Log.i(TAG, "->" + name + " skip " + table + ",key column " + keyColumn + " is null");
+                    continue;
+                }
+                int updated = updateStatement(statements, table, columns, values, keyColumn, key);
+                rows += updated;
+                if (updated > 0 || !insert) {
+                    continue;
+                }
+                insertStatement(statements, table, columns, values);
+                rows++;
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "->" + name + " exception = " + e.toString());
+            rows = -1;
+        } finally {
+            db.endTransaction();
+            for (SQLiteStatement statement : statements.values()) {
+                statement.close();
+            }
+        }
+        useTime = System.currentTimeMillis() - useTime;
+        Log.i(TAG, "->" + name + " rows = " + rows + ",useTime = " + useTime + "ms,rows/s = " + (rows * 1000L / Math.max(1, useTime)));
+        if (listener != null) {
+            listener.onBatch(rows, useTime);
+        }
+        return rows;
+    }
+
+    /**
+     * 使用编译好的语句插入对象和List字段中的数据
+     *
+     * @param statements 已经编译的语句
+     * @param obj        对象
+     * @return 插入的条数
+     */
+    private int insertTree(Map<String, SQLiteStatement> statements, Object obj) {
+        int rows = 0;
+        for (Object child : children(obj)) {
+            rows += insertTree(statements, child);
+        }
+        ContentValues values = contentValues(obj);
+        insertStatement(statements, obj.getClass().getSimpleName(), columns(values), values);
+        return rows + 1;
+    }
+
+    /**
+     * 排序后的列名，相同列的数据使用同一个语句
+     *
+     * @param values 数据
+     * @return
+     */
+    private String[] columns(ContentValues values) {
+        String[] columns = values.keySet().toArray(new String[values.size()]);
+        Arrays.sort(columns);
+        return columns;
+    }
+
+    /**
+     * 使用编译好的语句插入
+     *
+     * @param statements 已经编译的语句
+     * @param table      表名
+     * @param columns    排序后的列名
+     * @param values     数据
+     * @return 行id
+     */
+    private long insertStatement(Map<String, SQLiteStatement> statements, String table, String[] columns, ContentValues values) {
+        String sql;
+        if (columns.length == 0) {
+            sql = "INSERT INTO " + table + " DEFAULT VALUES";
+        } else {
+            StringBuilder sb = new StringBuilder("INSERT INTO ").append(table).append(" (");
+            for (int i = 0; i < columns.length; i++) {
+                sb.append(i == 0 ? "" : ",").append(columns[i]);
+            }
+            sb.append(") VALUES (");
+            for (int i = 0; i < columns.length; i++) {
+                sb.append(i == 0 ? "?" : ",?");
+            }
+            sql = sb.append(")").toString();
+        }
+        SQLiteStatement statement = statement(statements, sql);
+        for (int i = 0; i < columns.length; i++) {
+            DatabaseUtils.bindObjectToProgram(statement, i + 1, values.get(columns[i]));
+        }
+        return statement.executeInsert();
+    }
+
+    /**
+     * 使用编译好的语句按主键列更新
+     *
+     * @param statements 已经编译的语句
+     * @param table      表名
+     * @param columns    排序后的列名
+     * @param values     数据
+     * @param keyColumn  主键列
+     * @param key        主键值
+     * @return 更新的条数
+     */
+    private int updateStatement(Map<String, SQLiteStatement> statements, String table, String[] columns, ContentValues values, String keyColumn, Object key) {
+        StringBuilder sb = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        int count = 0;
+        for (String column : columns) {
+            if (!column.equals(keyColumn)) {
+                sb.append(count++ == 0 ? "" : ",").append(column).append("=?");
+            }
+        }
+        //只有主键列时更新主键本身，用于判断数据是否存在
+        if (count == 0) {
+            sb.append(keyColumn).append("=?");
+        }
+        sb.append(" WHERE ").append(keyColumn).append("=?");
+        SQLiteStatement statement = statement(statements, sb.toString());
+        int index = 1;
+        for (String column : columns) {
+            if (!column.equals(keyColumn)) {
+                DatabaseUtils.bindObjectToProgram(statement, index++, values.get(column));
+            }
+        }
+        if (count == 0) {
+            DatabaseUtils.bindObjectToProgram(statement, index++, key);
+        }
+        DatabaseUtils.bindObjectToProgram(statement, index, key);
+        return statement.executeUpdateDelete();
+    }
+
+    /**
+     * 获取编译好的语句，没有时编译
+     *
+     * @param statements 已经编译的语句
+     * @param sql        sql语句
+     * @return
+     */
+    private SQLiteStatement statement(Map<String, SQLiteStatement> statements, String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearBindings();
+        }
+        return statement;
+    }
+
     /**
      * 删除数据
      *
@@ -517,7 +866,18 @@ public class SQLite implements OnSQLiteOpenListener {
      * @return
      */
     public List<Map<String, String>> query(String sql) {
-        Cursor cursor = db.rawQuery(sql, null);
+        return query(sql, (String[]) null);
+    }
+
+    /**
+     * 查询数据
+     *
+     * @param sql           数据库语句，例如 "select * from user where name = ?"
+     * @param selectionArgs 参数，例如 new String[]{"Mary"}
+     * @return
+     */
+    public List<Map<String, String>> query(String sql, String[] selectionArgs) {
+        Cursor cursor = db.rawQuery(sql, selectionArgs);
         String[] columnNames = cursor.getColumnNames();
         List<Map<String, String>> queryList = new ArrayList<Map<String, String>>();
         while (cursor.moveToNext()) {
@@ -551,9 +911,30 @@ public class SQLite implements OnSQLiteOpenListener {
      * @return 实体列表
      */
     public <T> List<T> query(Class<T> cls, String sql) {
-        Cursor cursor = db.rawQuery(sql, null);
-        String[] columnNames = cursor.getColumnNames();
+        return query(cls, sql, null);
+    }
+
+    /**
+     * 查询数据，有{@link CursorMapper}时不使用反射
+     *
+     * @param cls           实体类
+     * @param sql           sql语句，例如 "select * from user where name = ?"
+     * @param selectionArgs 参数，例如 new String[]{"Mary"}
+     * @param <T>           实体类泛型
+     * @return 实体列表
+     */
+    public <T> List<T> query(Class<T> cls, String sql, String[] selectionArgs) {
+        Cursor cursor = db.rawQuery(sql, selectionArgs);
         List<T> queryList = new ArrayList<T>();
+        CursorMapper<T> mapper = mapper(cls);
+        if (mapper != null) {
+            while (cursor.moveToNext()) {
+                queryList.add(mapper.map(cursor));
+            }
+            cursor.close();
+            return queryList;
+        }
+        String[] columnNames = cursor.getColumnNames();
         while (cursor.moveToNext()) {
             T bean = null;
             try {
@@ -594,6 +975,49 @@ public class SQLite implements OnSQLiteOpenListener {
         return queryList;
     }
 
+    /**
+     * 注册实体类的查询转换，代替{@link com.androidx.annotation.Entity}生成的类
+     *
+     * @param cls    实体类
+     * @param mapper 查询转换，为null时该类强制使用反射
+     * @param <T>    实体类泛型
+     */
+    public static <T> void registerCursorMapper(Class<T> cls, CursorMapper<T> mapper) {
+        EntityAdapters.register(cls, CursorMapper.SUFFIX, mapper);
+    }
+
+    /**
+     * 注册实体类的插入数据绑定，代替{@link com.androidx.annotation.Entity}生成的类
+     *
+     * @param cls    实体类
+     * @param binder 插入数据绑定，为null时该类强制使用反射
+     * @param <T>    实体类泛型
+     */
+    public static <T> void registerContentValuesBinder(Class<T> cls, ContentValuesBinder<T> binder) {
+        EntityAdapters.register(cls, ContentValuesBinder.SUFFIX, binder);
+    }
+
+    /**
+     * 实体类的查询转换
+     *
+     * @param cls 实体类
+     * @param <T> 实体类泛型
+     * @return 没有生成或者注册时返回null
+     */
+    protected <T> CursorMapper<T> mapper(Class<T> cls) {
+        return (CursorMapper<T>) EntityAdapters.find(cls, CursorMapper.SUFFIX);
+    }
+
+    /**
+     * 实体类的插入数据绑定
+     *
+     * @param cls 实体类
+     * @return 没有生成或者注册时返回null
+     */
+    protected ContentValuesBinder binder(Class<?> cls) {
+        return (ContentValuesBinder) EntityAdapters.find(cls, ContentValuesBinder.SUFFIX);
+    }
+
     /**
      * 查找存在的字段
      *
@@ -627,6 +1051,24 @@ public class SQLite implements OnSQLiteOpenListener {
         db.endTransaction();
     }
 
+    /**
+     * 执行SQL语句
+     *
+     * @param sql      sql语句，例如 "delete from user where name = ?"
+     * @param bindArgs 参数，例如 new Object[]{"Mary"}
+     */
+    public void execSQL(String sql, Object[] bindArgs) {
+        Log.i(TAG, "->exec sql sql = " + sql);
+        db.beginTransaction();
+        try {
+            db.execSQL(sql, bindArgs);
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "->exec sql exception = " + e.toString());
+        }
+        db.endTransaction();
+    }
+
     /**
      * 删除表
      *
@@ -0,0 +1,77 @@
+package com.androidx.upload;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Author: Relin
+ * Describe:分块上传的请求内容，从文件的offset位置开始读取length个字节，
+ * 重试时重新创建，不需要把整个分块读入内存。
+ * Date:2021/7/14 22:10
+ */
+public class ChunkRequestBody extends RequestBody {
+
+    /**
+     * 数据类型
+     */
+    public static final MediaType MEDIA_TYPE = MediaType.parse("application/octet-stream");
+
+    /**
+     * 文件
+     */
+    private final File file;
+    /**
+     * 开始位置
+     */
+    private final long offset;
+    /**
+     * 长度
+     */
+    private final long length;
+
+    /**
+     * 构造函数
+     *
+     * @param file   文件
+     * @param offset 开始位置
+     * @param length 长度
+     */
+    public ChunkRequestBody(File file, long offset, long length) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            FileChannel channel = inputStream.getChannel();
+            channel.position(offset);
+            Source source = Okio.source(Channels.newInputStream(channel));
+            sink.write(source, length);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+}
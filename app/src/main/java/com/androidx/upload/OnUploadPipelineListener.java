@@ -0,0 +1,45 @@
+package com.androidx.upload;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 批量上传监听，所有回调都在主线程
+ */
+public interface OnUploadPipelineListener {
+
+    /**
+     * 总进度
+     *
+     * @param completed     已经结束的文件数量
+     * @param count         文件总数量
+     * @param progress      所有文件已上传的大小
+     * @param contentLength 所有文件的大小，未压缩的文件按原文件大小估算
+     */
+    void onPipelineProgress(int completed, int count, long progress, long contentLength);
+
+    /**
+     * 单个文件上传返回
+     *
+     * @param source   源文件
+     * @param response 服务器返回
+     */
+    void onPipelineResponse(File source, UploadResponse response);
+
+    /**
+     * 单个文件压缩或者上传失败
+     *
+     * @param source 源文件
+     * @param e      异常
+     */
+    void onPipelineFailure(File source, IOException e);
+
+    /**
+     * 所有文件结束
+     *
+     * @param succeed 服务器返回2xx的文件数量
+     * @param failed  失败的文件数量
+     */
+    void onPipelineCompleted(int succeed, int failed);
+
+}
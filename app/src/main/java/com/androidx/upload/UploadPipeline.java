@@ -0,0 +1,543 @@
+package com.androidx.upload;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.androidx.content.IOProvider;
+import com.androidx.content.ImageCompressExecutor;
+import com.androidx.content.ImageCompressor;
+import com.androidx.content.ImageProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量上传，压缩和上传分成两个阶段同时进行，
+ * 第k个文件上传时压缩第k+1个文件，压缩线程数和同时上传的数量分别限制。
+ * 图片使用ImageCompressor压缩后再上传，其他文件直接上传，每个文件使用Uploader单独表单上传。
+ * 文件按压缩完成的顺序进入上传队列，只有一个压缩线程时按传入的顺序上传。
+ */
+public class UploadPipeline {
+
+    public static final String TAG = UploadPipeline.class.getSimpleName();
+
+    /**
+     * 上下文
+     */
+    public final Context context;
+
+    /**
+     * 服务器地址
+     */
+    public final String url;
+
+    /**
+     * 文件参数名
+     */
+    public final String name;
+
+    /**
+     * 每个文件都带上的字符参数和Header
+     */
+    public final UploadParams params;
+
+    /**
+     * 压缩大小，单位KB
+     */
+    public final int max;
+
+    /**
+     * 压缩宽度
+     */
+    public final int width;
+
+    /**
+     * 压缩高度
+     */
+    public final int height;
+
+    /**
+     * 压缩线程数
+     */
+    public final int compressThreads;
+
+    /**
+     * 同时上传的文件数
+     */
+    public final int uploadThreads;
+
+    /**
+     * 上传监听
+     */
+    public final OnUploadPipelineListener listener;
+
+    /**
+     * 主线程
+     */
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    /**
+     * 压缩线程池
+     */
+    private ThreadPoolExecutor executor;
+    /**
+     * 压缩完成等待上传的文件
+     */
+    private final LinkedList<Item> queue = new LinkedList<>();
+    /**
+     * 所有文件
+     */
+    private final List<Item> items = new ArrayList<>();
+    /**
+     * 正在上传的数量
+     */
+    private int uploading;
+    /**
+     * 结束的数量
+     */
+    private int completed;
+    /**
+     * 成功的数量
+     */
+    private int succeed;
+    /**
+     * 是否已经取消
+     */
+    private boolean cancelled;
+
+    public UploadPipeline(Builder builder) {
+        this.context = builder.context;
+        this.url = builder.url;
+        this.name = builder.name;
+        this.params = builder.params;
+        this.max = builder.max;
+        this.width = builder.width;
+        this.height = builder.height;
+        this.compressThreads = Math.max(1, builder.compressThreads);
+        this.uploadThreads = Math.max(1, builder.uploadThreads);
+        this.listener = builder.listener;
+    }
+
+    public static class Builder {
+
+        private Context context;
+        private String url;
+        private String name = "file";
+        private UploadParams params;
+        private int max = 512;
+        private int width = -1;
+        private int height = -1;
+        private int compressThreads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+        private int uploadThreads = 2;
+        private OnUploadPipelineListener listener;
+
+        public Builder(Context context) {
+            this.context = context;
+        }
+
+        public Builder url(String url) {
+            this.url = url;
+            return this;
+        }
+
+        /**
+         * 文件参数名，默认file
+         *
+         * @param name 参数名
+         * @return
+         */
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder params(UploadParams params) {
+            this.params = params;
+            return this;
+        }
+
+        /**
+         * 压缩大小
+         *
+         * @param max 单位KB
+         * @return
+         */
+        public Builder max(int max) {
+            this.max = max;
+            return this;
+        }
+
+        public Builder width(int width) {
+            this.width = width;
+            return this;
+        }
+
+        public Builder height(int height) {
+            this.height = height;
+            return this;
+        }
+
+        /**
+         * 压缩线程数，默认不超过2
+         *
+         * @param compressThreads 线程数
+         * @return
+         */
+        public Builder compressThreads(int compressThreads) {
+            this.compressThreads = compressThreads;
+            return this;
+        }
+
+        /**
+         * 同时上传的文件数，默认2
+         *
+         * @param uploadThreads 文件数
+         * @return
+         */
+        public Builder uploadThreads(int uploadThreads) {
+            this.uploadThreads = uploadThreads;
+            return this;
+        }
+
+        public Builder listener(OnUploadPipelineListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public UploadPipeline build() {
+            return new UploadPipeline(this);
+        }
+    }
+
+    /**
+     * 开始上传，需要在主线程调用
+     *
+     * @param files 源文件，不会被删除
+     */
+    public void start(List<File> files) {
+        executor = new ThreadPoolExecutor(compressThreads, compressThreads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+        for (int i = 0; i < files.size(); i++) {
+            items.add(new Item(i, files.get(i)));
+        }
+        if (items.size() == 0) {
+            onCompleted();
+            return;
+        }
+        for (Item item : items) {
+            executor.execute(new CompressTask(item));
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 取消上传，需要在主线程调用；
+     * 等待压缩和等待上传的文件回调失败，正在压缩的线程被中断，已经开始上传的文件继续上传到结束
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (executor != null) {
+            for (Runnable runnable : executor.shutdownNow()) {
+                onFailure(((CompressTask) runnable).item, new IOException("Canceled"));
+            }
+        }
+        while (!queue.isEmpty()) {
+            onFailure(queue.removeFirst(), new IOException("Canceled"));
+        }
+    }
+
+    /**
+     * 是否已经取消
+     *
+     * @return
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 压缩任务
+     */
+    private class CompressTask implements Runnable {
+
+        final Item item;
+
+        CompressTask(Item item) {
+            this.item = item;
+        }
+
+        @Override
+        public void run() {
+            prepare(item);
+        }
+    }
+
+    /**
+     * 准备上传的文件，在压缩线程中执行
+     *
+     * @param item 文件
+     */
+    private void prepare(final Item item) {
+        if (item.source == null || !item.source.exists()) {
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    onFailure(item, new IOException("Upload file does not exist."));
+                }
+            });
+            return;
+        }
+        File file;
+        try {
+            file = compress(item.source, item.index);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    onFailure(item, new IOException("Canceled"));
+                }
+            });
+            return;
+        }
+        if (file != null) {
+            item.file = file;
+            item.temp = true;
+        } else {
+            item.file = item.source;
+        }
+        item.contentLength = item.file.length();
+        post(new Runnable() {
+            @Override
+            public void run() {
+                if (cancelled) {
+                    onFailure(item, new IOException("Canceled"));
+                    return;
+                }
+                queue.add(item);
+                dispatch();
+            }
+        });
+    }
+
+    /**
+     * 压缩图片，在压缩线程中执行，和其他压缩共用线程数和内存预算
+     *
+     * @param source 源文件
+     * @param index  序号
+     * @return 压缩后的临时文件，不是图片或者压缩失败时返回null，上传源文件
+     * @throws InterruptedException 取消时被中断
+     */
+    protected File compress(File source, int index) throws InterruptedException {
+        if (!ImageProvider.isImage(source)) {
+            return null;
+        }
+        File out = new File(IOProvider.makeDirs(context, ImageCompressor.DIR), "UPLOAD_" + System.nanoTime() + "_" + index + ".jpg");
+        ImageCompressor compressor = new ImageCompressor(context, source, out.getAbsolutePath(), null);
+        compressor.width(width).height(height).max(max).deleteSource(false);
+        try {
+            ImageCompressExecutor.shared().execute(compressor);
+        } catch (InterruptedException e) {
+            compressor.cancel();
+            out.delete();
+            throw e;
+        }
+        if (compressor.file() != null && compressor.file().length() > 0) {
+            return compressor.file();
+        }
+        out.delete();
+        return null;
+    }
+
+    /**
+     * 切换到主线程执行
+     *
+     * @param runnable 任务
+     */
+    protected void post(Runnable runnable) {
+        handler.post(runnable);
+    }
+
+    /**
+     * 在同时上传的数量限制内开始上传
+     */
+    private void dispatch() {
+        while (!cancelled && uploading < uploadThreads && !queue.isEmpty()) {
+            uploading++;
+            upload(queue.removeFirst());
+        }
+    }
+
+    /**
+     * 上传文件
+     *
+     * @param item 文件
+     */
+    private void upload(final Item item) {
+        UploadParams uploadParams = new UploadParams();
+        if (params != null && params.getStringParams() != null) {
+            for (Map.Entry<String, String> entry : params.getStringParams().entrySet()) {
+                uploadParams.add(entry.getKey(), entry.getValue());
+            }
+        }
+        if (params != null && params.getHeaderParams() != null) {
+            for (Map.Entry<String, String> entry : params.getHeaderParams().entrySet()) {
+                uploadParams.addHeader(entry.getKey(), entry.getValue());
+            }
+        }
+        uploadParams.add(name, item.file);
+        upload(uploadParams, new OnUploadListener() {
+            @Override
+            public void onUploadProgress(UploadResponse response, long contentLength, long progress) {
+                item.contentLength = contentLength;
+                item.progress = progress;
+                onProgress();
+            }
+
+            @Override
+            public void onUploadFailure(UploadResponse response, IOException e) {
+                uploading--;
+                onFailure(item, e);
+                dispatch();
+            }
+
+            @Override
+            public void onUploadResponse(UploadResponse response) {
+                uploading--;
+                item.progress = item.contentLength;
+                if (response.code() >= 200 && response.code() < 300) {
+                    succeed++;
+                }
+                release(item);
+                if (listener != null) {
+                    listener.onPipelineResponse(item.source, response);
+                }
+                onItemCompleted();
+                dispatch();
+            }
+        });
+    }
+
+    /**
+     * 表单上传一个文件，回调需要在主线程
+     *
+     * @param params   上传参数
+     * @param listener 上传监听
+     */
+    protected void upload(UploadParams params, OnUploadListener listener) {
+        new Uploader.Builder()
+                .mediaType(Uploader.MEDIA_TYPE_FORM)
+                .url(url)
+                .params(params)
+                .listener(listener)
+                .build();
+    }
+
+    /**
+     * 文件失败
+     *
+     * @param item 文件
+     * @param e    异常
+     */
+    private void onFailure(Item item, IOException e) {
+        release(item);
+        if (listener != null) {
+            listener.onPipelineFailure(item.source, e);
+        }
+        onItemCompleted();
+    }
+
+    /**
+     * 删除压缩产生的临时文件
+     *
+     * @param item 文件
+     */
+    private void release(Item item) {
+        if (item.temp && item.file != null) {
+            item.file.delete();
+        }
+    }
+
+    /**
+     * 文件结束
+     */
+    private void onItemCompleted() {
+        completed++;
+        onProgress();
+        if (completed == items.size()) {
+            onCompleted();
+        }
+    }
+
+    /**
+     * 回调总进度
+     */
+    private void onProgress() {
+        if (listener == null) {
+            return;
+        }
+        long progress = 0;
+        long contentLength = 0;
+        for (Item item : items) {
+            progress += item.progress;
+            contentLength += item.contentLength > 0 ? item.contentLength : item.source == null ? 0 : item.source.length();
+        }
+        listener.onPipelineProgress(completed, items.size(), progress, contentLength);
+    }
+
+    /**
+     * 所有文件结束
+     */
+    private void onCompleted() {
+        if (listener != null) {
+            listener.onPipelineCompleted(succeed, items.size() - succeed);
+        }
+    }
+
+    /**
+     * 上传的文件
+     */
+    private static class Item {
+
+        /**
+         * 序号
+         */
+        final int index;
+        /**
+         * 源文件
+         */
+        final File source;
+        /**
+         * 上传的文件
+         */
+        volatile File file;
+        /**
+         * 是否是压缩产生的临时文件
+         */
+        volatile boolean temp;
+        /**
+         * 上传大小
+         */
+        volatile long contentLength;
+        /**
+         * 已上传大小
+         */
+        long progress;
+
+        Item(int index, File source) {
+            this.index = index;
+            this.source = source;
+        }
+    }
+
+}
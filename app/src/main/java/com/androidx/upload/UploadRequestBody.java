@@ -9,8 +9,16 @@ import okio.BufferedSink;
 import okio.ForwardingSink;
 import okio.Okio;
 
+/**
+ * 上传内容，回调写入进度，进度对象复用，
+ * 间隔达到{@link #INTERVAL}或者写入完成时才回调。
+ */
 public class UploadRequestBody extends RequestBody {
 
+    /**
+     * 进度回调间隔，单位毫秒
+     */
+    public static final long INTERVAL = 200;
     /**
      * 服务器地址
      */
@@ -18,7 +26,7 @@ public class UploadRequestBody extends RequestBody {
     /**
      * 进度
      */
-    private int progress;
+    private long progress;
     /**
      * 上传内容
      */
@@ -27,6 +35,22 @@ public class UploadRequestBody extends RequestBody {
      * 上传监听
      */
     private OnUploadListener listener;
+    /**
+     * 已经上传的大小，分块上传时为当前分块之前的大小
+     */
+    private long offset;
+    /**
+     * 总大小，小于0时使用内容长度
+     */
+    private long total = -1;
+    /**
+     * 复用的进度
+     */
+    private UploadResponse response;
+    /**
+     * 上次回调时间
+     */
+    private long notifyTime;
 
     /**
      * 构造函数
@@ -41,6 +65,21 @@ public class UploadRequestBody extends RequestBody {
         this.listener = listener;
     }
 
+    /**
+     * 构造函数，用于分块上传
+     *
+     * @param url      地址
+     * @param body     上传内容
+     * @param listener 上传监听
+     * @param offset   当前分块之前已经上传的大小
+     * @param total    文件总大小
+     */
+    public UploadRequestBody(String url, RequestBody body, OnUploadListener listener, long offset, long total) {
+        this(url, body, listener);
+        this.offset = offset;
+        this.total = total;
+    }
+
     @Override
     public MediaType contentType() {
         return body.contentType();
@@ -53,21 +92,17 @@ public class UploadRequestBody extends RequestBody {
 
     @Override
     public void writeTo(BufferedSink sink) throws IOException {
+        //重试时重新计算进度
+        progress = 0;
+        final long contentLength = contentLength();
         //这里需要另一个代理类来获取写入的长度
         ForwardingSink forwardingSink = new ForwardingSink(sink) {
             @Override
             public void write(Buffer source, long byteCount) throws IOException {
+                super.write(source, byteCount);
                 //这里可以获取到写入的长度
                 progress += byteCount;
-                //回调进度
-                if (listener != null) {
-                    UploadResponse response = new UploadResponse();
-                    response.setUrl(url);
-                    response.setContentLength(contentLength());
-                    response.setProgress(progress);
-                    listener.onUploadProgress(response, response.contentLength(), progress);
-                }
-                super.write(source, byteCount);
+                notifyProgress(contentLength);
             }
         };
         //转一下
@@ -77,4 +112,29 @@ public class UploadRequestBody extends RequestBody {
         //刷新一下数据
         bufferedSink.flush();
     }
+
+    /**
+     * 回调进度
+     *
+     * @param contentLength 内容长度
+     */
+    private void notifyProgress(long contentLength) {
+        if (listener == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - notifyTime < INTERVAL && progress < contentLength) {
+            return;
+        }
+        notifyTime = now;
+        if (response == null) {
+            response = new UploadResponse();
+            response.setUrl(url);
+        }
+        long max = total < 0 ? contentLength : total;
+        response.setContentLength(max);
+        response.setProgress(offset + progress);
+        listener.onUploadProgress(response, max, offset + progress);
+    }
+
 }
@@ -5,19 +5,22 @@ import android.os.Message;
 import android.text.TextUtils;
 
 import com.androidx.json.Json;
+import com.androidx.net.Header;
 import com.androidx.net.Http;
 import com.androidx.net.JsonEscapeJar;
+import com.androidx.net.OkClient;
 import com.androidx.util.Log;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
 import okhttp3.Callback;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
@@ -25,6 +28,7 @@ import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.ByteString;
 
 /**
  * 文件上传
@@ -57,6 +61,31 @@ public class Uploader implements OnUploadListener, Callback {
      */
     public static final int MEDIA_TYPE_JSON = 1;
 
+    /**
+     * 分块上传 - 上传标识，由文件路径、大小和修改时间生成
+     */
+    public static final String HEADER_UPLOAD_ID = "Upload-Id";
+
+    /**
+     * 分块上传 - 分块开始位置，服务器在HEAD和分块返回中告知已经接收的大小
+     */
+    public static final String HEADER_UPLOAD_OFFSET = "Upload-Offset";
+
+    /**
+     * 分块上传 - 文件总大小
+     */
+    public static final String HEADER_UPLOAD_LENGTH = "Upload-Length";
+
+    /**
+     * 上传线程数量，所有Uploader共用
+     */
+    private static final int THREAD_COUNT = 3;
+
+    /**
+     * 上传线程池
+     */
+    private static ScheduledThreadPoolExecutor executor;
+
     /**
      * 数据类型
      */
@@ -82,6 +111,16 @@ public class Uploader implements OnUploadListener, Callback {
      */
     public final UploadParams params;
 
+    /**
+     * 分块大小，大于0时使用分块上传
+     */
+    public final long chunkSize;
+
+    /**
+     * 分块上传失败的重试次数
+     */
+    public final int maxRetries;
+
 
     public Uploader(Builder builder) {
         this.mediaType = builder.mediaType;
@@ -89,9 +128,15 @@ public class Uploader implements OnUploadListener, Callback {
         this.file = builder.file;
         this.listener = builder.listener;
         this.params = builder.params;
-        Executors.newFixedThreadPool(10).execute(new Runnable() {
+        this.chunkSize = builder.chunkSize;
+        this.maxRetries = builder.maxRetries;
+        executor().execute(new Runnable() {
             @Override
             public void run() {
+                if (chunkSize > 0) {
+                    chunkUpload(url, params, Uploader.this);
+                    return;
+                }
                 if (mediaType == MEDIA_TYPE_FORM) {
                     formUpload(url, params, Uploader.this);
                 }
@@ -102,8 +147,28 @@ public class Uploader implements OnUploadListener, Callback {
         });
     }
 
+    /**
+     * 共用的上传线程池，线程数量固定，空闲时回收；
+     * 分块上传的重试延时执行，等待期间不占用线程
+     *
+     * @return
+     */
+    private static synchronized ScheduledThreadPoolExecutor executor() {
+        if (executor == null) {
+            ScheduledThreadPoolExecutor threadPool = new ScheduledThreadPoolExecutor(THREAD_COUNT);
+            threadPool.setKeepAliveTime(60, TimeUnit.SECONDS);
+            threadPool.allowCoreThreadTimeOut(true);
+            executor = threadPool;
+        }
+        return executor;
+    }
+
     @Override
     public void onUploadProgress(UploadResponse response, long max, long progress) {
+        //主线程还没有处理上一次进度时不再发送，进度对象是复用的
+        if (handler.hasMessages(WHAT_PROGRESS)) {
+            return;
+        }
         Message message = handler.obtainMessage();
         message.what = WHAT_PROGRESS;
         message.obj = response;
@@ -186,6 +251,8 @@ public class Uploader implements OnUploadListener, Callback {
         private File file;
         private OnUploadListener listener;
         private UploadParams params;
+        private long chunkSize;
+        private int maxRetries = 3;
 
         public int mediaType() {
             return mediaType;
@@ -232,6 +299,36 @@ public class Uploader implements OnUploadListener, Callback {
             return this;
         }
 
+        public long chunkSize() {
+            return chunkSize;
+        }
+
+        /**
+         * 分块上传，文件按chunkSize分块依次上传，失败时从服务器已接收的位置继续
+         *
+         * @param chunkSize 分块大小，单位字节
+         * @return
+         */
+        public Builder chunkSize(long chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public int maxRetries() {
+            return maxRetries;
+        }
+
+        /**
+         * 分块上传失败的重试次数
+         *
+         * @param maxRetries 重试次数
+         * @return
+         */
+        public Builder maxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
         public Uploader build() {
             return new Uploader(this);
         }
@@ -267,7 +364,9 @@ public class Uploader implements OnUploadListener, Callback {
             }
         }
         Request.Builder requestBuilder = new Request.Builder();
-        requestBuilder.addHeader("Connection", "close");
+        if (!isKeepAlive()) {
+            requestBuilder.addHeader(Header.CONNECTION, "close");
+        }
         //添加Header
         if (params != null && params.getHeaderParams() != null) {
             Map<String, String> headerParams = params.getHeaderParams();
@@ -299,7 +398,9 @@ public class Uploader implements OnUploadListener, Callback {
         RequestBody requestBody = RequestBody.create(mediaType, stringParams);
         UploadRequestBody body = new UploadRequestBody(url, requestBody, listener);
         Request.Builder requestBuilder = new Request.Builder();
-        requestBuilder.addHeader("Connection", "close");
+        if (!isKeepAlive()) {
+            requestBuilder.addHeader(Header.CONNECTION, "close");
+        }
         //添加Header
         if (params != null && params.getHeaderParams() != null) {
             Map<String, String> headerParams = params.getHeaderParams();
@@ -312,14 +413,258 @@ public class Uploader implements OnUploadListener, Callback {
         call.enqueue(this);
     }
 
+    /**
+     * 分块上传，每个分块带上上传标识和位置，服务器按位置写入，
+     * 开始和失败重试前用HEAD查询服务器已经接收的大小，从该位置继续上传。
+     * 字符参数和文件名放在地址的查询参数中。
+     *
+     * @param url      服务器地址
+     * @param params   上传参数
+     * @param listener 上传回调
+     */
+    private void chunkUpload(String url, UploadParams params, OnUploadListener listener) {
+        File uploadFile = uploadFile(params);
+        if (uploadFile == null || !uploadFile.exists()) {
+            onFailure(null, new IOException("Upload file does not exist."));
+            return;
+        }
+        new ChunkTask(url, params, uploadFile, listener).run();
+    }
+
+    /**
+     * 分块上传任务，查询位置和上传分块失败时都按1s、2s、4s...延时重试，
+     * 等待期间不占用上传线程，到时间后重新执行本任务。
+     */
+    private class ChunkTask implements Runnable {
+
+        private final String url;
+        private final UploadParams params;
+        private final File uploadFile;
+        private final OnUploadListener listener;
+        private final OkHttpClient okHttpClient;
+        private final String uploadId;
+        private final long total;
+        /**
+         * 下一个分块的位置，小于0时需要先查询服务器已经接收的大小
+         */
+        private long offset = -1;
+        /**
+         * 已经重试的次数，分块上传成功后清零
+         */
+        private int retry;
+        /**
+         * 当前请求
+         */
+        private Call call;
+
+        ChunkTask(String url, UploadParams params, File uploadFile, OnUploadListener listener) {
+            this.url = url;
+            this.params = params;
+            this.uploadFile = uploadFile;
+            this.listener = listener;
+            this.okHttpClient = buildOkHttpClient();
+            this.total = uploadFile.length();
+            this.uploadId = ByteString.encodeUtf8(url + " " + uploadFile.getAbsolutePath() + " " + total + " " + uploadFile.lastModified()).md5().hex();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    if (offset < 0) {
+                        call = okHttpClient.newCall(offsetRequest());
+                        Response response;
+                        try {
+                            response = call.execute();
+                        } catch (IOException e) {
+                            if (call.isCanceled() || retry >= maxRetries) {
+                                throw e;
+                            }
+                            retry();
+                            return;
+                        }
+                        if (response.code() >= 500 && retry < maxRetries) {
+                            response.close();
+                            retry();
+                            return;
+                        }
+                        offset = parseOffset(response, 0, total);
+                    }
+                    long length = Math.min(chunkSize, total - offset);
+                    Request.Builder requestBuilder = new Request.Builder();
+                    addHeaders(requestBuilder, params);
+                    requestBuilder.header(HEADER_UPLOAD_ID, uploadId);
+                    requestBuilder.header(HEADER_UPLOAD_OFFSET, String.valueOf(offset));
+                    requestBuilder.header(HEADER_UPLOAD_LENGTH, String.valueOf(total));
+                    requestBuilder.header("Content-Range", length == 0 ? "bytes */" + total : "bytes " + offset + "-" + (offset + length - 1) + "/" + total);
+                    RequestBody body = new UploadRequestBody(url, new ChunkRequestBody(uploadFile, offset, length), listener, offset, total);
+                    requestBuilder.url(chunkUrl(url, params, uploadFile)).post(body);
+                    call = okHttpClient.newCall(requestBuilder.build());
+                    Response response;
+                    try {
+                        response = call.execute();
+                    } catch (IOException e) {
+                        if (call.isCanceled() || retry >= maxRetries) {
+                            throw e;
+                        }
+                        offset = -1;
+                        retry();
+                        return;
+                    }
+                    if (response.code() >= 500 && retry < maxRetries) {
+                        response.close();
+                        offset = -1;
+                        retry();
+                        return;
+                    }
+                    if (!response.isSuccessful() || offset + length >= total) {
+                        onResponse(call, response);
+                        return;
+                    }
+                    retry = 0;
+                    offset = parseOffset(response.header(HEADER_UPLOAD_OFFSET), offset + length, total);
+                    response.close();
+                }
+            } catch (IOException e) {
+                onFailure(call, e);
+            }
+        }
+
+        /**
+         * 查询服务器已经接收大小的请求
+         *
+         * @return
+         */
+        private Request offsetRequest() {
+            Request.Builder requestBuilder = new Request.Builder();
+            addHeaders(requestBuilder, params);
+            return requestBuilder.url(url).header(HEADER_UPLOAD_ID, uploadId).head().build();
+        }
+
+        /**
+         * 延时重新执行，1s、2s、4s...
+         */
+        private void retry() {
+            long delay = 1000L << Math.min(retry, 5);
+            retry++;
+            executor().schedule(this, delay, TimeUnit.MILLISECONDS);
+        }
+
+    }
+
+    /**
+     * 分块上传的文件，没有设置file时使用参数中的第一个文件
+     *
+     * @param params 上传参数
+     * @return
+     */
+    private File uploadFile(UploadParams params) {
+        if (file != null) {
+            return file;
+        }
+        if (params != null && params.getFileParams() != null && params.getFileParams().size() > 0) {
+            return params.getFileParams().values().iterator().next();
+        }
+        return null;
+    }
+
+    /**
+     * 分块上传地址，字符参数和文件名作为查询参数
+     *
+     * @param url    服务器地址
+     * @param params 上传参数
+     * @param file   文件
+     * @return
+     */
+    private HttpUrl chunkUrl(String url, UploadParams params, File file) throws IOException {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            throw new IOException("Upload url error:" + url);
+        }
+        HttpUrl.Builder builder = httpUrl.newBuilder();
+        builder.addQueryParameter("name", file.getName());
+        if (params != null && params.getStringParams() != null) {
+            for (String key : params.getStringParams().keySet()) {
+                builder.addQueryParameter(key, params.getStringParams().get(key));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 解析HEAD返回的服务器已经接收的大小
+     *
+     * @param response     HEAD返回
+     * @param defaultValue 服务器不支持或者没有记录时的位置
+     * @param total        文件总大小
+     * @return [0, total]
+     */
+    private long parseOffset(Response response, long defaultValue, long total) {
+        try {
+            if (!response.isSuccessful()) {
+                return defaultValue;
+            }
+            return parseOffset(response.header(HEADER_UPLOAD_OFFSET), defaultValue, total);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * 解析服务器返回的位置
+     *
+     * @param value        头部的值
+     * @param defaultValue 没有返回时的位置
+     * @param total        文件总大小
+     * @return [0, total]
+     */
+    private long parseOffset(String value, long defaultValue, long total) {
+        long offset = defaultValue;
+        if (!TextUtils.isEmpty(value)) {
+            try {
+                offset = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                e.printStackTrace();
+            }
+        }
+        return Math.max(0, Math.min(offset, total));
+    }
+
+    /**
+     * 添加Header
+     *
+     * @param requestBuilder 请求构建
+     * @param params         上传参数
+     */
+    private void addHeaders(Request.Builder requestBuilder, UploadParams params) {
+        if (!isKeepAlive()) {
+            requestBuilder.addHeader(Header.CONNECTION, "close");
+        }
+        if (params != null && params.getHeaderParams() != null) {
+            Map<String, String> headerParams = params.getHeaderParams();
+            for (String key : headerParams.keySet()) {
+                requestBuilder.addHeader(key, headerParams.get(key));
+            }
+        }
+    }
+
+    /**
+     * 是否开启连接复用
+     *
+     * @return
+     */
+    private boolean isKeepAlive() {
+        return Http.isInit() && Http.options().isKeepAlive();
+    }
+
     /**
      * 创建客户端
      *
      * @return
      */
     private OkHttpClient buildOkHttpClient() {
-        OkHttpClient.Builder okBuilder = new OkHttpClient.Builder();
-        okBuilder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+        OkHttpClient.Builder okBuilder = OkClient.newBuilder();
+        okBuilder.protocols(isKeepAlive() ? Http.options().protocols() : Collections.singletonList(Protocol.HTTP_1_1));
         okBuilder.writeTimeout(60, TimeUnit.SECONDS);
         okBuilder.readTimeout(100, TimeUnit.SECONDS);
         okBuilder.connectTimeout(60, TimeUnit.SECONDS);
@@ -1,6 +1,7 @@
 package com.androidx.video;
 
 import android.content.Context;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,6 +12,7 @@ import android.widget.TextView;
 
 import com.androidx.R;
 import com.androidx.app.CoreFragment;
+import com.androidx.content.ThumbnailCache;
 import com.androidx.util.Size;
 
 import java.util.List;
@@ -80,6 +82,8 @@ public class VideoAdapter extends BaseAdapter {
         }
         if (loader != null) {
             loader.onVideoImageLoad(getItem(position).getPath(), holder.android_iv_img);
+        } else {
+            loadThumb(getItem(position), holder.android_iv_img);
         }
         holder.android_tv_name.setText(getItem(position).getDisplayName());
         holder.android_tv_path.setText(getItem(position).getDateModified() + "  " + (getItem(position).getSize() / 1024 / 1024) + "M");
@@ -94,6 +98,19 @@ public class VideoAdapter extends BaseAdapter {
         return convertView;
     }
 
+    /**
+     * 没有设置加载器时通过缩略图缓存异步加载封面，
+     * 有系统缩略图时从缩略图缩小，否则从视频取帧
+     *
+     * @param media  视频
+     * @param target 显示控件
+     */
+    private void loadThumb(VideoMedia media, ImageView target) {
+        Object id = media.getId() > 0 ? media.getId() : media.getPath();
+        String source = TextUtils.isEmpty(media.getThumb()) ? media.getPath() : media.getThumb();
+        ThumbnailCache.with(context).display(ThumbnailCache.key(id, media.getModified()), source, target);
+    }
+
     public class ViewHolder {
         private LinearLayout android_ll_item;
         private ImageView android_iv_img;
@@ -6,7 +6,6 @@ import android.app.Service;
 import android.content.Context;
 import android.content.pm.ActivityInfo;
 import android.database.Cursor;
-import android.graphics.Bitmap;
 import android.media.AudioManager;
 import android.media.MediaMetadataRetriever;
 import android.provider.MediaStore;
@@ -21,7 +20,7 @@ import android.widget.FrameLayout;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.androidx.content.ImageProvider;
+import com.androidx.content.ThumbnailCache;
 import com.androidx.text.Time;
 
 import java.io.File;
@@ -339,6 +338,50 @@ public class VideoHelper {
         return query(context, new File(path));
     }
 
+    /**
+     * 查询视频缩略图，系统没有生成缩略图文件时使用{@link ThumbnailCache}生成，
+     * 同一个视频没有修改时不会重复取帧
+     *
+     * @param context  上下文对象
+     * @param id       视频id
+     * @param modified 修改时间，单位秒
+     * @param path     视频路径
+     * @return 没有缩略图时返回null
+     */
+    public static String thumb(Context context, int id, long modified, String path) {
+        return thumb(context, id, modified, path, true);
+    }
+
+    /**
+     * 查询视频缩略图
+     *
+     * @param context  上下文对象
+     * @param id       视频id
+     * @param modified 修改时间，单位秒
+     * @param path     视频路径
+     * @param generate 系统没有生成缩略图文件时是否使用{@link ThumbnailCache}取帧生成，
+     *                 为false时只返回已经生成过的缓存文件，扫描列表时为false，由列表显示时异步生成
+     * @return 没有缩略图时返回null
+     */
+    public static String thumb(Context context, int id, long modified, String path, boolean generate) {
+        String[] thumbColumns = {MediaStore.Video.Thumbnails.DATA, MediaStore.Video.Thumbnails.VIDEO_ID};
+        Cursor thumbCursor = context.getContentResolver().query(MediaStore.Video.Thumbnails.EXTERNAL_CONTENT_URI, thumbColumns, MediaStore.Video.Thumbnails.VIDEO_ID + "=" + id, null, null);
+        String thumb = null;
+        if (thumbCursor != null) {
+            if (thumbCursor.moveToFirst()) {
+                thumb = thumbCursor.getString(thumbCursor.getColumnIndex(MediaStore.Video.Thumbnails.DATA));
+            }
+            thumbCursor.close();
+        }
+        if (TextUtils.isEmpty(thumb)) {
+            ThumbnailCache cache = ThumbnailCache.with(context);
+            String key = ThumbnailCache.key(id, modified);
+            File file = generate ? cache.file(key, path) : cache.cached(key);
+            thumb = file == null ? null : file.getAbsolutePath();
+        }
+        return thumb;
+    }
+
     /**
      * 查询视频信息
      *
@@ -354,11 +397,13 @@ public class VideoHelper {
         info.setDisplayName(file.getName());
         info.setDateAdded(Time.parseTime(String.valueOf(file.lastModified() / 1000)));
         info.setDateModified(Time.parseTime(String.valueOf(file.lastModified() / 1000)));
+        info.setModified(file.lastModified() / 1000);
         info.setPath(file.getAbsolutePath());
         info.setSize(file.length());
         info.setDuration(duration);
-        Bitmap bitmap = mmr.getFrameAtTime();
-        info.setThumb(ImageProvider.decodeBitmap(context,bitmap).getAbsolutePath());
+        mmr.release();
+        File thumb = ThumbnailCache.with(context).file(ThumbnailCache.key(file.getAbsolutePath(), info.getModified()), file.getAbsolutePath());
+        info.setThumb(thumb == null ? null : thumb.getAbsolutePath());
         return info;
     }
 
@@ -371,7 +416,6 @@ public class VideoHelper {
      */
     public static VideoMedia query(Context context, File file) {
         VideoMedia info = null;
-        String[] thumbColumns = {MediaStore.Video.Thumbnails.DATA, MediaStore.Video.Thumbnails.VIDEO_ID};
         Cursor cursor = context.getContentResolver().query(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, null, MediaStore.Video.Media.DISPLAY_NAME + "= ?", new String[]{file.getName()}, null);
         if (cursor == null) {
             return queryByFile(context,file);
@@ -381,17 +425,9 @@ public class VideoHelper {
             long size = cursor.getLong(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.SIZE));
             int id = cursor.getInt(cursor.getColumnIndex(MediaStore.Video.Media._ID));
             String path = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATA));
-            Cursor thumbCursor = context.getContentResolver().query(MediaStore.Video.Thumbnails.EXTERNAL_CONTENT_URI, thumbColumns, MediaStore.Video.Thumbnails.VIDEO_ID + "=" + id, null, null);
-            if (thumbCursor.moveToFirst()) {
-                String thumb = thumbCursor.getString(thumbCursor.getColumnIndex(MediaStore.Video.Thumbnails.DATA));
-                if (TextUtils.isEmpty(thumb)) {
-                    MediaMetadataRetriever media = new MediaMetadataRetriever();
-                    media.setDataSource(path);
-                    Bitmap bitmap = media.getFrameAtTime();
-                    thumb = ImageProvider.decodeBitmap(context,bitmap).getAbsolutePath();
-                }
-                info.setThumb(thumb);
-            }
+            long modified = cursor.getLong(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATE_MODIFIED));
+            info.setId(id);
+            info.setModified(modified);
             info.setSize(size);
             info.setPath(path);
             info.setDisplayName(cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DISPLAY_NAME)));
@@ -409,7 +445,9 @@ public class VideoHelper {
                 String fileDate = Time.parseTime(String.valueOf(date));
                 info.setDateModified(fileDate);
                 info.setDateAdded(fileDate);
+                info.setModified(date);
             }
+            info.setThumb(thumb(context, id, info.getModified(), path));
             info.setWidth(cursor.getInt(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.WIDTH)));
             info.setHeight(cursor.getInt(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.HEIGHT)));
         }
@@ -421,7 +459,8 @@ public class VideoHelper {
 
 
     /**
-     * 扫描视频
+     * 扫描视频，只记录系统缩略图或者已经生成过的缓存缩略图，
+     * 都没有时{@link VideoMedia#getThumb()}为null，由列表显示时异步取帧
      *
      * @param context 上下文对象
      * @param minSize 最小值
@@ -429,8 +468,20 @@ public class VideoHelper {
      * @return
      */
     public static List<VideoMedia> query(Context context, long minSize, long maxSize) {
+        return query(context, minSize, maxSize, false);
+    }
+
+    /**
+     * 扫描视频
+     *
+     * @param context  上下文对象
+     * @param minSize  最小值
+     * @param maxSize  最大值
+     * @param generate 没有缩略图时是否取帧生成，为true时{@link VideoMedia#getThumb()}都有值，但是扫描耗时较长
+     * @return
+     */
+    public static List<VideoMedia> query(Context context, long minSize, long maxSize, boolean generate) {
         List<VideoMedia> videoList = new ArrayList<>();
-        String[] thumbColumns = {MediaStore.Video.Thumbnails.DATA, MediaStore.Video.Thumbnails.VIDEO_ID};
         String[] mediaColumns = {MediaStore.Video.Media._ID, MediaStore.Video.Media.DATA, MediaStore.Video.Media.DISPLAY_NAME, MediaStore.Video.Media.TITLE, MediaStore.Video.Media.DATE_MODIFIED, MediaStore.Video.Media.DATE_ADDED, MediaStore.Video.Media.SIZE, MediaStore.Video.Media.DATE_ADDED, MediaStore.Video.Media.HEIGHT, MediaStore.Video.Media.WIDTH, MediaStore.Video.Media.DURATION};
         Cursor cursor = context.getApplicationContext().getContentResolver().query(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, mediaColumns, null, null, null);
         if (cursor == null) {
@@ -443,17 +494,9 @@ public class VideoHelper {
                 if (size >= minSize && size <= maxSize) {
                     int id = cursor.getInt(cursor.getColumnIndex(MediaStore.Video.Media._ID));
                     String path = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATA));
-                    Cursor thumbCursor = context.getContentResolver().query(MediaStore.Video.Thumbnails.EXTERNAL_CONTENT_URI, thumbColumns, MediaStore.Video.Thumbnails.VIDEO_ID + "=" + id, null, null);
-                    if (thumbCursor.moveToFirst()) {
-                        String thumb = thumbCursor.getString(thumbCursor.getColumnIndex(MediaStore.Video.Thumbnails.DATA));
-                        if (TextUtils.isEmpty(thumb)) {
-                            MediaMetadataRetriever media = new MediaMetadataRetriever();
-                            media.setDataSource(path);
-                            Bitmap bitmap = media.getFrameAtTime();
-                            thumb = ImageProvider.decodeBitmap(context,bitmap).getAbsolutePath();
-                        }
-                        info.setThumb(thumb);
-                    }
+                    long modified = cursor.getLong(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATE_MODIFIED));
+                    info.setId(id);
+                    info.setModified(modified);
                     info.setSize(size);
                     info.setPath(path);
                     info.setDisplayName(cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DISPLAY_NAME)));
@@ -472,7 +515,9 @@ public class VideoHelper {
                         String fileDate = Time.parseTime(String.valueOf(date));
                         info.setDateModified(fileDate);
                         info.setDateAdded(fileDate);
+                        info.setModified(date);
                     }
+                    info.setThumb(thumb(context, id, info.getModified(), path, generate));
                     info.setWidth(cursor.getInt(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.WIDTH)));
                     info.setHeight(cursor.getInt(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.HEIGHT)));
                     videoList.add(info);
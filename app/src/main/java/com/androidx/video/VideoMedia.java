@@ -4,6 +4,11 @@ import java.io.Serializable;
 
 public class VideoMedia implements Serializable {
 
+    /**
+     * 媒体库id
+     */
+    private int id;
+
     /**
      * 视频路径
      */
@@ -24,6 +29,10 @@ public class VideoMedia implements Serializable {
      */
     private String dateModified;
 
+    /**
+     * 修改时间戳，单位秒，和媒体id一起作为缩略图缓存key
+     */
+    private long modified;
 
     /**
      * 创建时间
@@ -56,6 +65,14 @@ public class VideoMedia implements Serializable {
     private int height;
 
 
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getPath() {
         return path;
     }
@@ -88,6 +105,14 @@ public class VideoMedia implements Serializable {
         this.dateModified = dateModified;
     }
 
+    public long getModified() {
+        return modified;
+    }
+
+    public void setModified(long modified) {
+        this.modified = modified;
+    }
+
     public String getDateAdded() {
         return dateAdded;
     }
@@ -2,17 +2,13 @@ package com.androidx.video;
 
 import android.content.Context;
 import android.database.Cursor;
-import android.graphics.Bitmap;
-import android.media.MediaMetadataRetriever;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
 import android.provider.MediaStore;
-import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 
-import com.androidx.content.ImageProvider;
 import com.androidx.text.Time;
 
 import java.io.File;
@@ -32,6 +28,7 @@ public class VideoScanner {
     public final Context context;
     public final long minSize;
     public final long maxSize;
+    public final boolean generate;
     private ScannerHandler handler;
     public final OnVideoScanListener listener;
 
@@ -39,6 +36,7 @@ public class VideoScanner {
         this.context = builder.context;
         this.minSize = builder.minSize;
         this.maxSize = builder.maxSize;
+        this.generate = builder.generate;
         this.listener = builder.listener;
         handler = new ScannerHandler();
         scan();
@@ -49,6 +47,7 @@ public class VideoScanner {
         private Context context;
         private long minSize = 0;
         private long maxSize = 50;
+        private boolean generate = false;
         private OnVideoScanListener listener;
 
         public Builder(Context context) {
@@ -77,6 +76,22 @@ public class VideoScanner {
             return this;
         }
 
+        public boolean generate() {
+            return generate;
+        }
+
+        /**
+         * 没有系统缩略图时是否取帧生成缩略图，默认false，
+         * 只记录系统缩略图或者已经生成过的缓存缩略图，都没有时由列表显示时异步取帧
+         *
+         * @param generate 是否生成
+         * @return
+         */
+        public Builder generate(boolean generate) {
+            this.generate = generate;
+            return this;
+        }
+
         public OnVideoScanListener listener() {
             return listener;
         }
@@ -138,7 +153,6 @@ public class VideoScanner {
      */
     private ArrayList<VideoMedia> scan(Context context) {
         ArrayList<VideoMedia> videoList = new ArrayList<>();
-        String[] thumbColumns = {MediaStore.Video.Thumbnails.DATA, MediaStore.Video.Thumbnails.VIDEO_ID};
         String[] mediaColumns = {MediaStore.Video.Media._ID, MediaStore.Video.Media.DATA, MediaStore.Video.Media.DISPLAY_NAME, MediaStore.Video.Media.TITLE, MediaStore.Video.Media.DATE_MODIFIED, MediaStore.Video.Media.DATE_ADDED, MediaStore.Video.Media.SIZE, MediaStore.Video.Media.DATE_ADDED, MediaStore.Video.Media.HEIGHT, MediaStore.Video.Media.WIDTH, MediaStore.Video.Media.DURATION};
         Cursor cursor = context.getApplicationContext().getContentResolver().query(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, mediaColumns, null, null, null);
         if (cursor == null) {
@@ -152,17 +166,9 @@ public class VideoScanner {
                 if (limit >= minSize && limit <= maxSize) {
                     int id = cursor.getInt(cursor.getColumnIndex(MediaStore.Video.Media._ID));
                     String path = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATA));
-                    Cursor thumbCursor = context.getContentResolver().query(MediaStore.Video.Thumbnails.EXTERNAL_CONTENT_URI, thumbColumns, MediaStore.Video.Thumbnails.VIDEO_ID + "=" + id, null, null);
-                    if (thumbCursor.moveToFirst()) {
-                        String thumb = thumbCursor.getString(thumbCursor.getColumnIndex(MediaStore.Video.Thumbnails.DATA));
-                        if (TextUtils.isEmpty(thumb)) {
-                            MediaMetadataRetriever media = new MediaMetadataRetriever();
-                            media.setDataSource(path);
-                            Bitmap bitmap = media.getFrameAtTime();
-                            thumb = ImageProvider.decodeBitmap(context, bitmap).getAbsolutePath();
-                        }
-                        info.setThumb(thumb);
-                    }
+                    long modified = cursor.getLong(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DATE_MODIFIED));
+                    info.setId(id);
+                    info.setModified(modified);
                     info.setSize(size);
                     info.setPath(path);
                     info.setDisplayName(cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.DISPLAY_NAME)));
@@ -181,7 +187,10 @@ public class VideoScanner {
                         String fileDate = Time.parseTime(String.valueOf(date));
                         info.setDateModified(fileDate);
                         info.setDateAdded(fileDate);
+                        info.setModified(date);
                     }
+                    //没有开启生成时只记录系统缩略图或者已经生成过的缓存文件，都没有时由列表通过ThumbnailCache异步取帧
+                    info.setThumb(VideoHelper.thumb(context, id, info.getModified(), path, generate));
                     info.setWidth(cursor.getInt(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.WIDTH)));
                     info.setHeight(cursor.getInt(cursor.getColumnIndexOrThrow(MediaStore.Video.Media.HEIGHT)));
                     videoList.add(info);
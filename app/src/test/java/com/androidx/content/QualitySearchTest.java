@@ -0,0 +1,103 @@
+package com.androidx.content;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:压缩质量二分查找测试，用单调递增的模拟大小代替编码，
+ * 验证所有限制和起点下找到的都是满足限制的最高质量，以及尝试次数的上限。
+ * Date:2021/7/23 21:50
+ */
+public class QualitySearchTest {
+
+    /**
+     * 模拟编码大小，质量越高越大
+     *
+     * @param quality 质量
+     * @return
+     */
+    private static int size(int quality) {
+        return 10 + quality * quality;
+    }
+
+    /**
+     * 执行查找
+     *
+     * @param start 起始质量
+     * @param max   大小限制
+     * @return
+     */
+    private static QualitySearch search(int start, int max) {
+        QualitySearch search = new QualitySearch(start);
+        while (search.hasNext()) {
+            int quality = search.quality();
+            assertTrue("quality out of range: " + quality, quality >= QualitySearch.MIN_QUALITY && quality <= QualitySearch.MAX_QUALITY);
+            search.result(size(quality) <= max);
+        }
+        return search;
+    }
+
+    /**
+     * 满足限制的最高质量
+     *
+     * @param max 大小限制
+     * @return
+     */
+    private static int expected(int max) {
+        int best = -1;
+        for (int quality = QualitySearch.MIN_QUALITY; quality <= QualitySearch.MAX_QUALITY; quality++) {
+            if (size(quality) <= max) {
+                best = quality;
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void findsHighestFittingQualityFromMiddle() {
+        for (int max = 0; max <= size(100) + 1; max++) {
+            QualitySearch search = search(QualitySearch.MIDDLE_QUALITY, max);
+            assertEquals("max = " + max, expected(max), search.best());
+            assertTrue("count = " + search.count(), search.count() <= 7);
+        }
+    }
+
+    @Test
+    public void findsHighestFittingQualityFromAnyStart() {
+        for (int start = QualitySearch.MIN_QUALITY; start <= QualitySearch.MAX_QUALITY; start++) {
+            for (int max = 0; max <= size(100) + 1; max += 7) {
+                QualitySearch search = search(start, max);
+                assertEquals("start = " + start + ",max = " + max, expected(max), search.best());
+                assertTrue("count = " + search.count(), search.count() <= 8);
+            }
+        }
+    }
+
+    @Test
+    public void nothingFitsEndsAtZero() {
+        QualitySearch search = new QualitySearch(70);
+        int last = -1;
+        while (search.hasNext()) {
+            last = search.quality();
+            search.result(false);
+        }
+        assertEquals(-1, search.best());
+        assertEquals(QualitySearch.MIN_QUALITY, last);
+    }
+
+    @Test
+    public void everythingFitsEndsAtHundred() {
+        QualitySearch search = search(30, Integer.MAX_VALUE);
+        assertEquals(QualitySearch.MAX_QUALITY, search.best());
+    }
+
+    @Test
+    public void startIsClampedToRange() {
+        assertEquals(QualitySearch.MAX_QUALITY, new QualitySearch(150).quality());
+        assertEquals(QualitySearch.MIN_QUALITY, new QualitySearch(-5).quality());
+    }
+
+}
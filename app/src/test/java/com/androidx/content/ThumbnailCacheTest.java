@@ -0,0 +1,95 @@
+package com.androidx.content;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:缩略图磁盘缓存淘汰测试，按文件修改时间从旧到新删除直到不超过大小限制。
+ * Date:2021/7/24 10:30
+ */
+public class ThumbnailCacheTest {
+
+    private File folder;
+
+    @Before
+    public void setUp() throws Exception {
+        folder = File.createTempFile("thumbnail", "");
+        folder.delete();
+        folder.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+
+    @Test
+    public void underLimitEvictsNothing() throws Exception {
+        File[] files = {write("a", 100, 1000), write("b", 100, 2000)};
+        assertEquals(0, ThumbnailCache.evict(files, 200).size());
+    }
+
+    @Test
+    public void evictsOldestUntilUnderLimit() throws Exception {
+        File newest = write("newest", 100, 4000);
+        File oldest = write("oldest", 100, 1000);
+        File middle = write("middle", 100, 3000);
+        File older = write("older", 100, 2000);
+        List<File> evicts = ThumbnailCache.evict(new File[]{newest, oldest, middle, older}, 250);
+        assertEquals(2, evicts.size());
+        assertEquals(oldest, evicts.get(0));
+        assertEquals(older, evicts.get(1));
+    }
+
+    @Test
+    public void touchedFileSurvives() throws Exception {
+        File a = write("a", 100, 1000);
+        File b = write("b", 100, 2000);
+        File c = write("c", 100, 3000);
+        //访问a后a变为最新
+        assertTrue(a.setLastModified(4000));
+        List<File> evicts = ThumbnailCache.evict(new File[]{a, b, c}, 200);
+        assertEquals(1, evicts.size());
+        assertEquals(b, evicts.get(0));
+    }
+
+    @Test
+    public void zeroLimitEvictsAll() throws Exception {
+        File[] files = {write("a", 10, 1000), write("b", 10, 2000)};
+        assertEquals(2, ThumbnailCache.evict(files, 0).size());
+    }
+
+    /**
+     * 写入指定大小和修改时间的文件
+     *
+     * @param name     文件名
+     * @param length   大小
+     * @param modified 修改时间
+     * @return
+     * @throws Exception
+     */
+    private File write(String name, int length, long modified) throws Exception {
+        File file = new File(folder, name);
+        FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(new byte[length]);
+        outputStream.close();
+        assertTrue(file.setLastModified(modified));
+        return file;
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.androidx.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:分段和分段状态的单元测试
+ * Date:2021/7/22 22:30
+ */
+public class DownloadSegmentTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void splitCoversWholeFileWithoutGaps() {
+        List<DownloadSegment> segments = DownloadSegment.split(1003, 4);
+        assertEquals(4, segments.size());
+        long next = 0;
+        for (DownloadSegment segment : segments) {
+            assertEquals(next, segment.start);
+            next = segment.end + 1;
+        }
+        assertEquals(1003, next);
+        assertEquals(1003, DownloadSegment.total(segments));
+        //余数放在最后一段
+        assertEquals(250, segments.get(0).remaining());
+        assertEquals(253, segments.get(3).remaining());
+    }
+
+    @Test
+    public void splitClampsCount() {
+        assertEquals(3, DownloadSegment.split(3, 8).size());
+        assertEquals(1, DownloadSegment.split(100, 0).size());
+        assertEquals(1, DownloadSegment.split(100, -2).size());
+        DownloadSegment single = DownloadSegment.split(1, 4).get(0);
+        assertEquals(0, single.start);
+        assertEquals(0, single.end);
+    }
+
+    @Test
+    public void progressMovesPositionAndRange() {
+        DownloadSegment segment = new DownloadSegment(100, 199, 0);
+        assertEquals("bytes=100-199", segment.range());
+        segment.add(40);
+        assertEquals(140, segment.position());
+        assertEquals(60, segment.remaining());
+        assertEquals("bytes=140-199", segment.range());
+        assertFalse(segment.isCompleted());
+        segment.add(60);
+        assertTrue(segment.isCompleted());
+    }
+
+    @Test
+    public void writeThenReadRestoresResumeState() throws Exception {
+        File file = new File(folder.getRoot(), "a.zip" + Downloader.SEGMENT_SUFFIX);
+        List<DownloadSegment> segments = DownloadSegment.split(1000, 3);
+        segments.get(0).add(333);
+        segments.get(1).add(10);
+        DownloadSegment.write(file, segments);
+        assertFalse(new File(file.getAbsolutePath() + ".tmp").exists());
+
+        List<DownloadSegment> read = DownloadSegment.read(file);
+        assertEquals(3, read.size());
+        for (int i = 0; i < segments.size(); i++) {
+            assertEquals(segments.get(i).start, read.get(i).start);
+            assertEquals(segments.get(i).end, read.get(i).end);
+            assertEquals(segments.get(i).downloaded(), read.get(i).downloaded());
+        }
+        assertTrue(read.get(0).isCompleted());
+        assertEquals(343, read.get(1).position());
+    }
+
+    @Test
+    public void writeReplacesPreviousState() throws Exception {
+        File file = folder.newFile("b.zip" + Downloader.SEGMENT_SUFFIX);
+        List<DownloadSegment> segments = DownloadSegment.split(100, 2);
+        DownloadSegment.write(file, segments);
+        segments.get(1).add(20);
+        DownloadSegment.write(file, segments);
+        assertEquals(20, DownloadSegment.read(file).get(1).downloaded());
+    }
+
+    @Test
+    public void readInvalidStateReturnsNull() throws Exception {
+        assertNull(DownloadSegment.read(null));
+        assertNull(DownloadSegment.read(new File(folder.getRoot(), "missing")));
+        assertNull(DownloadSegment.read(folder.newFile("empty")));
+        assertNull(DownloadSegment.read(write("columns", "0,99\n")));
+        assertNull(DownloadSegment.read(write("number", "0,99,x\n")));
+    }
+
+    private File write(String name, String content) throws Exception {
+        File file = folder.newFile(name);
+        FileWriter writer = new FileWriter(file);
+        writer.write(content);
+        writer.close();
+        return file;
+    }
+
+}
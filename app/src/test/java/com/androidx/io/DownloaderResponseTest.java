@@ -0,0 +1,172 @@
+package com.androidx.io;
+
+import com.androidx.net.OkClient;
+import com.androidx.net.RequestOptions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:单个连接下载的响应码处理，错误页面不写入文件，416时按本地文件大小判断是否已经完成。
+ * Date:2021/7/25 10:30
+ */
+public class DownloaderResponseTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private File file;
+    private byte[] partial;
+
+    @Before
+    public void setUp() throws Exception {
+        OkClient.init(new RequestOptions(null));
+        server = new MockWebServer();
+        server.start();
+        file = new File(folder.getRoot(), "file.bin");
+        partial = new byte[1024];
+        Arrays.fill(partial, (byte) 7);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void errorBodyIsNotAppended() throws Exception {
+        write(partial);
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("<html>not found</html>"));
+        Result result = run();
+        assertNotNull(result.failure);
+        assertTrue(result.failure.getMessage().contains("404"));
+        assertArrayEquals(partial, read());
+        assertEquals("bytes=1024-", server.takeRequest().getHeader("RANGE"));
+    }
+
+    @Test
+    public void errorBodyIsNotWrittenToNewFile() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("busy"));
+        Result result = run();
+        assertNotNull(result.failure);
+        assertTrue(result.failure.getMessage().contains("503"));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void rangeNotSatisfiableWithSameLengthCompletes() throws Exception {
+        write(partial);
+        server.enqueue(new MockResponse().setResponseCode(416).setHeader("Content-Range", "bytes */1024"));
+        Result result = run();
+        assertNull(result.failure);
+        assertEquals(file, result.completed);
+        assertArrayEquals(partial, read());
+    }
+
+    @Test
+    public void rangeNotSatisfiableWithLargerFileFails() throws Exception {
+        write(partial);
+        server.enqueue(new MockResponse().setResponseCode(416).setHeader("Content-Range", "bytes */512"));
+        Result result = run();
+        assertNotNull(result.failure);
+        assertTrue(result.failure.getMessage().contains("416"));
+        //本地文件比服务器的文件大，不能继续，下次重新下载
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void rangeNotSatisfiableWithoutTotalKeepsFile() throws Exception {
+        write(partial);
+        server.enqueue(new MockResponse().setResponseCode(416));
+        Result result = run();
+        assertNotNull(result.failure);
+        assertArrayEquals(partial, read());
+    }
+
+    /**
+     * 断点下载一次
+     *
+     * @return 下载结果
+     * @throws Exception
+     */
+    private Result run() throws Exception {
+        final Result result = new Result();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Downloader.Builder builder = new Downloader.Builder(null)
+                .url(server.url("/file.bin").toString())
+                .isBreakpoint(true)
+                //JVM上TextUtils.isEmpty()总是返回false，设置ETag避免If-Range为null
+                .etag("\"v1\"")
+                .autoStart(false);
+        Downloader downloader = new Downloader(builder) {
+
+            @Override
+            protected File createFile(String url) {
+                return file;
+            }
+
+            @Override
+            protected void sendDownloadingMsg(long total, long progress, int percent) {
+
+            }
+
+            @Override
+            protected void sendCompletedMsg(File file) {
+                result.completed = file;
+                latch.countDown();
+            }
+
+            @Override
+            protected void sendFailedMsg(Exception e) {
+                result.failure = e;
+                latch.countDown();
+            }
+        };
+        downloader.start();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        return result;
+    }
+
+    private void write(byte[] content) throws Exception {
+        FileOutputStream os = new FileOutputStream(file);
+        os.write(content);
+        os.close();
+    }
+
+    private byte[] read() throws Exception {
+        byte[] content = new byte[(int) file.length()];
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        randomAccessFile.readFully(content);
+        randomAccessFile.close();
+        return content;
+    }
+
+    private static class Result {
+
+        volatile File completed;
+        volatile Exception failure;
+    }
+
+}
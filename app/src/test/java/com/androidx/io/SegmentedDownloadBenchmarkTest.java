@@ -0,0 +1,173 @@
+package com.androidx.io;
+
+import com.androidx.net.NoDelayServerSocketFactory;
+import com.androidx.net.OkClient;
+import com.androidx.net.RequestOptions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:分段下载吞吐量基准，本地MockWebServer按连接限速，对比1、2、4、8个分段的吞吐量。
+ * Date:2021/7/22 22:45
+ */
+public class SegmentedDownloadBenchmarkTest {
+
+    /**
+     * 文件大小
+     */
+    private static final int SIZE = 2 * 1024 * 1024;
+    /**
+     * 每个连接每个周期发送的字节数，约2.5MB/s，模拟单连接带宽受限
+     */
+    private static final int BYTES_PER_PERIOD = 64 * 1024;
+    private static final long PERIOD_MILLIS = 25;
+    /**
+     * 文件版本，分段请求作为If-Range发送
+     */
+    private static final String ETAG = "\"v1\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private byte[] data;
+
+    @Before
+    public void setUp() throws Exception {
+        data = new byte[SIZE];
+        new Random(11).nextBytes(data);
+        OkClient.init(new RequestOptions(null).maxRequestsPerHost(8));
+        server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.setDispatcher(new RangeDispatcher());
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void compareSegments() throws Exception {
+        double single = 0;
+        double best = 0;
+        for (int segments : new int[]{1, 2, 4, 8}) {
+            double throughput = run(segments);
+            System.out.println("segments=" + segments + ", throughput=" + String.format("%.2f", throughput) + "MB/s");
+            if (segments == 1) {
+                single = throughput;
+            }
+            best = Math.max(best, throughput);
+        }
+        assertTrue("segmented download should be faster than one connection", best > single);
+    }
+
+    /**
+     * 下载一次并校验文件内容
+     *
+     * @param segments 分段数量
+     * @return 吞吐量，单位MB/s
+     * @throws Exception
+     */
+    private double run(int segments) throws Exception {
+        final File file = new File(folder.getRoot(), "file-" + segments + ".bin");
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Exception[] failure = new Exception[1];
+        Downloader.Builder builder = new Downloader.Builder(null)
+                .url(server.url("/file.bin").toString())
+                .segments(segments)
+                .autoStart(false);
+        Downloader downloader = new Downloader(builder) {
+
+            @Override
+            protected File createFile(String url) {
+                return file;
+            }
+
+            @Override
+            protected void sendDownloadingMsg(long total, long progress, int percent) {
+
+            }
+
+            @Override
+            protected void sendCompletedMsg(File file) {
+                latch.countDown();
+            }
+
+            @Override
+            protected void sendFailedMsg(Exception e) {
+                failure[0] = e;
+                latch.countDown();
+            }
+        };
+        long start = System.nanoTime();
+        downloader.start();
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        long nanos = System.nanoTime() - start;
+        assertNull(failure[0]);
+        byte[] content = new byte[(int) file.length()];
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        randomAccessFile.readFully(content);
+        randomAccessFile.close();
+        assertArrayEquals(data, content);
+        return SIZE / 1024d / 1024d / (nanos / 1e9);
+    }
+
+    /**
+     * 支持HEAD和Range的文件服务
+     */
+    private class RangeDispatcher extends Dispatcher {
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if ("HEAD".equals(request.getMethod())) {
+                return new MockResponse()
+                        .setHeader("Content-Length", data.length)
+                        .setHeader("Accept-Ranges", "bytes")
+                        .setHeader("ETag", ETAG);
+            }
+            long start = 0;
+            long end = data.length - 1;
+            String range = request.getHeader("Range");
+            if (range != null && range.startsWith("bytes=")) {
+                String[] values = range.substring("bytes=".length()).split("-", -1);
+                start = Long.parseLong(values[0]);
+                if (values[1].length() != 0) {
+                    end = Math.min(end, Long.parseLong(values[1]));
+                }
+            }
+            Buffer body = new Buffer().write(Arrays.copyOfRange(data, (int) start, (int) end + 1));
+            return new MockResponse()
+                    .setResponseCode(206)
+                    .setHeader("Accept-Ranges", "bytes")
+                    .setHeader("ETag", ETAG)
+                    .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + data.length)
+                    .setBody(body)
+                    .throttleBody(BYTES_PER_PERIOD, PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.androidx.json;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Author: Relin
+ * Describe:字段绑定和JSONObject树解析测试，JVM上使用org.json代替Android自带的实现。
+ * Date:2021/7/24 11:20
+ */
+public class ClassBindingTest {
+
+    public static class Child {
+
+        private String name;
+        private int age;
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class Entity {
+
+        private static final long serialVersionUID = 1L;
+        private String name;
+        private Character grade;
+        private int count;
+        private long time;
+        private double price;
+        private float rate;
+        private boolean enabled;
+        private List<Child> children;
+        private List<String> tags;
+        private Child child;
+
+        public Child getChild() {
+            return child;
+        }
+    }
+
+    public static class Extras {
+
+        private String name;
+        private Map<String, String> extras;
+        private Set<String> labels;
+    }
+
+    public class Inner {
+
+        private String value;
+    }
+
+    @Test
+    public void bindingIsCached() {
+        assertSame(ClassBinding.of(Entity.class), ClassBinding.of(Entity.class));
+    }
+
+    @Test
+    public void kindsAreResolvedOnce() {
+        ClassBinding binding = ClassBinding.of(Entity.class);
+        assertEquals(ClassBinding.KIND_STRING, binding.field("name").kind);
+        assertEquals(ClassBinding.KIND_CHARACTER, binding.field("grade").kind);
+        assertEquals(ClassBinding.KIND_INT, binding.field("count").kind);
+        assertEquals(ClassBinding.KIND_LONG, binding.field("time").kind);
+        assertEquals(ClassBinding.KIND_DOUBLE, binding.field("price").kind);
+        assertEquals(ClassBinding.KIND_FLOAT, binding.field("rate").kind);
+        assertEquals(ClassBinding.KIND_PRIMITIVE, binding.field("enabled").kind);
+        assertEquals(ClassBinding.KIND_LIST, binding.field("children").kind);
+        assertEquals(Child.class, binding.field("children").elementType);
+        assertEquals(String.class, binding.field("tags").elementType);
+        assertEquals(ClassBinding.KIND_OBJECT, binding.field("child").kind);
+    }
+
+    @Test
+    public void otherGenericTypesAreNotLists() {
+        ClassBinding binding = ClassBinding.of(Extras.class);
+        assertEquals(ClassBinding.KIND_GENERIC, binding.field("extras").kind);
+        assertEquals(ClassBinding.KIND_GENERIC, binding.field("labels").kind);
+        assertNull(binding.field("extras").elementType);
+    }
+
+    @Test
+    public void parseTreeSkipsMapAndSet() throws Exception {
+        Extras extras = Json.parseJSONObject(Extras.class, new JSONObject("{\"name\":\"x\",\"extras\":{\"k\":\"v\"},\"labels\":[\"a\"]}"));
+        assertNotNull(extras);
+        assertEquals("x", extras.name);
+        assertNull(extras.extras);
+        assertNull(extras.labels);
+    }
+
+    @Test
+    public void encodeMapAndSet() {
+        Extras extras = new Extras();
+        extras.name = "x";
+        extras.extras = new LinkedHashMap<>();
+        extras.extras.put("k", "v");
+        extras.extras.put("n", null);
+        extras.labels = new LinkedHashSet<>();
+        extras.labels.add("a");
+        extras.labels.add("b");
+        assertEquals("{\"name\":\"x\",\"extras\":{\"k\":\"v\",\"n\":null},\"labels\":[\"a\",\"b\"]}", Json.parseObject(extras));
+        extras.extras = null;
+        extras.labels = null;
+        assertEquals("{\"name\":\"x\",\"extras\":null,\"labels\":null}", Json.parseObject(extras));
+    }
+
+    @Test
+    public void fieldsKeepDeclarationOrderAndSkipSpecialFields() {
+        List<String> names = new ArrayList<>();
+        for (ClassBinding.FieldBinding field : ClassBinding.of(Entity.class).fields()) {
+            names.add(field.name);
+        }
+        assertEquals("[name, grade, count, time, price, rate, enabled, children, tags, child]", names.toString());
+        assertNull(ClassBinding.of(Entity.class).field("serialVersionUID"));
+        assertNull(ClassBinding.of(Inner.class).field("this$0"));
+        assertNull(ClassBinding.of(Entity.class).field(null));
+    }
+
+    @Test
+    public void isDeclaredField() {
+        assertEquals(true, Json.isDeclaredField(Entity.class, "count"));
+        assertEquals(false, Json.isDeclaredField(Entity.class, "missing"));
+        assertEquals(false, Json.isDeclaredField(null, "count"));
+    }
+
+    @Test
+    public void parseTree() throws Exception {
+        JSONObject json = new JSONObject("{\"name\":\"Relin\",\"grade\":\"A+\",\"count\":\"12\",\"time\":1626000000000,"
+                + "\"price\":9.5,\"rate\":\"0.25\",\"unknown\":{\"a\":1},"
+                + "\"children\":[{\"name\":\"a\",\"age\":1},{\"name\":\"b\",\"age\":2}],"
+                + "\"tags\":[\"x\",\"y\"],\"child\":{\"name\":\"c\",\"age\":3}}");
+        Entity entity = Json.parseJSONObject(Entity.class, json);
+        assertNotNull(entity);
+        assertEquals("Relin", entity.name);
+        assertEquals(Character.valueOf('A'), entity.grade);
+        assertEquals(12, entity.count);
+        assertEquals(1626000000000L, entity.time);
+        assertEquals(9.5, entity.price, 0);
+        assertEquals(0.25f, entity.rate, 0);
+        assertEquals(2, entity.children.size());
+        assertEquals("b", entity.children.get(1).name);
+        assertEquals(2, entity.children.get(1).age);
+        assertEquals("[x, y]", entity.tags.toString());
+        assertEquals("c", entity.child.name);
+        assertEquals(3, entity.child.age);
+    }
+
+    @Test
+    public void parseTreeNullValues() throws Exception {
+        Entity entity = Json.parseJSONObject(Entity.class, new JSONObject("{\"name\":null,\"count\":null}"));
+        assertEquals("", entity.name);
+        assertEquals(0, entity.count);
+        assertNull(Json.parseJSONObject(Entity.class, (JSONObject) null));
+    }
+
+    @Test
+    public void encodeUsesBinding() {
+        Entity entity = new Entity();
+        entity.name = "Relin";
+        entity.grade = 'B';
+        entity.count = 3;
+        entity.child = new Child();
+        entity.child.name = "c";
+        entity.tags = new ArrayList<>();
+        entity.tags.add("x");
+        String json = Json.parseObject(entity);
+        assertEquals("{\"name\":\"Relin\",\"grade\":\"B\",\"count\":\"3\",\"time\":\"0\",\"price\":\"0.0\",\"rate\":\"0.0\","
+                + "\"enabled\":\"false\",\"children\":[],\"tags\":[\"x\"],\"child\":{\"name\":\"c\",\"age\":\"0\"}}", json);
+    }
+
+    @Test
+    public void encodedCharacterRoundTrips() throws Exception {
+        Entity entity = new Entity();
+        entity.grade = 'Z';
+        Entity parsed = Json.parseJSONObject(Entity.class, new JSONObject(Json.parseObject(entity)));
+        assertEquals(Character.valueOf('Z'), parsed.grade);
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.androidx.json;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Author: Relin
+ * Describe:字段绑定基准，JVM上用org.json代替Android自带的实现，
+ * 对比原来每个键都扫描声明字段、每个对象都setAccessible的反射解析和{@link ClassBinding}缓存后的解析，
+ * 以及{@link JsonEncoder}和先构建JSONObject再转字符串的生成耗时。
+ * Date:2021/7/24 11:50
+ */
+public class JsonBindingBenchmarkTest {
+
+    /**
+     * 列表中的对象数量
+     */
+    private static final int SIZE = 2000;
+    /**
+     * 测量轮数
+     */
+    private static final int ROUNDS = 5;
+
+    public static class Item {
+
+        private String id;
+        private String name;
+        private int count;
+        private long time;
+        private double price;
+        private float rate;
+        private String description;
+        private String url;
+    }
+
+    @Test
+    public void compareDecode() throws Exception {
+        JSONArray array = corpus();
+        //预热
+        legacyDecode(array);
+        bindingDecode(array);
+        long legacy = Long.MAX_VALUE;
+        long binding = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            legacyDecode(array);
+            legacy = Math.min(legacy, System.nanoTime() - start);
+            start = System.nanoTime();
+            bindingDecode(array);
+            binding = Math.min(binding, System.nanoTime() - start);
+        }
+        Item expected = legacyDecode(array)[SIZE - 1];
+        Item actual = bindingDecode(array)[SIZE - 1];
+        assertEquals(expected.name, actual.name);
+        assertEquals(expected.count, actual.count);
+        assertEquals(expected.time, actual.time);
+        assertEquals(expected.price, actual.price, 0);
+        System.out.println("decode " + SIZE + " objects: legacy=" + legacy / 1000 + "us, binding=" + binding / 1000 + "us");
+    }
+
+    @Test
+    public void compareEncode() throws Exception {
+        Item[] items = bindingDecode(corpus());
+        //预热
+        treeEncode(items);
+        Json.parseObject(Arrays.asList(items));
+        long tree = Long.MAX_VALUE;
+        long encoder = Long.MAX_VALUE;
+        List<Item> list = Arrays.asList(items);
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            treeEncode(items);
+            tree = Math.min(tree, System.nanoTime() - start);
+            start = System.nanoTime();
+            Json.parseObject(list);
+            encoder = Math.min(encoder, System.nanoTime() - start);
+        }
+        assertEquals(SIZE, new JSONArray(Json.parseObject(list)).length());
+        System.out.println("encode " + SIZE + " objects: JSONObject=" + tree / 1000 + "us, JsonEncoder=" + encoder / 1000 + "us");
+    }
+
+    /**
+     * 样本数据
+     *
+     * @return
+     * @throws Exception
+     */
+    private JSONArray corpus() throws Exception {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < SIZE; i++) {
+            JSONObject object = new JSONObject();
+            object.put("id", "id-" + i);
+            object.put("name", "name " + i);
+            object.put("count", i);
+            object.put("time", 1626000000000L + i);
+            object.put("price", i * 0.5);
+            object.put("rate", "0.75");
+            object.put("description", "description \"" + i + "\"\n");
+            object.put("url", "https://example.com/items/" + i);
+            object.put("extra", "ignored");
+            array.put(object);
+        }
+        return array;
+    }
+
+    private Item[] bindingDecode(JSONArray array) throws Exception {
+        Item[] items = new Item[array.length()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = Json.parseJSONObject(Item.class, array.getJSONObject(i));
+        }
+        return items;
+    }
+
+    /**
+     * 原来的解析方式：每个键扫描声明字段判断是否存在，再查找字段、setAccessible后按类型设置
+     *
+     * @param array 数据
+     * @return
+     * @throws Exception
+     */
+    private Item[] legacyDecode(JSONArray array) throws Exception {
+        Item[] items = new Item[array.length()];
+        for (int i = 0; i < items.length; i++) {
+            JSONObject object = array.getJSONObject(i);
+            Item item = Item.class.newInstance();
+            Iterator<String> iterator = object.keys();
+            while (iterator.hasNext()) {
+                String key = iterator.next();
+                if (!isDeclaredField(Item.class, key)) {
+                    continue;
+                }
+                Field field = Item.class.getDeclaredField(key);
+                field.setAccessible(true);
+                String value = String.valueOf(object.get(key));
+                Class<?> type = field.getType();
+                if (type == String.class) {
+                    field.set(item, value);
+                } else if (type == int.class) {
+                    field.set(item, Integer.parseInt(value));
+                } else if (type == long.class) {
+                    field.set(item, Long.parseLong(value));
+                } else if (type == double.class) {
+                    field.set(item, Double.parseDouble(value));
+                } else if (type == float.class) {
+                    field.set(item, Float.parseFloat(value));
+                }
+            }
+            items[i] = item;
+        }
+        return items;
+    }
+
+    private boolean isDeclaredField(Class<?> cls, String name) {
+        for (Field field : cls.getDeclaredFields()) {
+            if (field.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 先构建JSONObject再转字符串
+     *
+     * @param items 数据
+     * @return
+     * @throws Exception
+     */
+    private String treeEncode(Item[] items) throws Exception {
+        JSONArray array = new JSONArray();
+        for (Item item : items) {
+            JSONObject object = new JSONObject();
+            object.put("id", item.id);
+            object.put("name", item.name);
+            object.put("count", String.valueOf(item.count));
+            object.put("time", String.valueOf(item.time));
+            object.put("price", String.valueOf(item.price));
+            object.put("rate", String.valueOf(item.rate));
+            object.put("description", item.description);
+            object.put("url", item.url);
+            array.put(object);
+        }
+        return array.toString();
+    }
+
+}
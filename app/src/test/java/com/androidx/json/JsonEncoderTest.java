@@ -0,0 +1,140 @@
+package com.androidx.json;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Author: Relin
+ * Describe:Json写入器的转义和结构测试，生成的字符串用org.json解析回来验证。
+ * Date:2021/7/24 15:20
+ */
+public class JsonEncoderTest {
+
+    public static class Note {
+
+        private String text;
+        private List<String> tags;
+    }
+
+    @Test
+    public void escapesQuotesAndBackslash() throws Exception {
+        assertEquals("\"a\\\"b\\\\c/d\"", string("a\"b\\c/d"));
+    }
+
+    @Test
+    public void escapesShortControlCharacters() throws Exception {
+        assertEquals("\"\\t\\b\\n\\r\\f\"", string("\t\b\n\r\f"));
+    }
+
+    @Test
+    public void escapesOtherControlCharactersAsUnicode() throws Exception {
+        assertEquals("\"\\u0000\\u0001\\u001f\"", string("\u0000\u0001\u001f"));
+    }
+
+    @Test
+    public void escapesLineAndParagraphSeparators() throws Exception {
+        assertEquals("\"a\\u2028b\\u2029c\"", string("a\u2028b\u2029c"));
+    }
+
+    @Test
+    public void keepsUnicodeAndSurrogatePairs() throws Exception {
+        assertEquals("\"中文 é \uD83D\uDE00\"", string("中文 é \uD83D\uDE00"));
+    }
+
+    @Test
+    public void plainStringIsCopied() throws Exception {
+        assertEquals("\"\"", string(""));
+        assertEquals("\"plain text 123\"", string("plain text 123"));
+    }
+
+    @Test
+    public void escapesNames() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        new JsonEncoder(sb).beginObject().name("a\"b\n").value("v").endObject();
+        assertEquals("{\"a\\\"b\\n\":\"v\"}", sb.toString());
+    }
+
+    @Test
+    public void allControlCharactersRoundTrip() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (char c = 0; c < 0x80; c++) {
+            text.append(c);
+        }
+        text.append("\u2028\u2029\u00ff\uffff");
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("text", text.toString());
+        JSONObject object = new JSONObject(Json.parseMap(map));
+        assertEquals(text.toString(), object.getString("text"));
+    }
+
+    @Test
+    public void mapKeepsRawJsonValues() throws Exception {
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("object", "{\"a\":1}");
+        map.put("array", "[1,2]");
+        map.put("text", "[not closed");
+        map.put("empty", null);
+        assertEquals("{\"object\":{\"a\":1},\"array\":[1,2],\"text\":\"[not closed\",\"empty\":\"\"}", Json.parseMap(map));
+    }
+
+    @Test
+    public void objectAndListValuesAreEscaped() throws Exception {
+        Note note = new Note();
+        note.text = "say \"hi\"\n";
+        note.tags = Arrays.asList("a\\b", null, "c\td");
+        String json = Json.parseObject(note);
+        assertEquals("{\"text\":\"say \\\"hi\\\"\\n\",\"tags\":[\"a\\\\b\",null,\"c\\td\"]}", json);
+        JSONObject object = new JSONObject(json);
+        assertEquals(note.text, object.getString("text"));
+        JSONArray tags = object.getJSONArray("tags");
+        assertEquals("a\\b", tags.getString(0));
+        assertEquals("c\td", tags.getString(2));
+    }
+
+    @Test
+    public void separatorsAcrossNesting() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        JsonEncoder encoder = new JsonEncoder(sb);
+        encoder.beginArray();
+        for (int i = 0; i < 20; i++) {
+            encoder.beginObject().name("i").value(String.valueOf(i)).name("a").beginArray().endArray().endObject();
+        }
+        encoder.nullValue().rawValue("1").endArray();
+        JSONArray array = new JSONArray(sb.toString());
+        assertEquals(22, array.length());
+        assertEquals("19", array.getJSONObject(19).getString("i"));
+        assertEquals("[]", Json.parseObject(new ArrayList<Object>()));
+        assertEquals("[]", Json.parseObject((List<?>) null));
+    }
+
+    @Test
+    public void deepNestingGrowsLevels() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        JsonEncoder encoder = new JsonEncoder(sb);
+        for (int i = 0; i < 40; i++) {
+            encoder.beginArray().value("v");
+        }
+        for (int i = 0; i < 40; i++) {
+            encoder.endArray();
+        }
+        JSONArray array = new JSONArray(sb.toString());
+        assertEquals(2, array.length());
+        assertEquals("v", array.getString(0));
+    }
+
+    private String string(String value) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        new JsonEncoder(sb).value(value);
+        return sb.toString();
+    }
+
+}
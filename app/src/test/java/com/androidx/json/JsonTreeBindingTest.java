@@ -0,0 +1,140 @@
+package com.androidx.json;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Author: Relin
+ * Describe:JSONObject树解析的绑定测试：嵌套列表、未知字段和类型不匹配，
+ * 流式解析{@link JsonDecoder}依赖android.util.JsonReader，放在androidTest中验证同样的规则。
+ * Date:2021/7/24 14:10
+ */
+public class JsonTreeBindingTest {
+
+    public static class Line {
+
+        private String sku;
+        private int quantity;
+        private List<String> tags;
+    }
+
+    public static class Order {
+
+        private String id;
+        private List<Line> lines;
+        private LinkedList<String> notes;
+        private List<List<String>> matrix;
+        private Line first;
+        private int count;
+        private long time;
+        private double total;
+    }
+
+    public static class Profile {
+
+        private String name;
+        private Map<String, String> extras;
+        private Set<String> labels;
+        private List<Line> lines;
+    }
+
+    @Test
+    public void nestedLists() throws Exception {
+        Order order = parse("{\"id\":\"o1\",\"lines\":[{\"sku\":\"a\",\"quantity\":2,\"tags\":[\"x\",\"y\"]},"
+                + "{\"sku\":\"b\",\"quantity\":\"3\",\"tags\":[]}],\"notes\":[\"n1\",null,\"\",\"n2\"],"
+                + "\"matrix\":[[\"1\",\"2\"],[]]}");
+        assertEquals("o1", order.id);
+        assertEquals(2, order.lines.size());
+        assertEquals("a", order.lines.get(0).sku);
+        assertEquals(2, order.lines.get(0).quantity);
+        assertEquals("[x, y]", order.lines.get(0).tags.toString());
+        assertEquals(3, order.lines.get(1).quantity);
+        assertEquals(0, order.lines.get(1).tags.size());
+        //声明的列表类型可以实例化时使用该类型，null和""不加入
+        assertTrue(order.notes instanceof LinkedList);
+        assertEquals("[n1, n2]", order.notes.toString());
+        //元素不是类时按字符串保存Json
+        assertEquals(2, order.matrix.size());
+        assertEquals("[\"1\",\"2\"]", String.valueOf(order.matrix.get(0)));
+        assertEquals("[]", String.valueOf(order.matrix.get(1)));
+    }
+
+    @Test
+    public void unknownKeysAreIgnored() throws Exception {
+        Order order = parse("{\"unknown\":{\"lines\":[1]},\"id\":\"o2\",\"extra\":[{\"id\":\"x\"}],\"flag\":true,\"count\":1}");
+        assertEquals("o2", order.id);
+        assertEquals(1, order.count);
+        assertNull(order.lines);
+    }
+
+    @Test
+    public void scalarAsObjectOrListIsEmpty() throws Exception {
+        Order order = parse("{\"first\":\"text\",\"lines\":\"text\"}");
+        assertNull(order.first);
+        assertEquals(0, order.lines.size());
+    }
+
+    @Test
+    public void objectAsStringField() throws Exception {
+        Order order = parse("{\"id\":{\"a\":1}}");
+        assertEquals("{\"a\":1}", order.id);
+    }
+
+    @Test
+    public void numbersFromStringsAndNull() throws Exception {
+        Order order = parse("{\"count\":\"7\",\"time\":\"123\",\"total\":\"1.5\"}");
+        assertEquals(7, order.count);
+        assertEquals(123, order.time);
+        assertEquals(1.5, order.total, 0);
+        order = parse("{\"count\":null,\"total\":null}");
+        assertEquals(0, order.count);
+        assertEquals(0, order.total, 0);
+    }
+
+    @Test
+    public void decimalForIntegerFieldThrows() throws Exception {
+        try {
+            parse("{\"count\":1.5}");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("count"));
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void textForNumberFieldThrows() throws Exception {
+        parse("{\"time\":\"abc\"}");
+    }
+
+    @Test
+    public void mapAndSetFieldsAreSkipped() throws Exception {
+        Profile profile = Json.parseJSONObject(Profile.class, new JSONObject("{\"name\":\"x\",\"extras\":{\"k\":\"v\"},\"labels\":[\"a\"]}"));
+        assertNotNull(profile);
+        assertEquals("x", profile.name);
+        assertNull(profile.extras);
+        assertNull(profile.labels);
+    }
+
+    @Test
+    public void mismatchedListElementsAreSkipped() throws Exception {
+        Profile profile = Json.parseJSONObject(Profile.class, new JSONObject("{\"lines\":[\"a\",1,true,[1],{\"sku\":\"b\"}]}"));
+        assertEquals(1, profile.lines.size());
+        assertEquals("b", profile.lines.get(0).sku);
+    }
+
+    private Order parse(String json) throws Exception {
+        return Json.parseJSONObject(Order.class, new JSONObject(json));
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.androidx.net;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Author: Relin
+ * Describe:连接复用基准，本地MockWebServer对比强制关闭连接和连接复用的请求耗时、连接数。
+ * Date:2021/7/22 20:10
+ */
+public class KeepAliveBenchmarkTest {
+
+    /**
+     * 每种模式的请求次数
+     */
+    private static final int REQUESTS = 50;
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void closeOpensOneSocketPerRequest() throws Exception {
+        Result result = run(false);
+        assertEquals(REQUESTS, result.sockets);
+    }
+
+    @Test
+    public void keepAliveReusesOneSocket() throws Exception {
+        Result result = run(true);
+        assertEquals(1, result.sockets);
+    }
+
+    @Test
+    public void compareLatency() throws Exception {
+        //预热
+        run(true);
+        Result close = run(false);
+        Result keepAlive = run(true);
+        System.out.println("close: " + close);
+        System.out.println("keepAlive: " + keepAlive);
+    }
+
+    /**
+     * 顺序请求，统计耗时和服务端接受的连接数
+     *
+     * @param keepAlive 是否连接复用
+     * @return
+     * @throws Exception
+     */
+    private Result run(boolean keepAlive) throws Exception {
+        RequestOptions options = new RequestOptions(null).keepAlive(keepAlive);
+        OkClient.init(options);
+        OkHttpClient client = OkClient.newBuilder().protocols(options.protocols()).build();
+        for (int i = 0; i < REQUESTS; i++) {
+            server.enqueue(new MockResponse().setBody("{\"code\":200}"));
+        }
+        long total = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            okhttp3.Request.Builder builder = new okhttp3.Request.Builder().url(server.url("/api"));
+            OkHttp.addConnectionHeader(options, builder);
+            long start = System.nanoTime();
+            Response response = client.newCall(builder.build()).execute();
+            response.body().string();
+            total += System.nanoTime() - start;
+        }
+        //同一个连接上的请求序号从0开始递增，序号为0的请求表示新连接
+        int newSockets = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            if (server.takeRequest().getSequenceNumber() == 0) {
+                newSockets++;
+            }
+        }
+        client.connectionPool().evictAll();
+        Result result = new Result();
+        result.sockets = newSockets;
+        result.averageMicros = total / REQUESTS / 1000;
+        return result;
+    }
+
+    private static class Result {
+
+        int sockets;
+        long averageMicros;
+
+        @Override
+        public String toString() {
+            return "sockets=" + sockets + ", averageLatency=" + averageMicros + "us";
+        }
+    }
+
+}
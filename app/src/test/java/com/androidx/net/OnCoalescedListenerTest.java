@@ -0,0 +1,152 @@
+package com.androidx.net;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:合并请求取消的单元测试，取消部分回调时共享的网络请求继续执行
+ * Date:2021/7/22 21:40
+ */
+public class OnCoalescedListenerTest {
+
+    private static final String KEY = "key";
+    private static final String URL = "http://localhost/api";
+
+    private Map<String, OnCoalescedListener> inFlightCalls;
+    private okhttp3.Request request;
+
+    @Before
+    public void setUp() {
+        inFlightCalls = new HashMap<>();
+        request = new okhttp3.Request.Builder().url(URL).build();
+    }
+
+    @Test
+    public void cancelLeaderPromotesFollower() throws Exception {
+        RecordListener leader = new RecordListener(Leader.class);
+        RecordListener follower = new RecordListener(Follower.class);
+        OnCoalescedListener coalesced = coalesce(leader);
+        assertTrue(coalesced.attach(follower));
+        Call call = new OkHttpClient().newCall(request);
+        coalesced.call(call);
+
+        coalesced.cancel("Leader");
+        assertFalse(call.isCanceled());
+        assertSame(coalesced, inFlightCalls.get(KEY));
+        assertEquals(1, leader.failures);
+
+        coalesced.onResponse(call, response("{}"));
+        assertEquals(0, leader.responses);
+        assertEquals(1, follower.responses);
+        assertEquals(0, follower.failures);
+        assertNull(inFlightCalls.get(KEY));
+    }
+
+    @Test
+    public void cancelAllCancelsSharedCall() {
+        RecordListener first = new RecordListener(Page.class);
+        RecordListener second = new RecordListener(Page.class);
+        OnCoalescedListener coalesced = coalesce(first);
+        coalesced.attach(second);
+        Call call = new OkHttpClient().newCall(request);
+        coalesced.call(call);
+
+        coalesced.cancel("Page");
+        assertTrue(call.isCanceled());
+        assertNull(inFlightCalls.get(KEY));
+        assertEquals(1, first.failures);
+        assertEquals(1, second.failures);
+        assertFalse(coalesced.attach(new RecordListener(Page.class)));
+    }
+
+    @Test
+    public void cancelBeforeEnqueueCancelsLaterCall() {
+        OnCoalescedListener coalesced = coalesce(new RecordListener(Page.class));
+        coalesced.cancel("Page");
+        Call call = new OkHttpClient().newCall(request);
+        coalesced.call(call);
+        assertTrue(call.isCanceled());
+    }
+
+    @Test
+    public void cancelUnmatchedKeepsAll() {
+        RecordListener first = new RecordListener(Page.class);
+        OnCoalescedListener coalesced = coalesce(first);
+        Call call = new OkHttpClient().newCall(request);
+        coalesced.call(call);
+        coalesced.cancel("Other");
+        assertFalse(call.isCanceled());
+        assertEquals(0, first.failures);
+    }
+
+    private OnCoalescedListener coalesce(OnOkHttpListener leader) {
+        OnCoalescedListener coalesced = new OnCoalescedListener(KEY, inFlightCalls, leader);
+        inFlightCalls.put(KEY, coalesced);
+        return coalesced;
+    }
+
+    private Response response(String body) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(ResponseCode.OK)
+                .message("OK")
+                .body(okhttp3.ResponseBody.create(MediaType.parse("application/json"), body))
+                .build();
+    }
+
+    private static class Leader {
+    }
+
+    private static class Follower {
+    }
+
+    private static class Page {
+    }
+
+    /**
+     * 记录回调次数，不投递到主线程
+     */
+    private static class RecordListener extends OnOkHttpListener {
+
+        int failures;
+        int responses;
+
+        RecordListener(Class tag) {
+            super(null, new RequestParams(tag), URL, null);
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            failures++;
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            responses++;
+        }
+
+        @Override
+        public void onResponse(Call call, Response response, String responseBody) {
+            responses++;
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.androidx.net;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:请求配置的单元测试，修改线程数量时关闭之前创建的连接池，不关闭外部设置的连接池
+ * Date:2021/7/23 11:05
+ */
+public class RequestOptionsTest {
+
+    @Test
+    public void threadNumShutsDownCreatedPool() {
+        RequestOptions options = new RequestOptions(null);
+        ExecutorService pool = options.threadPool();
+        assertSame(pool, options.threadPool());
+        options.threadNum(2);
+        assertTrue(pool.isShutdown());
+        ExecutorService created = options.threadPool();
+        assertNotSame(pool, created);
+        assertFalse(created.isShutdown());
+        created.shutdown();
+    }
+
+    @Test
+    public void threadNumKeepsExternalPool() {
+        ExecutorService external = Executors.newSingleThreadExecutor();
+        RequestOptions options = new RequestOptions(null).threadPool(external);
+        assertSame(external, options.threadPool());
+        options.threadNum(2);
+        assertFalse(external.isShutdown());
+        options.threadPool().shutdown();
+        external.shutdown();
+    }
+
+    @Test
+    public void replacingCreatedPoolShutsItDown() {
+        RequestOptions options = new RequestOptions(null);
+        ExecutorService pool = options.threadPool();
+        ExecutorService external = Executors.newSingleThreadExecutor();
+        options.threadPool(external);
+        assertTrue(pool.isShutdown());
+        assertSame(external, options.threadPool());
+        external.shutdown();
+    }
+
+}
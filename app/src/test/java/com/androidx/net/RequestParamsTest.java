@@ -0,0 +1,71 @@
+package com.androidx.net;
+
+import org.junit.Test;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Author: Relin
+ * Describe:请求参数的单元测试，参数只能通过add/remove修改，修改后缓存的查询参数、地址和头部重新生成
+ * Date:2021/7/23 10:20
+ */
+public class RequestParamsTest {
+
+    private static final String URL = "http://localhost/api";
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void paramsIsReadOnly() {
+        RequestParams params = new RequestParams();
+        params.add("a", "1");
+        params.params().put("b", "2");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void headerIsReadOnly() {
+        RequestParams params = new RequestParams();
+        params.header().put("X-Test", "1");
+    }
+
+    @Test
+    public void filesIsNullWithoutFiles() {
+        assertNull(new RequestParams().files());
+    }
+
+    @Test
+    public void removeRebuildsQueryAndUrl() {
+        RequestParams params = new RequestParams();
+        params.add("a", "1");
+        params.add("b", "2");
+        HttpUrl url = params.httpUrl(URL);
+        assertEquals("a=1&b=2", params.query());
+        assertSame(url, params.httpUrl(URL));
+        params.remove("a");
+        assertEquals("b=2", params.query());
+        assertEquals("http://localhost/api?b=2", params.httpUrl(URL).toString());
+        params.remove("b");
+        assertEquals("", params.query());
+        assertEquals(URL, params.httpUrl(URL).toString());
+    }
+
+    @Test
+    public void removeHeaderRebuildsHeaders() {
+        Headers global = Headers.of("X-Global", "g");
+        RequestParams params = new RequestParams();
+        params.addHeader("X-Test", "1");
+        Headers headers = params.headers(global);
+        assertEquals("1", headers.get("X-Test"));
+        assertSame(headers, params.headers(global));
+        params.removeHeader("X-Test");
+        Headers rebuilt = params.headers(global);
+        assertNotSame(headers, rebuilt);
+        assertNull(rebuilt.get("X-Test"));
+        assertEquals("g", rebuilt.get("X-Global"));
+    }
+
+}
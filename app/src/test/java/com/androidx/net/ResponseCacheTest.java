@@ -0,0 +1,109 @@
+package com.androidx.net;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Headers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Author: Relin
+ * Describe:缓存键和按访问时间淘汰的单元测试
+ * Date:2021/7/22 21:05
+ */
+public class ResponseCacheTest {
+
+    @Test
+    public void keyIgnoresParamsOrder() {
+        RequestParams first = new RequestParams();
+        first.add("page", "1");
+        first.add("size", "20");
+        RequestParams second = new RequestParams();
+        second.add("size", "20");
+        second.add("page", "1");
+        assertEquals(ResponseCache.key("GET", "https://api.com/list", first), ResponseCache.key("GET", "https://api.com/list", second));
+    }
+
+    @Test
+    public void keyDiffersByMethodUrlAndParams() {
+        RequestParams params = new RequestParams();
+        params.add("page", "1");
+        RequestParams other = new RequestParams();
+        other.add("page", "2");
+        String key = ResponseCache.key("GET", "https://api.com/list", params);
+        assertNotEquals(key, ResponseCache.key("POST", "https://api.com/list", params));
+        assertNotEquals(key, ResponseCache.key("GET", "https://api.com/detail", params));
+        assertNotEquals(key, ResponseCache.key("GET", "https://api.com/list", other));
+    }
+
+    @Test
+    public void keyWithoutParamsEqualsEmptyParams() {
+        assertEquals(ResponseCache.key("GET", "https://api.com/list", null), ResponseCache.key("GET", "https://api.com/list", new RequestParams()));
+        assertEquals(32, ResponseCache.key("GET", "https://api.com/list", null).length());
+    }
+
+    @Test
+    public void keyDiffersByAuthHeader() {
+        RequestParams user = new RequestParams();
+        user.addHeader("Authorization", "Bearer a");
+        RequestParams other = new RequestParams();
+        other.addHeader("Authorization", "Bearer b");
+        assertNotEquals(ResponseCache.key("GET", "https://api.com/list", user), ResponseCache.key("GET", "https://api.com/list", other));
+        assertNotEquals(ResponseCache.key("GET", "https://api.com/list", user), ResponseCache.key("GET", "https://api.com/list", null));
+    }
+
+    @Test
+    public void keyIgnoresHeaderOrderAndNameCase() {
+        Headers first = new Headers.Builder().add("token", "t1").add("Accept", "json").build();
+        Headers second = new Headers.Builder().add("Accept", "json").add("Token", "t1").build();
+        assertEquals(ResponseCache.key("GET", "https://api.com/list", null, first), ResponseCache.key("GET", "https://api.com/list", null, second));
+        assertNotEquals(ResponseCache.key("GET", "https://api.com/list", null, first), ResponseCache.key("GET", "https://api.com/list", null, new Headers.Builder().add("token", "t2").add("Accept", "json").build()));
+    }
+
+    @Test
+    public void evictNothingWhenUnderLimit() {
+        assertNull(ResponseCache.evictAccessTime(rows(new long[]{100, 200}, new long[]{1, 2}), 0));
+        assertNull(ResponseCache.evictAccessTime(new ArrayList<Map<String, String>>(), 100));
+    }
+
+    @Test
+    public void evictOldestUntilEnoughFreed() {
+        List<Map<String, String>> rows = rows(new long[]{100, 200, 300, 400}, new long[]{10, 20, 30, 40});
+        assertEquals("10", ResponseCache.evictAccessTime(rows, 1));
+        assertEquals("10", ResponseCache.evictAccessTime(rows, 100));
+        assertEquals("20", ResponseCache.evictAccessTime(rows, 101));
+        assertEquals("30", ResponseCache.evictAccessTime(rows, 600));
+    }
+
+    @Test
+    public void evictAllWhenLimitExceedsTotal() {
+        List<Map<String, String>> rows = rows(new long[]{100, 200}, new long[]{10, 20});
+        assertEquals("20", ResponseCache.evictAccessTime(rows, 10000));
+    }
+
+    /**
+     * 按访问时间升序的缓存行
+     *
+     * @param sizes       大小
+     * @param accessTimes 访问时间
+     * @return
+     */
+    private List<Map<String, String>> rows(long[] sizes, long[] accessTimes) {
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (int i = 0; i < sizes.length; i++) {
+            Map<String, String> row = new HashMap<>();
+            row.put("size", String.valueOf(sizes[i]));
+            row.put("accessTime", String.valueOf(accessTimes[i]));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.androidx.upload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import okio.Buffer;
+import okio.ByteString;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Author: Relin
+ * Describe:分块上传内容测试，验证按offset和length从文件中读取的字节。
+ * Date:2021/7/23 21:10
+ */
+public class ChunkRequestBodyTest {
+
+    /**
+     * 文件大小
+     */
+    private static final int SIZE = 100 * 1024 + 7;
+
+    private File file;
+    private byte[] data;
+
+    @Before
+    public void setUp() throws Exception {
+        data = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = (byte) (i * 31 + 7);
+        }
+        file = File.createTempFile("chunk", ".bin");
+        FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(data);
+        outputStream.close();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void firstChunk() throws Exception {
+        assertChunk(0, 1024);
+    }
+
+    @Test
+    public void middleChunk() throws Exception {
+        assertChunk(4096 + 3, 8192);
+    }
+
+    @Test
+    public void lastPartialChunk() throws Exception {
+        assertChunk(SIZE - 7, 7);
+    }
+
+    @Test
+    public void emptyChunkAtEnd() throws Exception {
+        assertChunk(SIZE, 0);
+    }
+
+    @Test
+    public void chunksCoverWholeFile() throws Exception {
+        long chunkSize = 10 * 1024;
+        Buffer all = new Buffer();
+        for (long offset = 0; offset < SIZE; offset += chunkSize) {
+            ChunkRequestBody body = new ChunkRequestBody(file, offset, Math.min(chunkSize, SIZE - offset));
+            body.writeTo(all);
+        }
+        assertEquals(ByteString.of(data), all.readByteString());
+    }
+
+    /**
+     * 写出的内容和长度与文件对应区间一致
+     *
+     * @param offset 开始位置
+     * @param length 长度
+     * @throws Exception
+     */
+    private void assertChunk(long offset, long length) throws Exception {
+        ChunkRequestBody body = new ChunkRequestBody(file, offset, length);
+        assertEquals(length, body.contentLength());
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        assertEquals(length, buffer.size());
+        assertEquals(ByteString.of(data, (int) offset, (int) length), buffer.readByteString());
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.androidx.upload;
+
+import com.androidx.net.OkClient;
+import com.androidx.net.RequestOptions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:分块上传的续传和重试测试，开始和5xx之后用HEAD查询服务器已经接收的大小，
+ * 从Upload-Offset继续上传，分块的Upload-Offset和Content-Range和文件内容对应。
+ * JVM上TextUtils.isEmpty()总是返回false，服务器的响应都带上Upload-Offset。
+ * Date:2021/7/25 14:20
+ */
+public class ChunkUploadTest {
+
+    /**
+     * 文件大小
+     */
+    private static final int SIZE = 10 * 1024;
+    /**
+     * 分块大小
+     */
+    private static final int CHUNK = 4 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private File file;
+    private byte[] data;
+
+    @Before
+    public void setUp() throws Exception {
+        OkClient.init(new RequestOptions(null));
+        server = new MockWebServer();
+        server.start();
+        data = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = (byte) (i * 31 + 7);
+        }
+        file = folder.newFile("chunk.bin");
+        FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(data);
+        outputStream.close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void resumesFromServerOffset() throws Exception {
+        server.enqueue(offset(4096));
+        server.enqueue(offset(8192));
+        server.enqueue(offset(SIZE).setBody("ok"));
+        Result result = run(3);
+        assertNull(result.failure);
+        assertEquals(200, result.response.code());
+        assertEquals("ok", result.response.body());
+        RecordedRequest head = server.takeRequest();
+        assertEquals("HEAD", head.getMethod());
+        String uploadId = head.getHeader(Uploader.HEADER_UPLOAD_ID);
+        assertNotNull(uploadId);
+        assertChunk(server.takeRequest(), uploadId, 4096, CHUNK);
+        assertChunk(server.takeRequest(), uploadId, 8192, SIZE - 8192);
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void continuesFromOffsetAcknowledgedByChunk() throws Exception {
+        server.enqueue(offset(0));
+        //服务器只写入了第一个分块的一部分
+        server.enqueue(offset(1000));
+        server.enqueue(offset(1000 + CHUNK));
+        server.enqueue(offset(1000 + 2 * CHUNK));
+        server.enqueue(offset(SIZE));
+        Result result = run(3);
+        assertNull(result.failure);
+        assertEquals(200, result.response.code());
+        String uploadId = server.takeRequest().getHeader(Uploader.HEADER_UPLOAD_ID);
+        assertChunk(server.takeRequest(), uploadId, 0, CHUNK);
+        assertChunk(server.takeRequest(), uploadId, 1000, CHUNK);
+        assertChunk(server.takeRequest(), uploadId, 1000 + CHUNK, CHUNK);
+        assertChunk(server.takeRequest(), uploadId, 1000 + 2 * CHUNK, SIZE - 1000 - 2 * CHUNK);
+        assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    public void retriesAfterServerError() throws Exception {
+        server.enqueue(offset(0));
+        server.enqueue(offset(0).setResponseCode(503));
+        //重试前重新查询，服务器已经接收了2048
+        server.enqueue(offset(2048));
+        server.enqueue(offset(2048 + CHUNK));
+        server.enqueue(offset(SIZE));
+        Result result = run(3);
+        assertNull(result.failure);
+        assertEquals(200, result.response.code());
+        RecordedRequest head = server.takeRequest();
+        String uploadId = head.getHeader(Uploader.HEADER_UPLOAD_ID);
+        assertChunk(server.takeRequest(), uploadId, 0, CHUNK);
+        RecordedRequest retryHead = server.takeRequest();
+        assertEquals("HEAD", retryHead.getMethod());
+        assertEquals(uploadId, retryHead.getHeader(Uploader.HEADER_UPLOAD_ID));
+        assertChunk(server.takeRequest(), uploadId, 2048, CHUNK);
+        assertChunk(server.takeRequest(), uploadId, 2048 + CHUNK, SIZE - 2048 - CHUNK);
+    }
+
+    @Test
+    public void serverErrorWithoutRetriesIsReturned() throws Exception {
+        server.enqueue(offset(0));
+        server.enqueue(offset(0).setResponseCode(503).setBody("busy"));
+        Result result = run(0);
+        assertNull(result.failure);
+        assertEquals(503, result.response.code());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    /**
+     * 带服务器已接收大小的响应
+     *
+     * @param offset 已接收大小
+     * @return
+     */
+    private MockResponse offset(long offset) {
+        return new MockResponse().setHeader(Uploader.HEADER_UPLOAD_OFFSET, String.valueOf(offset));
+    }
+
+    /**
+     * 验证分块请求的位置和内容
+     *
+     * @param request  请求
+     * @param uploadId 上传标识
+     * @param offset   位置
+     * @param length   长度
+     */
+    private void assertChunk(RecordedRequest request, String uploadId, int offset, int length) {
+        assertEquals("POST", request.getMethod());
+        assertEquals(uploadId, request.getHeader(Uploader.HEADER_UPLOAD_ID));
+        assertEquals(String.valueOf(offset), request.getHeader(Uploader.HEADER_UPLOAD_OFFSET));
+        assertEquals(String.valueOf(SIZE), request.getHeader(Uploader.HEADER_UPLOAD_LENGTH));
+        assertEquals("bytes " + offset + "-" + (offset + length - 1) + "/" + SIZE, request.getHeader("Content-Range"));
+        assertTrue(request.getPath().contains("name=chunk.bin"));
+        assertArrayEquals(Arrays.copyOfRange(data, offset, offset + length), request.getBody().readByteArray());
+    }
+
+    /**
+     * 分块上传并等待结束
+     *
+     * @param maxRetries 重试次数
+     * @return 上传结果
+     * @throws Exception
+     */
+    private Result run(int maxRetries) throws Exception {
+        final Result result = new Result();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Uploader.Builder builder = new Uploader.Builder()
+                .url(server.url("/upload").toString())
+                .file(file)
+                .chunkSize(CHUNK)
+                .maxRetries(maxRetries);
+        //Handler在JVM上不能切换线程，直接在上传线程中记录结果
+        new Uploader(builder) {
+            @Override
+            public void onUploadProgress(UploadResponse response, long max, long progress) {
+
+            }
+
+            @Override
+            public void onUploadFailure(UploadResponse response, IOException e) {
+                result.failure = e;
+                latch.countDown();
+            }
+
+            @Override
+            public void onUploadResponse(UploadResponse response) {
+                result.response = response;
+                latch.countDown();
+            }
+        };
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        return result;
+    }
+
+    /**
+     * 上传结果
+     */
+    private static class Result {
+
+        volatile UploadResponse response;
+        volatile IOException failure;
+
+    }
+
+}
@@ -0,0 +1,308 @@
+package com.androidx.upload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:批量上传的单元测试，压缩和上传替换为延时任务，
+ * 主线程使用单线程池代替，验证上传顺序、压缩和上传的并发限制以及取消。
+ * Date:2021/7/24 10:30
+ */
+public class UploadPipelineTest {
+
+    /**
+     * 等待结束的时间，单位秒
+     */
+    private static final long TIMEOUT = 10;
+
+    private final List<File> files = new ArrayList<>();
+    private ExecutorService main;
+    private ScheduledExecutorService server;
+
+    @Before
+    public void setUp() {
+        main = Executors.newSingleThreadExecutor();
+        server = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        main.shutdownNow();
+        server.shutdownNow();
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void singleCompressThreadKeepsInputOrder() throws Exception {
+        Result result = new Result();
+        TestPipeline pipeline = pipeline(1, 1, 5, result);
+        pipeline.compressMillis = new long[]{30, 5, 20, 1, 10};
+        run(pipeline, result);
+        assertEquals(5, result.succeed);
+        assertEquals(0, result.failed);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), pipeline.uploaded);
+    }
+
+    @Test
+    public void uploadsStartInCompressCompletionOrder() throws Exception {
+        Result result = new Result();
+        TestPipeline pipeline = pipeline(2, 2, 3, result);
+        pipeline.compressMillis = new long[]{300, 10, 10};
+        run(pipeline, result);
+        assertEquals(3, result.succeed);
+        assertEquals(Arrays.asList(1, 2, 0), pipeline.uploaded);
+    }
+
+    @Test
+    public void compressAndUploadLimits() throws Exception {
+        Result result = new Result();
+        TestPipeline pipeline = pipeline(2, 3, 10, result);
+        pipeline.compressMillis = new long[]{20, 20, 20, 20, 20, 20, 20, 20, 20, 20};
+        pipeline.uploadMillis = 80;
+        run(pipeline, result);
+        assertEquals(10, result.succeed);
+        assertEquals(10, pipeline.uploaded.size());
+        assertEquals(2, pipeline.maxCompressing.get());
+        assertEquals(3, pipeline.maxUploading);
+        //第k个文件上传时压缩第k+1个文件
+        assertTrue(pipeline.overlapped.get());
+    }
+
+    @Test
+    public void cancelInterruptsCompressAndFailsPendingFiles() throws Exception {
+        Result result = new Result();
+        TestPipeline pipeline = pipeline(1, 1, 4, result);
+        pipeline.block = new CountDownLatch(1);
+        start(pipeline);
+        assertTrue(pipeline.compressStarted.await(TIMEOUT, TimeUnit.SECONDS));
+        cancel(pipeline);
+        assertTrue(result.completed.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(0, result.succeed);
+        assertEquals(4, result.failed);
+        assertEquals(4, result.failures.size());
+        assertTrue(pipeline.interrupted.get());
+        assertTrue(pipeline.uploaded.isEmpty());
+    }
+
+    @Test
+    public void cancelKeepsStartedUpload() throws Exception {
+        Result result = new Result();
+        TestPipeline pipeline = pipeline(1, 1, 4, result);
+        pipeline.uploadMillis = 300;
+        pipeline.uploadStarted = new CountDownLatch(1);
+        start(pipeline);
+        assertTrue(pipeline.uploadStarted.await(TIMEOUT, TimeUnit.SECONDS));
+        cancel(pipeline);
+        assertTrue(result.completed.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(1, result.succeed);
+        assertEquals(3, result.failed);
+        assertEquals(Collections.singletonList(0), pipeline.uploaded);
+    }
+
+    /**
+     * 创建批量上传和源文件
+     *
+     * @param compressThreads 压缩线程数
+     * @param uploadThreads   同时上传的文件数
+     * @param count           文件数量
+     * @param result          上传结果
+     * @return
+     */
+    private TestPipeline pipeline(int compressThreads, int uploadThreads, int count, Result result) throws IOException {
+        for (int i = 0; i < count; i++) {
+            File file = File.createTempFile("pipeline", ".bin");
+            FileOutputStream outputStream = new FileOutputStream(file);
+            outputStream.write(new byte[1024]);
+            outputStream.close();
+            files.add(file);
+        }
+        UploadPipeline.Builder builder = new UploadPipeline.Builder(null)
+                .url("http://localhost/upload")
+                .compressThreads(compressThreads)
+                .uploadThreads(uploadThreads)
+                .listener(result);
+        TestPipeline pipeline = new TestPipeline(builder);
+        pipeline.compressMillis = new long[count];
+        return pipeline;
+    }
+
+    /**
+     * 开始上传并等待结束
+     *
+     * @param pipeline 批量上传
+     * @param result   上传结果
+     */
+    private void run(TestPipeline pipeline, Result result) throws InterruptedException {
+        start(pipeline);
+        assertTrue(result.completed.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(files.size(), result.completedCount);
+    }
+
+    private void start(final TestPipeline pipeline) {
+        main.execute(new Runnable() {
+            @Override
+            public void run() {
+                pipeline.start(files);
+            }
+        });
+    }
+
+    private void cancel(final TestPipeline pipeline) {
+        main.execute(new Runnable() {
+            @Override
+            public void run() {
+                pipeline.cancel();
+            }
+        });
+    }
+
+    /**
+     * 压缩和上传替换为延时任务的批量上传
+     */
+    private class TestPipeline extends UploadPipeline {
+
+        /**
+         * 每个文件的压缩时间，单位毫秒
+         */
+        long[] compressMillis;
+        /**
+         * 上传时间，单位毫秒
+         */
+        long uploadMillis = 10;
+        /**
+         * 不为null时压缩一直等待，直到被中断
+         */
+        CountDownLatch block;
+        final CountDownLatch compressStarted = new CountDownLatch(1);
+        CountDownLatch uploadStarted;
+        final AtomicInteger compressing = new AtomicInteger();
+        final AtomicInteger maxCompressing = new AtomicInteger();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        /**
+         * 正在上传的数量，只在主线程修改
+         */
+        volatile int uploading;
+        int maxUploading;
+        /**
+         * 开始上传的文件序号
+         */
+        final List<Integer> uploaded = Collections.synchronizedList(new ArrayList<Integer>());
+
+        TestPipeline(Builder builder) {
+            super(builder);
+        }
+
+        @Override
+        protected File compress(File source, int index) throws InterruptedException {
+            int count = compressing.incrementAndGet();
+            if (count > maxCompressing.get()) {
+                maxCompressing.set(count);
+            }
+            if (uploading > 0) {
+                overlapped.set(true);
+            }
+            compressStarted.countDown();
+            try {
+                if (block != null) {
+                    block.await();
+                }
+                Thread.sleep(compressMillis[index]);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            } finally {
+                compressing.decrementAndGet();
+            }
+            return null;
+        }
+
+        @Override
+        protected void post(Runnable runnable) {
+            main.execute(runnable);
+        }
+
+        @Override
+        protected void upload(UploadParams params, final OnUploadListener listener) {
+            File file = params.getFileParams().get("file");
+            uploaded.add(files.indexOf(file));
+            uploading++;
+            maxUploading = Math.max(maxUploading, uploading);
+            if (uploadStarted != null) {
+                uploadStarted.countDown();
+            }
+            server.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    post(new Runnable() {
+                        @Override
+                        public void run() {
+                            uploading--;
+                            UploadResponse response = new UploadResponse();
+                            response.setCode(200);
+                            listener.onUploadResponse(response);
+                        }
+                    });
+                }
+            }, uploadMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 上传结果
+     */
+    private static class Result implements OnUploadPipelineListener {
+
+        final CountDownLatch completed = new CountDownLatch(1);
+        final List<IOException> failures = new ArrayList<>();
+        int completedCount;
+        int succeed;
+        int failed;
+
+        @Override
+        public void onPipelineProgress(int completed, int count, long progress, long contentLength) {
+            completedCount = completed;
+        }
+
+        @Override
+        public void onPipelineResponse(File source, UploadResponse response) {
+
+        }
+
+        @Override
+        public void onPipelineFailure(File source, IOException e) {
+            assertEquals("Canceled", e.getMessage());
+            failures.add(e);
+        }
+
+        @Override
+        public void onPipelineCompleted(int succeed, int failed) {
+            this.succeed = succeed;
+            this.failed = failed;
+            completed.countDown();
+        }
+    }
+
+}
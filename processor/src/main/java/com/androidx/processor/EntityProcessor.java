@@ -0,0 +1,683 @@
+package com.androidx.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Author: Relin
+ * Describe:com.androidx.annotation.Entity注解处理器，为实体类生成
+ * 类名_JsonAdapter、类名_CursorMapper、类名_ContentValuesBinder，
+ * 字段的转换规则和Json、SQLite的反射一致；
+ * 字段不能访问或者类不能直接创建实例时只提示，不生成对应的类，运行时使用反射。
+ * Date:2021/7/21 21:05
+ */
+@SupportedAnnotationTypes(EntityProcessor.ENTITY)
+public class EntityProcessor extends AbstractProcessor {
+
+    /**
+     * 实体类注解
+     */
+    static final String ENTITY = "com.androidx.annotation.Entity";
+
+    /**
+     * 转换类型 - String
+     */
+    private static final int KIND_STRING = 1;
+    /**
+     * 转换类型 - Character
+     */
+    private static final int KIND_CHARACTER = 2;
+    /**
+     * 转换类型 - int
+     */
+    private static final int KIND_INT = 3;
+    /**
+     * 转换类型 - long
+     */
+    private static final int KIND_LONG = 4;
+    /**
+     * 转换类型 - double
+     */
+    private static final int KIND_DOUBLE = 5;
+    /**
+     * 转换类型 - float
+     */
+    private static final int KIND_FLOAT = 6;
+    /**
+     * 转换类型 - 泛型列表
+     */
+    private static final int KIND_LIST = 7;
+    /**
+     * 转换类型 - 自定义对象
+     */
+    private static final int KIND_OBJECT = 8;
+    /**
+     * 转换类型 - 其他基本类型
+     */
+    private static final int KIND_PRIMITIVE = 9;
+    /**
+     * 转换类型 - 其他泛型类型，例如Map、Set
+     */
+    private static final int KIND_GENERIC = 10;
+
+    private Elements elements;
+    private Types types;
+    private Messager messager;
+    private Filer filer;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment env) {
+        super.init(env);
+        elements = env.getElementUtils();
+        types = env.getTypeUtils();
+        messager = env.getMessager();
+        filer = env.getFiler();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "@Entity can only be used on class", element);
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                if (!instantiable(type)) {
+                    messager.printMessage(Diagnostic.Kind.WARNING, type + " needs a non-private no-arg constructor, use reflection", type);
+                    continue;
+                }
+                List<Property> properties = properties(type);
+                try {
+                    if (attribute(type, annotation, "json")) {
+                        writeJsonAdapter(type, properties);
+                    }
+                    if (attribute(type, annotation, "sqlite")) {
+                        writeCursorMapper(type, properties);
+                        writeContentValuesBinder(type, properties);
+                    }
+                } catch (IOException e) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "write adapter failed " + e, type);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 注解的值
+     *
+     * @param type       实体类
+     * @param annotation 注解
+     * @param name       属性名
+     * @return
+     */
+    private boolean attribute(TypeElement type, TypeElement annotation, String name) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (!types.isSameType(mirror.getAnnotationType(), annotation.asType())) {
+                continue;
+            }
+            Map<? extends ExecutableElement, ? extends AnnotationValue> values = elements.getElementValuesWithDefaults(mirror);
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals(name)) {
+                    return Boolean.TRUE.equals(entry.getValue().getValue());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 是否可以在同一个包中直接new
+     *
+     * @param type 实体类
+     * @return
+     */
+    private boolean instantiable(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            return false;
+        }
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 实体类声明的字段，不包括static、transient字段
+     *
+     * @param type 实体类
+     * @return
+     */
+    private List<Property> properties(TypeElement type) {
+        List<Property> properties = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            properties.add(new Property(type, field));
+        }
+        return properties;
+    }
+
+    /**
+     * 生成Json适配器
+     *
+     * @param type       实体类
+     * @param properties 字段
+     * @throws IOException
+     */
+    private void writeJsonAdapter(TypeElement type, List<Property> properties) throws IOException {
+        for (Property property : properties) {
+            //和反射一致，其他基本类型和其他泛型类型不解析
+            boolean write = property.kind != KIND_PRIMITIVE && property.kind != KIND_GENERIC;
+            if (!check(type, property, true, write, "_JsonAdapter")) {
+                return;
+            }
+        }
+        String entity = type.getQualifiedName().toString();
+        StringBuilder sb = header(type, "com.androidx.json.JsonAdapter", "_JsonAdapter");
+        sb.append("    @Override\n");
+        sb.append("    public ").append(entity).append(" read(android.util.JsonReader reader) throws java.io.IOException {\n");
+        sb.append("        ").append(entity).append(" bean = new ").append(entity).append("();\n");
+        sb.append("        reader.beginObject();\n");
+        sb.append("        while (reader.hasNext()) {\n");
+        sb.append("            switch (reader.nextName()) {\n");
+        for (Property property : properties) {
+            sb.append("                case ").append(literal(property.name)).append(":\n");
+            String value = null;
+            String string = "com.androidx.json.JsonDecoder.readString(reader)";
+            switch (property.kind) {
+                case KIND_STRING:
+                    value = string;
+                    break;
+                case KIND_CHARACTER:
+                    value = "com.androidx.json.JsonDecoder.toCharacter(" + string + ")";
+                    break;
+                case KIND_INT:
+                    value = "com.androidx.json.JsonDecoder.toInt(" + literal(property.name) + ", " + string + ")";
+                    break;
+                case KIND_LONG:
+                    value = "com.androidx.json.JsonDecoder.toLong(" + literal(property.name) + ", " + string + ")";
+                    break;
+                case KIND_DOUBLE:
+                    value = "com.androidx.json.JsonDecoder.toDouble(" + string + ")";
+                    break;
+                case KIND_FLOAT:
+                    value = "com.androidx.json.JsonDecoder.toFloat(" + string + ")";
+                    break;
+                case KIND_LIST:
+                    value = "(" + property.typeName + ") (java.util.List) com.androidx.json.JsonDecoder.readList(reader, " + property.erasure + ".class, " + property.elementType + ".class)";
+                    break;
+                case KIND_OBJECT:
+                    value = "com.androidx.json.JsonDecoder.readObject(reader, " + property.erasure + ".class)";
+                    break;
+                default:
+                    break;
+            }
+            if (value == null) {
+                //和反射一致，其他基本类型不解析
+                sb.append("                    reader.skipValue();\n");
+            } else {
+                sb.append("                    ").append(property.write("bean", value)).append(";\n");
+            }
+            sb.append("                    break;\n");
+        }
+        sb.append("                default:\n");
+        sb.append("                    reader.skipValue();\n");
+        sb.append("                    break;\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        reader.endObject();\n");
+        sb.append("        return bean;\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    public void write(com.androidx.json.JsonEncoder encoder, ").append(entity).append(" value) throws java.io.IOException {\n");
+        sb.append("        encoder.beginObject();\n");
+        for (Property property : properties) {
+            String name = "        encoder.name(" + literal(property.name) + ")";
+            switch (property.kind) {
+                case KIND_STRING:
+                case KIND_CHARACTER:
+                case KIND_INT:
+                case KIND_LONG:
+                case KIND_DOUBLE:
+                case KIND_FLOAT:
+                case KIND_PRIMITIVE:
+                    sb.append(name).append(".value(String.valueOf(").append(property.read("value")).append("));\n");
+                    break;
+                case KIND_LIST:
+                    sb.append(name).append(".list(").append(property.read("value")).append(");\n");
+                    break;
+                case KIND_GENERIC:
+                    sb.append(name).append(".generic(").append(property.read("value")).append(");\n");
+                    break;
+                case KIND_OBJECT:
+                    sb.append(name).append(".object(").append(property.read("value")).append(");\n");
+                    break;
+                default:
+                    break;
+            }
+        }
+        sb.append("        encoder.endObject();\n");
+        sb.append("    }\n\n");
+        sb.append("}\n");
+        write(type, "_JsonAdapter", sb);
+    }
+
+    /**
+     * 生成查询转换
+     *
+     * @param type       实体类
+     * @param properties 字段
+     * @throws IOException
+     */
+    private void writeCursorMapper(TypeElement type, List<Property> properties) throws IOException {
+        List<Property> columns = new ArrayList<>();
+        for (Property property : properties) {
+            if (cursorGetter(property) != null) {
+                if (!check(type, property, false, true, "_CursorMapper")) {
+                    return;
+                }
+                columns.add(property);
+            }
+        }
+        String entity = type.getQualifiedName().toString();
+        StringBuilder sb = header(type, "com.androidx.sqlite.CursorMapper", "_CursorMapper");
+        sb.append("    @Override\n");
+        sb.append("    public ").append(entity).append(" map(android.database.Cursor cursor) {\n");
+        sb.append("        ").append(entity).append(" bean = new ").append(entity).append("();\n");
+        if (!columns.isEmpty()) {
+            sb.append("        int index;\n");
+        }
+        for (Property property : columns) {
+            sb.append("        index = cursor.getColumnIndex(").append(literal(property.name)).append(");\n");
+            sb.append("        if (index != -1) {\n");
+            sb.append("            ").append(property.write("bean", "cursor." + cursorGetter(property) + "(index)")).append(";\n");
+            sb.append("        }\n");
+        }
+        sb.append("        return bean;\n");
+        sb.append("    }\n\n");
+        sb.append("}\n");
+        write(type, "_CursorMapper", sb);
+    }
+
+    /**
+     * 查询时读取字段的方法，和反射一致只支持String、long、int、float、double
+     *
+     * @param property 字段
+     * @return 不支持返回null
+     */
+    private String cursorGetter(Property property) {
+        switch (property.kind) {
+            case KIND_STRING:
+                return "getString";
+            case KIND_LONG:
+                return "getLong";
+            case KIND_INT:
+                return "getInt";
+            case KIND_FLOAT:
+                return "getFloat";
+            case KIND_DOUBLE:
+                return "getDouble";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 生成插入数据绑定，有List字段时反射会插入列表数据，不生成
+     *
+     * @param type       实体类
+     * @param properties 字段
+     * @throws IOException
+     */
+    private void writeContentValuesBinder(TypeElement type, List<Property> properties) throws IOException {
+        List<Property> columns = new ArrayList<>();
+        for (Property property : properties) {
+            if (property.erasure.equals("java.util.List")) {
+                messager.printMessage(Diagnostic.Kind.NOTE, type + "." + property.name + " is List, skip _ContentValuesBinder", property.field);
+                return;
+            }
+            if (binderColumn(property)) {
+                if (!check(type, property, true, false, "_ContentValuesBinder")) {
+                    return;
+                }
+                columns.add(property);
+            }
+        }
+        String entity = type.getQualifiedName().toString();
+        StringBuilder sb = header(type, "com.androidx.sqlite.ContentValuesBinder", "_ContentValuesBinder");
+        sb.append("    @Override\n");
+        sb.append("    public void bind(").append(entity).append(" obj, android.content.ContentValues values) {\n");
+        for (Property property : columns) {
+            String value = property.read("obj");
+            if (property.kind == KIND_CHARACTER) {
+                value = value + " == null ? null : " + value + ".toString()";
+            }
+            sb.append("        values.put(").append(literal(property.name)).append(", ").append(value).append(");\n");
+        }
+        sb.append("    }\n\n");
+        sb.append("}\n");
+        write(type, "_ContentValuesBinder", sb);
+    }
+
+    /**
+     * 插入时写入的字段，和反射一致支持String、Character、int、long、double、float、boolean、short
+     *
+     * @param property 字段
+     * @return
+     */
+    private boolean binderColumn(Property property) {
+        if (property.kind == KIND_PRIMITIVE) {
+            TypeKind kind = property.type.getKind();
+            return kind == TypeKind.BOOLEAN || kind == TypeKind.SHORT;
+        }
+        return property.kind != KIND_LIST && property.kind != KIND_GENERIC && property.kind != KIND_OBJECT;
+    }
+
+    /**
+     * 检查字段是否可以访问
+     *
+     * @param type     实体类
+     * @param property 字段
+     * @param read     是否需要读取
+     * @param write    是否需要设置
+     * @param suffix   生成的类名后缀
+     * @return
+     */
+    private boolean check(TypeElement type, Property property, boolean read, boolean write, String suffix) {
+        if ((read && property.getter == null) || (write && property.setter == null)) {
+            messager.printMessage(Diagnostic.Kind.WARNING, type + "." + property.name + " is not accessible, skip " + suffix + " and use reflection", property.field);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 生成类的开头
+     *
+     * @param type   实体类
+     * @param face   实现的接口
+     * @param suffix 类名后缀
+     * @return
+     */
+    private StringBuilder header(TypeElement type, String face, String suffix) {
+        StringBuilder sb = new StringBuilder();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        if (packageName.length() > 0) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("/**\n");
+        sb.append(" * Generated by EntityProcessor from ").append(type.getQualifiedName()).append(", do not edit.\n");
+        sb.append(" */\n");
+        sb.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        sb.append("public final class ").append(simpleName(type)).append(suffix);
+        sb.append(" implements ").append(face).append("<").append(type.getQualifiedName()).append("> {\n\n");
+        return sb;
+    }
+
+    /**
+     * 写入生成的类
+     *
+     * @param type   实体类
+     * @param suffix 类名后缀
+     * @param sb     源码
+     * @throws IOException
+     */
+    private void write(TypeElement type, String suffix, StringBuilder sb) throws IOException {
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String name = (packageName.length() > 0 ? packageName + "." : "") + simpleName(type) + suffix;
+        Writer writer = filer.createSourceFile(name, type).openWriter();
+        try {
+            writer.write(sb.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 不包括包名的二进制类名，内部类为Outer$Inner，运行时按Class.getName()+后缀查找
+     *
+     * @param type 实体类
+     * @return
+     */
+    private String simpleName(TypeElement type) {
+        String binaryName = elements.getBinaryName(type).toString();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        return packageName.length() > 0 ? binaryName.substring(packageName.length() + 1) : binaryName;
+    }
+
+    /**
+     * 字符串常量
+     *
+     * @param value 字符串
+     * @return
+     */
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * 首字母大写
+     *
+     * @param name 字段名
+     * @return
+     */
+    private static String capitalize(String name) {
+        return name.length() == 0 ? name : name.substring(0, 1).toUpperCase() + name.substring(1);
+    }
+
+    /**
+     * 实体类字段
+     */
+    private class Property {
+
+        /**
+         * 字段
+         */
+        final VariableElement field;
+        /**
+         * 字段名
+         */
+        final String name;
+        /**
+         * 字段类型
+         */
+        final TypeMirror type;
+        /**
+         * 字段类型的源码
+         */
+        final String typeName;
+        /**
+         * 擦除泛型后的类型
+         */
+        final String erasure;
+        /**
+         * 转换类型
+         */
+        final int kind;
+        /**
+         * 泛型列表的元素类型
+         */
+        final String elementType;
+        /**
+         * 读取的表达式，字段名或者get方法调用，不能读取时为null
+         */
+        final String getter;
+        /**
+         * 设置的字段名或者set方法名，不能设置时为null
+         */
+        final String setter;
+        /**
+         * 是否使用set方法
+         */
+        final boolean setterMethod;
+
+        Property(TypeElement owner, VariableElement field) {
+            this.field = field;
+            this.name = field.getSimpleName().toString();
+            this.type = field.asType();
+            this.typeName = type.toString();
+            this.erasure = types.erasure(type).toString();
+            String elementType = "java.lang.Object";
+            switch (type.getKind()) {
+                case INT:
+                    kind = KIND_INT;
+                    break;
+                case LONG:
+                    kind = KIND_LONG;
+                    break;
+                case DOUBLE:
+                    kind = KIND_DOUBLE;
+                    break;
+                case FLOAT:
+                    kind = KIND_FLOAT;
+                    break;
+                case BOOLEAN:
+                case SHORT:
+                case BYTE:
+                case CHAR:
+                    kind = KIND_PRIMITIVE;
+                    break;
+                default:
+                    List<? extends TypeMirror> arguments = type.getKind() == TypeKind.DECLARED ? ((DeclaredType) type).getTypeArguments() : new ArrayList<TypeMirror>();
+                    if (erasure.equals("java.lang.String")) {
+                        kind = KIND_STRING;
+                    } else if (erasure.equals("java.lang.Character")) {
+                        kind = KIND_CHARACTER;
+                    } else if (!arguments.isEmpty()) {
+                        //和反射一致，泛型参数不是普通类时为Object
+                        TypeMirror argument = arguments.get(0);
+                        if (argument.getKind() == TypeKind.DECLARED && ((DeclaredType) argument).getTypeArguments().isEmpty()) {
+                            elementType = types.erasure(argument).toString();
+                        }
+                        TypeMirror listType = types.erasure(elements.getTypeElement("java.util.List").asType());
+                        kind = types.isAssignable(types.erasure(type), listType) ? KIND_LIST : KIND_GENERIC;
+                    } else {
+                        kind = KIND_OBJECT;
+                    }
+                    break;
+            }
+            this.elementType = elementType;
+            Set<Modifier> modifiers = field.getModifiers();
+            boolean visible = !modifiers.contains(Modifier.PRIVATE);
+            //和反射一致，自定义对象优先使用public的get+首字母大写+其余小写方法
+            String getter = kind == KIND_OBJECT ? method(owner, "get" + (name.length() > 0 ? name.substring(0, 1).toUpperCase() : "") + (name.length() > 1 ? name.substring(1).toLowerCase() : ""), null, true) : null;
+            if (getter == null && visible) {
+                getter = name;
+            }
+            if (getter == null) {
+                getter = method(owner, "get" + capitalize(name), null, false);
+            }
+            if (getter == null && type.getKind() == TypeKind.BOOLEAN) {
+                getter = method(owner, "is" + capitalize(name), null, false);
+            }
+            this.getter = getter;
+            if (visible && !modifiers.contains(Modifier.FINAL)) {
+                this.setter = name;
+                this.setterMethod = false;
+            } else {
+                String setter = method(owner, "set" + capitalize(name), type, false);
+                this.setter = setter == null ? null : "set" + capitalize(name);
+                this.setterMethod = setter != null;
+            }
+        }
+
+        /**
+         * 查找方法
+         *
+         * @param owner     实体类
+         * @param name      方法名
+         * @param parameter 参数类型，为null时查找get方法
+         * @param publicly  是否只查找public方法，包括父类
+         * @return 方法调用，没有返回null
+         */
+        private String method(TypeElement owner, String name, TypeMirror parameter, boolean publicly) {
+            List<? extends Element> members = publicly ? elements.getAllMembers(owner) : owner.getEnclosedElements();
+            for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+                Set<Modifier> modifiers = method.getModifiers();
+                if (!method.getSimpleName().contentEquals(name) || modifiers.contains(Modifier.STATIC)) {
+                    continue;
+                }
+                if (publicly ? !modifiers.contains(Modifier.PUBLIC) : modifiers.contains(Modifier.PRIVATE)) {
+                    continue;
+                }
+                List<? extends VariableElement> parameters = method.getParameters();
+                if (parameter == null && parameters.isEmpty() && types.isAssignable(method.getReturnType(), type)) {
+                    return name + "()";
+                }
+                if (parameter != null && parameters.size() == 1 && types.isSameType(parameters.get(0).asType(), parameter)) {
+                    return name;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 读取字段的表达式
+         *
+         * @param target 对象变量名
+         * @return
+         */
+        String read(String target) {
+            return target + "." + getter;
+        }
+
+        /**
+         * 设置字段的语句
+         *
+         * @param target 对象变量名
+         * @param value  值表达式
+         * @return
+         */
+        String write(String target, String value) {
+            return setterMethod ? target + "." + setter + "(" + value + ")" : target + "." + setter + " = " + value;
+        }
+
+    }
+
+}
@@ -0,0 +1,314 @@
+package com.androidx.processor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Author: Relin
+ * Describe:注解处理器测试，用javac对示例实体类执行{@link EntityProcessor}，检查生成的源码，
+ * 生成的类和app模块、Android中用到的接口一起编译，保证生成的源码可以编译。
+ * Date:2021/7/24 16:30
+ */
+public class EntityProcessorTest {
+
+    /**
+     * 注解，和app模块中的com.androidx.annotation.Entity一致
+     */
+    private static final String ENTITY = "package com.androidx.annotation;\n"
+            + "import java.lang.annotation.*;\n"
+            + "@Target(ElementType.TYPE)\n"
+            + "@Retention(RetentionPolicy.CLASS)\n"
+            + "public @interface Entity {\n"
+            + "    boolean json() default true;\n"
+            + "    boolean sqlite() default true;\n"
+            + "}\n";
+
+    /**
+     * 生成的类用到的app模块和Android接口，只保留方法签名
+     */
+    private static final String[][] STUBS = {
+            {"android.util.JsonReader", "package android.util;\n"
+                    + "public class JsonReader {\n"
+                    + "    public void beginObject() {}\n"
+                    + "    public void endObject() {}\n"
+                    + "    public boolean hasNext() { return false; }\n"
+                    + "    public String nextName() { return null; }\n"
+                    + "    public void skipValue() {}\n"
+                    + "}\n"},
+            {"android.database.Cursor", "package android.database;\n"
+                    + "public interface Cursor {\n"
+                    + "    int getColumnIndex(String name);\n"
+                    + "    String getString(int index);\n"
+                    + "    int getInt(int index);\n"
+                    + "    long getLong(int index);\n"
+                    + "    float getFloat(int index);\n"
+                    + "    double getDouble(int index);\n"
+                    + "}\n"},
+            {"android.content.ContentValues", "package android.content;\n"
+                    + "public final class ContentValues {\n"
+                    + "    public void put(String key, String value) {}\n"
+                    + "    public void put(String key, Integer value) {}\n"
+                    + "    public void put(String key, Long value) {}\n"
+                    + "    public void put(String key, Float value) {}\n"
+                    + "    public void put(String key, Double value) {}\n"
+                    + "    public void put(String key, Boolean value) {}\n"
+                    + "    public void put(String key, Short value) {}\n"
+                    + "}\n"},
+            {"com.androidx.json.JsonAdapter", "package com.androidx.json;\n"
+                    + "public interface JsonAdapter<T> {\n"
+                    + "    T read(android.util.JsonReader reader) throws java.io.IOException;\n"
+                    + "    void write(JsonEncoder encoder, T value) throws java.io.IOException;\n"
+                    + "}\n"},
+            {"com.androidx.json.JsonEncoder", "package com.androidx.json;\n"
+                    + "public class JsonEncoder {\n"
+                    + "    public JsonEncoder beginObject() throws java.io.IOException { return this; }\n"
+                    + "    public JsonEncoder endObject() throws java.io.IOException { return this; }\n"
+                    + "    public JsonEncoder name(String name) throws java.io.IOException { return this; }\n"
+                    + "    public JsonEncoder value(String value) throws java.io.IOException { return this; }\n"
+                    + "    public JsonEncoder object(Object obj) throws java.io.IOException { return this; }\n"
+                    + "    public JsonEncoder list(java.util.List<?> list) throws java.io.IOException { return this; }\n"
+                    + "    public JsonEncoder generic(Object value) throws java.io.IOException { return this; }\n"
+                    + "}\n"},
+            {"com.androidx.json.JsonDecoder", "package com.androidx.json;\n"
+                    + "public class JsonDecoder {\n"
+                    + "    public static <T> T readObject(android.util.JsonReader reader, Class<T> cls) throws java.io.IOException { return null; }\n"
+                    + "    public static <T> java.util.List<T> readList(android.util.JsonReader reader, Class<?> listType, Class<T> elementType) throws java.io.IOException { return null; }\n"
+                    + "    public static String readString(android.util.JsonReader reader) throws java.io.IOException { return null; }\n"
+                    + "    public static Character toCharacter(String value) { return null; }\n"
+                    + "    public static int toInt(String name, String value) { return 0; }\n"
+                    + "    public static long toLong(String name, String value) { return 0; }\n"
+                    + "    public static double toDouble(String value) { return 0; }\n"
+                    + "    public static float toFloat(String value) { return 0; }\n"
+                    + "}\n"},
+            {"com.androidx.sqlite.CursorMapper", "package com.androidx.sqlite;\n"
+                    + "public interface CursorMapper<T> {\n"
+                    + "    T map(android.database.Cursor cursor);\n"
+                    + "}\n"},
+            {"com.androidx.sqlite.ContentValuesBinder", "package com.androidx.sqlite;\n"
+                    + "public interface ContentValuesBinder<T> {\n"
+                    + "    void bind(T obj, android.content.ContentValues values);\n"
+                    + "}\n"}
+    };
+
+    /**
+     * 示例实体类
+     */
+    private static final String USER = "package sample;\n"
+            + "import com.androidx.annotation.Entity;\n"
+            + "import java.util.List;\n"
+            + "@Entity\n"
+            + "public class User {\n"
+            + "    static String TABLE = \"user\";\n"
+            + "    transient String cache;\n"
+            + "    String user_name;\n"
+            + "    Character grade;\n"
+            + "    int age;\n"
+            + "    long time;\n"
+            + "    double score;\n"
+            + "    float rate;\n"
+            + "    boolean vip;\n"
+            + "    List<String> tags;\n"
+            + "    java.util.Map<String, String> extras;\n"
+            + "    Address address;\n"
+            + "    private String secret;\n"
+            + "    public String getSecret() { return secret; }\n"
+            + "    public void setSecret(String secret) { this.secret = secret; }\n"
+            + "    @Entity(sqlite = false)\n"
+            + "    public static class Address {\n"
+            + "        String city;\n"
+            + "    }\n"
+            + "}\n";
+
+    /**
+     * 只有数据库支持的字段的实体类
+     */
+    private static final String ACCOUNT = "package sample;\n"
+            + "@com.androidx.annotation.Entity(json = false)\n"
+            + "public class Account {\n"
+            + "    String name;\n"
+            + "    Character level;\n"
+            + "    int age;\n"
+            + "    long time;\n"
+            + "    boolean vip;\n"
+            + "    short rank;\n"
+            + "    double balance;\n"
+            + "}\n";
+
+    /**
+     * 不能直接创建实例的实体类
+     */
+    private static final String HIDDEN = "package sample;\n"
+            + "@com.androidx.annotation.Entity\n"
+            + "public class Hidden {\n"
+            + "    private Hidden() {}\n"
+            + "    String name;\n"
+            + "}\n";
+
+    private File out;
+    private DiagnosticCollector<JavaFileObject> diagnostics;
+
+    @Before
+    public void setUp() throws Exception {
+        out = Files.createTempDirectory("processor").toFile();
+        diagnostics = new DiagnosticCollector<>();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("tests need a JDK", compiler);
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, Charset.forName("UTF-8"));
+        List<JavaFileObject> sources = new ArrayList<>();
+        sources.add(source("com.androidx.annotation.Entity", ENTITY));
+        for (String[] stub : STUBS) {
+            sources.add(source(stub[0], stub[1]));
+        }
+        sources.add(source("sample.User", USER));
+        sources.add(source("sample.Account", ACCOUNT));
+        sources.add(source("sample.Hidden", HIDDEN));
+        List<String> options = Arrays.asList("-s", out.getAbsolutePath(), "-d", out.getAbsolutePath());
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+        task.setProcessors(Collections.singletonList(new EntityProcessor()));
+        boolean success = task.call();
+        fileManager.close();
+        assertTrue(errors().toString(), success);
+    }
+
+    @After
+    public void tearDown() {
+        delete(out);
+    }
+
+    @Test
+    public void generatesAllAdapters() throws Exception {
+        assertTrue(generated("User_JsonAdapter").exists());
+        assertTrue(generated("User_CursorMapper").exists());
+        //有List字段时不生成插入绑定
+        assertFalse(generated("User_ContentValuesBinder").exists());
+        //json = false
+        assertFalse(generated("Account_JsonAdapter").exists());
+        assertTrue(generated("Account_CursorMapper").exists());
+        assertTrue(generated("Account_ContentValuesBinder").exists());
+        //内部类按二进制类名生成，运行时按Class.getName()+后缀查找
+        assertTrue(generated("User$Address_JsonAdapter").exists());
+        //生成的类和实体类一起编译通过
+        assertTrue(new File(out, "sample" + File.separator + "User_JsonAdapter.class").exists());
+        //sqlite = false
+        assertFalse(generated("User$Address_CursorMapper").exists());
+        assertFalse(generated("User$Address_ContentValuesBinder").exists());
+    }
+
+    @Test
+    public void jsonAdapterSource() throws Exception {
+        String source = read("User_JsonAdapter");
+        assertTrue(source.startsWith("package sample;"));
+        assertTrue(source.contains("public final class User_JsonAdapter implements com.androidx.json.JsonAdapter<sample.User>"));
+        assertTrue(source.contains("case \"user_name\":"));
+        assertTrue(source.contains("com.androidx.json.JsonDecoder.toCharacter("));
+        assertTrue(source.contains("com.androidx.json.JsonDecoder.toInt(\"age\", "));
+        assertTrue(source.contains("com.androidx.json.JsonDecoder.readList(reader, java.util.List.class, java.lang.String.class)"));
+        assertTrue(source.contains("com.androidx.json.JsonDecoder.readObject(reader, sample.User.Address.class)"));
+        //private字段通过get/set方法访问
+        assertTrue(source.contains("setSecret("));
+        assertTrue(source.contains("getSecret()"));
+        //字符字段和其他标量一样写为字符串
+        assertTrue(source.contains("encoder.name(\"grade\").value(String.valueOf("));
+        assertTrue(source.contains("encoder.name(\"tags\").list("));
+        //Map等其他泛型类型解析时跳过，生成字符串时写为对象
+        assertTrue(source.contains("case \"extras\":\n                    reader.skipValue();"));
+        assertTrue(source.contains("encoder.name(\"extras\").generic("));
+        assertTrue(source.contains("encoder.name(\"address\").object("));
+        //static、transient字段不处理
+        assertFalse(source.contains("\"TABLE\""));
+        assertFalse(source.contains("\"cache\""));
+    }
+
+    @Test
+    public void sqliteSources() throws Exception {
+        String mapper = read("User_CursorMapper");
+        assertTrue(mapper.contains("implements com.androidx.sqlite.CursorMapper<sample.User>"));
+        assertTrue(mapper.contains("cursor.getColumnIndex(\"user_name\")"));
+        assertTrue(mapper.contains("bean.setSecret(cursor.getString(index))"));
+        String binder = read("Account_ContentValuesBinder");
+        assertTrue(binder.contains("implements com.androidx.sqlite.ContentValuesBinder<sample.Account>"));
+        assertTrue(binder.contains("values.put(\"name\", obj.name);"));
+        assertTrue(binder.contains("values.put(\"level\", obj.level == null ? null : obj.level.toString());"));
+        assertTrue(binder.contains("values.put(\"vip\", obj.vip);"));
+        assertTrue(binder.contains("values.put(\"rank\", obj.rank);"));
+    }
+
+    @Test
+    public void notInstantiableFallsBackToReflection() throws Exception {
+        assertFalse(generated("Hidden_JsonAdapter").exists());
+        boolean warned = false;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.WARNING && diagnostic.getMessage(null).contains("sample.Hidden")) {
+                warned = true;
+            }
+        }
+        assertTrue(warned);
+    }
+
+    @Test
+    public void noErrors() {
+        assertEquals(Collections.emptyList(), errors());
+    }
+
+    private List<String> errors() {
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.toString());
+            }
+        }
+        return errors;
+    }
+
+    private File generated(String simpleName) {
+        return new File(out, "sample" + File.separator + simpleName + ".java");
+    }
+
+    private String read(String simpleName) throws IOException {
+        return new String(Files.readAllBytes(generated(simpleName).toPath()), Charset.forName("UTF-8"));
+    }
+
+    private static JavaFileObject source(String name, final String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+}